@@ -0,0 +1,80 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.ExpenseTrackerModel;
+import model.StorageMode;
+import model.Transaction;
+import model.filter.AmountFilter;
+import model.filter.CategoryFilter;
+import model.filter.TransactionFilter;
+
+/**
+ * CategoryFilter and AmountFilter on ledgers of 10^3 to 10^7 rows, both
+ * through the model's indexes (filter(model), as the controller does) and
+ * as a plain scan of a list (filter(list)). The category filter matches a
+ * fifth of the rows and the amount filter about a tenth.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class FilterBenchmark {
+
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  public int rows;
+
+  @Param({"LIST", "COLUMNAR"})
+  public StorageMode storageMode;
+
+  private final TransactionFilter categoryFilter = new CategoryFilter("bills");
+  private final TransactionFilter amountFilter = new AmountFilter(900);
+  private ExpenseTrackerModel model;
+  private List<Transaction> list;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    model = Ledgers.fill(new ExpenseTrackerModel(storageMode), rows);
+    list = new ArrayList<>(model.getTransactions());
+    // build the deferred indexes outside the measurement
+    categoryFilter.filter(model);
+    amountFilter.filter(model);
+  }
+
+  @Benchmark
+  public List<Transaction> categoryFilterIndexed() {
+    return categoryFilter.filter(model);
+  }
+
+  @Benchmark
+  public List<Transaction> categoryFilterScan() {
+    return categoryFilter.filter(list);
+  }
+
+  @Benchmark
+  public List<Transaction> amountFilterIndexed() {
+    return amountFilter.filter(model);
+  }
+
+  @Benchmark
+  public List<Transaction> amountFilterScan() {
+    return amountFilter.filter(list);
+  }
+}
@@ -0,0 +1,68 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import model.ExpenseTrackerModel;
+import model.Transaction;
+
+/**
+ * Builds reproducible synthetic ledgers for the benchmarks. Amounts are
+ * uniformly distributed over (0, 1000] and categories cycle through the
+ * five valid ones, so every category filter matches a fifth of the rows.
+ */
+final class Ledgers {
+
+  static final String[] CATEGORIES = {"food", "travel", "bills", "entertainment", "other"};
+
+  private static final int BATCH_SIZE = 4096;
+
+  private Ledgers() {
+  }
+
+  /**
+   * Creates the given number of transactions from a fixed seed.
+   *
+   * @param count Number of transactions
+   * @param seed Seed of the amount sequence
+   * @return A new array of transactions
+   */
+  static Transaction[] transactions(int count, long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    Transaction[] result = new Transaction[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = new Transaction(amount(random), CATEGORIES[i % CATEGORIES.length]);
+    }
+    return result;
+  }
+
+  /**
+   * Adds the given number of synthetic transactions to a model in batches,
+   * so even 10^7 rows are loaded quickly.
+   *
+   * @param model The model to fill
+   * @param rows Number of transactions to add
+   * @return The model
+   */
+  static ExpenseTrackerModel fill(ExpenseTrackerModel model, int rows) {
+    SplittableRandom random = new SplittableRandom(42);
+    List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+    for (int i = 0; i < rows; i++) {
+      batch.add(new Transaction(amount(random), CATEGORIES[i % CATEGORIES.length]));
+      if (batch.size() == BATCH_SIZE) {
+        model.addAll(batch);
+        batch.clear();
+      }
+    }
+    model.addAll(batch);
+    return model;
+  }
+
+  /**
+   * Returns a random valid amount with two decimal places.
+   */
+  static double amount(SplittableRandom random) {
+    return (random.nextInt(100000) + 1) / 100.0;
+  }
+}
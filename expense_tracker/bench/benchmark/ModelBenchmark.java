@@ -0,0 +1,105 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.ExpenseTrackerModel;
+import model.StorageMode;
+import model.Transaction;
+
+/**
+ * Adding and removing single transactions on a model that already holds
+ * a given number of rows.
+ *
+ * Both operations change the model's size, so each measurement is a
+ * single shot over a batch of BATCH operations on a model rebuilt before
+ * every iteration; the reported time is for the whole batch. Removal
+ * visits the transactions in shuffled order so tombstoning and compaction
+ * are exercised as in real use.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = ModelBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = ModelBenchmark.BATCH)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ModelBenchmark {
+
+  static final int BATCH = 100000;
+
+  @Param({"1000", "100000", "1000000"})
+  public int rows;
+
+  @Param({"LIST", "COLUMNAR"})
+  public StorageMode storageMode;
+
+  /**
+   * Appends one of the iteration's BATCH new transactions.
+   */
+  @Benchmark
+  public void addTransaction(AddState state) {
+    state.model.addTransaction(state.added[state.next++]);
+  }
+
+  /**
+   * Removes one of the iteration's BATCH extra transactions.
+   */
+  @Benchmark
+  public boolean removeTransaction(RemoveState state) {
+    return state.model.removeTransaction(state.removed[state.next++]);
+  }
+
+  /**
+   * A preloaded model and the transactions appended to it.
+   */
+  @State(Scope.Thread)
+  public static class AddState {
+
+    ExpenseTrackerModel model;
+    Transaction[] added;
+    int next;
+
+    @Setup(Level.Iteration)
+    public void setUp(ModelBenchmark benchmark) {
+      model = Ledgers.fill(new ExpenseTrackerModel(benchmark.storageMode), benchmark.rows);
+      added = Ledgers.transactions(BATCH, 7);
+      next = 0;
+    }
+  }
+
+  /**
+   * A model holding the preloaded rows plus BATCH transactions that are
+   * removed again, so the preloaded rows stay in place.
+   */
+  @State(Scope.Thread)
+  public static class RemoveState {
+
+    ExpenseTrackerModel model;
+    Transaction[] removed;
+    int next;
+
+    @Setup(Level.Iteration)
+    public void setUp(ModelBenchmark benchmark) {
+      model = Ledgers.fill(new ExpenseTrackerModel(benchmark.storageMode), benchmark.rows);
+      removed = Ledgers.transactions(BATCH, 11);
+      model.addAll(Arrays.asList(removed));
+      Collections.shuffle(Arrays.asList(removed), new Random(11));
+      next = 0;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.ExpenseTrackerModel;
+import model.StorageMode;
+import model.TransactionJournal;
+
+/**
+ * Restoring a journaled ledger on startup: TransactionJournal.open() on a
+ * journal directory holding a snapshot of the given number of rows and a
+ * log of further adds written after it. The target is 10^7 rows in under
+ * two seconds.
+ *
+ * open() measures the restore alone, which maps the snapshot and replays
+ * the log; openAndQuery() also runs the first indexed query, which builds
+ * the category, amount and time indexes deferred during recovery, so it
+ * measures the time until the restored ledger can be filtered. Each
+ * measurement is a single shot; the journal is closed after it without
+ * changing the directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class RecoveryBenchmark {
+
+  @Param({"1000000", "10000000"})
+  public int rows;
+
+  @Param({"0", "1000000"})
+  public int logRecords;
+
+  @Param({"LIST", "COLUMNAR"})
+  public StorageMode storageMode;
+
+  private Path directory;
+  private TransactionJournal journal;
+
+  /**
+   * Writes the snapshot and the log once per trial. The journal never
+   * snapshots on its own here, so the log holds exactly logRecords adds.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("recovery-benchmark");
+    ExpenseTrackerModel model = new ExpenseTrackerModel(StorageMode.COLUMNAR);
+    TransactionJournal writer = TransactionJournal.open(directory, model,
+        TransactionJournal.DEFAULT_COMMIT_INTERVAL_MILLIS, Long.MAX_VALUE);
+    Ledgers.fill(model, rows);
+    writer.checkpoint();
+    Ledgers.fill(model, logRecords);
+    writer.close();
+  }
+
+  @TearDown(Level.Invocation)
+  public void closeJournal() throws IOException {
+    journal.close();
+    journal = null;
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteDirectory() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public ExpenseTrackerModel open() throws IOException {
+    ExpenseTrackerModel model = new ExpenseTrackerModel(storageMode);
+    journal = TransactionJournal.open(directory, model);
+    return model;
+  }
+
+  @Benchmark
+  public int openAndQuery() throws IOException {
+    ExpenseTrackerModel model = open();
+    return model.categoryIndexSize("food");
+  }
+}
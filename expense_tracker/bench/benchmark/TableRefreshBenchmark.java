@@ -0,0 +1,90 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import model.ExpenseTrackerModel;
+import model.Transaction;
+import view.TransactionTableModel;
+
+/**
+ * What ExpenseTrackerView.refreshTable() costs, measured headless: the
+ * view is a JFrame and cannot be created without a display, so the
+ * benchmark drives its TransactionTableModel attached to a JTable, which
+ * is exactly what refreshTable() delegates to. Covers showing a new list
+ * with and without a known total, and reading the cells of one screen of
+ * rows as a repaint does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx4g"})
+public class TableRefreshBenchmark {
+
+  private static final int VISIBLE_ROWS = 40;
+
+  @Param({"1000", "100000", "1000000"})
+  public int rows;
+
+  private final TransactionTableModel tableModel = new TransactionTableModel();
+  private List<Transaction> transactions;
+  private double total;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    ExpenseTrackerModel model = Ledgers.fill(new ExpenseTrackerModel(), rows);
+    transactions = model.snapshot();
+    total = model.getAggregate().getSum();
+    // the table registers itself as a listener of the table model
+    new JTable(tableModel);
+    tableModel.setTransactions(transactions, total);
+  }
+
+  /**
+   * refreshTable(List): the list is summed for the total row.
+   */
+  @Benchmark
+  public void refreshTable() {
+    tableModel.setTransactions(transactions);
+  }
+
+  /**
+   * refreshTable(List, double): the total comes from the running
+   * aggregate, as in the controller's unfiltered view.
+   */
+  @Benchmark
+  public void refreshTableWithTotal() {
+    tableModel.setTransactions(transactions, total);
+  }
+
+  /**
+   * Reads every cell of one screen of rows in the middle of the table.
+   */
+  @Benchmark
+  public void paintVisibleRows(Blackhole blackhole) {
+    int first = rows / 2;
+    for (int row = first; row < first + VISIBLE_ROWS; row++) {
+      for (int column = 0; column < tableModel.getColumnCount(); column++) {
+        blackhole.consume(tableModel.getValueAt(row, column));
+      }
+    }
+  }
+}
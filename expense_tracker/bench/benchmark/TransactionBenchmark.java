@@ -0,0 +1,49 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Transaction;
+
+/**
+ * Cost of creating a Transaction, with the current time or an explicit
+ * timestamp, and of formatting its timestamp for display.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionBenchmark {
+
+  private final long timestamp = Transaction.parseTimestamp("28-10-2025 14:30");
+  private final Transaction sample = new Transaction(12.50, "food", timestamp);
+  private double amount = 1;
+
+  @Benchmark
+  public Transaction construct() {
+    amount = amount < 999 ? amount + 1 : 1;
+    return new Transaction(amount, "food");
+  }
+
+  @Benchmark
+  public Transaction constructWithTimestamp() {
+    amount = amount < 999 ? amount + 1 : 1;
+    return new Transaction(amount, "food", timestamp);
+  }
+
+  @Benchmark
+  public String formatTimestamp() {
+    return sample.getTimestamp();
+  }
+}
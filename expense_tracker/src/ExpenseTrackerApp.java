@@ -1,10 +1,24 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 import javax.swing.table.DefaultTableModel;
 
+import controller.ControllerMetrics;
 import controller.ExpenseTrackerController;
 import model.ExpenseTrackerModel;
 import view.ExpenseTrackerView;
 import model.Transaction;
+import model.TransactionJournal;
+import model.filter.ExecutionMode;
 import controller.InputValidation;
 
 /**
@@ -17,6 +31,13 @@ public class ExpenseTrackerApp {
    * Main entry point for the Expense Tracker application.
    * Creates the Model, View, and Controller components following the MVC pattern,
    * then displays the GUI. All event handling is managed by the controller.
+   * Filter execution can be switched to parallel with the system property
+   * -Dexpensetracker.executionMode=PARALLEL. Transactions are journaled to
+   * the directory given by -Dexpensetracker.dataDir (by default
+   * .expense_tracker in the user's home directory) and restored on start.
+   * Controller metrics are published as JMX MBeans and logged every
+   * -Dexpensetracker.metricsLogSeconds seconds (300 by default, 0 turns
+   * logging off); -Dexpensetracker.metrics=false turns recording off.
    * 
    * @param args Command line arguments (not used)
    */
@@ -24,14 +45,68 @@ public class ExpenseTrackerApp {
     
     // Create MVC components
     ExpenseTrackerModel model = new ExpenseTrackerModel();
+    Path dataDir = Paths.get(System.getProperty("expensetracker.dataDir",
+                                                System.getProperty("user.home") + "/.expense_tracker"));
+    try {
+      TransactionJournal journal = TransactionJournal.open(dataDir, model);
+      journal.setFailureHandler(e -> SwingUtilities.invokeLater(() ->
+          JOptionPane.showMessageDialog(null, "Could not save transactions to " + dataDir
+                                              + ": " + e.getMessage()
+                                              + "\nFurther changes will not be saved.")));
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          journal.close();
+        } catch (IOException e) {
+          System.err.println("Could not save transactions: " + e.getMessage());
+        }
+      }));
+    } catch (IOException | UncheckedIOException e) {
+      model = new ExpenseTrackerModel(); // drop a partial restore
+      JOptionPane.showMessageDialog(null, "Could not load saved transactions from " + dataDir
+                                          + ": " + e.getMessage()
+                                          + "\nChanges will not be saved.");
+    }
+    // Swing components and the model they show are only used on the EDT
+    ExpenseTrackerModel loaded = model;
+    SwingUtilities.invokeLater(() -> createAndShowGui(loaded));
+  }
+
+  /**
+   * Creates the view and the controller for a loaded model, applies the
+   * configured execution mode and metrics settings and shows the window.
+   * Must be called on the event dispatch thread.
+   *
+   * @param model The model to show
+   */
+  private static void createAndShowGui(ExpenseTrackerModel model) {
     ExpenseTrackerView view = new ExpenseTrackerView();
     ExpenseTrackerController controller = new ExpenseTrackerController(model, view);
+    String executionMode = System.getProperty("expensetracker.executionMode");
+    if (executionMode != null) {
+      try {
+        controller.setExecutionMode(ExecutionMode.valueOf(executionMode.trim().toUpperCase(Locale.ROOT)));
+      } catch (IllegalArgumentException e) {
+        System.err.println("Unknown execution mode '" + executionMode + "', filtering sequentially");
+      }
+    }
+
+    // Publish controller metrics
+    ControllerMetrics metrics = controller.getMetrics();
+    metrics.setEnabled(Boolean.parseBoolean(System.getProperty("expensetracker.metrics", "true")));
+    try {
+      metrics.registerMBeans(ManagementFactory.getPlatformMBeanServer());
+    } catch (JMException e) {
+      System.err.println("Could not register metrics MBeans: " + e.getMessage());
+    }
+    long logSeconds = Long.getLong("expensetracker.metricsLogSeconds", 300);
+    if (logSeconds > 0) {
+      metrics.startLogging(logSeconds, TimeUnit.SECONDS);
+    }
 
     // Initialize view
     view.setVisible(true);
 
     // Controller handles button listeners, no need to add them here
-
   }
 
 }
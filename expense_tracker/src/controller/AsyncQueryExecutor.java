@@ -0,0 +1,242 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingWorker;
+
+import model.CompensatedSum;
+import model.Transaction;
+import model.filter.TransactionFilter;
+
+/**
+ * Runs filter queries and total computation on a background thread so the
+ * Swing event dispatch thread (EDT) stays responsive on large ledgers.
+ *
+ * At most one query is in flight at a time: submitting a new query cancels
+ * the previous one, and results of a cancelled query are never delivered.
+ * The source list is scanned in chunks; the matches of each chunk and the
+ * scan progress are published back to the EDT as they become available.
+ * A result already computed from an index can be streamed the same way
+ * with deliver(), so the table fills in chunks and the total is summed in
+ * the background. All QueryListener callbacks run on the EDT, and every
+ * query that is not cancelled ends with either queryFinished() or
+ * queryFailed().
+ */
+public class AsyncQueryExecutor {
+
+  /**
+   * Default number of source transactions filtered per published chunk.
+   */
+  public static final int CHUNK_SIZE = 4096;
+
+  /**
+   * Receives the results of a query on the EDT.
+   */
+  public interface QueryListener {
+
+    /**
+     * Called with the matches of one or more scanned chunks, in source order.
+     *
+     * @param matches The newly found matching transactions
+     */
+    void matchesFound(List<Transaction> matches);
+
+    /**
+     * Called as the scan advances.
+     *
+     * @param percent Share of the source scanned so far, 0 to 100
+     */
+    void progressChanged(int percent);
+
+    /**
+     * Called once after the whole source has been scanned.
+     *
+     * @param totalCost Sum of the amounts of all matches
+     */
+    void queryFinished(double totalCost);
+
+    /**
+     * Called instead of queryFinished() if the query threw an exception.
+     * Matches delivered before are incomplete.
+     *
+     * @param cause The exception thrown by the query
+     */
+    void queryFailed(Exception cause);
+  }
+
+  private QueryWorker current;
+
+  /**
+   * Starts filtering the given source in the background, cancelling any
+   * query still in flight. The source must not change while the query
+   * runs; pass a copy or snapshot of the model's transactions.
+   *
+   * @param filter The filter to apply (must not be null)
+   * @param source The transactions to scan (must not be null)
+   * @param listener Receives the results on the EDT (must not be null)
+   */
+  public void submit(TransactionFilter filter, List<Transaction> source, QueryListener listener) {
+    submit(filter, source, CHUNK_SIZE, listener);
+  }
+
+  /**
+   * Starts filtering the given source in the background in chunks of the
+   * given size, cancelling any query still in flight. Larger chunks suit
+   * filters that parallelize each chunk internally.
+   *
+   * @param filter The filter to apply (must not be null)
+   * @param source The transactions to scan (must not be null)
+   * @param chunkSize Number of transactions filtered per chunk (at least 1)
+   * @param listener Receives the results on the EDT (must not be null)
+   */
+  public void submit(TransactionFilter filter, List<Transaction> source, int chunkSize,
+                     QueryListener listener) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be at least 1");
+    }
+    cancel();
+    current = new QueryWorker(filter, source, chunkSize, listener);
+    current.execute();
+  }
+
+  /**
+   * Streams an already computed result, such as matches found through a
+   * model index, to the listener in chunks, cancelling any query still in
+   * flight. The matches are not filtered again; only their total is
+   * computed in the background.
+   *
+   * @param matches The matching transactions, which must not change meanwhile
+   * @param chunkSize Number of matches delivered per chunk (at least 1)
+   * @param listener Receives the results on the EDT (must not be null)
+   */
+  public void deliver(List<Transaction> matches, int chunkSize, QueryListener listener) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be at least 1");
+    }
+    cancel();
+    current = new QueryWorker(null, matches, chunkSize, listener);
+    current.execute();
+  }
+
+  /**
+   * Cancels the query in flight, if any. Its remaining results are dropped.
+   */
+  public void cancel() {
+    if (current != null) {
+      current.cancel(false);
+      current = null;
+    }
+  }
+
+  /**
+   * Returns whether a query is still in flight.
+   *
+   * @return true if a submitted query has not yet finished or been cancelled
+   */
+  public boolean isRunning() {
+    return current != null;
+  }
+
+  /**
+   * Background worker scanning the source chunk by chunk.
+   */
+  private class QueryWorker extends SwingWorker<Double, List<Transaction>> {
+
+    // null if the source holds the matches already
+    private final TransactionFilter filter;
+    private final List<Transaction> source;
+    private final int chunkSize;
+    private final QueryListener listener;
+    // chunks published by the worker thread and delivered on the EDT;
+    // process() may run after done(), so finishing waits for both to match
+    private final AtomicInteger publishedChunks = new AtomicInteger();
+    private int deliveredChunks;
+    private Double totalCost;
+
+    QueryWorker(TransactionFilter filter, List<Transaction> source, int chunkSize,
+                QueryListener listener) {
+      this.filter = filter;
+      this.source = source;
+      this.chunkSize = chunkSize;
+      this.listener = listener;
+      addPropertyChangeListener(e -> {
+        if ("progress".equals(e.getPropertyName()) && isCurrent()) {
+          listener.progressChanged((Integer) e.getNewValue());
+        }
+      });
+    }
+
+    @Override
+    protected Double doInBackground() {
+      CompensatedSum total = new CompensatedSum();
+      int size = source.size();
+      for (int from = 0; from < size && !isCancelled(); from += chunkSize) {
+        int to = Math.min(size, from + chunkSize);
+        List<Transaction> matches = filter == null
+                                    ? new ArrayList<>(source.subList(from, to))
+                                    : filter.filter(source.subList(from, to));
+        for (Transaction t : matches) {
+          total.add(t.getAmount());
+        }
+        if (!matches.isEmpty()) {
+          publishedChunks.incrementAndGet();
+          publish(matches);
+        }
+        setProgress((int) (100L * to / size));
+      }
+      return total.value();
+    }
+
+    @Override
+    protected void process(List<List<Transaction>> chunks) {
+      if (!isCurrent()) {
+        return;
+      }
+      List<Transaction> matches = new ArrayList<>();
+      for (List<Transaction> chunk : chunks) {
+        matches.addAll(chunk);
+      }
+      deliveredChunks += chunks.size();
+      listener.matchesFound(matches);
+      finishIfComplete();
+    }
+
+    @Override
+    protected void done() {
+      if (!isCurrent() || isCancelled()) {
+        return;
+      }
+      try {
+        totalCost = get();
+      } catch (InterruptedException ex) {
+        // get() does not block once the worker is done
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException ex) {
+        current = null;
+        Throwable cause = ex.getCause();
+        listener.queryFailed(cause instanceof Exception ? (Exception) cause : ex);
+        return;
+      }
+      finishIfComplete();
+    }
+
+    /**
+     * Reports the end of the query once the result is known and every
+     * published chunk has been delivered.
+     */
+    private void finishIfComplete() {
+      if (totalCost != null && deliveredChunks == publishedChunks.get() && isCurrent()) {
+        current = null;
+        listener.queryFinished(totalCost);
+      }
+    }
+
+    private boolean isCurrent() {
+      return current == this;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package controller;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of validating a batch of rows with InputValidation.validate().
+ * Each rejection reason is kept as a bitset with one bit per row, so a
+ * batch of n rows takes n / 4 bytes, and whole words of 64 rows are
+ * tested at once when looking for rejected or accepted rows.
+ *
+ * An instance is meant to be reused for batch after batch: validating
+ * allocates nothing unless a batch is larger than every batch before.
+ * Instances are not thread-safe.
+ */
+public final class BatchValidation {
+
+  /**
+   * Reason code of a row whose amount fails InputValidation.isValidAmount().
+   */
+  public static final int INVALID_AMOUNT = 1;
+
+  /**
+   * Reason code of a row whose category fails InputValidation.isValidCategory().
+   */
+  public static final int INVALID_CATEGORY = 2;
+
+  private long[] amountRejects = new long[0];
+  private long[] categoryRejects = new long[0];
+  private int size;
+  private int rejectedCount;
+
+  /**
+   * Returns the number of rows in the last validated batch.
+   *
+   * @return The batch size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of rows with at least one reason to reject them.
+   *
+   * @return The rejected row count
+   */
+  public int getRejectedCount() {
+    return rejectedCount;
+  }
+
+  /**
+   * Returns the number of valid rows.
+   *
+   * @return The accepted row count
+   */
+  public int getAcceptedCount() {
+    return size - rejectedCount;
+  }
+
+  /**
+   * Tells whether a row was rejected.
+   *
+   * @param row Row position, 0 &lt;= row &lt; size()
+   * @return true if the row is invalid
+   */
+  public boolean isRejected(int row) {
+    return reasonsOf(row) != 0;
+  }
+
+  /**
+   * Returns why a row was rejected.
+   *
+   * @param row Row position, 0 &lt;= row &lt; size()
+   * @return INVALID_AMOUNT, INVALID_CATEGORY, both or'ed together, or 0 if
+   *         the row is valid
+   */
+  public int reasonsOf(int row) {
+    checkRow(row);
+    long bit = 1L << row;
+    int word = row >>> 6;
+    return ((amountRejects[word] & bit) != 0 ? INVALID_AMOUNT : 0)
+        | ((categoryRejects[word] & bit) != 0 ? INVALID_CATEGORY : 0);
+  }
+
+  /**
+   * Returns the first rejected row at or after a position, in the manner
+   * of BitSet.nextSetBit().
+   *
+   * @param from Position to start at (at least 0)
+   * @return The row, or -1 if no later row was rejected
+   */
+  public int nextRejected(int from) {
+    return next(from, 0);
+  }
+
+  /**
+   * Returns the first valid row at or after a position.
+   *
+   * @param from Position to start at (at least 0)
+   * @return The row, or -1 if no later row is valid
+   */
+  public int nextAccepted(int from) {
+    return next(from, -1L);
+  }
+
+  /**
+   * Prepares for a batch of the given size with no rejected rows.
+   */
+  void reset(int rows) {
+    int words = (rows + 63) >>> 6;
+    if (words > amountRejects.length) {
+      amountRejects = new long[words];
+      categoryRejects = new long[words];
+    } else {
+      Arrays.fill(amountRejects, 0, words, 0);
+      Arrays.fill(categoryRejects, 0, words, 0);
+    }
+    size = rows;
+    rejectedCount = 0;
+  }
+
+  /**
+   * Records the rejections of the 64 rows starting at word * 64.
+   */
+  void reject(int word, long amountBits, long categoryBits) {
+    amountRejects[word] = amountBits;
+    categoryRejects[word] = categoryBits;
+    rejectedCount += Long.bitCount(amountBits | categoryBits);
+  }
+
+  /**
+   * Scans the rejection words, flipped by mask, for the next set bit.
+   */
+  private int next(int from, long mask) {
+    if (from < 0) {
+      throw new IndexOutOfBoundsException("Row " + from + " is negative");
+    }
+    if (from >= size) {
+      return -1;
+    }
+    int word = from >>> 6;
+    long bits = ((amountRejects[word] | categoryRejects[word]) ^ mask) & (-1L << from);
+    while (true) {
+      if (bits != 0) {
+        int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+        return row < size ? row : -1;
+      }
+      if (++word >= (size + 63) >>> 6) {
+        return -1;
+      }
+      bits = (amountRejects[word] | categoryRejects[word]) ^ mask;
+    }
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+    }
+  }
+}
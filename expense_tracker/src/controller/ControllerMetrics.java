@@ -0,0 +1,278 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import model.filter.TransactionFilter;
+
+/**
+ * Counters and latency histograms for the hot paths of an
+ * ExpenseTrackerController: adding transactions, applying filters,
+ * refreshing the view and evaluating each kind of filter.
+ *
+ * Recording costs two System.nanoTime() calls and an allocation-free
+ * LatencyHistogram update per operation. When recording is switched off,
+ * instrumented operations only read one volatile flag. The metrics can be
+ * published as JMX MBeans under the "expensetracker" domain and written to
+ * the log at a fixed rate.
+ */
+public class ControllerMetrics implements ControllerMetricsMBean {
+
+  /**
+   * JMX domain of the registered MBeans.
+   */
+  public static final String DOMAIN = "expensetracker";
+
+  private static final Logger LOG = Logger.getLogger(ControllerMetrics.class.getName());
+
+  // start value meaning "not timed"
+  private static final long OFF = Long.MIN_VALUE;
+
+  private volatile boolean enabled = true;
+  private final LatencyHistogram addTransaction = new LatencyHistogram("addTransaction");
+  private final LatencyHistogram applyFilter = new LatencyHistogram("applyFilter");
+  private final LatencyHistogram applyFilterAsync = new LatencyHistogram("applyFilterAsync");
+  private final LatencyHistogram refresh = new LatencyHistogram("refresh");
+  private final Map<Class<?>, LatencyHistogram> filters = new ConcurrentHashMap<>();
+  private final AtomicLong rejectedAdds = new AtomicLong();
+  // set while the MBeans are registered
+  private MBeanServer server;
+  private ScheduledExecutorService logTimer;
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns the latencies of addTransaction().
+   *
+   * @return The histogram of successful adds
+   */
+  public LatencyHistogram getAddTransactionLatency() {
+    return addTransaction;
+  }
+
+  /**
+   * Returns the latencies of applyFilter(), including the refresh.
+   *
+   * @return The histogram of synchronous filter applications
+   */
+  public LatencyHistogram getApplyFilterLatency() {
+    return applyFilter;
+  }
+
+  /**
+   * Returns the time from applyFilterAsync() until the last result
+   * reached the view.
+   *
+   * @return The histogram of completed background queries
+   */
+  public LatencyHistogram getApplyFilterAsyncLatency() {
+    return applyFilterAsync;
+  }
+
+  /**
+   * Returns the latencies of refresh().
+   *
+   * @return The histogram of view refreshes
+   */
+  public LatencyHistogram getRefreshLatency() {
+    return refresh;
+  }
+
+  /**
+   * Returns the latencies of evaluating one kind of filter over a list
+   * or a model. A background query records one value per chunk.
+   *
+   * @param type The filter class, e.g. CategoryFilter.class
+   * @return The histogram, or null if no such filter was evaluated yet
+   */
+  public LatencyHistogram getFilterLatency(Class<? extends TransactionFilter> type) {
+    return filters.get(type);
+  }
+
+  @Override
+  public long getRejectedAdds() {
+    return rejectedAdds.get();
+  }
+
+  /**
+   * Returns all histograms: the controller operations first, then the
+   * filters by name.
+   *
+   * @return A new list of the histograms
+   */
+  public List<LatencyHistogram> getHistograms() {
+    List<LatencyHistogram> result = new ArrayList<>();
+    result.add(addTransaction);
+    result.add(applyFilter);
+    result.add(applyFilterAsync);
+    result.add(refresh);
+    List<LatencyHistogram> filterHistograms = new ArrayList<>(filters.values());
+    filterHistograms.sort(Comparator.comparing(LatencyHistogram::getName));
+    result.addAll(filterHistograms);
+    return result;
+  }
+
+  @Override
+  public String dump() {
+    StringBuilder text = new StringBuilder("rejectedAdds=").append(rejectedAdds.get());
+    for (LatencyHistogram h : getHistograms()) {
+      if (h.getCount() > 0) {
+        text.append(System.lineSeparator()).append(h);
+      }
+    }
+    return text.toString();
+  }
+
+  @Override
+  public void resetAll() {
+    for (LatencyHistogram h : getHistograms()) {
+      h.reset();
+    }
+    rejectedAdds.set(0);
+  }
+
+  /**
+   * Registers this object and every histogram as MBeans. Histograms of
+   * filters evaluated later are registered when they are created.
+   *
+   * @param server The MBean server, e.g. the platform MBean server
+   * @throws JMException if an MBean cannot be registered, e.g. because
+   *         another controller's metrics are registered already
+   */
+  public synchronized void registerMBeans(MBeanServer server) throws JMException {
+    if (this.server != null) {
+      throw new IllegalStateException("Metrics are registered already");
+    }
+    server.registerMBean(this, new ObjectName(DOMAIN + ":type=ControllerMetrics"));
+    this.server = server;
+    for (LatencyHistogram h : getHistograms()) {
+      register(h);
+    }
+  }
+
+  /**
+   * Removes the MBeans registered by registerMBeans().
+   *
+   * @throws JMException if an MBean cannot be unregistered
+   */
+  public synchronized void unregisterMBeans() throws JMException {
+    if (server == null) {
+      return;
+    }
+    MBeanServer registered = server;
+    server = null;
+    registered.unregisterMBean(new ObjectName(DOMAIN + ":type=ControllerMetrics"));
+    for (LatencyHistogram h : getHistograms()) {
+      ObjectName name = latencyName(h);
+      if (registered.isRegistered(name)) {
+        registered.unregisterMBean(name);
+      }
+    }
+  }
+
+  /**
+   * Writes dump() to the log at INFO level at a fixed rate, on a daemon
+   * thread, replacing any earlier schedule.
+   *
+   * @param period Time between two log entries (greater than 0)
+   * @param unit Unit of period
+   */
+  public synchronized void startLogging(long period, TimeUnit unit) {
+    stopLogging();
+    logTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "expense-tracker-metrics");
+      t.setDaemon(true);
+      return t;
+    });
+    logTimer.scheduleAtFixedRate(() -> LOG.info("Controller metrics:" + System.lineSeparator() + dump()),
+                                 period, period, unit);
+  }
+
+  /**
+   * Stops the periodic log output started by startLogging().
+   */
+  public synchronized void stopLogging() {
+    if (logTimer != null) {
+      logTimer.shutdownNow();
+      logTimer = null;
+    }
+  }
+
+  /**
+   * Starts timing an operation.
+   *
+   * @return The start time to pass to stop()
+   */
+  long start() {
+    return enabled ? System.nanoTime() : OFF;
+  }
+
+  /**
+   * Records an operation timed since start(), unless recording was off
+   * when it started.
+   */
+  void stop(LatencyHistogram histogram, long start) {
+    if (start != OFF) {
+      histogram.recordSince(start);
+    }
+  }
+
+  void rejectedAdd() {
+    rejectedAdds(1);
+  }
+
+  void rejectedAdds(int count) {
+    if (enabled && count > 0) {
+      rejectedAdds.addAndGet(count);
+    }
+  }
+
+  /**
+   * Returns the histogram of a filter class, creating it on first use.
+   */
+  LatencyHistogram filterLatency(TransactionFilter filter) {
+    LatencyHistogram h = filters.get(filter.getClass());
+    return h != null ? h : filters.computeIfAbsent(filter.getClass(), this::newFilterHistogram);
+  }
+
+  private synchronized LatencyHistogram newFilterHistogram(Class<?> type) {
+    LatencyHistogram h = new LatencyHistogram("filter." + type.getSimpleName());
+    if (server != null) {
+      try {
+        register(h);
+      } catch (JMException e) {
+        LOG.log(Level.WARNING, "Could not register " + h.getName(), e);
+      }
+    }
+    return h;
+  }
+
+  private void register(LatencyHistogram h) throws JMException {
+    server.registerMBean(h, latencyName(h));
+  }
+
+  private static ObjectName latencyName(LatencyHistogram h) throws JMException {
+    return new ObjectName(DOMAIN + ":type=Latency,name=" + h.getName());
+  }
+}
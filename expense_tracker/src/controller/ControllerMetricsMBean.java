@@ -0,0 +1,42 @@
+package controller;
+
+/**
+ * JMX management interface of ControllerMetrics. The latencies of the
+ * individual operations are exposed as separate LatencyHistogramMBeans.
+ */
+public interface ControllerMetricsMBean {
+
+  /**
+   * Tells whether operations are currently timed.
+   *
+   * @return true if recording is on
+   */
+  boolean isEnabled();
+
+  /**
+   * Turns recording on or off. While off, instrumented operations skip
+   * all timing.
+   *
+   * @param enabled Whether to record
+   */
+  void setEnabled(boolean enabled);
+
+  /**
+   * Returns the number of transactions rejected by input validation.
+   *
+   * @return The rejected add count
+   */
+  long getRejectedAdds();
+
+  /**
+   * Returns a summary of all recorded latencies, one operation per line.
+   *
+   * @return The summary text
+   */
+  String dump();
+
+  /**
+   * Discards all recordings and counts.
+   */
+  void resetAll();
+}
@@ -0,0 +1,104 @@
+package controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import model.Transaction;
+
+/**
+ * Writes transactions to a CSV file that CsvImporter can read back.
+ *
+ * The file starts with the header "amount,category,timestamp" and holds
+ * one row per transaction. Timestamps are written as ISO-8601 instants in
+ * UTC, e.g. "2025-03-01T08:00:00.250Z", so they keep their millisecond
+ * precision through an export and import. Rows are streamed through a
+ * buffered channel writer, so exporting does not copy the transactions.
+ * Fields containing commas or quotes are quoted. CsvImporter cannot read
+ * fields that span lines, so a category containing a line break is
+ * rejected.
+ */
+public class CsvExporter {
+
+  /**
+   * Header row written before the transactions.
+   */
+  public static final String HEADER = "amount,category,timestamp";
+
+  private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+
+  /**
+   * Writes the given transactions to a CSV file, replacing its contents.
+   *
+   * @param file The file to write, UTF-8 encoded
+   * @param transactions The transactions to write, in order
+   * @return The number of rows written
+   * @throws IOException if the file cannot be written
+   * @throws IllegalArgumentException if a category contains a line break;
+   *         the rows before it have been written
+   */
+  public static long exportTo(Path file, List<Transaction> transactions) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING,
+                                                StandardOpenOption.WRITE);
+         BufferedWriter out = new BufferedWriter(
+             Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1), WRITE_BUFFER_CHARS)) {
+      long rows = exportTo(out, transactions);
+      out.flush();
+      channel.force(false);
+      return rows;
+    }
+  }
+
+  /**
+   * Writes the given transactions as CSV to a writer, which is neither
+   * flushed nor closed.
+   *
+   * @param out The destination
+   * @param transactions The transactions to write, in order
+   * @return The number of rows written
+   * @throws IOException if writing fails
+   * @throws IllegalArgumentException if a category contains a line break;
+   *         the rows before it have been written
+   */
+  public static long exportTo(Writer out, List<Transaction> transactions) throws IOException {
+    out.write(HEADER);
+    out.write('\n');
+    long rows = 0;
+    for (Transaction t : transactions) {
+      out.write(Double.toString(t.getAmount()));
+      out.write(',');
+      writeField(out, t.getCategory() == null ? "" : t.getCategory());
+      out.write(',');
+      out.write(Instant.ofEpochMilli(t.getTimestampMillis()).toString());
+      out.write('\n');
+      rows++;
+    }
+    return rows;
+  }
+
+  private static void writeField(Writer out, String value) throws IOException {
+    boolean quote = false;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\n' || c == '\r') {
+        throw new IllegalArgumentException("Field contains a line break: " + value);
+      }
+      quote |= c == ',' || c == '"';
+    }
+    if (!quote) {
+      out.write(value);
+      return;
+    }
+    out.write('"');
+    out.write(value.replace("\"", "\"\""));
+    out.write('"');
+  }
+}
@@ -0,0 +1,373 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import model.ExpenseTrackerModel;
+import model.Transaction;
+
+/**
+ * Streams transactions from a CSV file into an ExpenseTrackerModel.
+ *
+ * Each row holds an amount and a category, optionally followed by a
+ * timestamp: an ISO-8601 instant such as "2025-03-01T08:00:00.250Z", as
+ * written by CsvExporter, or a "dd-MM-yyyy HH:mm" local time as shown in
+ * the table. Rows without one are stamped with the import time. Further
+ * columns are ignored. A first row starting with "amount" is taken as a
+ * header. Fields may be quoted with double quotes; quoted fields cannot
+ * span lines. Amounts that are not finite numbers, such as "NaN", are
+ * rejected like any other unparsable amount.
+ *
+ * The file is read through a buffered channel reader, and parsed rows are
+ * staged in reused primitive arrays. Each full batch is checked with one
+ * InputValidation.validate() pass, and its valid rows are added with a
+ * single ExpenseTrackerModel.addAll() call, so memory use stays constant
+ * regardless of the file size. Rows that fail InputValidation or cannot be
+ * parsed are skipped and reported in the Result.
+ */
+public class CsvImporter {
+
+  /**
+   * Default number of valid rows added to the model at once.
+   */
+  public static final int BATCH_SIZE = 4096;
+
+  /**
+   * Number of rejected rows whose details a Result keeps; further
+   * rejections are only counted.
+   */
+  public static final int MAX_REPORTED_REJECTIONS = 100;
+
+  private static final int READ_BUFFER_CHARS = 64 * 1024;
+
+  private final ExpenseTrackerModel model;
+  private final int batchSize;
+  // rows read since the last batch was added; entries from staged on are stale
+  private final double[] amounts;
+  private final String[] categories;
+  private final String[] timestamps;
+  private final String[] lines;
+  private final long[] lineNumbers;
+  // why a staged row could not be parsed, or null if it could
+  private final String[] parseErrors;
+  private int staged;
+  private final BatchValidation validation = new BatchValidation();
+  // Last parsed timestamp; statement rows often share it
+  private String lastTimestamp;
+  private long lastMillis;
+
+  /**
+   * Constructs an importer adding to the given model in batches of
+   * BATCH_SIZE rows.
+   *
+   * @param model The model to add to (must not be null)
+   */
+  public CsvImporter(ExpenseTrackerModel model) {
+    this(model, BATCH_SIZE);
+  }
+
+  /**
+   * Constructs an importer adding to the given model in batches of the
+   * given size.
+   *
+   * @param model The model to add to (must not be null)
+   * @param batchSize Number of rows validated and added at once (at least 1)
+   */
+  public CsvImporter(ExpenseTrackerModel model, int batchSize) {
+    if (model == null) {
+      throw new IllegalArgumentException("Model must not be null");
+    }
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be at least 1");
+    }
+    this.model = model;
+    this.batchSize = batchSize;
+    this.amounts = new double[batchSize];
+    this.categories = new String[batchSize];
+    this.timestamps = new String[batchSize];
+    this.lines = new String[batchSize];
+    this.lineNumbers = new long[batchSize];
+    this.parseErrors = new String[batchSize];
+  }
+
+  /**
+   * Imports every valid row of a CSV file. Rows added before an I/O error
+   * stay in the model.
+   *
+   * @param file The CSV file, UTF-8 encoded
+   * @return The number of imported rows and the rejected rows
+   * @throws IOException if the file cannot be read
+   */
+  public Result importFrom(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+         BufferedReader in = new BufferedReader(
+             Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1), READ_BUFFER_CHARS)) {
+      return importFrom(in);
+    }
+  }
+
+  /**
+   * Imports every valid row read from the given reader, which is not
+   * closed.
+   *
+   * @param in The CSV text
+   * @return The number of imported rows and the rejected rows
+   * @throws IOException if reading fails
+   */
+  public Result importFrom(BufferedReader in) throws IOException {
+    Result result = new Result();
+    List<Transaction> batch = new ArrayList<>(batchSize);
+    List<String> fields = new ArrayList<>();
+    long lineNumber = 0;
+    String line;
+    while ((line = in.readLine()) != null) {
+      lineNumber++;
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      String reason = parse(line, fields);
+      if (reason == null && lineNumber == 1 && fields.get(0).trim().equalsIgnoreCase("amount")) {
+        continue;
+      }
+      stage(lineNumber, line, fields, reason);
+      if (staged == batchSize) {
+        addBatch(batch, result);
+      }
+    }
+    addBatch(batch, result);
+    return result;
+  }
+
+  /**
+   * Validates the staged rows in one pass and adds the valid ones. Rows
+   * are rejected in file order, with the first reason that applies.
+   */
+  private void addBatch(List<Transaction> batch, Result result) {
+    InputValidation.validate(amounts, categories, staged, validation);
+    for (int i = 0; i < staged; i++) {
+      String reason = parseErrors[i];
+      if (reason == null) {
+        int reasons = validation.reasonsOf(i);
+        if ((reasons & BatchValidation.INVALID_AMOUNT) != 0) {
+          reason = "Invalid amount";
+        } else if ((reasons & BatchValidation.INVALID_CATEGORY) != 0) {
+          reason = "Invalid category";
+        }
+      }
+      long timestamp = System.currentTimeMillis();
+      if (reason == null && timestamps[i] != null) {
+        try {
+          timestamp = parseTimestamp(timestamps[i]);
+        } catch (IllegalArgumentException ex) {
+          reason = "Invalid timestamp";
+        }
+      }
+      if (reason != null) {
+        result.reject(lineNumbers[i], lines[i], reason);
+      } else {
+        batch.add(new Transaction(amounts[i], categories[i], timestamp));
+      }
+    }
+    staged = 0;
+    if (!batch.isEmpty()) {
+      model.addAll(batch);
+      result.importedCount += batch.size();
+      batch.clear();
+    }
+  }
+
+  /**
+   * Stores a read row for the next batch, converting its amount.
+   *
+   * @param reason Why the line could not be split into fields, or null
+   */
+  private void stage(long lineNumber, String line, List<String> fields, String reason) {
+    int i = staged++;
+    lineNumbers[i] = lineNumber;
+    lines[i] = line;
+    amounts[i] = 0;
+    categories[i] = null;
+    timestamps[i] = null;
+    if (reason == null && fields.size() < 2) {
+      reason = "Expected amount and category";
+    }
+    if (reason == null) {
+      try {
+        amounts[i] = Double.parseDouble(fields.get(0).trim());
+        if (!Double.isFinite(amounts[i])) {
+          // NaN would poison every running sum it is added to
+          reason = "Amount is not a finite number";
+        }
+        categories[i] = fields.get(1).trim();
+        if (fields.size() > 2 && !fields.get(2).trim().isEmpty()) {
+          timestamps[i] = fields.get(2).trim();
+        }
+      } catch (NumberFormatException ex) {
+        reason = "Amount is not a number";
+      }
+    }
+    parseErrors[i] = reason;
+  }
+
+  /**
+   * Parses an ISO-8601 instant or a "dd-MM-yyyy HH:mm" local time.
+   *
+   * @throws IllegalArgumentException if the timestamp has neither format
+   */
+  private long parseTimestamp(String timestamp) {
+    if (!timestamp.equals(lastTimestamp)) {
+      if (timestamp.indexOf('T') >= 0) {
+        try {
+          lastMillis = Instant.parse(timestamp).toEpochMilli();
+        } catch (DateTimeParseException | ArithmeticException ex) {
+          throw new IllegalArgumentException("Invalid ISO-8601 timestamp", ex);
+        }
+      } else {
+        lastMillis = Transaction.parseTimestamp(timestamp);
+      }
+      lastTimestamp = timestamp;
+    }
+    return lastMillis;
+  }
+
+  /**
+   * Splits a CSV line into fields, replacing the contents of the list.
+   *
+   * @return null if the line is well-formed, otherwise the reason it is not
+   */
+  private static String parse(String line, List<String> fields) {
+    fields.clear();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c != '"') {
+          field.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return quoted ? "Unterminated quoted field" : null;
+  }
+
+  /**
+   * Outcome of an import: how many rows were added and which were rejected.
+   */
+  public static class Result {
+
+    private long importedCount;
+    private long rejectedCount;
+    private final List<Rejection> rejections = new ArrayList<>();
+
+    /**
+     * Returns the number of rows added to the model.
+     *
+     * @return The imported row count
+     */
+    public long getImportedCount() {
+      return importedCount;
+    }
+
+    /**
+     * Returns the number of rows that were skipped.
+     *
+     * @return The rejected row count
+     */
+    public long getRejectedCount() {
+      return rejectedCount;
+    }
+
+    /**
+     * Returns the first MAX_REPORTED_REJECTIONS rejected rows, in file
+     * order.
+     *
+     * @return An unmodifiable list of rejected rows
+     */
+    public List<Rejection> getRejections() {
+      return Collections.unmodifiableList(rejections);
+    }
+
+    private void reject(long lineNumber, String line, String reason) {
+      rejectedCount++;
+      if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+        rejections.add(new Rejection(lineNumber, line, reason));
+      }
+    }
+  }
+
+  /**
+   * A CSV row that was not imported.
+   */
+  public static class Rejection {
+
+    private final long lineNumber;
+    private final String line;
+    private final String reason;
+
+    private Rejection(long lineNumber, String line, String reason) {
+      this.lineNumber = lineNumber;
+      this.line = line;
+      this.reason = reason;
+    }
+
+    /**
+     * Returns the line number of the row, starting at 1.
+     *
+     * @return The line number
+     */
+    public long getLineNumber() {
+      return lineNumber;
+    }
+
+    /**
+     * Returns the text of the row.
+     *
+     * @return The rejected line
+     */
+    public String getLine() {
+      return line;
+    }
+
+    /**
+     * Returns why the row was rejected.
+     *
+     * @return A short description of the problem
+     */
+    public String getReason() {
+      return reason;
+    }
+
+    /**
+     * Returns a one-line description for error reports.
+     *
+     * @return The line number, reason and line text
+     */
+    @Override
+    public String toString() {
+      return "Line " + lineNumber + ": " + reason + " (" + line + ")";
+    }
+  }
+}
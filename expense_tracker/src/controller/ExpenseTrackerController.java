@@ -2,13 +2,28 @@ package controller;
 
 import view.ExpenseTrackerView;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import model.ExpenseTrackerModel;
 import model.Transaction;
+import model.TransactionChangeEvent;
+import model.filter.ExecutionMode;
+import model.filter.FilterPager;
+import model.filter.ParallelFilter;
 import model.filter.TransactionFilter;
 import model.filter.CategoryFilter;
+import model.filter.DateRangeFilter;
 import model.filter.AmountFilter;
+import model.filter.AmountRangeFilter;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
 
@@ -16,12 +31,65 @@ import javax.swing.JOptionPane;
  * Controller for the ExpenseTracker application following the MVC pattern.
  * Manages interaction between the Model and View, handles user actions,
  * and supports adding transactions and applying filters (category or amount).
+ *
+ * The controller listens for model change events and pushes only the
+ * added or removed transactions that pass the active filter to the view,
+ * so adding a transaction does not re-filter or rebuild the whole table.
+ *
+ * Filters chosen in the view are resolved through the model's indexes
+ * when they have one and otherwise scanned off the Swing event dispatch
+ * thread; either way an AsyncQueryExecutor streams the matches to the view
+ * in chunks. Model changes that arrive while such a query runs are queued
+ * and applied once its results are complete. If the query fails, the view
+ * falls back to a synchronous refresh. In ExecutionMode.PARALLEL, filter
+ * scans are additionally split across the common fork/join pool.
+ *
+ * Results of recently applied filters are kept in a FilterResultCache that
+ * records every model change and applies it when a result is read again,
+ * so switching back to one of them shows its result without evaluating the
+ * filter again.
+ *
+ * With "Paged" selected in the view, a filter's results are instead shown
+ * one page at a time through a FilterPager, which evaluates the filter only
+ * as far as the pages shown, walking the filter's index if it has one.
+ * Model changes are passed to the pager, and the page is
+ * shown again only if a change reaches it.
+ *
+ * Adds, filter applications, refreshes and filter evaluations are timed
+ * into the ControllerMetrics returned by getMetrics().
  */
 public class ExpenseTrackerController {
 
+  private static final Logger LOG = Logger.getLogger(ExpenseTrackerController.class.getName());
+
+  // background chunks in parallel mode, large enough to keep all cores busy
+  private static final int PARALLEL_CHUNK_SIZE = 64 * ParallelFilter.DEFAULT_THRESHOLD;
+  // largest index estimate an async filter resolves on the EDT; resolving
+  // a range sorts and copies all of its entries, so broader ones are scanned
+  private static final int SYNC_INDEX_LIMIT = 4 * AsyncQueryExecutor.CHUNK_SIZE;
+  // days covered by the daily summary, including today
+  private static final int SUMMARY_DAYS = 31;
+  // filter results per page when paging through them in the view
+  private static final int PAGE_SIZE = 50;
+
   private ExpenseTrackerModel model;
   private ExpenseTrackerView view;
   private TransactionFilter currentFilter = null;
+  private ExecutionMode executionMode = ExecutionMode.SEQUENTIAL;
+  // list currently shown by the view: the model's list, a filter result or a page
+  private List<Transaction> displayed;
+  // pages of the active filter's results while paging, otherwise null
+  private FilterPager pager;
+  private int pageIndex;
+  private final AsyncQueryExecutor queryExecutor = new AsyncQueryExecutor();
+  private final FilterResultCache resultCache = new FilterResultCache();
+  private final ControllerMetrics metrics = new ControllerMetrics();
+  // reused by addTransactions()
+  private final BatchValidation batchValidation = new BatchValidation();
+  // model changes received while a background query is in flight
+  private final List<TransactionChangeEvent> pendingChanges = new ArrayList<>();
+  // set during a bulk import, which refreshes the view once at the end
+  private boolean importing;
 
   /**
    * Constructs a new ExpenseTrackerController and wires up event handlers
@@ -64,15 +132,44 @@ public class ExpenseTrackerController {
             return;
           }
           TransactionFilter f = new CategoryFilter(param);
-          applyFilter(f);
-        } else if (sel.startsWith("Amount")) {
+          applySelectedFilter(f);
+        } else if (sel.equals("Amount >=")) {
           double min = Double.parseDouble(param);
           if (!InputValidation.isValidAmount(min)) {
             JOptionPane.showMessageDialog(view, "Amount parameter is invalid");
             return;
           }
           TransactionFilter f = new AmountFilter(min);
-          applyFilter(f);
+          applySelectedFilter(f);
+        } else if (sel.equals("Amount <")) {
+          double max = Double.parseDouble(param);
+          if (!InputValidation.isValidAmount(max)) {
+            JOptionPane.showMessageDialog(view, "Amount parameter is invalid");
+            return;
+          }
+          TransactionFilter f = AmountRangeFilter.lessThan(max);
+          applySelectedFilter(f);
+        } else if (sel.equals("Amount between")) {
+          String[] bounds = param.split(",");
+          if (bounds.length != 2) {
+            JOptionPane.showMessageDialog(view, "Enter the amount range as min,max");
+            return;
+          }
+          double min = Double.parseDouble(bounds[0].trim());
+          double max = Double.parseDouble(bounds[1].trim());
+          if (!InputValidation.isValidAmount(min) || !InputValidation.isValidAmount(max)) {
+            JOptionPane.showMessageDialog(view, "Amount parameter is invalid");
+            return;
+          }
+          TransactionFilter f = AmountRangeFilter.between(min, max);
+          applySelectedFilter(f);
+        } else if (sel.equals("Month to date")) {
+          applySelectedFilter(DateRangeFilter.monthToDate());
+        } else if (sel.equals("Last 30 days")) {
+          applySelectedFilter(DateRangeFilter.lastDays(30));
+        } else if (sel.equals("Compound")) {
+          TransactionFilter f = FilterQueryParser.parse(param);
+          applySelectedFilter(f);
         } else {
           clearFilter();
         }
@@ -83,6 +180,17 @@ public class ExpenseTrackerController {
       }
     });
 
+    // Wire paging
+    view.getPrevPageBtn().addActionListener(e -> previousPage());
+    view.getNextPageBtn().addActionListener(e -> nextPage());
+
+    // Wire summary selection
+    view.getSummaryCombo().addActionListener(e -> refreshSummary());
+
+    // Keep cached filter results current, then push model deltas to the view
+    model.addChangeListener(resultCache);
+    model.addChangeListener(this::modelChanged);
+
     // initial refresh
     refresh();
   }
@@ -90,50 +198,302 @@ public class ExpenseTrackerController {
   /**
    * Refreshes the view's transaction table with current data from the model.
    * If a filter is currently active, applies the filter before updating the view.
+   * Filters are evaluated against the model so they can use its indexes,
+   * unless their result is cached.
    * This method should be called whenever the model data changes or filters are modified.
    */
   public void refresh() {
-    List<Transaction> transactions = model.getTransactions();
-    if (currentFilter != null) {
-      transactions = currentFilter.filter(transactions);
+    long start = metrics.start();
+    cancelQuery();
+    if (pager != null) {
+      repage();
+    } else if (currentFilter == null) {
+      // the view reads the model's rows by position, so nothing is copied;
+      // the running aggregate holds their total
+      displayed = model.getTransactions();
+      view.refreshTable(displayed, model.getAggregate().getSum());
+    } else {
+      displayed = resultCache.get(currentFilter);
+      if (displayed == null) {
+        displayed = executableFilter().filter(model);
+        resultCache.put(currentFilter, displayed);
+      }
+      view.refreshTable(displayed);
+    }
+    refreshSummary();
+    metrics.stop(metrics.getRefreshLatency(), start);
+  }
+
+  /**
+   * Shows the summary selected in the view: the spend of the last 31 days
+   * or of every month, per category. The summaries are read from the
+   * model's rollups, so this costs the same for any number of
+   * transactions.
+   */
+  public void refreshSummary() {
+    Object selected = view.getSummaryCombo().getSelectedItem();
+    if ("Daily".equals(selected)) {
+      LocalDate today = LocalDate.now();
+      view.showSummary(model.getDailySummaries(today.minusDays(SUMMARY_DAYS - 1), today));
+    } else if ("Monthly".equals(selected)) {
+      view.showSummary(model.getMonthlySummaries(null, null));
+    } else {
+      view.hideSummary();
     }
-    view.refreshTable(transactions);
   }
 
   /**
    * Adds a new transaction to the model after validating the input parameters.
    * If validation fails, the transaction is not added and false is returned.
-   * After successful addition, the view is refreshed to display the new transaction.
+   * After successful addition, the new transaction is appended to the view
+   * if it passes the active filter.
    * 
    * @param amount The transaction amount (must be between 0 and 1000 exclusive/inclusive)
    * @param category The transaction category (must be one of the valid categories)
    * @return true if the transaction was successfully added, false if validation failed
    */
   public boolean addTransaction(double amount, String category) {
-    if (!InputValidation.isValidAmount(amount)) {
-      return false;
-    }
-    if (!InputValidation.isValidCategory(category)) {
+    long start = metrics.start();
+    if (!InputValidation.isValidAmount(amount) || !InputValidation.isValidCategory(category)) {
+      metrics.rejectedAdd();
       return false;
     }
 
     Transaction t = new Transaction(amount, category);
+    // the model change event updates the view
     model.addTransaction(t);
-    // refresh (will apply filter if active)
-    refresh();
+    metrics.stop(metrics.getAddTransactionLatency(), start);
     return true;
   }
 
+  /**
+   * Adds many transactions at once. The rows are validated in one pass
+   * (see InputValidation.validate()) and the valid ones are added to the
+   * model in a single update, so the view is refreshed once. Invalid rows
+   * are skipped and counted as rejected adds.
+   * 
+   * @param amounts The amounts of the new transactions
+   * @param categories The categories of the new transactions, parallel to amounts
+   * @return Which rows were rejected and why; the object is reused by the
+   *         next call
+   * @throws IllegalArgumentException if the arrays differ in length
+   */
+  public BatchValidation addTransactions(double[] amounts, String[] categories) {
+    if (amounts.length != categories.length) {
+      throw new IllegalArgumentException("Amounts and categories differ in length");
+    }
+    InputValidation.validate(amounts, categories, amounts.length, batchValidation);
+    List<Transaction> accepted = new ArrayList<>(batchValidation.getAcceptedCount());
+    for (int row = batchValidation.nextAccepted(0); row >= 0; row = batchValidation.nextAccepted(row + 1)) {
+      accepted.add(new Transaction(amounts[row], categories[row]));
+    }
+    metrics.rejectedAdds(batchValidation.getRejectedCount());
+    model.addAll(accepted);
+    return batchValidation;
+  }
+
+  /**
+   * Imports the valid rows of a CSV file into the model in batches (see
+   * CsvImporter). The view is refreshed once after the import instead of
+   * once per batch. Must be called on the EDT.
+   * 
+   * @param file The CSV file to import
+   * @return The number of imported rows and the rejected rows
+   * @throws IOException if the file cannot be read; rows imported before
+   *         the error stay in the model
+   */
+  public CsvImporter.Result importCsv(Path file) throws IOException {
+    cancelQuery();
+    importing = true;
+    try {
+      return new CsvImporter(model).importFrom(file);
+    } finally {
+      importing = false;
+      refresh();
+    }
+  }
+
+  /**
+   * Exports all transactions in the model to a CSV file (see CsvExporter).
+   * 
+   * @param file The file to write
+   * @return The number of exported rows
+   * @throws IOException if the file cannot be written
+   * @throws IllegalArgumentException if a category contains a line break
+   */
+  public long exportCsv(Path file) throws IOException {
+    return CsvExporter.exportTo(file, model.getTransactions());
+  }
+
   /**
    * Applies a filter to the displayed transactions. Only one filter can be active
    * at a time; applying a new filter replaces any existing filter.
    * The view is immediately refreshed to show only filtered transactions.
    * 
-   * @param filter The TransactionFilter to apply (CategoryFilter or AmountFilter)
+   * @param filter The TransactionFilter to apply (e.g. CategoryFilter, AmountFilter or AmountRangeFilter)
    */
   public void applyFilter(TransactionFilter filter) {
+    long start = metrics.start();
+    stopPaging();
     this.currentFilter = filter;
     refresh();
+    metrics.stop(metrics.getApplyFilterLatency(), start);
+  }
+
+  /**
+   * Applies a filter like applyFilter(), but without blocking the EDT on a
+   * full scan. A filter that a model index narrows down to a few chunks
+   * (see TransactionFilter.estimateMatches()) is resolved through the index
+   * and only its matches are streamed; any other filter, including a broad
+   * amount or date range, is evaluated on a background thread over a
+   * snapshot of the model. The table is cleared
+   * immediately and filled in chunks, with progress shown in the view. A
+   * query still in flight from an earlier call is cancelled. A cached
+   * result is shown synchronously instead. If the query fails, the failure
+   * is logged and the view is refreshed synchronously. Must be called on
+   * the EDT.
+   * 
+   * @param filter The TransactionFilter to apply, or null to show all transactions
+   */
+  public void applyFilterAsync(TransactionFilter filter) {
+    stopPaging();
+    this.currentFilter = filter;
+    if (filter == null || resultCache.contains(filter)) {
+      refresh();
+      return;
+    }
+    long start = metrics.start();
+    cancelQuery();
+    TransactionFilter executable = executableFilter();
+    displayed = new ArrayList<>();
+    view.refreshTable(displayed);
+    view.showQueryProgress(0);
+    int chunkSize = executionMode == ExecutionMode.PARALLEL
+                    ? PARALLEL_CHUNK_SIZE
+                    : AsyncQueryExecutor.CHUNK_SIZE;
+    AsyncQueryExecutor.QueryListener listener = new AsyncQueryExecutor.QueryListener() {
+      @Override
+      public void matchesFound(List<Transaction> matches) {
+        int first = displayed.size();
+        displayed.addAll(matches);
+        view.transactionsInserted(first, displayed.size() - 1);
+      }
+
+      @Override
+      public void progressChanged(int percent) {
+        view.showQueryProgress(percent);
+      }
+
+      @Override
+      public void queryFinished(double totalCost) {
+        view.showQueryResult(displayed.size(), totalCost);
+        List<TransactionChangeEvent> queued = new ArrayList<>(pendingChanges);
+        pendingChanges.clear();
+        for (TransactionChangeEvent e : queued) {
+          modelChanged(e);
+        }
+        // displayed now reflects the model, including the queued changes
+        resultCache.put(filter, displayed);
+        metrics.stop(metrics.getApplyFilterAsyncLatency(), start);
+      }
+
+      @Override
+      public void queryFailed(Exception cause) {
+        LOG.log(Level.WARNING, "Filter query failed, refreshing synchronously", cause);
+        pendingChanges.clear();
+        view.hideQueryProgress();
+        try {
+          refresh();
+        } catch (RuntimeException ex) {
+          // the filter fails on the EDT as well, so show everything instead
+          LOG.log(Level.WARNING, "Filter failed again, showing all transactions", ex);
+          currentFilter = null;
+          refresh();
+        }
+      }
+    };
+    int estimate = executable.estimateMatches(model);
+    if (estimate <= SYNC_INDEX_LIMIT && estimate < model.getTransactions().size()) {
+      // an index narrows the filter down, so only its matches are streamed
+      List<Transaction> matches;
+      try {
+        matches = executable.filter(model);
+      } catch (RuntimeException ex) {
+        listener.queryFailed(ex);
+        return;
+      }
+      queryExecutor.deliver(matches, chunkSize, listener);
+    } else {
+      // the scan reads a frozen snapshot, so the model may change meanwhile
+      queryExecutor.submit(executable, model.snapshot(), chunkSize, listener);
+    }
+  }
+
+  /**
+   * Applies a filter and shows the first page of its results. The filter
+   * is evaluated lazily on its index range, or on a snapshot of the model
+   * if it has none: showing a page tests transactions only until that page
+   * and the first match of the next one are found, and only the page
+   * itself is materialized. Use nextPage() and previousPage() to move
+   * between pages. Must be called on the EDT.
+   * 
+   * @param filter The TransactionFilter to apply (must not be null)
+   * @param pageSize The number of transactions per page (at least 1)
+   * @throws IllegalArgumentException if filter is null or pageSize is less than 1
+   */
+  public void applyFilterPaged(TransactionFilter filter, int pageSize) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Filter must not be null");
+    }
+    long start = metrics.start();
+    cancelQuery();
+    this.currentFilter = filter;
+    pager = filter.pager(model, pageSize);
+    pageIndex = 0;
+    showPage();
+    refreshSummary();
+    metrics.stop(metrics.getApplyFilterLatency(), start);
+  }
+
+  /**
+   * Shows the next page of the filter results applied by
+   * applyFilterPaged(), if there is one.
+   * 
+   * @return true if the next page is shown, false if there is no next
+   *         page or results are not being paged
+   */
+  public boolean nextPage() {
+    if (pager == null || !pager.hasPage(pageIndex + 1)) {
+      return false;
+    }
+    pageIndex++;
+    showPage();
+    return true;
+  }
+
+  /**
+   * Shows the previous page of the filter results applied by
+   * applyFilterPaged(), if there is one.
+   * 
+   * @return true if the previous page is shown, false if the first page is
+   *         shown or results are not being paged
+   */
+  public boolean previousPage() {
+    if (pager == null || pageIndex == 0) {
+      return false;
+    }
+    pageIndex--;
+    showPage();
+    return true;
+  }
+
+  /**
+   * Returns the index of the page of filter results being shown.
+   * 
+   * @return The page index, starting at 0, or -1 if results are not paged
+   */
+  public int getPageIndex() {
+    return pager == null ? -1 : pageIndex;
   }
 
   /**
@@ -141,9 +501,175 @@ public class ExpenseTrackerController {
    * The view is immediately refreshed to show all transactions from the model.
    */
   public void clearFilter() {
+    stopPaging();
     this.currentFilter = null;
     refresh();
   }
 
+  /**
+   * Applies a model change to the view incrementally. Added transactions
+   * are tested one by one against the active filter and only the matches
+   * are appended; removed transactions are dropped from the table.
+   *
+   * @param e The model change event
+   */
+  private void modelChanged(TransactionChangeEvent e) {
+    if (importing) {
+      return;
+    }
+    refreshSummary();
+    if (pager != null) {
+      // only changes up to the page shown need it shown again
+      if (pager.update(e, pageIndex)) {
+        showNearestPage();
+      }
+      return;
+    }
+    if (queryExecutor.isRunning()) {
+      pendingChanges.add(e);
+      return;
+    }
+    List<Transaction> changed = e.getTransactions();
+    if (currentFilter == null) {
+      // The model's list already holds the change; a concurrent model hands
+      // out a new immutable list instead, so take it again
+      displayed = model.getTransactions();
+      if (e.getType() == TransactionChangeEvent.Type.ADDED) {
+        view.transactionsInserted(displayed, displayed.size() - changed.size(), displayed.size() - 1);
+      } else if (changed.isEmpty() || e.getPosition(0) < 0) {
+        view.refreshTable(displayed, model.getAggregate().getSum());
+      } else {
+        // delete each row where it was, in removal order
+        for (int i = 0; i < changed.size(); i++) {
+          int row = e.getPosition(i);
+          view.transactionsDeleted(displayed, row, row, changed.get(i).getAmount());
+        }
+      }
+      return;
+    }
+    if (e.getType() == TransactionChangeEvent.Type.ADDED) {
+      int first = displayed.size();
+      for (Transaction t : changed) {
+        if (currentFilter.matches(t)) {
+          displayed.add(t);
+        }
+      }
+      if (displayed.size() > first) {
+        view.transactionsInserted(first, displayed.size() - 1);
+      }
+      return;
+    }
+    Set<Transaction> removed = new HashSet<>(changed);
+    for (int row = displayed.size() - 1; row >= 0; row--) {
+      Transaction t = displayed.get(row);
+      if (removed.contains(t)) {
+        displayed.remove(row);
+        view.transactionsDeleted(row, row, t.getAmount());
+      }
+    }
+  }
+
+  /**
+   * Selects whether filter scans run on one thread or in parallel. Takes
+   * effect with the next refresh or filter application.
+   *
+   * @param executionMode The execution mode (must not be null)
+   */
+  public void setExecutionMode(ExecutionMode executionMode) {
+    if (executionMode == null) {
+      throw new IllegalArgumentException("Execution mode must not be null");
+    }
+    this.executionMode = executionMode;
+  }
+
+  /**
+   * Returns how filter scans are executed.
+   *
+   * @return The current ExecutionMode
+   */
+  public ExecutionMode getExecutionMode() {
+    return executionMode;
+  }
+
+  /**
+   * Returns the metrics recorded for this controller's operations.
+   *
+   * @return The ControllerMetrics, e.g. to register as MBeans
+   */
+  public ControllerMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Returns the active filter, wrapped for parallel execution if selected
+   * and for timing while metrics are recorded.
+   */
+  private TransactionFilter executableFilter() {
+    TransactionFilter executable = executionMode == ExecutionMode.PARALLEL
+                                   ? new ParallelFilter(currentFilter)
+                                   : currentFilter;
+    return metrics.isEnabled()
+           ? new MeteredFilter(executable, metrics, metrics.filterLatency(currentFilter))
+           : executable;
+  }
+
+  /**
+   * Applies the selected filter: one page at a time if "Paged" is
+   * selected in the view, otherwise in the background.
+   */
+  private void applySelectedFilter(TransactionFilter filter) {
+    if (view.getPagedCheck().isSelected()) {
+      applyFilterPaged(filter, PAGE_SIZE);
+    } else {
+      applyFilterAsync(filter);
+    }
+  }
+
+  /**
+   * Shows the current page of the pager.
+   */
+  private void showPage() {
+    displayed = pager.getPage(pageIndex);
+    view.showPage(displayed, pageIndex, pager.hasPage(pageIndex + 1));
+  }
+
+  /**
+   * Pages the active filter's results again from the model, staying on
+   * the current page or on the last one if it has shrunk.
+   */
+  private void repage() {
+    pager = currentFilter.pager(model, pager.getPageSize());
+    showNearestPage();
+  }
+
+  /**
+   * Shows the current page, or the last page if the current one no longer
+   * holds any matches.
+   */
+  private void showNearestPage() {
+    while (pageIndex > 0 && !pager.hasPage(pageIndex)) {
+      pageIndex--;
+    }
+    showPage();
+  }
+
+  /**
+   * Leaves paged mode and hides the paging controls.
+   */
+  private void stopPaging() {
+    pager = null;
+    view.hidePaging();
+  }
+
+  /**
+   * Cancels a background query in flight and drops its queued changes,
+   * which the next refresh makes redundant.
+   */
+  private void cancelQuery() {
+    queryExecutor.cancel();
+    pendingChanges.clear();
+    view.hideQueryProgress();
+  }
+
   // Other controller methods can be added here
 }
@@ -0,0 +1,199 @@
+package controller;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import model.filter.AmountFilter;
+import model.filter.AmountRangeFilter;
+import model.filter.AndFilter;
+import model.filter.CategoryFilter;
+import model.filter.DateRangeFilter;
+import model.filter.NotFilter;
+import model.filter.OrFilter;
+import model.filter.TransactionFilter;
+
+/**
+ * Parses compound filter queries typed into the view's filter field into a
+ * tree of TransactionFilters. A query combines conditions with "and", "or"
+ * and "not" (or "&amp;", "|" and "!"), grouped with parentheses. "not" binds
+ * tighter than "and", which binds tighter than "or". Conditions are:
+ *
+ * <pre>
+ *   category = food
+ *   amount &gt;= 50      (also &gt;, &lt;=, &lt; and =)
+ *   date &gt;= 01-10-2025 (whole days as dd-MM-yyyy; same operators)
+ * </pre>
+ *
+ * For example: {@code category=food and not amount<10 or category=bills}.
+ * Categories and amounts must pass InputValidation.
+ */
+public class FilterQueryParser {
+
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+  private final List<String> tokens;
+  private int pos;
+
+  private FilterQueryParser(List<String> tokens) {
+    this.tokens = tokens;
+  }
+
+  /**
+   * Parses a compound filter query.
+   *
+   * @param query The query text
+   * @return The filter described by the query
+   * @throws IllegalArgumentException if the query is empty or malformed, or
+   *         contains an invalid category or amount
+   */
+  public static TransactionFilter parse(String query) {
+    if (query == null || query.trim().isEmpty()) {
+      throw new IllegalArgumentException("Query must not be empty");
+    }
+    FilterQueryParser parser = new FilterQueryParser(tokenize(query));
+    TransactionFilter filter = parser.parseOr();
+    if (parser.pos < parser.tokens.size()) {
+      throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.pos) + "'");
+    }
+    return filter;
+  }
+
+  private TransactionFilter parseOr() {
+    List<TransactionFilter> terms = new ArrayList<>();
+    terms.add(parseAnd());
+    while (accept("or") || accept("|")) {
+      terms.add(parseAnd());
+    }
+    return terms.size() == 1 ? terms.get(0) : new OrFilter(terms.toArray(new TransactionFilter[0]));
+  }
+
+  private TransactionFilter parseAnd() {
+    List<TransactionFilter> factors = new ArrayList<>();
+    factors.add(parseNot());
+    while (accept("and") || accept("&")) {
+      factors.add(parseNot());
+    }
+    return factors.size() == 1 ? factors.get(0) : new AndFilter(factors.toArray(new TransactionFilter[0]));
+  }
+
+  private TransactionFilter parseNot() {
+    if (accept("not") || accept("!")) {
+      return new NotFilter(parseNot());
+    }
+    if (accept("(")) {
+      TransactionFilter inner = parseOr();
+      expect(")");
+      return inner;
+    }
+    return parseCondition();
+  }
+
+  private TransactionFilter parseCondition() {
+    String field = next("a condition");
+    String op = next("an operator");
+    String value = next("a value");
+    if (field.equals("category")) {
+      if (!op.equals("=")) {
+        throw new IllegalArgumentException("Categories can only be compared with '='");
+      }
+      return new CategoryFilter(value);
+    }
+    if (field.equals("date")) {
+      return dateCondition(op, value);
+    }
+    if (!field.equals("amount")) {
+      throw new IllegalArgumentException("Unknown field '" + field + "'");
+    }
+    double amount = Double.parseDouble(value);
+    if (!InputValidation.isValidAmount(amount)) {
+      throw new IllegalArgumentException("Amount parameter is invalid");
+    }
+    switch (op) {
+      case ">=": return new AmountFilter(amount);
+      case ">":  return new AmountRangeFilter(amount, false, Double.POSITIVE_INFINITY, true);
+      case "<=": return new AmountRangeFilter(Double.NEGATIVE_INFINITY, true, amount, true);
+      case "<":  return AmountRangeFilter.lessThan(amount);
+      case "=":  return AmountRangeFilter.between(amount, amount);
+      default:   throw new IllegalArgumentException("Unknown operator '" + op + "'");
+    }
+  }
+
+  private static TransactionFilter dateCondition(String op, String value) {
+    LocalDate day;
+    try {
+      day = LocalDate.parse(value, DATE_FORMAT);
+    } catch (DateTimeParseException ex) {
+      throw new IllegalArgumentException("Dates must have the format dd-MM-yyyy");
+    }
+    switch (op) {
+      case ">=": return new DateRangeFilter(startOf(day), Long.MAX_VALUE);
+      case ">":  return new DateRangeFilter(startOf(day.plusDays(1)), Long.MAX_VALUE);
+      case "<=": return new DateRangeFilter(Long.MIN_VALUE, startOf(day.plusDays(1)));
+      case "<":  return new DateRangeFilter(Long.MIN_VALUE, startOf(day));
+      case "=":  return DateRangeFilter.between(day, day);
+      default:   throw new IllegalArgumentException("Unknown operator '" + op + "'");
+    }
+  }
+
+  private static long startOf(LocalDate day) {
+    return day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  private boolean accept(String token) {
+    if (pos < tokens.size() && tokens.get(pos).equals(token)) {
+      pos++;
+      return true;
+    }
+    return false;
+  }
+
+  private void expect(String token) {
+    if (!accept(token)) {
+      throw new IllegalArgumentException("Expected '" + token + "'");
+    }
+  }
+
+  private String next(String expected) {
+    if (pos >= tokens.size()) {
+      throw new IllegalArgumentException("Expected " + expected);
+    }
+    return tokens.get(pos++);
+  }
+
+  /**
+   * Splits a query into words, numbers, comparison operators, parentheses
+   * and the symbolic connectives. Words are lower-cased.
+   */
+  private static List<String> tokenize(String query) {
+    List<String> tokens = new ArrayList<>();
+    int i = 0;
+    while (i < query.length()) {
+      char c = query.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (c == '<' || c == '>') {
+        boolean orEqual = i + 1 < query.length() && query.charAt(i + 1) == '=';
+        tokens.add(orEqual ? c + "=" : String.valueOf(c));
+        i += orEqual ? 2 : 1;
+      } else if ("=()&|!".indexOf(c) >= 0) {
+        tokens.add(String.valueOf(c));
+        i++;
+      } else if (Character.isLetterOrDigit(c) || c == '.' || c == '-') {
+        int start = i;
+        while (i < query.length()
+               && (Character.isLetterOrDigit(query.charAt(i)) || query.charAt(i) == '.' || query.charAt(i) == '-')) {
+          i++;
+        }
+        tokens.add(query.substring(start, i).toLowerCase(Locale.ROOT));
+      } else {
+        throw new IllegalArgumentException("Unexpected character '" + c + "'");
+      }
+    }
+    return tokens;
+  }
+}
@@ -0,0 +1,227 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import model.Transaction;
+import model.TransactionChangeEvent;
+import model.TransactionChangeListener;
+import model.filter.TransactionFilter;
+
+/**
+ * Bounded least-recently-used cache of filter results, keyed by filter
+ * equality, so switching back to a filter that was shown recently does not
+ * evaluate it again.
+ *
+ * The cache listens to the model and keeps every cached result current:
+ * added transactions that match a cached filter are appended, so results
+ * stay in model order without being recomputed. Removals are applied
+ * lazily: removed transactions are appended to a log in O(1) each, and a
+ * cached result drops the ones logged since it was last read when get()
+ * returns it, so deleting does not walk every cached result. The log is
+ * trimmed once every result has caught up with it, and every result
+ * catches up when the log grows past a few thousand removals. Filters
+ * used as keys must implement equals() and hashCode() by value and must
+ * not change their matches() result over time. Like the controller that
+ * owns it, the cache must only be used on the EDT.
+ */
+public class FilterResultCache implements TransactionChangeListener {
+
+  /**
+   * Default number of filter results kept.
+   */
+  public static final int DEFAULT_CAPACITY = 16;
+
+  // removals logged before every result catches up, which bounds the
+  // memory held by removed transactions
+  private static final int MAX_LOGGED_REMOVALS = 4096;
+
+  private final Map<TransactionFilter, Entry> results;
+  // transactions removed while results were cached, in removal order;
+  // removedLog.get(i) is removal number logStart + i
+  private final List<Transaction> removedLog = new ArrayList<>();
+  private final Set<Transaction> pendingRemovals = new HashSet<>();
+  private long logStart;
+
+  /**
+   * A cached result and the number of removals already applied to it.
+   */
+  private static final class Entry {
+    private final List<Transaction> matches;
+    private long applied;
+
+    private Entry(List<Transaction> matches, long applied) {
+      this.matches = matches;
+      this.applied = applied;
+    }
+  }
+
+  /**
+   * Constructs a cache keeping up to DEFAULT_CAPACITY results.
+   */
+  public FilterResultCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs a cache keeping up to the given number of results.
+   *
+   * @param capacity Maximum number of cached results (at least 1)
+   */
+  public FilterResultCache(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be at least 1");
+    }
+    // access order makes the eldest entry the least recently used one
+    this.results = new LinkedHashMap<TransactionFilter, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<TransactionFilter, Entry> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached result of a filter and marks it as most recently
+   * used. Transactions removed from the model since the result was last
+   * read are dropped from it first, in O(m + r) for m matches and r
+   * removals.
+   *
+   * @param filter The filter to look up
+   * @return A new list holding the cached matches in model order, or null
+   *         if the filter's result is not cached
+   */
+  public List<Transaction> get(TransactionFilter filter) {
+    Entry cached = results.get(filter);
+    if (cached == null) {
+      return null;
+    }
+    catchUp(cached);
+    trimLog();
+    return new ArrayList<>(cached.matches);
+  }
+
+  /**
+   * Returns whether the result of a filter is cached, without changing
+   * its recency.
+   *
+   * @param filter The filter to look up
+   * @return true if get() would return a result
+   */
+  public boolean contains(TransactionFilter filter) {
+    return results.containsKey(filter);
+  }
+
+  /**
+   * Caches the result of a filter, evicting the least recently used result
+   * if the cache is full. The result must reflect the current model.
+   *
+   * @param filter The filter that produced the result (must not be null)
+   * @param matches The matching transactions in model order; a copy is kept
+   */
+  public void put(TransactionFilter filter, List<Transaction> matches) {
+    if (filter == null) {
+      throw new IllegalArgumentException("Filter must not be null");
+    }
+    results.put(filter, new Entry(new ArrayList<>(matches), logStart + removedLog.size()));
+    trimLog();
+  }
+
+  /**
+   * Drops all cached results.
+   */
+  public void invalidateAll() {
+    results.clear();
+    trimLog();
+  }
+
+  /**
+   * Returns the number of cached results.
+   *
+   * @return The cache size
+   */
+  public int size() {
+    return results.size();
+  }
+
+  /**
+   * Appends added transactions to the cached results they match and logs
+   * removed transactions for the results to drop when next read. A
+   * transaction added again while its removal is still logged makes every
+   * result catch up first, so the new copy is not dropped with the old one.
+   *
+   * @param e The model change event
+   */
+  @Override
+  public void transactionsChanged(TransactionChangeEvent e) {
+    if (results.isEmpty()) {
+      return;
+    }
+    List<Transaction> changed = e.getTransactions();
+    if (e.getType() == TransactionChangeEvent.Type.REMOVED) {
+      removedLog.addAll(changed);
+      pendingRemovals.addAll(changed);
+      if (removedLog.size() > MAX_LOGGED_REMOVALS) {
+        catchUpAll();
+      }
+      return;
+    }
+    if (!pendingRemovals.isEmpty() && changed.stream().anyMatch(pendingRemovals::contains)) {
+      catchUpAll();
+    }
+    for (Map.Entry<TransactionFilter, Entry> entry : results.entrySet()) {
+      TransactionFilter filter = entry.getKey();
+      List<Transaction> matches = entry.getValue().matches;
+      for (Transaction t : changed) {
+        if (filter.matches(t)) {
+          matches.add(t);
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies the logged removals to every cached result and clears the log.
+   */
+  private void catchUpAll() {
+    for (Entry entry : results.values()) {
+      catchUp(entry);
+    }
+    trimLog();
+  }
+
+  /**
+   * Drops the transactions removed since a result was last caught up.
+   */
+  private void catchUp(Entry entry) {
+    long end = logStart + removedLog.size();
+    if (entry.applied < end) {
+      Set<Transaction> removed = new HashSet<>(
+          removedLog.subList((int) (entry.applied - logStart), removedLog.size()));
+      entry.matches.removeIf(removed::contains);
+      entry.applied = end;
+    }
+  }
+
+  /**
+   * Forgets the logged removals that every cached result has applied.
+   */
+  private void trimLog() {
+    long oldest = logStart + removedLog.size();
+    for (Entry entry : results.values()) {
+      oldest = Math.min(oldest, entry.applied);
+    }
+    List<Transaction> applied = removedLog.subList(0, (int) (oldest - logStart));
+    for (Transaction t : applied) {
+      pendingRemovals.remove(t);
+    }
+    applied.clear();
+    logStart = oldest;
+  }
+}
@@ -1,23 +1,45 @@
 package controller;
 
-import java.util.Arrays;
+import model.CategoryDictionary;
 
 /**
  * Utility class for validating user inputs in the Expense Tracker application.
  * Provides static methods to validate transaction amounts and categories
- * according to business rules.
+ * according to business rules, one value at a time or a whole batch of
+ * rows in one pass (see validate()).
  */
 public class InputValidation {
 
+  private static final String[] VALID_CATEGORIES = {"food", "travel", "bills", "entertainment", "other"};
+  // VALID_CODES[code] is true for the CategoryDictionary codes of VALID_CATEGORIES
+  private static final boolean[] VALID_CODES;
+
+  static {
+    int[] codes = new int[VALID_CATEGORIES.length];
+    int maxCode = 0;
+    for (int i = 0; i < codes.length; i++) {
+      codes[i] = CategoryDictionary.codeOf(VALID_CATEGORIES[i]);
+      maxCode = Math.max(maxCode, codes[i]);
+    }
+    VALID_CODES = new boolean[maxCode + 1];
+    for (int code : codes) {
+      VALID_CODES[code] = true;
+    }
+  }
+
   /**
    * Validates whether a transaction amount is within acceptable bounds.
-   * Valid amounts must be greater than 0 and not exceed 1000.
+   * Valid amounts must be greater than 0 and not exceed 1000; NaN is
+   * rejected.
    * 
    * @param amount The transaction amount to validate
    * @return true if the amount is valid (0 < amount <= 1000), false otherwise
    */
   public static boolean isValidAmount(double amount) {
     
+    if (Double.isNaN(amount)) {
+      return false;
+    }
     // Check range
     if(amount >1000) {
       return false;
@@ -36,33 +58,80 @@ public class InputValidation {
    * Valid categories must be non-null, non-empty, contain only letters,
    * and match one of the predefined valid categories (case-insensitive):
    * "food", "travel", "bills", "entertainment", "other"
+   *
+   * The letters are checked in a single pass and the word is resolved
+   * through the CategoryDictionary, so validating a spelling seen before
+   * allocates nothing.
    * 
    * @param category The category string to validate
    * @return true if the category is valid, false otherwise
    */
   public static boolean isValidCategory(String category) {
 
-    if(category == null) {
+    if(category == null || category.isEmpty()) {
       return false; 
     }
-  
-    if(category.trim().isEmpty()) {
-      return false;
-    }
 
-    if(!category.matches("[a-zA-Z]+")) {
-      return false;
+    for (int i = 0; i < category.length(); i++) {
+      char c = category.charAt(i);
+      if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+        return false;
+      }
     }
 
-    String[] validWords = {"food", "travel", "bills", "entertainment", "other"};
+    int code = CategoryDictionary.lookup(category);
+    return code >= 0 && code < VALID_CODES.length && VALID_CODES[code];
+  
+  }
 
-    if(!Arrays.asList(validWords).contains(category.toLowerCase())) {
-      // invalid word  
-      return false;
+  /**
+   * Validates the first count rows of parallel amount and category arrays
+   * in one pass, with the same rules as isValidAmount() and
+   * isValidCategory(). Amounts are checked 64 rows at a time into one
+   * word of the result's bitset; consecutive rows holding the same
+   * category instance, as produced by parsers and the model's stores,
+   * are checked once. Nothing is allocated per row.
+   *
+   * @param amounts The amounts of the rows
+   * @param categories The categories of the rows, or null to check the
+   *        amounts only
+   * @param count Number of rows to check, from the start of the arrays
+   * @param result Receives the rejected rows and reasons, replacing the
+   *        previous batch (must not be null)
+   * @return result, for chaining
+   * @throws IllegalArgumentException if count is negative or exceeds an array
+   */
+  public static BatchValidation validate(double[] amounts, String[] categories, int count,
+                                         BatchValidation result) {
+    if (count < 0 || count > amounts.length || (categories != null && count > categories.length)) {
+      throw new IllegalArgumentException("Count " + count + " does not fit the arrays");
     }
-  
-    return true;
-  
+    result.reset(count);
+    // null is never valid, which matches the initial state
+    String lastCategory = null;
+    boolean lastValid = false;
+    for (int base = 0; base < count; base += 64) {
+      int end = Math.min(base + 64, count);
+      long amountBits = 0;
+      for (int row = base; row < end; row++) {
+        double amount = amounts[row];
+        // the negation of isValidAmount(), which rejects NaN as well
+        amountBits |= (amount > 0 && amount <= 1000 ? 0L : 1L) << row;
+      }
+      long categoryBits = 0;
+      if (categories != null) {
+        for (int row = base; row < end; row++) {
+          String category = categories[row];
+          if (category != lastCategory) {
+            lastValid = isValidCategory(category);
+            lastCategory = category;
+          }
+          categoryBits |= (lastValid ? 0L : 1L) << row;
+        }
+      }
+      result.reject(base >>> 6, amountBits, categoryBits);
+    }
+    return result;
   }
 
 }
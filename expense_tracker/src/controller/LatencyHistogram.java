@@ -0,0 +1,174 @@
+package controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of operation latencies in nanoseconds, in the style of
+ * HdrHistogram: values are counted in log-linear buckets, 64 per power of
+ * two, so any recorded value is reported within 1/64 (about 1.6%) of its
+ * true value over the whole range of long.
+ *
+ * Recording is allocation-free and lock-free: it computes the bucket with
+ * a few bit operations and increments one counter in a preallocated
+ * array, so it can run on every call of a hot path and from several
+ * threads at once. Readings taken while other threads record may be
+ * slightly out of step with each other, which is fine for monitoring.
+ */
+public final class LatencyHistogram implements LatencyHistogramMBean {
+
+  // log2 of the number of buckets per power of two
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final String name;
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Constructs an empty histogram.
+   *
+   * @param name The name of the measured operation
+   */
+  public LatencyHistogram(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Records one latency.
+   *
+   * @param nanos The latency in nanoseconds; negative values count as 0
+   */
+  public void record(long nanos) {
+    long value = Math.max(nanos, 0);
+    counts.incrementAndGet(bucketOf(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Returns the name of the measured operation.
+   *
+   * @return The operation name
+   */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public long getCount() {
+    return count.get();
+  }
+
+  @Override
+  public double getMeanMicros() {
+    long n = count.get();
+    return n == 0 ? 0 : sum.get() / (double) n / 1000;
+  }
+
+  @Override
+  public double getMaxMicros() {
+    return max.get() / 1000.0;
+  }
+
+  @Override
+  public double getP50Micros() {
+    return getValueAtPercentile(50) / 1000.0;
+  }
+
+  @Override
+  public double getP99Micros() {
+    return getValueAtPercentile(99) / 1000.0;
+  }
+
+  @Override
+  public double getP999Micros() {
+    return getValueAtPercentile(99.9) / 1000.0;
+  }
+
+  /**
+   * Returns the latency that the given share of all recordings does not
+   * exceed, as the upper end of the bucket it falls in.
+   *
+   * @param percentile The percentile, 0 to 100
+   * @return The latency in nanoseconds, 0 if nothing was recorded
+   */
+  public long getValueAtPercentile(double percentile) {
+    long total = count.get();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= rank) {
+        return Math.min(highestValueIn(bucket), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  @Override
+  public void reset() {
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      counts.set(bucket, 0);
+    }
+    count.set(0);
+    sum.set(0);
+    max.set(0);
+  }
+
+  /**
+   * Returns a one-line summary for logs.
+   *
+   * @return The name, count, mean, percentiles and maximum in microseconds
+   */
+  @Override
+  public String toString() {
+    return String.format("%s count=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                         name, getCount(), getMeanMicros(), getP50Micros(),
+                         getP99Micros(), getP999Micros(), getMaxMicros());
+  }
+
+  /**
+   * Records the time elapsed since a System.nanoTime() reading.
+   *
+   * @param startNanos The earlier System.nanoTime() value
+   */
+  void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Values below 2 * SUB_BUCKETS get a bucket each; above that, each power
+   * of two is split into SUB_BUCKETS buckets by the bits after the
+   * leading one.
+   */
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+  }
+
+  /**
+   * Returns the largest value that falls in a bucket.
+   */
+  static long highestValueIn(int bucket) {
+    if (bucket < 2 * SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+    long top = (bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+    return ((top + 1) << shift) - 1;
+  }
+}
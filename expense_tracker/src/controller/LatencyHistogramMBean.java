@@ -0,0 +1,55 @@
+package controller;
+
+/**
+ * JMX management interface of a LatencyHistogram. Latencies are reported
+ * in microseconds.
+ */
+public interface LatencyHistogramMBean {
+
+  /**
+   * Returns the number of recorded operations.
+   *
+   * @return The operation count
+   */
+  long getCount();
+
+  /**
+   * Returns the mean latency.
+   *
+   * @return The mean in microseconds, 0 if nothing was recorded
+   */
+  double getMeanMicros();
+
+  /**
+   * Returns the largest recorded latency.
+   *
+   * @return The maximum in microseconds
+   */
+  double getMaxMicros();
+
+  /**
+   * Returns the median latency.
+   *
+   * @return The 50th percentile in microseconds
+   */
+  double getP50Micros();
+
+  /**
+   * Returns the 99th percentile latency.
+   *
+   * @return The 99th percentile in microseconds
+   */
+  double getP99Micros();
+
+  /**
+   * Returns the 99.9th percentile latency.
+   *
+   * @return The 99.9th percentile in microseconds
+   */
+  double getP999Micros();
+
+  /**
+   * Discards all recordings.
+   */
+  void reset();
+}
@@ -0,0 +1,73 @@
+package controller;
+
+import java.util.List;
+
+import model.ExpenseTrackerModel;
+import model.IndexRange;
+import model.Transaction;
+import model.filter.TransactionFilter;
+
+/**
+ * Decorator that records how long each evaluation of another filter over
+ * a list or a model takes. Tests of single transactions are delegated
+ * without timing, since they are far too short to measure one by one.
+ */
+class MeteredFilter implements TransactionFilter {
+
+  private final TransactionFilter filter;
+  private final ControllerMetrics metrics;
+  private final LatencyHistogram latency;
+
+  /**
+   * Constructs a decorator recording into the given histogram.
+   *
+   * @param filter The filter to evaluate
+   * @param metrics The metrics that decide whether to record
+   * @param latency The histogram to record into
+   */
+  MeteredFilter(TransactionFilter filter, ControllerMetrics metrics, LatencyHistogram latency) {
+    this.filter = filter;
+    this.metrics = metrics;
+    this.latency = latency;
+  }
+
+  @Override
+  public List<Transaction> filter(List<Transaction> txs) {
+    long start = metrics.start();
+    try {
+      return filter.filter(txs);
+    } finally {
+      metrics.stop(latency, start);
+    }
+  }
+
+  @Override
+  public List<Transaction> filter(ExpenseTrackerModel model) {
+    long start = metrics.start();
+    try {
+      return filter.filter(model);
+    } finally {
+      metrics.stop(latency, start);
+    }
+  }
+
+  @Override
+  public boolean matches(Transaction t) {
+    return filter.matches(t);
+  }
+
+  @Override
+  public int evaluationCost() {
+    return filter.evaluationCost();
+  }
+
+  @Override
+  public int estimateMatches(ExpenseTrackerModel model) {
+    return filter.estimateMatches(model);
+  }
+
+  @Override
+  public IndexRange indexRange(ExpenseTrackerModel model) {
+    return filter.indexRange(model);
+  }
+}
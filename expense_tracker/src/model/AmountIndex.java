@@ -0,0 +1,445 @@
+package model;
+
+import java.util.BitSet;
+
+/**
+ * Sorted index of (amount, row) pairs kept in a B+ tree, used by
+ * ExpenseTrackerModel to answer amount range queries with a binary search
+ * down the tree followed by a walk along the linked leaves. Inserting costs
+ * O(log n) and a range query costs O(log n + k) for k visited entries.
+ * Branches also keep the number of entries below them, so the size of a
+ * range is counted in O(log n) without visiting it.
+ *
+ * Entries are ordered by amount and then by row, so every entry is unique.
+ * Individual entries are never deleted; the model skips removed rows while
+ * walking and rebuilds the tree in one pass when it compacts its storage.
+ */
+class AmountIndex {
+
+  private static final int LEAF_CAPACITY = 64;
+  private static final int BRANCH_CAPACITY = 64;
+
+  private Node root = new Leaf();
+  private int size;
+
+  // Result of the last split during insert, carried up to the parent
+  private Node splitNode;
+  private double splitAmount;
+  private int splitRow;
+
+  /**
+   * Callback receiving the rows found by a range query.
+   */
+  interface RowVisitor {
+    /**
+     * Called once for every entry in the requested range, in ascending
+     * amount order.
+     *
+     * @param row The row position of the entry
+     */
+    void visit(int row);
+  }
+
+  /**
+   * Adds an entry to the index.
+   *
+   * @param amount The amount stored at the row
+   * @param row The row position
+   */
+  void insert(double amount, int row) {
+    if (insert(root, amount, row)) {
+      Branch newRoot = new Branch();
+      newRoot.children[0] = root;
+      newRoot.children[1] = splitNode;
+      newRoot.amounts[0] = splitAmount;
+      newRoot.rows[0] = splitRow;
+      newRoot.count = 2;
+      newRoot.total = size + 1;
+      root = newRoot;
+      splitNode = null;
+    }
+    size++;
+  }
+
+  /**
+   * Visits the rows whose amount lies within the given bounds, in ascending
+   * amount order (rows with equal amounts in ascending row order).
+   *
+   * @param min Lower bound of the range
+   * @param minInclusive Whether an amount equal to min is included
+   * @param max Upper bound of the range
+   * @param maxInclusive Whether an amount equal to max is included
+   * @param visitor Receives each matching row
+   */
+  void visitRange(double min, boolean minInclusive, double max, boolean maxInclusive,
+                  RowVisitor visitor) {
+    int startRow = minInclusive ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+    Node node = root;
+    while (node instanceof Branch) {
+      Branch branch = (Branch) node;
+      node = branch.children[upperBound(branch.amounts, branch.rows, branch.count - 1, min, startRow)];
+    }
+    Leaf leaf = (Leaf) node;
+    int pos = lowerBound(leaf.amounts, leaf.rows, leaf.count, min, startRow);
+    while (leaf != null) {
+      for (; pos < leaf.count; pos++) {
+        int cmp = Double.compare(leaf.amounts[pos], max);
+        if (cmp > 0 || (cmp == 0 && !maxInclusive)) {
+          return;
+        }
+        visitor.visit(leaf.rows[pos]);
+      }
+      leaf = leaf.next;
+      pos = 0;
+    }
+  }
+
+  /**
+   * Returns the number of entries whose amount lies within the given
+   * bounds in O(log n), including entries of removed rows.
+   *
+   * @param min Lower bound of the range
+   * @param minInclusive Whether an amount equal to min is included
+   * @param max Upper bound of the range
+   * @param maxInclusive Whether an amount equal to max is included
+   * @return The entry count
+   */
+  int countRange(double min, boolean minInclusive, double max, boolean maxInclusive) {
+    int below = countBelow(min, minInclusive ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+    int upTo = countBelow(max, maxInclusive ? Integer.MAX_VALUE : Integer.MIN_VALUE);
+    return Math.max(0, upTo - below);
+  }
+
+  /**
+   * Returns the position, in ascending (amount, row) order, of the first
+   * entry at or above a lower bound, in O(log n).
+   *
+   * @param min Lower bound of a range
+   * @param minInclusive Whether an amount equal to min is included
+   * @return The number of entries below the bound
+   */
+  int positionOf(double min, boolean minInclusive) {
+    return countBelow(min, minInclusive ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the position of an entry in ascending (amount, row) order in
+   * O(log n).
+   *
+   * @param amount The amount of the entry
+   * @param row The row of the entry
+   * @return The number of entries ordered before it
+   */
+  int positionOf(double amount, int row) {
+    return countBelow(amount, row);
+  }
+
+  /**
+   * Returns the row of the entry at a position in ascending (amount, row)
+   * order, found through the entry counts of the branches in O(log n).
+   *
+   * @param position The position, 0 &lt;= position &lt; size()
+   * @return The row of the entry
+   */
+  int rowAt(int position) {
+    Node node = root;
+    while (node instanceof Branch) {
+      Branch branch = (Branch) node;
+      int child = 0;
+      while (position >= total(branch.children[child])) {
+        position -= total(branch.children[child++]);
+      }
+      node = branch.children[child];
+    }
+    return ((Leaf) node).rows[position];
+  }
+
+  /**
+   * Returns the number of entries in the index.
+   *
+   * @return The entry count
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Drops the entries of removed rows and renumbers the remaining rows,
+   * keeping the sort order. Runs in O(n).
+   *
+   * @param removed Rows being dropped from the store
+   * @param newRows Maps each surviving old row to its new position
+   */
+  void compact(BitSet removed, int[] newRows) {
+    double[] amounts = new double[size];
+    int[] rows = new int[size];
+    int count = 0;
+    Node node = root;
+    while (node instanceof Branch) {
+      node = ((Branch) node).children[0];
+    }
+    for (Leaf leaf = (Leaf) node; leaf != null; leaf = leaf.next) {
+      for (int i = 0; i < leaf.count; i++) {
+        if (!removed.get(leaf.rows[i])) {
+          amounts[count] = leaf.amounts[i];
+          rows[count] = newRows[leaf.rows[i]];
+          count++;
+        }
+      }
+    }
+    load(amounts, rows, count);
+  }
+
+  /**
+   * Replaces the contents of the index with one entry per row, where row r
+   * holds amounts[r]. The entries are ordered with a stable LSD radix sort
+   * over the amounts' bit patterns, so the build runs in O(n) instead of
+   * the O(n log n) of n separate inserts.
+   *
+   * @param amounts The amount of each row
+   * @param count Number of rows
+   */
+  void build(double[] amounts, int count) {
+    long[] keys = new long[count];
+    for (int row = 0; row < count; row++) {
+      long bits = Double.doubleToLongBits(amounts[row]);
+      // flip so that unsigned key order equals Double.compare order
+      keys[row] = bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+    }
+    int[] rows = RadixSort.sortRows(keys, count);
+    double[] sorted = new double[count];
+    for (int i = 0; i < count; i++) {
+      sorted[i] = amounts[rows[i]];
+    }
+    load(sorted, rows, count);
+  }
+
+  /**
+   * Replaces the contents of the index with entries that are already in
+   * ascending (amount, row) order. Runs in O(n).
+   *
+   * @param amounts Sorted amounts
+   * @param rows Rows matching each amount
+   * @param count Number of entries to load
+   */
+  void load(double[] amounts, int[] rows, int count) {
+    Node[] level = new Node[Math.max(1, (count + LEAF_CAPACITY - 1) / LEAF_CAPACITY)];
+    double[] firstAmounts = new double[level.length];
+    int[] firstRows = new int[level.length];
+    Leaf previous = null;
+    for (int i = 0; i < level.length; i++) {
+      Leaf leaf = new Leaf();
+      int from = i * LEAF_CAPACITY;
+      leaf.count = Math.min(LEAF_CAPACITY, count - from);
+      System.arraycopy(amounts, from, leaf.amounts, 0, leaf.count);
+      System.arraycopy(rows, from, leaf.rows, 0, leaf.count);
+      if (previous != null) {
+        previous.next = leaf;
+      }
+      previous = leaf;
+      level[i] = leaf;
+      firstAmounts[i] = leaf.count > 0 ? leaf.amounts[0] : 0;
+      firstRows[i] = leaf.count > 0 ? leaf.rows[0] : 0;
+    }
+    int levelSize = level.length;
+    while (levelSize > 1) {
+      int parents = (levelSize + BRANCH_CAPACITY - 1) / BRANCH_CAPACITY;
+      for (int p = 0; p < parents; p++) {
+        Branch branch = new Branch();
+        int from = p * BRANCH_CAPACITY;
+        branch.count = Math.min(BRANCH_CAPACITY, levelSize - from);
+        for (int c = 0; c < branch.count; c++) {
+          branch.children[c] = level[from + c];
+          if (c > 0) {
+            branch.amounts[c - 1] = firstAmounts[from + c];
+            branch.rows[c - 1] = firstRows[from + c];
+          }
+          branch.total += total(level[from + c]);
+        }
+        level[p] = branch;
+        firstAmounts[p] = firstAmounts[from];
+        firstRows[p] = firstRows[from];
+      }
+      levelSize = parents;
+    }
+    root = level[0];
+    size = count;
+  }
+
+  /**
+   * Inserts into the subtree rooted at node. Returns true if the node split,
+   * in which case splitNode/splitAmount/splitRow describe the new right
+   * sibling and its smallest key.
+   */
+  private boolean insert(Node node, double amount, int row) {
+    if (node instanceof Leaf) {
+      Leaf leaf = (Leaf) node;
+      int pos = upperBound(leaf.amounts, leaf.rows, leaf.count, amount, row);
+      if (leaf.count < LEAF_CAPACITY) {
+        insertAt(leaf.amounts, leaf.rows, leaf.count, pos, amount, row);
+        leaf.count++;
+        return false;
+      }
+      Leaf right = new Leaf();
+      int half = LEAF_CAPACITY / 2;
+      right.count = LEAF_CAPACITY - half;
+      System.arraycopy(leaf.amounts, half, right.amounts, 0, right.count);
+      System.arraycopy(leaf.rows, half, right.rows, 0, right.count);
+      leaf.count = half;
+      right.next = leaf.next;
+      leaf.next = right;
+      if (pos <= half) {
+        insertAt(leaf.amounts, leaf.rows, leaf.count, pos, amount, row);
+        leaf.count++;
+      } else {
+        insertAt(right.amounts, right.rows, right.count, pos - half, amount, row);
+        right.count++;
+      }
+      splitNode = right;
+      splitAmount = right.amounts[0];
+      splitRow = right.rows[0];
+      return true;
+    }
+
+    Branch branch = (Branch) node;
+    int child = upperBound(branch.amounts, branch.rows, branch.count - 1, amount, row);
+    branch.total++;
+    if (!insert(branch.children[child], amount, row)) {
+      return false;
+    }
+    Node newChild = splitNode;
+    double newAmount = splitAmount;
+    int newRow = splitRow;
+    if (branch.count < BRANCH_CAPACITY) {
+      insertChild(branch, child, newChild, newAmount, newRow);
+      return false;
+    }
+    // Split a full branch: the middle separator moves up to the parent
+    Branch right = new Branch();
+    int half = BRANCH_CAPACITY / 2;
+    right.count = BRANCH_CAPACITY - half;
+    System.arraycopy(branch.children, half, right.children, 0, right.count);
+    System.arraycopy(branch.amounts, half, right.amounts, 0, right.count - 1);
+    System.arraycopy(branch.rows, half, right.rows, 0, right.count - 1);
+    double upAmount = branch.amounts[half - 1];
+    int upRow = branch.rows[half - 1];
+    branch.count = half;
+    if (child < half) {
+      insertChild(branch, child, newChild, newAmount, newRow);
+    } else {
+      insertChild(right, child - half, newChild, newAmount, newRow);
+    }
+    right.total = branch.total;
+    branch.total = 0;
+    for (int c = 0; c < branch.count; c++) {
+      branch.total += total(branch.children[c]);
+    }
+    right.total -= branch.total;
+    splitNode = right;
+    splitAmount = upAmount;
+    splitRow = upRow;
+    return true;
+  }
+
+  /**
+   * Returns the number of entries ordered before the key (amount, row).
+   */
+  private int countBelow(double amount, int row) {
+    int below = 0;
+    Node node = root;
+    while (node instanceof Branch) {
+      Branch branch = (Branch) node;
+      int child = upperBound(branch.amounts, branch.rows, branch.count - 1, amount, row);
+      for (int c = 0; c < child; c++) {
+        below += total(branch.children[c]);
+      }
+      node = branch.children[child];
+    }
+    Leaf leaf = (Leaf) node;
+    return below + lowerBound(leaf.amounts, leaf.rows, leaf.count, amount, row);
+  }
+
+  private static int total(Node node) {
+    return node instanceof Branch ? ((Branch) node).total : node.count;
+  }
+
+  /**
+   * Inserts a child directly to the right of position index.
+   */
+  private static void insertChild(Branch branch, int index, Node child, double amount, int row) {
+    System.arraycopy(branch.children, index + 1, branch.children, index + 2, branch.count - index - 1);
+    branch.children[index + 1] = child;
+    insertAt(branch.amounts, branch.rows, branch.count - 1, index, amount, row);
+    branch.count++;
+  }
+
+  private static void insertAt(double[] amounts, int[] rows, int count, int pos, double amount, int row) {
+    System.arraycopy(amounts, pos, amounts, pos + 1, count - pos);
+    System.arraycopy(rows, pos, rows, pos + 1, count - pos);
+    amounts[pos] = amount;
+    rows[pos] = row;
+  }
+
+  /**
+   * Returns the index of the first key greater than or equal to (amount, row).
+   */
+  private static int lowerBound(double[] amounts, int[] rows, int count, double amount, int row) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (compare(amounts[mid], rows[mid], amount, row) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the first key strictly greater than (amount, row).
+   */
+  private static int upperBound(double[] amounts, int[] rows, int count, double amount, int row) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (compare(amounts[mid], rows[mid], amount, row) <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static int compare(double amount1, int row1, double amount2, int row2) {
+    int cmp = Double.compare(amount1, amount2);
+    return cmp != 0 ? cmp : Integer.compare(row1, row2);
+  }
+
+  private abstract static class Node {
+    int count;
+  }
+
+  /**
+   * Leaf node holding sorted entries and a link to the next leaf.
+   */
+  private static final class Leaf extends Node {
+    final double[] amounts = new double[LEAF_CAPACITY];
+    final int[] rows = new int[LEAF_CAPACITY];
+    Leaf next;
+  }
+
+  /**
+   * Inner node with count children; separator i is the smallest key of
+   * child i + 1. total is the number of entries in the subtree.
+   */
+  private static final class Branch extends Node {
+    int total;
+    final Node[] children = new Node[BRANCH_CAPACITY];
+    final double[] amounts = new double[BRANCH_CAPACITY - 1];
+    final int[] rows = new int[BRANCH_CAPACITY - 1];
+  }
+}
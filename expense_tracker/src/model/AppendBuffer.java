@@ -0,0 +1,99 @@
+package model;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Unbounded multi-producer, single-consumer buffer of transactions built
+ * from a linked list of fixed-size chunks. Producers never block: an
+ * append reserves a slot by atomically incrementing the tail of the
+ * current chunk and then publishes the transaction into it; a producer
+ * that finds the chunk full links a new one with a compare-and-set and
+ * retries there. The order of the slots is the order of the appends.
+ *
+ * drainTo() must only be called by one thread at a time. It waits for
+ * slots that were reserved but not yet published, which takes no more than
+ * the few instructions between the two steps of an append, so every append
+ * that has returned before drainTo() starts is included.
+ */
+final class AppendBuffer {
+
+  private static final int CHUNK_SIZE = 1024;
+
+  /**
+   * A fixed block of slots. tail counts reserved slots and may overshoot
+   * CHUNK_SIZE when producers race for the last slot.
+   */
+  private static final class Chunk {
+    final AtomicReferenceArray<Transaction> slots = new AtomicReferenceArray<>(CHUNK_SIZE);
+    final AtomicInteger tail = new AtomicInteger();
+    final AtomicReference<Chunk> next = new AtomicReference<>();
+  }
+
+  // chunk producers append to; only ever moves forward
+  private final AtomicReference<Chunk> producerChunk;
+  // consumer state, confined to the draining thread
+  private Chunk head;
+  private int consumed;
+
+  /**
+   * Constructs an empty buffer.
+   */
+  AppendBuffer() {
+    head = new Chunk();
+    producerChunk = new AtomicReference<>(head);
+  }
+
+  /**
+   * Appends a transaction. Safe to call from any number of threads.
+   *
+   * @param t The transaction (must not be null)
+   */
+  void append(Transaction t) {
+    while (true) {
+      Chunk chunk = producerChunk.get();
+      int slot = chunk.tail.getAndIncrement();
+      if (slot < CHUNK_SIZE) {
+        chunk.slots.set(slot, t);
+        return;
+      }
+      // full: link a successor unless another producer already did
+      Chunk next = chunk.next.get();
+      if (next == null) {
+        Chunk fresh = new Chunk();
+        next = chunk.next.compareAndSet(null, fresh) ? fresh : chunk.next.get();
+      }
+      producerChunk.compareAndSet(chunk, next);
+    }
+  }
+
+  /**
+   * Moves every transaction appended so far to the given list, in append
+   * order. Must not be called concurrently with itself.
+   *
+   * @param target The list to add the transactions to
+   * @return The number of transactions moved
+   */
+  int drainTo(List<Transaction> target) {
+    int moved = 0;
+    while (true) {
+      int reserved = Math.min(head.tail.get(), CHUNK_SIZE);
+      for (; consumed < reserved; consumed++, moved++) {
+        Transaction t;
+        while ((t = head.slots.get(consumed)) == null) {
+          // reserved by an append that has not stored its transaction yet
+          Thread.onSpinWait();
+        }
+        target.add(t);
+      }
+      Chunk next = head.next.get();
+      if (consumed < CHUNK_SIZE || next == null) {
+        return moved;
+      }
+      head = next;
+      consumed = 0;
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary that assigns each category a small integer code.
+ * Categories that differ only in case share one code, so "Food", "food"
+ * and "FOOD" all map to the code of the canonical (lower-case) name "food".
+ * Codes are handed out from 0 upwards in order of registration and never
+ * change or get reused.
+ *
+ * A category is registered only once it is accepted: when a transaction
+ * holding it is added to a model, or when validation or a filter names
+ * one of the valid categories. Creating a transaction, e.g. for an input
+ * row that is rejected later, or querying an unknown category does not
+ * register anything, so the dictionary only grows with the categories
+ * models actually hold.
+ *
+ * Every spelling of a registered category seen is remembered together
+ * with its code and one shared String instance. Resolving a known
+ * spelling is a single hash lookup and allocates nothing; only the first
+ * use of a spelling lower-cases it. Transactions resolve their category
+ * when they are created, or when they are added to a model if it was not
+ * registered yet, so filters, indexes and aggregates compare and address
+ * categories by code instead of comparing strings per row.
+ *
+ * This class is thread-safe.
+ */
+public final class CategoryDictionary {
+
+  /**
+   * Code of a missing (null) or unknown category.
+   */
+  public static final int NONE = -1;
+
+  // every spelling of a registered category seen so far
+  private static final Map<String, Entry> SPELLINGS = new ConcurrentHashMap<>();
+  // canonical name to code, guarded by the class lock
+  private static final Map<String, Integer> CODES = new HashMap<>();
+  // canonical names by code, replaced as a whole when a name is registered
+  private static volatile String[] names = new String[0];
+
+  private CategoryDictionary() {
+  }
+
+  /**
+   * A spelling of a category with its code.
+   */
+  static final class Entry {
+    final String spelling;
+    final int code;
+
+    Entry(String spelling, int code) {
+      this.spelling = spelling;
+      this.code = code;
+    }
+  }
+
+  /**
+   * Returns the code of a category, registering it if no spelling of it
+   * was seen before.
+   *
+   * @param category The category in any case
+   * @return The category's code, or NONE if category is null
+   */
+  public static int codeOf(String category) {
+    return category == null ? NONE : entry(category).code;
+  }
+
+  /**
+   * Returns the code of a category without registering new categories,
+   * e.g. for queries, which should not grow the dictionary.
+   *
+   * @param category The category in any case
+   * @return The category's code, or NONE if it is null or was never registered
+   */
+  public static int lookup(String category) {
+    Entry entry = category == null ? null : find(category);
+    return entry == null ? NONE : entry.code;
+  }
+
+  /**
+   * Returns the canonical (lower-case) name of a code.
+   *
+   * @param code A code returned by codeOf()
+   * @return The canonical category name
+   * @throws IllegalArgumentException if the code was never handed out
+   */
+  public static String nameOf(int code) {
+    String[] current = names;
+    if (code < 0 || code >= current.length) {
+      throw new IllegalArgumentException("Unknown category code " + code);
+    }
+    return current[code];
+  }
+
+  /**
+   * Returns the number of distinct categories registered so far, which is
+   * one more than the highest code handed out.
+   *
+   * @return The number of codes in use
+   */
+  public static int size() {
+    return names.length;
+  }
+
+  /**
+   * Returns the entry of a spelling, registering the spelling and, if
+   * needed, its category.
+   *
+   * @param category The category in any case (must not be null)
+   * @return The entry holding the shared spelling and the code
+   */
+  static Entry entry(String category) {
+    Entry entry = SPELLINGS.get(category);
+    return entry != null ? entry : register(category);
+  }
+
+  /**
+   * Returns the entry of a spelling without registering new categories.
+   * A new spelling of a registered category is remembered, so the next
+   * lookup of it is a single hash lookup.
+   *
+   * @param category The category in any case (must not be null)
+   * @return The entry holding the shared spelling and the code, or null
+   *         if the category was never registered
+   */
+  static Entry find(String category) {
+    Entry entry = SPELLINGS.get(category);
+    if (entry != null) {
+      return entry;
+    }
+    synchronized (CategoryDictionary.class) {
+      Integer code = CODES.get(canonical(category));
+      if (code == null) {
+        return null;
+      }
+      entry = new Entry(category, code);
+      Entry previous = SPELLINGS.putIfAbsent(category, entry);
+      return previous != null ? previous : entry;
+    }
+  }
+
+  private static synchronized Entry register(String category) {
+    Entry entry = SPELLINGS.get(category);
+    if (entry != null) {
+      return entry;
+    }
+    String canonical = canonical(category);
+    Integer code = CODES.get(canonical);
+    if (code == null) {
+      String[] current = names;
+      code = current.length;
+      String[] grown = Arrays.copyOf(current, code + 1);
+      grown[code] = canonical;
+      CODES.put(canonical, code);
+      names = grown;
+    }
+    entry = new Entry(category, code);
+    SPELLINGS.put(category, entry);
+    return entry;
+  }
+
+  private static String canonical(String category) {
+    return category.toLowerCase(Locale.ROOT);
+  }
+}
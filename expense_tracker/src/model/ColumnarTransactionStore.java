@@ -0,0 +1,172 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * TransactionStore that keeps each field in its own primitive array:
+ * a double[] for amounts, a byte[] of category codes and a long[] of
+ * epoch-millisecond timestamps, plus a long[] of transaction IDs. The
+ * payload costs 17 bytes per row (25 with the ID) instead of a full
+ * Transaction object, and scans over a single column
+ * touch contiguous memory. Used for StorageMode.COLUMNAR.
+ *
+ * Categories are dictionary-encoded: each distinct category string is
+ * stored once and rows refer to it by an unsigned byte code, so at most
+ * 256 distinct categories are supported. Each local code also remembers
+ * the category's CategoryDictionary code. Transaction objects handed out
+ * by get() are lightweight views rebuilt from the columns on demand.
+ *
+ * Appends write past the last row and growing copies the columns, so a
+ * frozen accessor keeps reading the columns it captured. Compaction moves
+ * rows within the columns, so after freeze() the next compaction writes
+ * into new columns instead.
+ */
+class ColumnarTransactionStore implements TransactionStore {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int MAX_CATEGORIES = 256;
+
+  private double[] amounts = new double[INITIAL_CAPACITY];
+  private byte[] categoryCodes = new byte[INITIAL_CAPACITY];
+  private long[] timestamps = new long[INITIAL_CAPACITY];
+  private long[] ids = new long[INITIAL_CAPACITY];
+  private int size;
+
+  private final List<String> categoryNames = new ArrayList<>();
+  private final Map<String, Integer> categoryLookup = new HashMap<>();
+  // CategoryDictionary code of each local code
+  private final int[] dictionaryCodes = new int[MAX_CATEGORIES];
+  // true while a frozen accessor may read the current columns
+  private boolean frozen;
+
+  @Override
+  public void append(Transaction t) {
+    ensureCapacity(size + 1);
+    amounts[size] = t.getAmount();
+    categoryCodes[size] = (byte) encodeCategory(t);
+    timestamps[size] = t.getTimestampMillis();
+    ids[size] = t.getId();
+    size++;
+  }
+
+  @Override
+  public Transaction get(int row) {
+    checkRow(row);
+    int code = categoryCodes[row] & 0xFF;
+    return new Transaction(ids[row],
+                           amounts[row],
+                           categoryNames.get(code),
+                           dictionaryCodes[code],
+                           timestamps[row]);
+  }
+
+  @Override
+  public long idAt(int row) {
+    checkRow(row);
+    return ids[row];
+  }
+
+  @Override
+  public double amountAt(int row) {
+    checkRow(row);
+    return amounts[row];
+  }
+
+  @Override
+  public int categoryCodeAt(int row) {
+    checkRow(row);
+    return dictionaryCodes[categoryCodes[row] & 0xFF];
+  }
+
+  @Override
+  public long timestampAt(int row) {
+    checkRow(row);
+    return timestamps[row];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void compact(BitSet removed) {
+    if (frozen) {
+      amounts = amounts.clone();
+      categoryCodes = categoryCodes.clone();
+      timestamps = timestamps.clone();
+      ids = ids.clone();
+      frozen = false;
+    }
+    int kept = 0;
+    for (int row = 0; row < size; row++) {
+      if (!removed.get(row)) {
+        amounts[kept] = amounts[row];
+        categoryCodes[kept] = categoryCodes[row];
+        timestamps[kept] = timestamps[row];
+        ids[kept] = ids[row];
+        kept++;
+      }
+    }
+    size = kept;
+  }
+
+  @Override
+  public IntFunction<Transaction> freeze() {
+    frozen = true;
+    double[] rowAmounts = amounts;
+    byte[] rowCategories = categoryCodes;
+    long[] rowTimestamps = timestamps;
+    long[] rowIds = ids;
+    String[] names = categoryNames.toArray(new String[0]);
+    return row -> {
+      int code = rowCategories[row] & 0xFF;
+      return new Transaction(rowIds[row], rowAmounts[row], names[code], dictionaryCodes[code],
+                             rowTimestamps[row]);
+    };
+  }
+
+  /**
+   * Returns the local code for a transaction's category, registering it
+   * if it has not been seen before. Category strings are matched exactly.
+   */
+  private int encodeCategory(Transaction t) {
+    String category = t.getCategory();
+    Integer code = categoryLookup.get(category);
+    if (code != null) {
+      return code;
+    }
+    if (categoryNames.size() >= MAX_CATEGORIES) {
+      throw new IllegalStateException("Columnar storage supports at most "
+                                      + MAX_CATEGORIES + " distinct categories");
+    }
+    int newCode = categoryNames.size();
+    categoryNames.add(category);
+    categoryLookup.put(category, newCode);
+    dictionaryCodes[newCode] = t.getCategoryCode();
+    return newCode;
+  }
+
+  private void ensureCapacity(int required) {
+    if (required <= amounts.length) {
+      return;
+    }
+    int capacity = Math.max(required, amounts.length + (amounts.length >> 1));
+    amounts = Arrays.copyOf(amounts, capacity);
+    categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+    timestamps = Arrays.copyOf(timestamps, capacity);
+    ids = Arrays.copyOf(ids, capacity);
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+    }
+  }
+}
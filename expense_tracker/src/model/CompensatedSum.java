@@ -0,0 +1,56 @@
+package model;
+
+/**
+ * Running sum of doubles with compensated (Kahan-Babuska/Neumaier)
+ * summation. The rounding error of every addition is carried in a separate
+ * compensation term, so the error of the total stays bounded by a few ulps
+ * instead of growing with the number of terms; adding and then subtracting
+ * millions of amounts returns to the exact starting value in practice.
+ * Each update costs O(1).
+ */
+public final class CompensatedSum {
+
+  private double sum;
+  private double compensation;
+
+  /**
+   * Adds a value to the sum.
+   *
+   * @param value The value to add
+   */
+  public void add(double value) {
+    double t = sum + value;
+    if (Math.abs(sum) >= Math.abs(value)) {
+      compensation += (sum - t) + value;
+    } else {
+      compensation += (value - t) + sum;
+    }
+    sum = t;
+  }
+
+  /**
+   * Subtracts a value from the sum.
+   *
+   * @param value The value to subtract
+   */
+  public void subtract(double value) {
+    add(-value);
+  }
+
+  /**
+   * Resets the sum to exactly 0.
+   */
+  public void reset() {
+    sum = 0;
+    compensation = 0;
+  }
+
+  /**
+   * Returns the compensated sum.
+   *
+   * @return The sum of all added values minus all subtracted values
+   */
+  public double value() {
+    return sum + compensation;
+  }
+}
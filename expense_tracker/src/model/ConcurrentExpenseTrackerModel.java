@@ -0,0 +1,474 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe ExpenseTrackerModel for feeding transactions from several
+ * ingestion threads at once.
+ *
+ * Adding never blocks: addTransaction() and addAll() only append to a
+ * lock-free chunked buffer (see AppendBuffer). Every other operation takes
+ * a lock, first moves all buffered transactions into the model in append
+ * order and then runs against the up-to-date model, so each call behaves
+ * as if it happened at a single point in time: a removal or query always
+ * sees every add that returned before it started.
+ *
+ * Reads are snapshot-consistent. getTransactions() returns the model's
+ * immutable snapshot (see snapshot()), which can be iterated while other
+ * threads keep writing, and aggregates are returned as detached snapshots
+ * rather than live views. Change listeners are called while the lock is
+ * held, on whichever thread applies the change; a listener that updates a
+ * Swing view must hand the event over to the event dispatch thread. A
+ * listener that reads the model sees it as of the change being notified;
+ * adds buffered in the meantime are applied once every listener has run,
+ * so all listeners receive the changes in the same order.
+ *
+ * Because an add returns before the transaction is applied, a transaction
+ * that is already in the model is ignored instead of rejected.
+ */
+public class ConcurrentExpenseTrackerModel extends ExpenseTrackerModel {
+
+  private final AppendBuffer pending = new AppendBuffer();
+  private final ReentrantLock lock = new ReentrantLock();
+  // guarded by lock
+  private final List<Transaction> drained = new ArrayList<>();
+  // guarded by lock; true while a change is applied and its listeners run
+  private boolean changing;
+
+  /**
+   * Constructs an empty concurrent model using StorageMode.LIST.
+   */
+  public ConcurrentExpenseTrackerModel() {
+    this(StorageMode.LIST);
+  }
+
+  /**
+   * Constructs an empty concurrent model backed by the given storage
+   * engine.
+   *
+   * @param storageMode How transactions are stored internally (must not be null)
+   */
+  public ConcurrentExpenseTrackerModel(StorageMode storageMode) {
+    super(storageMode);
+  }
+
+  /**
+   * Appends a transaction without blocking. It is applied to the model,
+   * and listeners are notified, by the next operation that needs it.
+   *
+   * @param t The Transaction object to add (must not be null)
+   * @throws IllegalArgumentException if t is null
+   */
+  @Override
+  public void addTransaction(Transaction t) {
+    if (t == null) {
+      throw new IllegalArgumentException("Transaction must not be null");
+    }
+    pending.append(t);
+  }
+
+  /**
+   * Appends several transactions without blocking, in iteration order.
+   * Adds from other threads may be interleaved with them.
+   *
+   * @param ts The transactions to add (must not be null)
+   * @throws IllegalArgumentException if ts holds null, in which case
+   *         nothing is added
+   */
+  @Override
+  public void addAll(Collection<? extends Transaction> ts) {
+    Transaction[] batch = ts.toArray(new Transaction[0]);
+    for (Transaction t : batch) {
+      if (t == null) {
+        throw new IllegalArgumentException("Transaction must not be null");
+      }
+    }
+    for (Transaction t : batch) {
+      pending.append(t);
+    }
+  }
+
+  @Override
+  public boolean removeById(long id) {
+    lock.lock();
+    try {
+      applyPending();
+      changing = true;
+      try {
+        return super.removeById(id);
+      } finally {
+        changing = false;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean removeAll(Collection<? extends Transaction> ts) {
+    lock.lock();
+    try {
+      applyPending();
+      changing = true;
+      try {
+        return super.removeAll(ts);
+      } finally {
+        changing = false;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void addChangeListener(TransactionChangeListener l) {
+    lock.lock();
+    try {
+      super.addChangeListener(l);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void removeChangeListener(TransactionChangeListener l) {
+    lock.lock();
+    try {
+      super.removeChangeListener(l);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns an immutable snapshot of the transaction list, like
+   * snapshot().
+   *
+   * @return An unmodifiable List of Transaction objects that never changes
+   */
+  @Override
+  public List<Transaction> getTransactions() {
+    return snapshot();
+  }
+
+  @Override
+  public List<Transaction> snapshot() {
+    lock.lock();
+    try {
+      applyPending();
+      return super.snapshot();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public List<Transaction> getTransactionsInCategory(String category) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.getTransactionsInCategory(category);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int categoryIndexSize(String category) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.categoryIndexSize(category);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public List<Transaction> getTransactionsInAmountRange(double min, boolean minInclusive,
+                                                        double max, boolean maxInclusive) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.getTransactionsInAmountRange(min, minInclusive, max, maxInclusive);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int amountRangeSize(double min, boolean minInclusive, double max, boolean maxInclusive) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.amountRangeSize(min, minInclusive, max, maxInclusive);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public List<Transaction> getTransactionsInTimeRange(long fromMillis, long toMillis) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.getTransactionsInTimeRange(fromMillis, toMillis);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int timeRangeSize(long fromMillis, long toMillis) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.timeRangeSize(fromMillis, toMillis);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public IndexRange categoryIndexRange(String category) {
+    lock.lock();
+    try {
+      applyPending();
+      return new LockedRange(super.categoryIndexRange(category));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public IndexRange amountIndexRange(double min, boolean minInclusive,
+                                     double max, boolean maxInclusive) {
+    lock.lock();
+    try {
+      applyPending();
+      return new LockedRange(super.amountIndexRange(min, minInclusive, max, maxInclusive));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public IndexRange timeIndexRange(long fromMillis, long toMillis) {
+    lock.lock();
+    try {
+      applyPending();
+      return new LockedRange(super.timeIndexRange(fromMillis, toMillis));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public List<Transaction> union(Collection<? extends List<Transaction>> results) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.union(results);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns a snapshot of the aggregate over all transactions, which does
+   * not follow later changes.
+   *
+   * @return A detached aggregate of all transaction amounts
+   */
+  @Override
+  public RunningAggregate getAggregate() {
+    lock.lock();
+    try {
+      applyPending();
+      return super.getAggregate().snapshot();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns a snapshot of the aggregate over a category, ignoring case,
+   * which does not follow later changes.
+   *
+   * @param category The category (must not be null)
+   * @return A detached aggregate of the category's amounts
+   * @throws IllegalArgumentException if category is null
+   */
+  @Override
+  public RunningAggregate getCategoryAggregate(String category) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.getCategoryAggregate(category).snapshot();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public SortedMap<String, Double> getCategoryTotals() {
+    lock.lock();
+    try {
+      applyPending();
+      return super.getCategoryTotals();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public SortedMap<LocalDate, PeriodSummary> getDailySummaries(LocalDate from, LocalDate to) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.getDailySummaries(from, to);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public SortedMap<YearMonth, PeriodSummary> getMonthlySummaries(YearMonth from, YearMonth to) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.getMonthlySummaries(from, to);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public List<Transaction> getLargest(int k) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.getLargest(k);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public List<Transaction> getLargestInCategory(String category, int k) {
+    lock.lock();
+    try {
+      applyPending();
+      return super.getLargestInCategory(category, k);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void saveLedger(Path file) throws IOException {
+    lock.lock();
+    try {
+      applyPending();
+      super.saveLedger(file);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Index view whose every read takes the lock and sees all adds that
+   * returned before it. Positions still move between reads as other
+   * threads add rows, so a consistent walk needs external coordination.
+   */
+  private final class LockedRange extends IndexRange {
+
+    private final IndexRange range;
+
+    private LockedRange(IndexRange range) {
+      this.range = range;
+    }
+
+    @Override
+    public Transaction get(int index) {
+      lock.lock();
+      try {
+        applyPending();
+        return range.get(index);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public int size() {
+      lock.lock();
+      try {
+        applyPending();
+        return range.size();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public int positionOf(Transaction t) {
+      lock.lock();
+      try {
+        applyPending();
+        return range.positionOf(t);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public boolean renumbered() {
+      lock.lock();
+      try {
+        applyPending();
+        return range.renumbered();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Moves the buffered transactions into the model as one batch, dropping
+   * any that are already in it. Must be called with the lock held.
+   *
+   * Does nothing while a change is being applied: a listener that reads
+   * the model during notification would otherwise fire a nested event
+   * for newer adds, and listeners after it would receive the events out
+   * of order. Those adds are applied by the next operation instead.
+   */
+  private void applyPending() {
+    if (changing || pending.drainTo(drained) == 0) {
+      return;
+    }
+    changing = true;
+    try {
+      List<Transaction> fresh = new ArrayList<>(drained.size());
+      LongIntMap batchIds = new LongIntMap();
+      for (Transaction t : drained) {
+        if (!containsId(t.getId()) && batchIds.get(t.getId()) < 0) {
+          batchIds.put(t.getId(), 0);
+          fresh.add(t);
+        }
+      }
+      super.addAll(fresh);
+    } finally {
+      drained.clear();
+      changing = false;
+    }
+  }
+}
@@ -1,56 +1,1171 @@
 package model;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntFunction;
 
 /**
  * Model class for the Expense Tracker application following the MVC pattern.
  * Manages the collection of transactions and provides methods to add, remove,
  * and retrieve transactions. The transaction list is protected from external
  * modification by returning an unmodifiable view.
+ *
+ * Transactions are kept in a storage engine selected by a StorageMode. The
+ * default LIST mode stores Transaction objects directly; COLUMNAR mode keeps
+ * primitive column arrays and is meant for very large ledgers.
+ *
+ * Rows are indexed by transaction ID, so removal is a hash lookup followed
+ * by marking the row as removed (a tombstone). Tombstoned rows are dropped
+ * in a single pass when they outnumber the live rows, which keeps removal
+ * O(1) amortized. Until then, positional reads skip them through a rank
+ * index over the tombstones (see RowRank) in O(log n).
+ *
+ * A secondary index maps each category's CategoryDictionary code to the
+ * rows holding it, so category lookups cost O(matches) instead of a full
+ * scan and rows are indexed without any string work.
+ * A B+ tree over (amount, row) answers amount range queries in
+ * O(log n + k) time, and a time-ordered index over the timestamps does
+ * the same for date ranges. A model opened from a ledger file builds these
+ * indexes in one pass the first time a query needs them.
+ *
+ * openLedger() serves the rows of a saved ledger straight from a memory
+ * mapped file, so opening costs O(1) regardless of the ledger size; only
+ * transactions added afterwards are kept on the heap.
+ *
+ * Running aggregates (count, compensated sum, minimum and maximum) over
+ * all transactions and per category are updated in O(1) on every change,
+ * so totals never require a scan.
+ *
+ * Registered TransactionChangeListeners receive the added or removed
+ * transactions after every change, so observers can update incrementally
+ * instead of re-reading the whole list.
+ *
+ * snapshot() returns a frozen version of the transaction list in O(1). A
+ * snapshot reads rows by position from a frozen view of the store (see
+ * TransactionStore.freeze()) up to the row count it was taken at, and
+ * skips the rows that were removed by then through a frozen copy of the
+ * rank index. Nothing is copied per row, so a snapshot can be handed to a
+ * report or a background filter while the model keeps changing.
+ *
+ * This class is not thread-safe and must be used from a single thread, or
+ * under external synchronization. ConcurrentExpenseTrackerModel accepts
+ * adds from many threads at once.
  */
 public class ExpenseTrackerModel {
 
-  private List<Transaction> transactions;
+  private final StorageMode storageMode;
+  private TransactionStore store;
+  private final LongIntMap rowsById = new LongIntMap();
+  // rows per category code; null for codes without rows
+  private IntList[] rowsByCategory = new IntList[0];
+  private final AmountIndex amountIndex = new AmountIndex();
+  private final TimeIndex timeIndex = new TimeIndex();
+  private final BitSet removedRows = new BitSet();
+  private int removedCount;
+  // translates live positions to rows while tombstones are pending
+  private RowRank rank = new RowRank();
+  // true while a snapshot reads rank, which is then copied before it changes
+  private boolean rankShared;
+  // false while the category, amount and time indexes are not built yet
+  private boolean secondaryIndexed = true;
+  // counts compactions and deferrals, which invalidate index positions
+  private int indexGeneration;
+  // running aggregates over all live rows and per category code
+  private final RunningAggregate aggregate =
+      new RunningAggregate(a -> recomputeExtremes(a, CategoryDictionary.NONE));
+  private RunningAggregate[] categoryAggregates = new RunningAggregate[0];
+  // spend per day and month, maintained along with the aggregates
+  private final SpendRollup rollup = new SpendRollup();
+  // false while the aggregates do not cover all rows yet
+  private boolean aggregated = true;
+  private final List<Transaction> transactions = new LiveView();
+  // the last snapshot handed out; null once rows were appended or removed
+  private List<Transaction> snapshot;
+  // copy-on-write, so a listener can detach from another thread while a
+  // change is being fired, e.g. a journal closed by a shutdown hook
+  private final List<TransactionChangeListener> listeners = new CopyOnWriteArrayList<>();
 
   /**
-   * Constructs a new ExpenseTrackerModel with an empty transaction list.
+   * Constructs a new ExpenseTrackerModel with an empty transaction list
+   * using StorageMode.LIST.
    */
   public ExpenseTrackerModel() {
-    transactions = new ArrayList<>(); 
+    this(StorageMode.LIST);
+  }
+
+  /**
+   * Constructs a new ExpenseTrackerModel with an empty transaction list
+   * backed by the given storage engine.
+   *
+   * @param storageMode How transactions are stored internally (must not be null)
+   */
+  public ExpenseTrackerModel(StorageMode storageMode) {
+    if (storageMode == null) {
+      throw new IllegalArgumentException("Storage mode must not be null");
+    }
+    this.storageMode = storageMode;
+    this.store = storageMode == StorageMode.COLUMNAR
+                 ? new ColumnarTransactionStore()
+                 : new ListTransactionStore();
   }
 
   /**
    * Adds a new transaction to the model's transaction list.
-   * 
-   * @param t The Transaction object to add (should not be null)
+   *
+   * @param t The Transaction object to add (must not be null)
+   * @throws IllegalArgumentException if t is null or already in the model
    */
   public void addTransaction(Transaction t) {
-    transactions.add(t);
+    if (t == null) {
+      throw new IllegalArgumentException("Transaction must not be null");
+    }
+    if (rowOf(t.getId()) >= 0) {
+      throw new IllegalArgumentException("Transaction " + t.getId() + " is already in the model");
+    }
+    appendRow(t);
+    fireChange(TransactionChangeEvent.Type.ADDED, Collections.singletonList(t));
+  }
+
+  /**
+   * Adds several transactions at once, in iteration order. The batch is
+   * checked before anything is added, so a rejected batch leaves the model
+   * unchanged. Listeners receive a single event listing all added
+   * transactions.
+   *
+   * @param ts The transactions to add (must not be null)
+   * @throws IllegalArgumentException if ts holds null, a transaction that
+   *         is already in the model, or the same transaction twice
+   */
+  public void addAll(Collection<? extends Transaction> ts) {
+    LongIntMap batchIds = new LongIntMap();
+    for (Transaction t : ts) {
+      if (t == null) {
+        throw new IllegalArgumentException("Transaction must not be null");
+      }
+      if (rowOf(t.getId()) >= 0 || batchIds.get(t.getId()) >= 0) {
+        throw new IllegalArgumentException("Transaction " + t.getId() + " is already in the model");
+      }
+      batchIds.put(t.getId(), 0);
+    }
+    if (ts.isEmpty()) {
+      return;
+    }
+    List<Transaction> added = new ArrayList<>(ts);
+    for (Transaction t : added) {
+      appendRow(t);
+    }
+    fireChange(TransactionChangeEvent.Type.ADDED, added);
   }
 
   /**
    * Removes a transaction from the model's transaction list.
    * If the transaction is not found in the list, no action is taken.
-   * 
+   *
    * @param t The Transaction object to remove
+   * @return true if the transaction was removed, false if it was not found
+   */
+  public boolean removeTransaction(Transaction t) {
+    return t != null && removeById(t.getId());
+  }
+
+  /**
+   * Removes the transaction with the given ID in O(1) amortized time.
+   * If no such transaction is in the model, no action is taken.
+   *
+   * @param id The ID of the transaction to remove
+   * @return true if the transaction was removed, false if it was not found
+   */
+  public boolean removeById(long id) {
+    int row = rowOf(id);
+    if (row < 0) {
+      return false;
+    }
+    Transaction removed = store.get(row);
+    int[] positions = {livePosition(row)};
+    removeRow(row);
+    fireChange(TransactionChangeEvent.Type.REMOVED, Collections.singletonList(removed), positions);
+    return true;
+  }
+
+  /**
+   * Removes every transaction in the given collection. Transactions that
+   * are not in the model are ignored. Listeners receive a single event
+   * listing all removed transactions.
+   *
+   * @param ts The transactions to remove (must not be null)
+   * @return true if at least one transaction was removed
+   */
+  public boolean removeAll(Collection<? extends Transaction> ts) {
+    List<Transaction> removed = new ArrayList<>();
+    IntList positions = new IntList();
+    for (Transaction t : ts) {
+      int row = t == null ? -1 : rowOf(t.getId());
+      if (row >= 0) {
+        removed.add(store.get(row));
+        positions.add(livePosition(row));
+        removeRow(row);
+      }
+    }
+    if (removed.isEmpty()) {
+      return false;
+    }
+    int[] removedPositions = new int[positions.size()];
+    for (int i = 0; i < removedPositions.length; i++) {
+      removedPositions[i] = positions.get(i);
+    }
+    fireChange(TransactionChangeEvent.Type.REMOVED, removed, removedPositions);
+    return true;
+  }
+
+  /**
+   * Registers a listener to be notified after transactions are added or
+   * removed.
+   *
+   * @param l The listener to add
    */
-  public void removeTransaction(Transaction t) {
-    transactions.remove(t);
+  public void addChangeListener(TransactionChangeListener l) {
+    listeners.add(l);
+  }
+
+  /**
+   * Unregisters a previously added listener. Unlike the other methods, this
+   * may be called from any thread.
+   *
+   * @param l The listener to remove
+   */
+  public void removeChangeListener(TransactionChangeListener l) {
+    listeners.remove(l);
   }
 
   /**
    * Returns an unmodifiable view of the transaction list.
    * This prevents external code from modifying the internal transaction list
-   * while still allowing read access to the data.
-   * 
+   * while still allowing read access to the data. In COLUMNAR mode the
+   * elements are lightweight views built from the stored columns, so the
+   * same row may be returned as different (but equal) objects.
+   *
    * @return An unmodifiable List of Transaction objects
    */
   public List<Transaction> getTransactions() {
     // Alternative 1: Apply the decorator design pattern (see below)
     // Alternative 2: Return a copy of the list
-    return Collections.unmodifiableList(transactions);
+    return transactions;
+  }
+
+  /**
+   * Returns an immutable snapshot of the transaction list that does not
+   * change when the model does, in O(1). The snapshot reads rows from the
+   * store by position, like getTransactions(), so nothing is copied. The
+   * first removal after a snapshot was taken copies the rank index over
+   * the pending tombstones, one bit per row, instead of changing the copy
+   * the snapshot reads. Until the model changes, the same snapshot is
+   * returned again.
+   *
+   * @return An unmodifiable List of Transaction objects that never changes
+   */
+  public List<Transaction> snapshot() {
+    if (snapshot == null) {
+      rankShared |= removedCount > 0;
+      snapshot = new Snapshot(store.freeze(), removedCount == 0 ? null : rank,
+                              store.size() - removedCount);
+    }
+    return snapshot;
+  }
+
+  /**
+   * Returns the transactions whose category matches the given one,
+   * ignoring case, in insertion order. The lookup goes through the
+   * category index and only touches matching rows.
+   *
+   * @param category The category to look up
+   * @return A new list of the matching transactions, empty if none match
+   */
+  public List<Transaction> getTransactionsInCategory(String category) {
+    if (category == null) {
+      return new ArrayList<>();
+    }
+    ensureSecondaryIndexes();
+    IntList rows = indexedRows(CategoryDictionary.lookup(category));
+    return rows == null ? new ArrayList<>() : materialize(rows);
+  }
+
+  /**
+   * Returns the number of rows the category index holds for the given
+   * category, ignoring case. Removed rows that have not been compacted yet
+   * are included, so this is an O(1) upper bound on the number of matching
+   * transactions, meant for query planning. The first call after a ledger
+   * was attached builds the deferred indexes.
+   *
+   * @param category The category to look up
+   * @return The number of indexed rows, 0 if the category is unknown
+   */
+  public int categoryIndexSize(String category) {
+    if (category == null) {
+      return 0;
+    }
+    ensureSecondaryIndexes();
+    IntList rows = indexedRows(CategoryDictionary.lookup(category));
+    return rows == null ? 0 : rows.size();
+  }
+
+  /**
+   * Returns the transactions whose amount lies within the given bounds, in
+   * insertion order. The range is located by binary search in the amount
+   * index, so only matching entries are visited.
+   *
+   * @param min Lower bound of the range (use Double.NEGATIVE_INFINITY for none)
+   * @param minInclusive Whether an amount equal to min is included
+   * @param max Upper bound of the range (use Double.POSITIVE_INFINITY for none)
+   * @param maxInclusive Whether an amount equal to max is included
+   * @return A new list of the matching transactions, empty if none match
+   */
+  public List<Transaction> getTransactionsInAmountRange(double min, boolean minInclusive,
+                                                        double max, boolean maxInclusive) {
+    ensureSecondaryIndexes();
+    IntList rows = new IntList();
+    amountIndex.visitRange(min, minInclusive, max, maxInclusive, row -> {
+      if (!removedRows.get(row)) {
+        rows.add(row);
+      }
+    });
+    // Restore insertion order, which is the order rows were appended in
+    rows.sort();
+    return materialize(rows);
+  }
+
+  /**
+   * Returns the number of rows the amount index holds within the given
+   * bounds. Removed rows that have not been compacted yet are included, so
+   * this is an O(log n) upper bound on the number of matching
+   * transactions, meant for query planning.
+   *
+   * @param min Lower bound of the range (use Double.NEGATIVE_INFINITY for none)
+   * @param minInclusive Whether an amount equal to min is included
+   * @param max Upper bound of the range (use Double.POSITIVE_INFINITY for none)
+   * @param maxInclusive Whether an amount equal to max is included
+   * @return The number of indexed rows in the range
+   */
+  public int amountRangeSize(double min, boolean minInclusive, double max, boolean maxInclusive) {
+    ensureSecondaryIndexes();
+    return amountIndex.countRange(min, minInclusive, max, maxInclusive);
+  }
+
+  /**
+   * Returns the transactions whose timestamp lies in [fromMillis,
+   * toMillis), in insertion order. The range is located by binary search
+   * in the time index, so the query costs O(log n + k) for k matches.
+   *
+   * @param fromMillis Inclusive lower bound in epoch milliseconds (Long.MIN_VALUE for none)
+   * @param toMillis Exclusive upper bound in epoch milliseconds (Long.MAX_VALUE for none)
+   * @return A new list of the matching transactions, empty if none match
+   */
+  public List<Transaction> getTransactionsInTimeRange(long fromMillis, long toMillis) {
+    ensureSecondaryIndexes();
+    IntList rows = new IntList();
+    timeIndex.visitRange(fromMillis, toMillis, row -> {
+      if (!removedRows.get(row)) {
+        rows.add(row);
+      }
+    });
+    if (!timeIndex.isRowOrdered()) {
+      // Restore insertion order after out-of-order timestamps
+      rows.sort();
+    }
+    return materialize(rows);
+  }
+
+  /**
+   * Returns the number of rows the time index holds in [fromMillis,
+   * toMillis). Removed rows that have not been compacted yet are included,
+   * so this is an O(log n) upper bound on the number of matching
+   * transactions, meant for query planning.
+   *
+   * @param fromMillis Inclusive lower bound in epoch milliseconds
+   * @param toMillis Exclusive upper bound in epoch milliseconds
+   * @return The number of indexed rows in the range
+   */
+  public int timeRangeSize(long fromMillis, long toMillis) {
+    ensureSecondaryIndexes();
+    return timeIndex.countRange(fromMillis, toMillis);
+  }
+
+  /**
+   * Returns a live view over the category index entries of the given
+   * category, ignoring case, in insertion order. Unlike
+   * getTransactionsInCategory(), nothing is copied, so the matches can be
+   * walked lazily from any position; see IndexRange.
+   *
+   * @param category The category to look up
+   * @return A view over the indexed rows, empty while the category is unknown
+   */
+  public IndexRange categoryIndexRange(String category) {
+    ensureSecondaryIndexes();
+    return new CategoryRange(category);
+  }
+
+  /**
+   * Returns a live view over the amount index entries within the given
+   * bounds, in ascending amount order (equal amounts in insertion order).
+   * Entries are read by position through the B+ tree in O(log n) each;
+   * see IndexRange.
+   *
+   * @param min Lower bound of the range (use Double.NEGATIVE_INFINITY for none)
+   * @param minInclusive Whether an amount equal to min is included
+   * @param max Upper bound of the range (use Double.POSITIVE_INFINITY for none)
+   * @param maxInclusive Whether an amount equal to max is included
+   * @return A view over the indexed rows in the range
+   */
+  public IndexRange amountIndexRange(double min, boolean minInclusive,
+                                     double max, boolean maxInclusive) {
+    ensureSecondaryIndexes();
+    return new AmountRange(min, minInclusive, max, maxInclusive);
+  }
+
+  /**
+   * Returns a live view over the time index entries in [fromMillis,
+   * toMillis), in ascending time order (equal timestamps in insertion
+   * order); see IndexRange.
+   *
+   * @param fromMillis Inclusive lower bound in epoch milliseconds (Long.MIN_VALUE for none)
+   * @param toMillis Exclusive upper bound in epoch milliseconds (Long.MAX_VALUE for none)
+   * @return A view over the indexed rows in the range
+   */
+  public IndexRange timeIndexRange(long fromMillis, long toMillis) {
+    ensureSecondaryIndexes();
+    return new TimeRange(fromMillis, toMillis);
+  }
+
+  /**
+   * Returns the distinct transactions of several query results in
+   * insertion order, e.g. to merge the index-backed results of the parts
+   * of a disjunction. Each transaction is resolved to its row through the
+   * ID index and the rows are sorted, so this costs O(k log k) for k
+   * listed transactions. Transactions no longer in the model are skipped.
+   *
+   * @param results Lists of transactions of this model (must not be null)
+   * @return A new list of the transactions listed in any of the results
+   */
+  public List<Transaction> union(Collection<? extends List<Transaction>> results) {
+    IntList rows = new IntList();
+    for (List<Transaction> result : results) {
+      for (Transaction t : result) {
+        int row = t == null ? -1 : rowOf(t.getId());
+        if (row >= 0) {
+          rows.add(row);
+        }
+      }
+    }
+    rows.sort();
+    IntList distinct = new IntList();
+    for (int i = 0; i < rows.size(); i++) {
+      if (i == 0 || rows.get(i) != rows.get(i - 1)) {
+        distinct.add(rows.get(i));
+      }
+    }
+    return materialize(distinct);
+  }
+
+  /**
+   * Returns the running aggregate over all transactions. The returned
+   * object stays up to date as transactions are added and removed, and its
+   * count, sum and average are read in O(1).
+   *
+   * @return The live aggregate of all transaction amounts
+   */
+  public RunningAggregate getAggregate() {
+    ensureAggregates();
+    return aggregate;
+  }
+
+  /**
+   * Returns the running aggregate over the transactions in a category,
+   * ignoring case. The returned object stays up to date as transactions
+   * are added and removed. Looking up a category no transaction has ever
+   * used does not register it in the CategoryDictionary.
+   *
+   * @param category The category (must not be null)
+   * @return The live aggregate of the category's amounts, or an empty
+   *         detached aggregate if the category is unknown to the dictionary
+   * @throws IllegalArgumentException if category is null
+   */
+  public RunningAggregate getCategoryAggregate(String category) {
+    if (category == null) {
+      throw new IllegalArgumentException("Category must not be null");
+    }
+    int code = CategoryDictionary.lookup(category);
+    if (code == CategoryDictionary.NONE) {
+      return new RunningAggregate(target -> { });
+    }
+    ensureAggregates();
+    return categoryAggregate(code);
+  }
+
+  /**
+   * Returns the total amount of every category that currently holds
+   * transactions, read from the running aggregates.
+   *
+   * @return A new map from lower-case category to total, sorted by category
+   */
+  public SortedMap<String, Double> getCategoryTotals() {
+    ensureAggregates();
+    SortedMap<String, Double> totals = new TreeMap<>();
+    for (int code = 0; code < categoryAggregates.length; code++) {
+      RunningAggregate a = categoryAggregates[code];
+      if (a != null && a.getCount() > 0) {
+        totals.put(CategoryDictionary.nameOf(code), a.getSum());
+      }
+    }
+    return totals;
+  }
+
+  /**
+   * Returns the spend of every day in a range that has transactions,
+   * overall and per category, read from the day rollup. The cost depends
+   * on the number of days in the range, not on the number of
+   * transactions. Days are taken in the system time zone.
+   *
+   * @param from First day, inclusive, or null for no lower bound
+   * @param to Last day, inclusive, or null for no upper bound
+   * @return A new map from day to summary, in date order
+   */
+  public SortedMap<LocalDate, PeriodSummary> getDailySummaries(LocalDate from, LocalDate to) {
+    ensureAggregates();
+    return rollup.days(from, to);
+  }
+
+  /**
+   * Returns the spend of every month in a range that has transactions,
+   * overall and per category, read from the month rollup. The cost
+   * depends on the number of months in the range, not on the number of
+   * transactions.
+   *
+   * @param from First month, inclusive, or null for no lower bound
+   * @param to Last month, inclusive, or null for no upper bound
+   * @return A new map from month to summary, in date order
+   */
+  public SortedMap<YearMonth, PeriodSummary> getMonthlySummaries(YearMonth from, YearMonth to) {
+    ensureAggregates();
+    return rollup.months(from, to);
+  }
+
+  /**
+   * Returns the k transactions with the largest amounts, largest first;
+   * equal amounts keep insertion order. The amounts are read straight
+   * from the store into a bounded heap, so the query costs O(n log k)
+   * and only the k results are materialized.
+   *
+   * @param k The number of transactions to return (at least 0)
+   * @return A new list of at most k transactions
+   * @throws IllegalArgumentException if k is negative
+   */
+  public List<Transaction> getLargest(int k) {
+    TopAmounts top = topAmounts(k);
+    for (int row = 0; row < store.size(); row++) {
+      if (!removedRows.get(row)) {
+        top.offer(store.amountAt(row), row);
+      }
+    }
+    return materialize(top);
+  }
+
+  /**
+   * Returns the k transactions with the largest amounts in a category,
+   * ignoring case, largest first. Only the category's rows are visited,
+   * through the category index, so the query costs O(m log k) for m
+   * transactions in the category.
+   *
+   * @param category The category to look up
+   * @param k The number of transactions to return (at least 0)
+   * @return A new list of at most k transactions, empty if the category is
+   *         null or unknown
+   * @throws IllegalArgumentException if k is negative
+   */
+  public List<Transaction> getLargestInCategory(String category, int k) {
+    TopAmounts top = topAmounts(k);
+    if (category == null) {
+      return new ArrayList<>();
+    }
+    ensureSecondaryIndexes();
+    IntList rows = indexedRows(CategoryDictionary.lookup(category));
+    for (int i = 0; rows != null && i < rows.size(); i++) {
+      int row = rows.get(i);
+      if (!removedRows.get(row)) {
+        top.offer(store.amountAt(row), row);
+      }
+    }
+    return materialize(top);
+  }
+
+  /**
+   * Returns the storage engine this model was created with.
+   *
+   * @return The StorageMode in use
+   */
+  public StorageMode getStorageMode() {
+    return storageMode;
+  }
+
+  /**
+   * Saves all transactions to a ledger file that openLedger() can map.
+   * Runs in O(n); the file is replaced if it exists.
+   *
+   * @param file The file to write
+   * @throws IOException if the file cannot be written
+   */
+  public void saveLedger(Path file) throws IOException {
+    LedgerFile.write(file, getTransactions(), 0);
+  }
+
+  /**
+   * Opens a model over a ledger file written by saveLedger(). The file is
+   * memory mapped and its rows are read in place, so opening costs O(1)
+   * regardless of its size. Transactions added later are kept on the heap
+   * in the given storage mode; they are not written back to the file.
+   *
+   * @param file The ledger file
+   * @param storageMode How transactions added later are stored (must not be null)
+   * @return A model holding the ledger's transactions
+   * @throws IOException if the file cannot be read or is not a ledger file
+   */
+  public static ExpenseTrackerModel openLedger(Path file, StorageMode storageMode) throws IOException {
+    ExpenseTrackerModel model = new ExpenseTrackerModel(storageMode);
+    model.attachLedger(LedgerFile.map(file));
+    return model;
+  }
+
+  /**
+   * Makes the rows of a mapped ledger the first rows of this empty model.
+   * IDs of mapped rows are looked up in the ledger itself, and the
+   * secondary indexes are deferred until first needed.
+   */
+  void attachLedger(LedgerFile ledger) {
+    if (store.size() != 0) {
+      throw new IllegalStateException("A ledger can only be attached to an empty model");
+    }
+    store = new MappedTransactionStore(ledger, store);
+    snapshot = null;
+    Transaction.reserveIdsThrough(ledger.maxId());
+    deferIndexes();
+  }
+
+  /**
+   * Stops maintaining the category, amount and time indexes and the
+   * running aggregates, e.g. while many transactions are restored. They
+   * are rebuilt in a single pass the next time a query needs them.
+   */
+  void deferIndexes() {
+    secondaryIndexed = false;
+    indexGeneration++;
+    Arrays.fill(rowsByCategory, null);
+    aggregated = false;
+  }
+
+  /**
+   * Builds the category, amount and time indexes over all rows if they were
+   * deferred. The amount and time indexes are built in O(n) with radix sorts.
+   */
+  private void ensureSecondaryIndexes() {
+    if (secondaryIndexed) {
+      return;
+    }
+    double[] amounts = new double[store.size()];
+    long[] times = new long[amounts.length];
+    for (int row = 0; row < amounts.length; row++) {
+      amounts[row] = store.amountAt(row);
+      times[row] = store.timestampAt(row);
+      int code = store.categoryCodeAt(row);
+      if (code != CategoryDictionary.NONE) {
+        categoryRows(code).add(row);
+      }
+    }
+    amountIndex.build(amounts, amounts.length);
+    timeIndex.build(times, times.length);
+    secondaryIndexed = true;
   }
 
+  /**
+   * Computes the running aggregates over all live rows if they were
+   * deferred. Aggregate objects handed out before stay valid.
+   */
+  private void ensureAggregates() {
+    if (aggregated) {
+      return;
+    }
+    aggregate.clear();
+    rollup.clear();
+    for (RunningAggregate a : categoryAggregates) {
+      if (a != null) {
+        a.clear();
+      }
+    }
+    aggregated = true;
+    for (int row = 0; row < store.size(); row++) {
+      if (!removedRows.get(row)) {
+        aggregateRow(row, true);
+      }
+    }
+  }
+
+  /**
+   * Adds the amount of a row to the running aggregates, or removes it.
+   */
+  private void aggregateRow(int row, boolean add) {
+    double amount = store.amountAt(row);
+    int code = store.categoryCodeAt(row);
+    RunningAggregate categoryTotal = code == CategoryDictionary.NONE ? null : categoryAggregate(code);
+    rollup.update(store.timestampAt(row), code, amount, add);
+    if (add) {
+      aggregate.add(amount);
+      if (categoryTotal != null) {
+        categoryTotal.add(amount);
+      }
+    } else {
+      aggregate.remove(amount);
+      if (categoryTotal != null) {
+        categoryTotal.remove(amount);
+      }
+    }
+  }
+
+  private RunningAggregate categoryAggregate(int code) {
+    if (code >= categoryAggregates.length) {
+      categoryAggregates = Arrays.copyOf(categoryAggregates, Math.max(code + 1, CategoryDictionary.size()));
+    }
+    RunningAggregate a = categoryAggregates[code];
+    if (a == null) {
+      a = new RunningAggregate(stale -> recomputeExtremes(stale, code));
+      categoryAggregates[code] = a;
+    }
+    return a;
+  }
+
+  /**
+   * Feeds the amounts of all live rows, or of those in one category, to a
+   * stale aggregate's extremes in one pass. A category's rows are read
+   * through the category index, so only they are visited.
+   *
+   * @param target The aggregate to recompute
+   * @param code The category code, or CategoryDictionary.NONE for all rows
+   */
+  private void recomputeExtremes(RunningAggregate target, int code) {
+    if (code == CategoryDictionary.NONE) {
+      for (int row = 0; row < store.size(); row++) {
+        if (!removedRows.get(row)) {
+          target.updateExtremes(store.amountAt(row));
+        }
+      }
+      return;
+    }
+    ensureSecondaryIndexes();
+    IntList rows = indexedRows(code);
+    for (int i = 0; rows != null && i < rows.size(); i++) {
+      int row = rows.get(i);
+      if (!removedRows.get(row)) {
+        target.updateExtremes(store.amountAt(row));
+      }
+    }
+  }
+
+  /**
+   * Tells whether a live transaction with the given ID is in the model.
+   */
+  boolean containsId(long id) {
+    return rowOf(id) >= 0;
+  }
+
+  /**
+   * Returns the row holding a live transaction with the given ID.
+   *
+   * @return The row position, or -1 if absent or removed
+   */
+  private int rowOf(long id) {
+    int row = storedRowOf(id);
+    return row < 0 || removedRows.get(row) ? -1 : row;
+  }
+
+  /**
+   * Returns the row holding a transaction with the given ID, including a
+   * row removed since the last compaction.
+   *
+   * @return The row position, or -1 if absent
+   */
+  private int storedRowOf(long id) {
+    int row = rowsById.get(id);
+    return row < 0 ? store.findRow(id) : row;
+  }
+
+  /**
+   * Returns the transaction at a row, or null if the row was removed.
+   */
+  private Transaction liveRow(int row) {
+    return removedRows.get(row) ? null : store.get(row);
+  }
+
+  /**
+   * Returns the position a live row has in getTransactions(), in O(log n).
+   */
+  private int livePosition(int row) {
+    return removedCount == 0 ? row : rank.rank(row);
+  }
+
+  /**
+   * Tombstones a live row, compacting once removed rows outnumber live ones.
+   */
+  private void removeRow(int row) {
+    snapshot = null;
+    if (aggregated) {
+      aggregateRow(row, false);
+    }
+    removedRows.set(row);
+    if (rankShared) {
+      rank = rank.copy();
+      rankShared = false;
+    }
+    rank.remove(row);
+    removedCount++;
+    if (removedCount > store.size() - removedCount) {
+      compact();
+    }
+  }
+
+  private void fireChange(TransactionChangeEvent.Type type, List<Transaction> changed) {
+    fireChange(type, changed, null);
+  }
+
+  private void fireChange(TransactionChangeEvent.Type type, List<Transaction> changed, int[] positions) {
+    if (listeners.isEmpty()) {
+      return;
+    }
+    TransactionChangeEvent e = new TransactionChangeEvent(this, type, changed, positions);
+    for (TransactionChangeListener l : listeners) {
+      l.transactionsChanged(e);
+    }
+  }
+
+  /**
+   * Stores a transaction in a new row and indexes it.
+   */
+  private void appendRow(Transaction t) {
+    int row = store.size();
+    int categoryCode = t.registerCategory();
+    store.append(t);
+    indexRow(row, t.getId(), categoryCode);
+    if (secondaryIndexed) {
+      amountIndex.insert(t.getAmount(), row);
+      timeIndex.insert(t.getTimestampMillis(), row);
+    }
+    if (aggregated) {
+      aggregateRow(row, true);
+    }
+    snapshot = null;
+  }
+
+  /**
+   * Records a stored row in the ID index, unless the store can find it by
+   * itself, and in the category index while that is maintained.
+   */
+  private void indexRow(int row, long id, int categoryCode) {
+    if (row >= store.searchableRows()) {
+      rowsById.put(id, row);
+    }
+    if (secondaryIndexed && categoryCode != CategoryDictionary.NONE) {
+      categoryRows(categoryCode).add(row);
+    }
+  }
+
+  /**
+   * Returns the category index entry of a code, creating it if needed.
+   */
+  private IntList categoryRows(int code) {
+    if (code >= rowsByCategory.length) {
+      rowsByCategory = Arrays.copyOf(rowsByCategory, Math.max(code + 1, CategoryDictionary.size()));
+    }
+    IntList rows = rowsByCategory[code];
+    if (rows == null) {
+      rows = new IntList();
+      rowsByCategory[code] = rows;
+    }
+    return rows;
+  }
+
+  /**
+   * Returns the category index entry of a code.
+   *
+   * @return The indexed rows, or null if no row has the category
+   */
+  private IntList indexedRows(int code) {
+    return code < 0 || code >= rowsByCategory.length ? null : rowsByCategory[code];
+  }
+
+  private static TopAmounts topAmounts(int k) {
+    if (k < 0) {
+      throw new IllegalArgumentException("k must not be negative");
+    }
+    return new TopAmounts(k);
+  }
+
+  /**
+   * Builds a list of the transactions kept by a top-k heap, largest first.
+   */
+  private List<Transaction> materialize(TopAmounts top) {
+    int[] rows = top.drainDescending();
+    List<Transaction> result = new ArrayList<>(rows.length);
+    for (int row : rows) {
+      result.add(store.get(row));
+    }
+    return result;
+  }
+
+  /**
+   * Builds a list of the live transactions at the given rows, in the order
+   * the rows are listed.
+   */
+  private List<Transaction> materialize(IntList rows) {
+    List<Transaction> result = new ArrayList<>(rows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      int row = rows.get(i);
+      if (!removedRows.get(row)) {
+        result.add(store.get(row));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Drops all tombstoned rows from the store and rebuilds the secondary
+   * indexes for the shifted row positions.
+   */
+  private void compact() {
+    if (removedCount == 0) {
+      return;
+    }
+    int[] newRows = new int[store.size()];
+    for (int row = 0, next = 0; row < newRows.length; row++) {
+      newRows[row] = next;
+      if (!removedRows.get(row)) {
+        next++;
+      }
+    }
+    if (secondaryIndexed) {
+      amountIndex.compact(removedRows, newRows);
+      timeIndex.compact(removedRows, newRows);
+    }
+    store.compact(removedRows);
+    removedRows.clear();
+    indexGeneration++;
+    rank = new RowRank();
+    rankShared = false;
+    removedCount = 0;
+    rowsById.clear();
+    for (IntList rows : rowsByCategory) {
+      if (rows != null) {
+        rows.clear();
+      }
+    }
+    int from = secondaryIndexed ? 0 : store.searchableRows();
+    for (int row = from; row < store.size(); row++) {
+      indexRow(row, store.idAt(row), store.categoryCodeAt(row));
+    }
+  }
+
+  /**
+   * Read-only list over the live rows of the store. Positional access
+   * skips pending tombstones through the rank index and never modifies
+   * the model, so while the model is not modified the list may be read
+   * from several threads, e.g. through its spliterator.
+   */
+  private class LiveView extends AbstractList<Transaction> implements RandomAccess {
+
+    @Override
+    public Transaction get(int index) {
+      Objects.checkIndex(index, size());
+      return store.get(removedCount == 0 ? index : rank.select(index));
+    }
+
+    @Override
+    public int size() {
+      return store.size() - removedCount;
+    }
+  }
+
+  /**
+   * Base of the index views, which are renumbered whenever the index
+   * generation moves on.
+   */
+  private abstract class IndexView extends IndexRange {
+
+    private final int generation = indexGeneration;
+
+    @Override
+    public boolean renumbered() {
+      return generation != indexGeneration;
+    }
+  }
+
+  /**
+   * The category index entries of one category. The category's code is
+   * resolved once it is registered, so a view created for a category no
+   * row holds yet still sees the rows added later.
+   */
+  private final class CategoryRange extends IndexView {
+
+    private final String category;
+    private int code;
+
+    private CategoryRange(String category) {
+      this.category = category;
+      this.code = CategoryDictionary.lookup(category);
+    }
+
+    private IntList rows() {
+      if (code == CategoryDictionary.NONE && category != null) {
+        code = CategoryDictionary.lookup(category);
+      }
+      return indexedRows(code);
+    }
+
+    @Override
+    public Transaction get(int index) {
+      Objects.checkIndex(index, size());
+      return liveRow(rows().get(index));
+    }
+
+    @Override
+    public int size() {
+      IntList rows = rows();
+      return rows == null ? 0 : rows.size();
+    }
+
+    @Override
+    public int positionOf(Transaction t) {
+      IntList rows = rows();
+      int row = t == null || rows == null ? -1 : storedRowOf(t.getId());
+      return row < 0 ? -1 : rows.indexOf(row);
+    }
+  }
+
+  /**
+   * The amount index entries within fixed bounds.
+   */
+  private final class AmountRange extends IndexView {
+
+    private final double min;
+    private final boolean minInclusive;
+    private final double max;
+    private final boolean maxInclusive;
+
+    private AmountRange(double min, boolean minInclusive, double max, boolean maxInclusive) {
+      this.min = min;
+      this.minInclusive = minInclusive;
+      this.max = max;
+      this.maxInclusive = maxInclusive;
+    }
+
+    @Override
+    public Transaction get(int index) {
+      Objects.checkIndex(index, size());
+      return liveRow(amountIndex.rowAt(amountIndex.positionOf(min, minInclusive) + index));
+    }
+
+    @Override
+    public int size() {
+      return amountIndex.countRange(min, minInclusive, max, maxInclusive);
+    }
+
+    @Override
+    public int positionOf(Transaction t) {
+      int row = t == null ? -1 : storedRowOf(t.getId());
+      if (row < 0) {
+        return -1;
+      }
+      double amount = store.amountAt(row);
+      if ((minInclusive ? amount < min : amount <= min)
+          || (maxInclusive ? amount > max : amount >= max)) {
+        return -1;
+      }
+      return amountIndex.positionOf(amount, row) - amountIndex.positionOf(min, minInclusive);
+    }
+  }
+
+  /**
+   * The time index entries in a fixed interval.
+   */
+  private final class TimeRange extends IndexView {
+
+    private final long from;
+    private final long to;
+
+    private TimeRange(long from, long to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public Transaction get(int index) {
+      Objects.checkIndex(index, size());
+      return liveRow(timeIndex.rowAt(timeIndex.positionOf(from) + index));
+    }
+
+    @Override
+    public int size() {
+      return timeIndex.countRange(from, to);
+    }
+
+    @Override
+    public int positionOf(Transaction t) {
+      int row = t == null ? -1 : storedRowOf(t.getId());
+      if (row < 0) {
+        return -1;
+      }
+      long time = store.timestampAt(row);
+      if (time < from || time >= to) {
+        return -1;
+      }
+      return timeIndex.positionOf(time, row) - timeIndex.positionOf(from);
+    }
+  }
+
+  /**
+   * Immutable list over the rows of a frozen store view that were live
+   * when the snapshot was taken. The rank index, if any, is never changed
+   * after it was captured, so the list may be read from any thread.
+   */
+  private static final class Snapshot extends AbstractList<Transaction> implements RandomAccess {
+
+    private final IntFunction<Transaction> rows;
+    // null if no rows were removed
+    private final RowRank rank;
+    private final int size;
+
+    private Snapshot(IntFunction<Transaction> rows, RowRank rank, int size) {
+      this.rows = rows;
+      this.rank = rank;
+      this.size = size;
+    }
+
+    @Override
+    public Transaction get(int index) {
+      Objects.checkIndex(index, size);
+      return rows.apply(rank == null ? index : rank.select(index));
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
 }
@@ -0,0 +1,67 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Live, positional view over the entries one of a model's secondary
+ * indexes holds for a query: the rows of a category in insertion order, or
+ * the rows in an amount or time range in ascending amount or time order
+ * (equal keys in insertion order). Reading an entry costs O(1) for a
+ * category and O(log n) for a range, and nothing is materialized, so a
+ * caller can walk the entries lazily from any position.
+ *
+ * Entries of rows removed since the model last compacted its storage stay
+ * in the view and read as null, so a removal does not move the other
+ * entries. An added row's entry is inserted at its index position, which
+ * positionOf() reports. Compaction renumbers the entries; renumbered()
+ * tells when that happened, after which positions read before are
+ * meaningless.
+ *
+ * The view follows the model it was created from and is only as
+ * thread-safe as that model.
+ *
+ * @see ExpenseTrackerModel#categoryIndexRange(String)
+ * @see ExpenseTrackerModel#amountIndexRange(double, boolean, double, boolean)
+ * @see ExpenseTrackerModel#timeIndexRange(long, long)
+ */
+public abstract class IndexRange extends AbstractList<Transaction> implements RandomAccess {
+
+  IndexRange() {
+  }
+
+  /**
+   * Returns the transaction of the entry at a position.
+   *
+   * @param index Position, 0 &lt;= index &lt; size()
+   * @return The transaction, or null if its row was removed
+   */
+  @Override
+  public abstract Transaction get(int index);
+
+  /**
+   * Returns the number of entries, including those of removed rows.
+   *
+   * @return The entry count
+   */
+  @Override
+  public abstract int size();
+
+  /**
+   * Returns the position of a transaction's entry, found through its ID
+   * in O(log n). A transaction removed since the last compaction is still
+   * found, at the position its entry keeps.
+   *
+   * @param t The transaction to locate
+   * @return The position of its entry, or -1 if the view does not hold one
+   */
+  public abstract int positionOf(Transaction t);
+
+  /**
+   * Tells whether the model compacted its storage since this view was
+   * created, which renumbers its entries and drops those of removed rows.
+   *
+   * @return true if positions read before may no longer be valid
+   */
+  public abstract boolean renumbered();
+}
@@ -0,0 +1,70 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used by the model's secondary indexes
+ * to hold row positions without boxing.
+ */
+class IntList {
+
+  private int[] values = new int[8];
+  private int size;
+
+  /**
+   * Appends a value to the end of the list.
+   *
+   * @param value The value to append
+   */
+  void add(int value) {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+    }
+    values[size++] = value;
+  }
+
+  /**
+   * Returns the value at the given position.
+   *
+   * @param index Position, 0 &lt;= index &lt; size()
+   * @return The stored value
+   */
+  int get(int index) {
+    return values[index];
+  }
+
+  /**
+   * Returns the number of values in the list.
+   *
+   * @return The list size
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the position of a value in a list sorted in ascending order,
+   * found by binary search.
+   *
+   * @param value The value to look for
+   * @return The position of the value, or -1 if the list does not hold it
+   */
+  int indexOf(int value) {
+    int index = Arrays.binarySearch(values, 0, size, value);
+    return index < 0 ? -1 : index;
+  }
+
+  /**
+   * Sorts the values in ascending order.
+   */
+  void sort() {
+    Arrays.sort(values, 0, size);
+  }
+
+  /**
+   * Removes all values while keeping the current capacity.
+   */
+  void clear() {
+    size = 0;
+  }
+}
@@ -0,0 +1,334 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed-width, column-oriented binary ledger file that is read through
+ * memory mapping instead of being parsed. Opening a ledger maps its columns
+ * and reads only the header and category dictionary, so it costs O(1) in the
+ * number of rows; the operating system pages rows in as they are read.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   header      magic "ETLG", version, flags, category count (4 ints),
+ *               row count, generation, largest ID (3 longs)
+ *   dictionary  per category: unsigned short length + UTF-8 bytes
+ *   padding     to the next multiple of 8
+ *   ids         long[rows]
+ *   amounts     double[rows]
+ *   timestamps  long[rows], epoch milliseconds
+ *   categories  unsigned short[rows], dictionary codes; 0xFFFF means none
+ * </pre>
+ *
+ * Each column is mapped separately, so a ledger holds up to 2^28 rows. The
+ * generation is an opaque number stored for the TransactionJournal.
+ */
+final class LedgerFile {
+
+  private static final int MAGIC = 0x45544C47; // "ETLG"
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 40;
+  private static final int FLAG_IDS_ASCENDING = 1;
+  private static final int NO_CATEGORY = 0xFFFF;
+  private static final int MAX_ROWS = Integer.MAX_VALUE / 8;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final int rows;
+  private final long generation;
+  private final long maxId;
+  private final boolean idsAscending;
+  private final String[] categories;
+  // CategoryDictionary code of each entry of categories
+  private final int[] dictionaryCodes;
+  private final LongBuffer ids;
+  private final DoubleBuffer amounts;
+  private final LongBuffer timestamps;
+  private final ShortBuffer categoryCodes;
+
+  private LedgerFile(int rows, long generation, long maxId, boolean idsAscending, String[] categories,
+                     LongBuffer ids, DoubleBuffer amounts, LongBuffer timestamps,
+                     ShortBuffer categoryCodes) {
+    this.rows = rows;
+    this.generation = generation;
+    this.maxId = maxId;
+    this.idsAscending = idsAscending;
+    this.categories = categories;
+    this.dictionaryCodes = new int[categories.length];
+    for (int i = 0; i < categories.length; i++) {
+      dictionaryCodes[i] = CategoryDictionary.codeOf(categories[i]);
+    }
+    this.ids = ids;
+    this.amounts = amounts;
+    this.timestamps = timestamps;
+    this.categoryCodes = categoryCodes;
+  }
+
+  /**
+   * Maps a ledger file for reading. The mapping stays valid after the file
+   * is closed and, on POSIX systems, after it is deleted.
+   *
+   * @param file The ledger file
+   * @return The mapped ledger
+   * @throws IOException if the file cannot be read or is not a ledger file
+   */
+  static LedgerFile map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      readFully(channel, header, 0);
+      if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+        throw new IOException(file + " is not a ledger file");
+      }
+      int flags = header.getInt();
+      int categoryCount = header.getInt();
+      long rowCount = header.getLong();
+      long generation = header.getLong();
+      long maxId = header.getLong();
+      if (rowCount < 0 || rowCount > MAX_ROWS || categoryCount < 0 || categoryCount > NO_CATEGORY) {
+        throw new IOException(file + " has a corrupt header");
+      }
+      int rows = (int) rowCount;
+
+      String[] categories = new String[categoryCount];
+      long position = HEADER_SIZE;
+      ByteBuffer length = ByteBuffer.allocate(2);
+      for (int i = 0; i < categoryCount; i++) {
+        length.clear();
+        readFully(channel, length, position);
+        ByteBuffer name = ByteBuffer.allocate(length.getShort() & 0xFFFF);
+        readFully(channel, name, position + 2);
+        categories[i] = new String(name.array(), StandardCharsets.UTF_8).intern();
+        position += 2 + name.capacity();
+      }
+      long idsAt = align(position);
+      long amountsAt = idsAt + 8L * rows;
+      long timestampsAt = amountsAt + 8L * rows;
+      long categoriesAt = timestampsAt + 8L * rows;
+      if (rows > 0 && channel.size() < categoriesAt + 2L * rows) {
+        throw new IOException(file + " is truncated");
+      }
+      return new LedgerFile(rows, generation, maxId, (flags & FLAG_IDS_ASCENDING) != 0, categories,
+                            map(channel, idsAt, 8L * rows).asLongBuffer(),
+                            map(channel, amountsAt, 8L * rows).asDoubleBuffer(),
+                            map(channel, timestampsAt, 8L * rows).asLongBuffer(),
+                            map(channel, categoriesAt, 2L * rows).asShortBuffer());
+    }
+  }
+
+  /**
+   * Writes the given transactions to a ledger file, replacing its contents,
+   * and forces it to disk.
+   *
+   * @param file The file to write
+   * @param transactions The rows to write, in order
+   * @param generation Opaque number stored in the header
+   * @throws IOException if the file cannot be written, or a category name
+   *         takes more than 65534 bytes in UTF-8
+   */
+  static void write(Path file, List<Transaction> transactions, long generation) throws IOException {
+    int rows = transactions.size();
+    if (rows > MAX_ROWS) {
+      throw new IOException("A ledger file holds at most " + MAX_ROWS + " rows");
+    }
+    List<String> names = new ArrayList<>();
+    Map<String, Integer> codes = new HashMap<>();
+    boolean ascending = true;
+    long previousId = Long.MIN_VALUE;
+    long maxId = 0;
+    for (Transaction t : transactions) {
+      String category = t.getCategory();
+      if (category != null && !codes.containsKey(category)) {
+        if (names.size() == NO_CATEGORY) {
+          throw new IOException("A ledger file holds at most " + NO_CATEGORY + " categories");
+        }
+        codes.put(category, names.size());
+        names.add(category);
+      }
+      ascending &= t.getId() > previousId;
+      previousId = t.getId();
+      maxId = Math.max(maxId, t.getId());
+    }
+
+    try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                                            StandardOpenOption.TRUNCATE_EXISTING,
+                                            StandardOpenOption.WRITE)) {
+      ByteBuffer head = ByteBuffer.allocate(BUFFER_SIZE);
+      head.putInt(MAGIC).putInt(FORMAT_VERSION)
+          .putInt(ascending ? FLAG_IDS_ASCENDING : 0).putInt(names.size())
+          .putLong(rows).putLong(generation).putLong(maxId);
+      long position = 0;
+      for (String name : names) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        // the length and the name must fit into head, even right after a flush
+        if (bytes.length > BUFFER_SIZE - 2) {
+          throw new IOException("Category is too long for a ledger file");
+        }
+        if (head.remaining() < 2 + bytes.length) {
+          position += writeAt(out, head, position);
+        }
+        head.putShort((short) bytes.length).put(bytes);
+      }
+      position += writeAt(out, head, position);
+      long idsAt = align(position);
+
+      // Fill all four columns in one pass, each through its own buffer
+      ColumnWriter ids = new ColumnWriter(out, idsAt);
+      ColumnWriter amounts = new ColumnWriter(out, idsAt + 8L * rows);
+      ColumnWriter timestamps = new ColumnWriter(out, idsAt + 16L * rows);
+      ColumnWriter categoryCodes = new ColumnWriter(out, idsAt + 24L * rows);
+      for (Transaction t : transactions) {
+        ids.room(8).putLong(t.getId());
+        amounts.room(8).putDouble(t.getAmount());
+        timestamps.room(8).putLong(t.getTimestampMillis());
+        categoryCodes.room(2).putShort((short) (t.getCategory() == null
+                                                ? NO_CATEGORY
+                                                : codes.get(t.getCategory())));
+      }
+      ids.finish();
+      amounts.finish();
+      timestamps.finish();
+      categoryCodes.finish();
+      out.force(true);
+    }
+  }
+
+  /**
+   * Returns the number of rows.
+   *
+   * @return The row count
+   */
+  int size() {
+    return rows;
+  }
+
+  /**
+   * Returns the generation stored in the header.
+   *
+   * @return The generation number
+   */
+  long generation() {
+    return generation;
+  }
+
+  /**
+   * Returns the largest ID in the ledger.
+   *
+   * @return The largest ID, 0 if the ledger is empty
+   */
+  long maxId() {
+    return maxId;
+  }
+
+  /**
+   * Returns whether the ID column is strictly ascending, which allows IDs
+   * to be found by binary search.
+   *
+   * @return true if IDs are strictly ascending
+   */
+  boolean idsAscending() {
+    return idsAscending;
+  }
+
+  long idAt(int row) {
+    return ids.get(row);
+  }
+
+  double amountAt(int row) {
+    return amounts.get(row);
+  }
+
+  long timestampAt(int row) {
+    return timestamps.get(row);
+  }
+
+  /**
+   * Returns the category of a row. Rows with the same category share one
+   * String instance.
+   *
+   * @param row Row position, 0 &lt;= row &lt; size()
+   * @return The category, or null if the row has none
+   */
+  String categoryAt(int row) {
+    int code = categoryCodes.get(row) & 0xFFFF;
+    return code == NO_CATEGORY ? null : categories[code];
+  }
+
+  /**
+   * Returns the CategoryDictionary code of a row's category.
+   *
+   * @param row Row position, 0 &lt;= row &lt; size()
+   * @return The category code, or CategoryDictionary.NONE if the row has none
+   */
+  int categoryCodeAt(int row) {
+    int code = categoryCodes.get(row) & 0xFFFF;
+    return code == NO_CATEGORY ? CategoryDictionary.NONE : dictionaryCodes[code];
+  }
+
+  private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+  }
+
+  private static long align(long position) {
+    return (position + 7) & ~7L;
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer b, long position) throws IOException {
+    while (b.hasRemaining()) {
+      if (channel.read(b, position + b.position()) < 0) {
+        throw new IOException("Ledger file is truncated");
+      }
+    }
+    b.flip();
+  }
+
+  /**
+   * Writes the buffer's contents at the given position and clears it.
+   *
+   * @return The number of bytes written
+   */
+  private static int writeAt(FileChannel out, ByteBuffer b, long position) throws IOException {
+    b.flip();
+    int written = b.remaining();
+    while (b.hasRemaining()) {
+      out.write(b, position + written - b.remaining());
+    }
+    b.clear();
+    return written;
+  }
+
+  /**
+   * Buffered sequential writer for one column region of the file.
+   */
+  private static final class ColumnWriter {
+    private final FileChannel out;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long position;
+
+    ColumnWriter(FileChannel out, long position) {
+      this.out = out;
+      this.position = position;
+    }
+
+    ByteBuffer room(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        position += writeAt(out, buffer, position);
+      }
+      return buffer;
+    }
+
+    void finish() throws IOException {
+      position += writeAt(out, buffer, position);
+    }
+  }
+}
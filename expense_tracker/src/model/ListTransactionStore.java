@@ -0,0 +1,86 @@
+package model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntFunction;
+
+/**
+ * TransactionStore that keeps Transaction objects in a growable array.
+ * Used for StorageMode.LIST.
+ *
+ * Stored slots are never overwritten: appends write past the last row,
+ * and growing and compacting copy into a new array. A frozen accessor can
+ * therefore keep reading the array it captured.
+ */
+class ListTransactionStore implements TransactionStore {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private Transaction[] transactions = new Transaction[INITIAL_CAPACITY];
+  private int size;
+
+  @Override
+  public void append(Transaction t) {
+    if (size == transactions.length) {
+      transactions = Arrays.copyOf(transactions, size + (size >> 1));
+    }
+    transactions[size++] = t;
+  }
+
+  @Override
+  public Transaction get(int row) {
+    checkRow(row);
+    return transactions[row];
+  }
+
+  @Override
+  public long idAt(int row) {
+    return get(row).getId();
+  }
+
+  @Override
+  public double amountAt(int row) {
+    return get(row).getAmount();
+  }
+
+  @Override
+  public int categoryCodeAt(int row) {
+    return get(row).getCategoryCode();
+  }
+
+  @Override
+  public long timestampAt(int row) {
+    return get(row).getTimestampMillis();
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void compact(BitSet removed) {
+    int live = size - removed.cardinality();
+    Transaction[] kept = new Transaction[Math.max(INITIAL_CAPACITY, live + (live >> 1))];
+    int count = 0;
+    for (int row = 0; row < size; row++) {
+      if (!removed.get(row)) {
+        kept[count++] = transactions[row];
+      }
+    }
+    transactions = kept;
+    size = count;
+  }
+
+  @Override
+  public IntFunction<Transaction> freeze() {
+    Transaction[] rows = transactions;
+    return row -> rows[row];
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from positive long keys to int values, used by
+ * ExpenseTrackerModel to find the row of a transaction by its ID without
+ * boxing. Key 0 marks an empty slot, which is safe because transaction IDs
+ * start at 1. Entries are never removed individually; the model rebuilds
+ * the map when it compacts its storage.
+ */
+class LongIntMap {
+
+  private static final int NOT_FOUND = -1;
+
+  private long[] keys;
+  private int[] values;
+  private int size;
+
+  /**
+   * Constructs an empty map.
+   */
+  LongIntMap() {
+    keys = new long[16];
+    values = new int[16];
+  }
+
+  /**
+   * Associates a value with a key, replacing any previous value.
+   *
+   * @param key The key, must be greater than 0
+   * @param value The value to store
+   */
+  void put(long key, int value) {
+    if ((size + 1) * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+    int slot = slotOf(key, keys);
+    if (keys[slot] == 0) {
+      keys[slot] = key;
+      size++;
+    }
+    values[slot] = value;
+  }
+
+  /**
+   * Returns the value for a key.
+   *
+   * @param key The key to look up
+   * @return The stored value, or -1 if the key is absent
+   */
+  int get(long key) {
+    int slot = slotOf(key, keys);
+    return keys[slot] == key && key != 0 ? values[slot] : NOT_FOUND;
+  }
+
+  /**
+   * Removes all entries while keeping the current capacity.
+   */
+  void clear() {
+    Arrays.fill(keys, 0L);
+    size = 0;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new long[capacity];
+    values = new int[capacity];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int slot = slotOf(oldKeys[i], keys);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the slot holding the key, or the empty slot where it belongs.
+   */
+  private static int slotOf(long key, long[] table) {
+    int mask = table.length - 1;
+    int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+    while (table[slot] != 0 && table[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+}
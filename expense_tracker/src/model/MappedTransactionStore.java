@@ -0,0 +1,153 @@
+package model;
+
+import java.util.BitSet;
+import java.util.function.IntFunction;
+
+/**
+ * TransactionStore that serves a prefix of rows straight from a memory
+ * mapped LedgerFile and keeps only rows appended afterwards on the heap, in
+ * a ListTransactionStore or ColumnarTransactionStore tail. Opening a large
+ * ledger therefore costs O(1) heap and time.
+ *
+ * The mapped file is read-only, so compaction does not move mapped data:
+ * it records the ledger positions of the surviving mapped rows in a
+ * selection vector (4 bytes per row) and compacts the tail normally. The
+ * vector is replaced rather than modified, so a frozen accessor keeps the
+ * one it captured.
+ */
+class MappedTransactionStore implements TransactionStore {
+
+  private final LedgerFile ledger;
+  private final TransactionStore tail;
+  // ledger position of each surviving mapped row; null while none was removed
+  private int[] selection;
+  private int mappedRows;
+  // ID index over the mapped rows, built only if IDs are not ascending
+  private LongIntMap mappedIds;
+
+  /**
+   * Constructs a store over a mapped ledger.
+   *
+   * @param ledger The mapped rows, served first
+   * @param tail Empty store receiving appended rows
+   */
+  MappedTransactionStore(LedgerFile ledger, TransactionStore tail) {
+    this.ledger = ledger;
+    this.tail = tail;
+    this.mappedRows = ledger.size();
+  }
+
+  @Override
+  public void append(Transaction t) {
+    tail.append(t);
+  }
+
+  @Override
+  public Transaction get(int row) {
+    if (row >= mappedRows) {
+      return tail.get(row - mappedRows);
+    }
+    int position = position(row);
+    return new Transaction(ledger.idAt(position),
+                           ledger.amountAt(position),
+                           ledger.categoryAt(position),
+                           ledger.categoryCodeAt(position),
+                           ledger.timestampAt(position));
+  }
+
+  @Override
+  public long idAt(int row) {
+    return row < mappedRows ? ledger.idAt(position(row)) : tail.idAt(row - mappedRows);
+  }
+
+  @Override
+  public double amountAt(int row) {
+    return row < mappedRows ? ledger.amountAt(position(row)) : tail.amountAt(row - mappedRows);
+  }
+
+  @Override
+  public int categoryCodeAt(int row) {
+    return row < mappedRows ? ledger.categoryCodeAt(position(row)) : tail.categoryCodeAt(row - mappedRows);
+  }
+
+  @Override
+  public long timestampAt(int row) {
+    return row < mappedRows ? ledger.timestampAt(position(row)) : tail.timestampAt(row - mappedRows);
+  }
+
+  @Override
+  public int size() {
+    return mappedRows + tail.size();
+  }
+
+  @Override
+  public void compact(BitSet removed) {
+    int size = size();
+    int kept = 0;
+    int[] newSelection = new int[mappedRows - removed.get(0, mappedRows).cardinality()];
+    for (int row = 0; row < mappedRows; row++) {
+      if (!removed.get(row)) {
+        newSelection[kept++] = position(row);
+      }
+    }
+    tail.compact(removed.get(mappedRows, size));
+    selection = newSelection;
+    mappedRows = kept;
+    mappedIds = null;
+  }
+
+  @Override
+  public IntFunction<Transaction> freeze() {
+    int[] rowPositions = selection;
+    int frozenMappedRows = mappedRows;
+    IntFunction<Transaction> tailRows = tail.freeze();
+    return row -> {
+      if (row >= frozenMappedRows) {
+        return tailRows.apply(row - frozenMappedRows);
+      }
+      int position = rowPositions == null ? row : rowPositions[row];
+      return new Transaction(ledger.idAt(position),
+                             ledger.amountAt(position),
+                             ledger.categoryAt(position),
+                             ledger.categoryCodeAt(position),
+                             ledger.timestampAt(position));
+    };
+  }
+
+  @Override
+  public int searchableRows() {
+    return mappedRows;
+  }
+
+  @Override
+  public int findRow(long id) {
+    if (ledger.idsAscending()) {
+      // rows keep ledger order, so their IDs stay ascending
+      int low = 0;
+      int high = mappedRows - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        long midId = ledger.idAt(position(mid));
+        if (midId < id) {
+          low = mid + 1;
+        } else if (midId > id) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -1;
+    }
+    if (mappedIds == null) {
+      mappedIds = new LongIntMap();
+      for (int row = 0; row < mappedRows; row++) {
+        mappedIds.put(ledger.idAt(position(row)), row);
+      }
+    }
+    return mappedIds.get(id);
+  }
+
+  private int position(int row) {
+    return selection == null ? row : selection[row];
+  }
+}
@@ -0,0 +1,96 @@
+package model;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Total spend and number of transactions in one day or month, overall and
+ * per category, as read from the model's rollups. A summary is an
+ * immutable copy and does not follow later changes to the model.
+ */
+public final class PeriodSummary {
+
+  private final int count;
+  private final double sum;
+  private final SortedMap<String, Double> categoryTotals;
+  private final SortedMap<String, Integer> categoryCounts;
+
+  /**
+   * Constructs a summary.
+   *
+   * @param count Number of transactions in the period
+   * @param sum Total of their amounts
+   * @param categoryTotals Total per lower-case category
+   * @param categoryCounts Number of transactions per lower-case category
+   */
+  PeriodSummary(int count, double sum, TreeMap<String, Double> categoryTotals,
+                TreeMap<String, Integer> categoryCounts) {
+    this.count = count;
+    this.sum = sum;
+    this.categoryTotals = Collections.unmodifiableSortedMap(categoryTotals);
+    this.categoryCounts = Collections.unmodifiableSortedMap(categoryCounts);
+  }
+
+  /**
+   * Returns the number of transactions in the period.
+   *
+   * @return The count, including transactions without a category
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the total amount spent in the period.
+   *
+   * @return The compensated sum of the amounts
+   */
+  public double getSum() {
+    return sum;
+  }
+
+  /**
+   * Returns the total of every category with transactions in the period.
+   *
+   * @return An unmodifiable map from lower-case category to total, sorted by category
+   */
+  public SortedMap<String, Double> getCategoryTotals() {
+    return categoryTotals;
+  }
+
+  /**
+   * Returns the total of one category in the period, ignoring case.
+   *
+   * @param category The category
+   * @return The category's total, 0 if it has no transactions in the period
+   */
+  public double getCategoryTotal(String category) {
+    int code = CategoryDictionary.lookup(category);
+    return code == CategoryDictionary.NONE
+        ? 0 : categoryTotals.getOrDefault(CategoryDictionary.nameOf(code), 0.0);
+  }
+
+  /**
+   * Returns the number of transactions of one category in the period,
+   * ignoring case.
+   *
+   * @param category The category
+   * @return The category's count, 0 if it has no transactions in the period
+   */
+  public int getCategoryCount(String category) {
+    int code = CategoryDictionary.lookup(category);
+    return code == CategoryDictionary.NONE
+        ? 0 : categoryCounts.getOrDefault(CategoryDictionary.nameOf(code), 0);
+  }
+
+  /**
+   * Returns a short description for logs and tests.
+   *
+   * @return The count, sum and category totals
+   */
+  @Override
+  public String toString() {
+    return "count=" + count + " sum=" + sum + " " + categoryTotals;
+  }
+}
@@ -0,0 +1,176 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Streaming quantile sketch of transaction amounts in the style of
+ * DDSketch: values are counted in logarithmic buckets whose bounds grow by
+ * a factor of (1 + a) / (1 - a), so every quantile is reported within a
+ * relative error of a = 1% of a value that is actually covered.
+ *
+ * Unlike t-digest, the sketch supports removing values exactly, which the
+ * model needs to keep one sketch per category up to date as transactions
+ * are removed. Adding and removing cost O(1). Reading a quantile walks the
+ * buckets, whose number depends only on the ratio between the largest and
+ * smallest amount (about 580 for amounts from 0.01 to 1000), not on the
+ * number of transactions.
+ *
+ * NaN amounts are not counted. Amounts whose magnitude is below
+ * MIN_MAGNITUDE count as 0, and infinite ones fall into the outermost
+ * bucket.
+ */
+final class QuantileSketch {
+
+  // relative accuracy of reported quantiles
+  private static final double ACCURACY = 0.01;
+  private static final double GAMMA = (1 + ACCURACY) / (1 - ACCURACY);
+  private static final double LOG_GAMMA = Math.log(GAMMA);
+  private static final double MIN_MAGNITUDE = 1e-9;
+  private static final int MIN_INDEX = index(MIN_MAGNITUDE);
+  private static final int MAX_INDEX = index(Double.MAX_VALUE);
+
+  private final Buckets positive = new Buckets();
+  private final Buckets negative = new Buckets();
+  private int zeroCount;
+  private int count;
+
+  /**
+   * Counts an amount.
+   */
+  void add(double amount) {
+    update(amount, 1);
+  }
+
+  /**
+   * Removes an amount that was added before.
+   */
+  void remove(double amount) {
+    update(amount, -1);
+  }
+
+  /**
+   * Forgets all amounts.
+   */
+  void clear() {
+    positive.clear();
+    negative.clear();
+    zeroCount = 0;
+    count = 0;
+  }
+
+  /**
+   * Returns the amount at a quantile: the value of the bucket holding the
+   * amount of rank q * (count - 1) in ascending order.
+   *
+   * @param q The quantile, 0 to 1
+   * @return The estimated amount, or NaN if no amount is counted
+   */
+  double quantile(double q) {
+    if (count == 0) {
+      return Double.NaN;
+    }
+    long rank = (long) (q * (count - 1));
+    long seen = 0;
+    // the most negative amounts sit in the highest negative buckets
+    for (int i = negative.counts.length - 1; i >= 0; i--) {
+      seen += negative.counts[i];
+      if (seen > rank) {
+        return -value(negative.offset + i);
+      }
+    }
+    seen += zeroCount;
+    if (seen > rank) {
+      return 0;
+    }
+    for (int i = 0; i < positive.counts.length; i++) {
+      seen += positive.counts[i];
+      if (seen > rank) {
+        return value(positive.offset + i);
+      }
+    }
+    // not reached while the bucket counts add up to count
+    return Double.NaN;
+  }
+
+  /**
+   * Returns an independent copy.
+   */
+  QuantileSketch copy() {
+    QuantileSketch copy = new QuantileSketch();
+    copy.positive.copyFrom(positive);
+    copy.negative.copyFrom(negative);
+    copy.zeroCount = zeroCount;
+    copy.count = count;
+    return copy;
+  }
+
+  private void update(double amount, int delta) {
+    if (Double.isNaN(amount)) {
+      return;
+    }
+    count += delta;
+    double magnitude = Math.abs(amount);
+    if (magnitude < MIN_MAGNITUDE) {
+      zeroCount += delta;
+    } else if (amount > 0) {
+      positive.add(clampedIndex(magnitude), delta);
+    } else {
+      negative.add(clampedIndex(magnitude), delta);
+    }
+  }
+
+  private static int clampedIndex(double magnitude) {
+    return Math.max(MIN_INDEX, Math.min(MAX_INDEX, index(magnitude)));
+  }
+
+  /**
+   * Bucket i holds the magnitudes in (GAMMA^(i - 1), GAMMA^i].
+   */
+  private static int index(double magnitude) {
+    return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+  }
+
+  /**
+   * The point of a bucket within a relative distance of ACCURACY of both
+   * bounds.
+   */
+  private static double value(int index) {
+    return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+  }
+
+  /**
+   * Counts per bucket index over the dense range of indexes seen so far.
+   */
+  private static final class Buckets {
+    int[] counts = new int[0];
+    int offset;
+
+    void add(int index, int delta) {
+      if (counts.length == 0) {
+        counts = new int[1];
+        offset = index;
+      } else if (index < offset) {
+        // grow downwards with some headroom
+        int shift = Math.max(offset - index, counts.length >> 1);
+        shift = Math.min(shift, offset - MIN_INDEX);
+        int[] grown = new int[counts.length + shift];
+        System.arraycopy(counts, 0, grown, shift, counts.length);
+        counts = grown;
+        offset -= shift;
+      } else if (index >= offset + counts.length) {
+        int length = Math.max(index - offset + 1, counts.length + (counts.length >> 1));
+        counts = Arrays.copyOf(counts, Math.min(length, MAX_INDEX - offset + 1));
+      }
+      counts[index - offset] += delta;
+    }
+
+    void clear() {
+      Arrays.fill(counts, 0);
+    }
+
+    void copyFrom(Buckets other) {
+      counts = other.counts.clone();
+      offset = other.offset;
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Stable LSD radix sort of row positions by 64-bit keys, used by the
+ * model's indexes to build themselves in O(n) instead of O(n log n).
+ */
+final class RadixSort {
+
+  private RadixSort() {
+  }
+
+  /**
+   * Returns the rows 0..count-1 ordered by their keys, compared as
+   * unsigned numbers. Rows with equal keys keep ascending row order.
+   * Byte positions where every key has the same value are skipped, so
+   * keys that differ only in their low bytes sort in few passes.
+   *
+   * @param keys The key of each row; overwritten with the keys in sorted order
+   * @param count Number of rows
+   * @return The sorted row positions
+   */
+  static int[] sortRows(long[] keys, int count) {
+    int[] rows = new int[count];
+    for (int row = 0; row < count; row++) {
+      rows[row] = row;
+    }
+    long[] keyBuffer = new long[count];
+    int[] rowBuffer = new int[count];
+    long[] input = keys;
+    int[] counts = new int[257];
+    for (int shift = 0; shift < 64 && count > 0; shift += 8) {
+      Arrays.fill(counts, 0);
+      for (int i = 0; i < count; i++) {
+        counts[(int) (input[i] >>> shift & 0xFF) + 1]++;
+      }
+      if (counts[(int) (input[0] >>> shift & 0xFF) + 1] == count) {
+        continue; // every key has the same byte here
+      }
+      for (int b = 0; b < 256; b++) {
+        counts[b + 1] += counts[b];
+      }
+      for (int i = 0; i < count; i++) {
+        int dest = counts[(int) (input[i] >>> shift & 0xFF)]++;
+        keyBuffer[dest] = input[i];
+        rowBuffer[dest] = rows[i];
+      }
+      long[] swapKeys = input;
+      input = keyBuffer;
+      keyBuffer = swapKeys;
+      int[] swapRows = rows;
+      rows = rowBuffer;
+      rowBuffer = swapRows;
+    }
+    if (input != keys) {
+      System.arraycopy(input, 0, keys, 0, count);
+    }
+    return rows;
+  }
+}
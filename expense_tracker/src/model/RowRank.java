@@ -0,0 +1,139 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Rank and select over the tombstoned rows of a store, so live positions
+ * can be translated to row positions without compacting first. Removed
+ * rows are kept as a bit per row, and a Fenwick tree holds the number of
+ * removed rows per block of 64, so select() and rank() cost O(log n) and
+ * marking a row costs O(log n). Rows past the marked range count as live.
+ */
+final class RowRank {
+
+  private static final int BLOCK_SHIFT = 6;
+  private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+  // removed bits, one word per block
+  private long[] words = new long[0];
+  // 1-based Fenwick tree of removed counts per block
+  private int[] tree = new int[1];
+  private int removedCount;
+
+  /**
+   * Marks a row as removed.
+   *
+   * @param row Row position of a live row
+   */
+  void remove(int row) {
+    int block = row >>> BLOCK_SHIFT;
+    if (block >= words.length) {
+      grow(block + 1);
+    }
+    words[block] |= 1L << row;
+    for (int i = block + 1; i < tree.length; i += i & -i) {
+      tree[i]++;
+    }
+    removedCount++;
+  }
+
+  /**
+   * Tells whether a row was marked as removed.
+   *
+   * @param row Row position
+   * @return true if the row is removed
+   */
+  boolean isRemoved(int row) {
+    int block = row >>> BLOCK_SHIFT;
+    return block < words.length && (words[block] & (1L << row)) != 0;
+  }
+
+  /**
+   * Returns the number of rows marked as removed.
+   *
+   * @return The removed row count
+   */
+  int removedCount() {
+    return removedCount;
+  }
+
+  /**
+   * Returns the number of live rows before a row, which is the position
+   * the row has among the live rows if it is live itself.
+   *
+   * @param row Row position
+   * @return The number of live rows at positions below row
+   */
+  int rank(int row) {
+    int block = row >>> BLOCK_SHIFT;
+    int removed = 0;
+    for (int i = Math.min(block, words.length); i > 0; i -= i & -i) {
+      removed += tree[i];
+    }
+    if (block < words.length) {
+      removed += Long.bitCount(words[block] & ((1L << row) - 1));
+    }
+    return row - removed;
+  }
+
+  /**
+   * Returns the row position of the live row with the given position among
+   * the live rows.
+   *
+   * @param liveIndex Position among the live rows, at least 0
+   * @return The row position
+   */
+  int select(int liveIndex) {
+    int blocks = words.length;
+    int block = 0;
+    long remaining = liveIndex;
+    for (int step = Integer.highestOneBit(Math.max(blocks, 1)); step > 0; step >>= 1) {
+      int next = block + step;
+      if (next <= blocks) {
+        long live = (long) step * BLOCK_SIZE - tree[next];
+        if (live <= remaining) {
+          block = next;
+          remaining -= live;
+        }
+      }
+    }
+    if (block == blocks) {
+      return (int) ((long) blocks * BLOCK_SIZE + remaining);
+    }
+    long free = ~words[block];
+    for (long i = 0; i < remaining; i++) {
+      free &= free - 1;
+    }
+    return block * BLOCK_SIZE + Long.numberOfTrailingZeros(free);
+  }
+
+  /**
+   * Returns an independent copy, e.g. to freeze the tombstones seen by a
+   * snapshot while the model keeps removing rows.
+   *
+   * @return A copy of this rank structure
+   */
+  RowRank copy() {
+    RowRank copy = new RowRank();
+    copy.words = words.clone();
+    copy.tree = tree.clone();
+    copy.removedCount = removedCount;
+    return copy;
+  }
+
+  /**
+   * Enlarges the marked range to at least the given number of blocks and
+   * rebuilds the tree in O(blocks).
+   */
+  private void grow(int minBlocks) {
+    words = Arrays.copyOf(words, Math.max(minBlocks, Math.max(16, words.length * 2)));
+    tree = new int[words.length + 1];
+    for (int i = 1; i < tree.length; i++) {
+      tree[i] += Long.bitCount(words[i - 1]);
+      int parent = i + (i & -i);
+      if (parent < tree.length) {
+        tree[parent] += tree[i];
+      }
+    }
+  }
+}
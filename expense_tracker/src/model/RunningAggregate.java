@@ -0,0 +1,219 @@
+package model;
+
+/**
+ * Count, sum, minimum and maximum of a set of transaction amounts, kept up
+ * to date by ExpenseTrackerModel as transactions are added and removed.
+ * Every update and every read of the count, sum and average costs O(1);
+ * the sum uses compensated summation.
+ *
+ * The minimum and maximum are updated in O(1) on add. Removing the current
+ * minimum or maximum marks them stale, and the next getMin() or getMax()
+ * recomputes them from the model in one pass.
+ *
+ * Quantiles such as the median or the 95th percentile are read from a
+ * QuantileSketch that is updated along with the sum, within 1% of a
+ * covered amount. Reading one walks the sketch's buckets, whose number
+ * does not grow with the number of transactions.
+ *
+ * An aggregate is a live view: it changes along with the model and, like
+ * the model, must be used from the thread that modifies the model.
+ * ConcurrentExpenseTrackerModel hands out detached snapshots instead.
+ */
+public final class RunningAggregate {
+
+  /**
+   * Recomputes the extremes of a stale aggregate.
+   */
+  interface ExtremesSource {
+    /**
+     * Feeds every amount the aggregate covers to target.updateExtremes().
+     *
+     * @param target The aggregate whose extremes were reset
+     */
+    void recompute(RunningAggregate target);
+  }
+
+  private final ExtremesSource source;
+  private final CompensatedSum sum = new CompensatedSum();
+  private final QuantileSketch sketch;
+  private int count;
+  private double min = Double.NaN;
+  private double max = Double.NaN;
+  private boolean extremesStale;
+
+  /**
+   * Constructs an empty aggregate.
+   *
+   * @param source Recomputes the extremes after the minimum or maximum was removed
+   */
+  RunningAggregate(ExtremesSource source) {
+    this(source, new QuantileSketch());
+  }
+
+  private RunningAggregate(ExtremesSource source, QuantileSketch sketch) {
+    this.source = source;
+    this.sketch = sketch;
+  }
+
+  /**
+   * Returns the number of covered transactions.
+   *
+   * @return The count
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the total of the covered amounts.
+   *
+   * @return The compensated sum, 0 if there are no transactions
+   */
+  public double getSum() {
+    return sum.value();
+  }
+
+  /**
+   * Returns the mean of the covered amounts.
+   *
+   * @return The average, or NaN if there are no transactions
+   */
+  public double getAverage() {
+    return count == 0 ? Double.NaN : sum.value() / count;
+  }
+
+  /**
+   * Returns the smallest covered amount.
+   *
+   * @return The minimum, or NaN if there are no transactions
+   */
+  public double getMin() {
+    refreshExtremes();
+    return min;
+  }
+
+  /**
+   * Returns the largest covered amount.
+   *
+   * @return The maximum, or NaN if there are no transactions
+   */
+  public double getMax() {
+    refreshExtremes();
+    return max;
+  }
+
+  /**
+   * Returns the amount below which the given share of the covered amounts
+   * lies, e.g. 0.5 for the median or 0.95 for the 95th percentile. The
+   * result is within 1% of a covered amount and never outside the
+   * minimum and maximum; quantile 0 and 1 are the exact extremes.
+   *
+   * @param q The quantile, 0 to 1
+   * @return The estimated amount, or NaN if there are no transactions
+   *         (or all amounts are NaN)
+   * @throws IllegalArgumentException if q is not within 0 and 1
+   */
+  public double getQuantile(double q) {
+    if (!(q >= 0 && q <= 1)) {
+      throw new IllegalArgumentException("Quantile must be between 0 and 1");
+    }
+    double estimate = sketch.quantile(q);
+    if (Double.isNaN(estimate)) {
+      return estimate;
+    }
+    refreshExtremes();
+    if (q == 0 || estimate < min) {
+      return min;
+    }
+    if (q == 1 || estimate > max) {
+      return max;
+    }
+    return estimate;
+  }
+
+  /**
+   * Returns the median of the covered amounts, as getQuantile(0.5).
+   *
+   * @return The estimated median, or NaN if there are no transactions
+   */
+  public double getMedian() {
+    return getQuantile(0.5);
+  }
+
+  /**
+   * Adds an amount.
+   */
+  void add(double amount) {
+    count++;
+    sum.add(amount);
+    sketch.add(amount);
+    updateExtremes(amount);
+  }
+
+  /**
+   * Removes an amount that was added before.
+   */
+  void remove(double amount) {
+    count--;
+    if (count == 0) {
+      clear();
+      return;
+    }
+    sum.subtract(amount);
+    sketch.remove(amount);
+    if (amount == min || amount == max) {
+      extremesStale = true;
+    }
+  }
+
+  /**
+   * Resets the aggregate to cover no transactions.
+   */
+  void clear() {
+    count = 0;
+    sum.reset();
+    sketch.clear();
+    min = Double.NaN;
+    max = Double.NaN;
+    extremesStale = false;
+  }
+
+  /**
+   * Widens the extremes to include an amount, without counting it.
+   */
+  void updateExtremes(double amount) {
+    if (extremesStale) {
+      return;
+    }
+    if (!(amount >= min)) {
+      min = amount; // also replaces the initial NaN
+    }
+    if (!(amount <= max)) {
+      max = amount;
+    }
+  }
+
+  /**
+   * Returns a detached copy of the current values, which does not follow
+   * later changes and may be read from any thread.
+   */
+  RunningAggregate snapshot() {
+    refreshExtremes();
+    RunningAggregate copy = new RunningAggregate(target -> { }, sketch.copy());
+    copy.count = count;
+    copy.sum.add(sum.value());
+    copy.min = min;
+    copy.max = max;
+    return copy;
+  }
+
+  private void refreshExtremes() {
+    if (!extremesStale) {
+      return;
+    }
+    extremesStale = false;
+    min = Double.NaN;
+    max = Double.NaN;
+    source.recompute(this);
+  }
+}
@@ -0,0 +1,196 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Pre-aggregated spend per day and category and per month and category,
+ * kept up to date by ExpenseTrackerModel along with its running
+ * aggregates. Each cell holds a compensated sum and a count, so a daily or
+ * monthly report reads one cell per period instead of scanning and
+ * bucketing every transaction, and costs the same for any ledger size.
+ *
+ * Days and months are taken in the time zone the rollup was created in,
+ * the system zone at that time, matching how timestamps are displayed.
+ * Consecutive updates usually fall on the same day, so the day and month
+ * of the last update are cached and most updates skip the calendar
+ * arithmetic. Cells that become empty are dropped.
+ */
+final class SpendRollup {
+
+  private final ZoneId zone;
+  // keyed by epoch day
+  private final NavigableMap<Long, Cell> days = new TreeMap<>();
+  // keyed by months since year 0
+  private final NavigableMap<Long, Cell> months = new TreeMap<>();
+  // day of the last update: [dayStart, dayEnd) in epoch milliseconds
+  private long dayStart = Long.MAX_VALUE;
+  private long dayEnd = Long.MIN_VALUE;
+  private long dayKey;
+  private long monthKey;
+
+  /**
+   * Constructs empty rollups in the system time zone.
+   */
+  SpendRollup() {
+    this.zone = ZoneId.systemDefault();
+  }
+
+  /**
+   * Adds a transaction's amount to its day and month, or removes it.
+   *
+   * @param timestampMillis The transaction timestamp
+   * @param categoryCode The CategoryDictionary code, or NONE
+   * @param amount The amount
+   * @param add true to add, false to remove an earlier add
+   */
+  void update(long timestampMillis, int categoryCode, double amount, boolean add) {
+    if (timestampMillis < dayStart || timestampMillis >= dayEnd) {
+      LocalDate day = Instant.ofEpochMilli(timestampMillis).atZone(zone).toLocalDate();
+      dayStart = day.atStartOfDay(zone).toInstant().toEpochMilli();
+      dayEnd = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+      dayKey = day.toEpochDay();
+      monthKey = day.getYear() * 12L + day.getMonthValue() - 1;
+    }
+    update(days, dayKey, categoryCode, amount, add);
+    update(months, monthKey, categoryCode, amount, add);
+  }
+
+  /**
+   * Forgets all amounts.
+   */
+  void clear() {
+    days.clear();
+    months.clear();
+  }
+
+  /**
+   * Returns the summaries of the days in a range that have transactions.
+   *
+   * @param from First day, inclusive, or null for no lower bound
+   * @param to Last day, inclusive, or null for no upper bound
+   * @return A new map from day to summary, in date order
+   */
+  TreeMap<LocalDate, PeriodSummary> days(LocalDate from, LocalDate to) {
+    TreeMap<LocalDate, PeriodSummary> result = new TreeMap<>();
+    for (Map.Entry<Long, Cell> e : range(days, from == null ? null : from.toEpochDay(),
+                                         to == null ? null : to.toEpochDay()).entrySet()) {
+      result.put(LocalDate.ofEpochDay(e.getKey()), e.getValue().summary());
+    }
+    return result;
+  }
+
+  /**
+   * Returns the summaries of the months in a range that have transactions.
+   *
+   * @param from First month, inclusive, or null for no lower bound
+   * @param to Last month, inclusive, or null for no upper bound
+   * @return A new map from month to summary, in date order
+   */
+  TreeMap<YearMonth, PeriodSummary> months(YearMonth from, YearMonth to) {
+    TreeMap<YearMonth, PeriodSummary> result = new TreeMap<>();
+    for (Map.Entry<Long, Cell> e : range(months, from == null ? null : monthKey(from),
+                                         to == null ? null : monthKey(to)).entrySet()) {
+      long key = e.getKey();
+      result.put(YearMonth.of((int) Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1),
+                 e.getValue().summary());
+    }
+    return result;
+  }
+
+  private static long monthKey(YearMonth month) {
+    return month.getYear() * 12L + month.getMonthValue() - 1;
+  }
+
+  private static NavigableMap<Long, Cell> range(NavigableMap<Long, Cell> cells, Long from, Long to) {
+    if (from != null && to != null && from > to) {
+      return new TreeMap<>();
+    }
+    NavigableMap<Long, Cell> range = cells;
+    if (from != null) {
+      range = range.tailMap(from, true);
+    }
+    if (to != null) {
+      range = range.headMap(to, true);
+    }
+    return range;
+  }
+
+  private static void update(NavigableMap<Long, Cell> cells, long key, int categoryCode,
+                             double amount, boolean add) {
+    Cell cell = cells.get(key);
+    if (cell == null) {
+      cell = new Cell();
+      cells.put(key, cell);
+    }
+    if (add) {
+      cell.add(categoryCode, amount);
+    } else if (cell.remove(categoryCode, amount)) {
+      cells.remove(key);
+    }
+  }
+
+  /**
+   * Sum and count of one period, overall and per category code.
+   */
+  private static final class Cell {
+    int count;
+    final CompensatedSum sum = new CompensatedSum();
+    int[] categoryCounts = new int[0];
+    CompensatedSum[] categorySums = new CompensatedSum[0];
+
+    void add(int code, double amount) {
+      count++;
+      sum.add(amount);
+      if (code != CategoryDictionary.NONE) {
+        if (code >= categoryCounts.length) {
+          int length = Math.max(code + 1, CategoryDictionary.size());
+          categoryCounts = Arrays.copyOf(categoryCounts, length);
+          categorySums = Arrays.copyOf(categorySums, length);
+        }
+        if (categorySums[code] == null) {
+          categorySums[code] = new CompensatedSum();
+        }
+        categoryCounts[code]++;
+        categorySums[code].add(amount);
+      }
+    }
+
+    /**
+     * Removes an amount added before.
+     *
+     * @return true if the cell is empty now
+     */
+    boolean remove(int code, double amount) {
+      count--;
+      sum.subtract(amount);
+      if (code != CategoryDictionary.NONE) {
+        if (--categoryCounts[code] == 0) {
+          categorySums[code].reset();
+        } else {
+          categorySums[code].subtract(amount);
+        }
+      }
+      return count == 0;
+    }
+
+    PeriodSummary summary() {
+      TreeMap<String, Double> totals = new TreeMap<>();
+      TreeMap<String, Integer> counts = new TreeMap<>();
+      for (int code = 0; code < categoryCounts.length; code++) {
+        if (categoryCounts[code] > 0) {
+          String name = CategoryDictionary.nameOf(code);
+          totals.put(name, categorySums[code].value());
+          counts.put(name, categoryCounts[code]);
+        }
+      }
+      return new PeriodSummary(count, sum.value(), totals, counts);
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package model;
+
+/**
+ * Selects how an ExpenseTrackerModel stores its transactions internally.
+ * The choice only affects memory layout and scan performance; the public
+ * API of the model behaves the same in every mode.
+ */
+public enum StorageMode {
+
+  /**
+   * Keeps every Transaction object in a list. Best suited to small ledgers
+   * and the default for the interactive application.
+   */
+  LIST,
+
+  /**
+   * Keeps amounts, category codes and timestamps in parallel primitive
+   * arrays and serves Transaction objects as lightweight views on demand.
+   * Intended for ledgers with millions of rows.
+   */
+  COLUMNAR
+}
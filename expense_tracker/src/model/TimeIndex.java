@@ -0,0 +1,258 @@
+package model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Time-ordered index of (timestamp, row) pairs, used by
+ * ExpenseTrackerModel to answer date range queries. Transactions are
+ * almost always added in time order, so the index is a sorted array that
+ * grows at its end: appending an entry at or after the latest timestamp
+ * costs amortized O(1), and a range query is two binary searches plus
+ * O(k) for k visited entries. Once a timestamp arrives out of order, e.g.
+ * from importing a newest-first statement, it and every later entry are
+ * appended to an unsorted tail, also in O(1). The next query radix sorts
+ * the tail and merges it into the sorted entries in one O(n) pass, so a
+ * whole import batch, or several batches without a query between them,
+ * costs a single merge instead of one O(n) shift per entry.
+ *
+ * Entries are ordered by timestamp and then by row. Like AmountIndex,
+ * entries are never deleted individually; the model skips removed rows
+ * and compacts the index together with its storage.
+ */
+class TimeIndex {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] times = new long[INITIAL_CAPACITY];
+  private int[] rows = new int[INITIAL_CAPACITY];
+  private int size;
+  // entries below sorted are in order; the rest form the unsorted tail
+  private int sorted;
+  // true while rows ascend along with the timestamps
+  private boolean rowOrdered = true;
+
+  /**
+   * Adds an entry for a newly appended row, whose position is larger than
+   * that of every row already in the index, in amortized O(1).
+   *
+   * @param time The timestamp stored at the row, in epoch milliseconds
+   * @param row The row position
+   */
+  void insert(long time, int row) {
+    if (size == times.length) {
+      int capacity = size + (size >> 1);
+      times = Arrays.copyOf(times, capacity);
+      rows = Arrays.copyOf(rows, capacity);
+    }
+    times[size] = time;
+    rows[size] = row;
+    if (sorted == size && (size == 0 || time >= times[size - 1])) {
+      sorted++;
+    }
+    size++;
+  }
+
+  /**
+   * Visits the rows whose timestamp lies in [from, to), in ascending time
+   * order (rows with equal timestamps in ascending row order).
+   *
+   * @param from Inclusive lower bound in epoch milliseconds
+   * @param to Exclusive upper bound in epoch milliseconds
+   * @param visitor Receives each matching row
+   */
+  void visitRange(long from, long to, AmountIndex.RowVisitor visitor) {
+    mergeTail();
+    for (int i = lowerBound(from), end = lowerBound(to); i < end; i++) {
+      visitor.visit(rows[i]);
+    }
+  }
+
+  /**
+   * Returns the number of entries with a timestamp in [from, to) in
+   * O(log n), including entries of removed rows.
+   *
+   * @param from Inclusive lower bound in epoch milliseconds
+   * @param to Exclusive upper bound in epoch milliseconds
+   * @return The entry count
+   */
+  int countRange(long from, long to) {
+    mergeTail();
+    return from >= to ? 0 : lowerBound(to) - lowerBound(from);
+  }
+
+  /**
+   * Returns the position, in ascending (timestamp, row) order, of the
+   * first entry with a timestamp of at least time, in O(log n).
+   *
+   * @param time The timestamp in epoch milliseconds
+   * @return The number of entries with an earlier timestamp
+   */
+  int positionOf(long time) {
+    mergeTail();
+    return lowerBound(time);
+  }
+
+  /**
+   * Returns the position of an entry in ascending (timestamp, row) order
+   * in O(log n).
+   *
+   * @param time The timestamp of the entry
+   * @param row The row of the entry
+   * @return The number of entries ordered before it
+   */
+  int positionOf(long time, int row) {
+    mergeTail();
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (times[mid] < time || times[mid] == time && rows[mid] < row) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the row of the entry at a position in ascending (timestamp,
+   * row) order.
+   *
+   * @param position The position, 0 &lt;= position &lt; the number of entries
+   * @return The row of the entry
+   */
+  int rowAt(int position) {
+    mergeTail();
+    return rows[position];
+  }
+
+  /**
+   * Returns whether every entry was appended in time order, so the index
+   * visits rows in ascending row order.
+   *
+   * @return true if rows ascend along with the timestamps
+   */
+  boolean isRowOrdered() {
+    mergeTail();
+    return rowOrdered;
+  }
+
+  /**
+   * Drops the entries of removed rows and renumbers the remaining rows,
+   * keeping the sort order. Runs in O(n).
+   *
+   * @param removed Rows being dropped from the store
+   * @param newRows Maps each surviving old row to its new position
+   */
+  void compact(BitSet removed, int[] newRows) {
+    mergeTail();
+    int kept = 0;
+    rowOrdered = true;
+    for (int i = 0; i < size; i++) {
+      if (!removed.get(rows[i])) {
+        times[kept] = times[i];
+        rows[kept] = newRows[rows[i]];
+        rowOrdered &= kept == 0 || rows[kept] > rows[kept - 1];
+        kept++;
+      }
+    }
+    size = kept;
+    sorted = kept;
+  }
+
+  /**
+   * Replaces the contents of the index with one entry per row, where row r
+   * holds times[r]. Timestamps already in order are copied in O(n);
+   * otherwise they are radix sorted, also in O(n).
+   *
+   * @param rowTimes The timestamp of each row
+   * @param count Number of rows
+   */
+  void build(long[] rowTimes, int count) {
+    boolean ordered = true;
+    for (int row = 1; row < count && ordered; row++) {
+      ordered = rowTimes[row] >= rowTimes[row - 1];
+    }
+    int capacity = Math.max(INITIAL_CAPACITY, count);
+    times = Arrays.copyOf(rowTimes, capacity);
+    if (ordered) {
+      rows = new int[capacity];
+      for (int row = 0; row < count; row++) {
+        rows[row] = row;
+      }
+    } else {
+      for (int i = 0; i < count; i++) {
+        // flip the sign bit so that unsigned key order equals signed order
+        times[i] ^= Long.MIN_VALUE;
+      }
+      rows = Arrays.copyOf(RadixSort.sortRows(times, count), capacity);
+      for (int i = 0; i < count; i++) {
+        times[i] ^= Long.MIN_VALUE;
+      }
+    }
+    size = count;
+    sorted = count;
+    rowOrdered = ordered;
+  }
+
+  /**
+   * Sorts the unsorted tail and merges it into the sorted entries, in
+   * O(n + t) for t tail entries. Tail rows ascend, so the stable radix
+   * sort keeps rows with equal timestamps in row order, and every tail
+   * row is larger than every sorted row, so on equal timestamps the
+   * sorted entries come first.
+   */
+  private void mergeTail() {
+    int tail = size - sorted;
+    if (tail == 0) {
+      return;
+    }
+    long[] tailTimes = new long[tail];
+    for (int i = 0; i < tail; i++) {
+      // flip the sign bit so that unsigned key order equals signed order
+      tailTimes[i] = times[sorted + i] ^ Long.MIN_VALUE;
+    }
+    int[] order = RadixSort.sortRows(tailTimes, tail);
+    int[] tailRows = new int[tail];
+    boolean tailOrdered = true;
+    for (int i = 0; i < tail; i++) {
+      tailTimes[i] ^= Long.MIN_VALUE;
+      tailRows[i] = rows[sorted + order[i]];
+      tailOrdered &= order[i] == i;
+    }
+    rowOrdered &= tailOrdered && (sorted == 0 || tailTimes[0] >= times[sorted - 1]);
+    // merge from the back, so the sorted entries move at most once
+    int i = sorted - 1;
+    int j = tail - 1;
+    for (int k = size - 1; j >= 0; k--) {
+      if (i >= 0 && times[i] > tailTimes[j]) {
+        times[k] = times[i];
+        rows[k] = rows[i--];
+      } else {
+        times[k] = tailTimes[j];
+        rows[k] = tailRows[j--];
+      }
+    }
+    sorted = size;
+  }
+
+  /**
+   * Returns the position of the first entry with a timestamp of at least
+   * time.
+   */
+  private int lowerBound(long time) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (times[mid] < time) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,105 @@
+package model;
+
+/**
+ * Bounded binary min-heap of (amount, row) pairs that keeps the k largest
+ * amounts offered to it, used by ExpenseTrackerModel for top-k queries.
+ * The smallest kept entry sits at the root, so an offer that does not
+ * make the cut costs one comparison and one that does costs O(log k);
+ * finding the k largest of n rows costs O(n log k) without sorting or
+ * materializing the rows that are not kept.
+ *
+ * Amounts are ordered as by Double.compare(); among equal amounts, the
+ * earlier row ranks higher.
+ */
+class TopAmounts {
+
+  private final double[] amounts;
+  private final int[] rows;
+  private int size;
+
+  /**
+   * Constructs an empty heap.
+   *
+   * @param k The number of entries to keep (at least 0)
+   */
+  TopAmounts(int k) {
+    amounts = new double[k];
+    rows = new int[k];
+  }
+
+  /**
+   * Keeps an entry if it is among the k largest offered so far.
+   *
+   * @param amount The amount at the row
+   * @param row The row position
+   */
+  void offer(double amount, int row) {
+    if (size < amounts.length) {
+      int pos = size++;
+      // sift up
+      while (pos > 0) {
+        int parent = (pos - 1) >>> 1;
+        if (!less(amount, row, amounts[parent], rows[parent])) {
+          break;
+        }
+        amounts[pos] = amounts[parent];
+        rows[pos] = rows[parent];
+        pos = parent;
+      }
+      amounts[pos] = amount;
+      rows[pos] = row;
+    } else if (size > 0 && less(amounts[0], rows[0], amount, row)) {
+      siftDown(amount, row);
+    }
+  }
+
+  /**
+   * Empties the heap, returning the kept rows from the largest amount to
+   * the smallest.
+   *
+   * @return The rows in descending amount order
+   */
+  int[] drainDescending() {
+    int[] result = new int[size];
+    while (size > 0) {
+      result[size - 1] = rows[0];
+      size--;
+      if (size > 0) {
+        siftDown(amounts[size], rows[size]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Places an entry at the root and moves it down to its position.
+   */
+  private void siftDown(double amount, int row) {
+    int pos = 0;
+    while (true) {
+      int child = 2 * pos + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && less(amounts[child + 1], rows[child + 1], amounts[child], rows[child])) {
+        child++;
+      }
+      if (!less(amounts[child], rows[child], amount, row)) {
+        break;
+      }
+      amounts[pos] = amounts[child];
+      rows[pos] = rows[child];
+      pos = child;
+    }
+    amounts[pos] = amount;
+    rows[pos] = row;
+  }
+
+  /**
+   * Tells whether the first entry ranks below the second.
+   */
+  private static boolean less(double amount1, int row1, double amount2, int row2) {
+    int cmp = Double.compare(amount1, amount2);
+    return cmp < 0 || (cmp == 0 && row1 > row2);
+  }
+}
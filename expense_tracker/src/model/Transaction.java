@@ -1,19 +1,52 @@
 package model;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a single financial transaction in the Expense Tracker application.
- * Each transaction contains an amount, category, and automatically-generated timestamp.
+ * Each transaction contains an amount, category, and timestamp, which is
+ * the creation time unless an explicit one is given (e.g. for imports).
  * Transaction objects are immutable once created.
+ *
+ * The timestamp is kept as epoch milliseconds, so constructing a
+ * transaction does not allocate for it and timestamps compare as numbers.
+ * It is formatted as "dd-MM-yyyy HH:mm" in the system time zone only when
+ * getTimestamp() is called, e.g. when the view renders a cell.
+ *
+ * The category is resolved through the CategoryDictionary once, when the
+ * transaction is created: the transaction keeps the dictionary's shared
+ * String instance for its spelling and the category's code, so filters
+ * and indexes compare categories as ints. Creating a transaction never
+ * registers a category; one the dictionary does not know yet is
+ * registered when the transaction is added to a model.
+ *
+ * Every transaction receives a unique, monotonically increasing ID when it
+ * is created. Two Transaction objects are equal exactly when they carry the
+ * same ID, so a transaction keeps its identity even when a storage engine
+ * hands out a fresh object for the same row.
  */
 public class Transaction {
 
+  private static final AtomicLong NEXT_ID = new AtomicLong(1);
+  // DateTimeFormatter is immutable and thread-safe, so one instance is shared
+  private static final DateTimeFormatter TIMESTAMP_FORMAT =
+      DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+  private final long id;
   private final double amount;
+  // code of a category not registered in the CategoryDictionary yet
+  private static final int UNRESOLVED = -2;
+
   private final String category;
-  private final String timestamp;
+  // written at most once more, from UNRESOLVED to the category's code,
+  // which never changes, so racy reads are harmless
+  private int categoryCode;
+  private final long timestamp;
 
   /**
    * Constructs a new Transaction with the specified amount and category.
@@ -23,9 +56,78 @@ public class Transaction {
    * @param category The category classification of the transaction
    */
   public Transaction(double amount, String category) {
+    this(amount, category, System.currentTimeMillis());
+  }
+
+  /**
+   * Constructs a new Transaction with an explicit timestamp, e.g. the
+   * booking time of an imported bank statement row.
+   * 
+   * @param amount The monetary amount of the transaction
+   * @param category The category classification of the transaction
+   * @param timestampMillis The timestamp in milliseconds since the epoch
+   */
+  public Transaction(double amount, String category, long timestampMillis) {
+    this(NEXT_ID.getAndIncrement(), amount, category, timestampMillis);
+  }
+
+  /**
+   * Constructs a Transaction with an already-known ID and timestamp. Used by
+   * the model's storage engines to rebuild transactions from stored columns.
+   * 
+   * @param id The unique ID previously assigned to the transaction
+   * @param amount The monetary amount of the transaction
+   * @param category The category classification of the transaction
+   * @param timestampMillis The timestamp in milliseconds since the epoch
+   */
+  Transaction(long id, double amount, String category, long timestampMillis) {
+    this(id, amount, category, category == null ? null : CategoryDictionary.find(category),
+         timestampMillis);
+  }
+
+  private Transaction(long id, double amount, String category, CategoryDictionary.Entry entry,
+                      long timestampMillis) {
+    this(id, amount,
+         entry == null ? category : entry.spelling,
+         category == null ? CategoryDictionary.NONE : entry == null ? UNRESOLVED : entry.code,
+         timestampMillis);
+  }
+
+  /**
+   * Constructs a Transaction whose category code is already known, so
+   * storage engines rebuilding rows skip the dictionary lookup.
+   * 
+   * @param id The unique ID previously assigned to the transaction
+   * @param amount The monetary amount of the transaction
+   * @param category The category classification of the transaction
+   * @param categoryCode The CategoryDictionary code of category
+   * @param timestampMillis The timestamp in milliseconds since the epoch
+   */
+  Transaction(long id, double amount, String category, int categoryCode, long timestampMillis) {
+    this.id = id;
     this.amount = amount;
     this.category = category;
-    this.timestamp = generateTimestamp();
+    this.categoryCode = categoryCode;
+    this.timestamp = timestampMillis;
+  }
+
+  /**
+   * Ensures that IDs handed out to new transactions are greater than the
+   * given one. Used when transactions with known IDs are restored.
+   * 
+   * @param id An ID already in use
+   */
+  static void reserveIdsThrough(long id) {
+    NEXT_ID.accumulateAndGet(id + 1, Math::max);
+  }
+
+  /**
+   * Returns the unique ID of this transaction.
+   * 
+   * @return The transaction ID, always greater than 0
+   */
+  public long getId() {
+    return id;
   }
 
   /**
@@ -45,26 +147,113 @@ public class Transaction {
   public String getCategory() {
     return category;
   }
+
+  /**
+   * Returns the CategoryDictionary code of this transaction's category.
+   * Transactions whose categories differ only in case have the same code.
+   * 
+   * @return The category code, or CategoryDictionary.NONE if the category is
+   *         null or not registered in the dictionary
+   */
+  public int getCategoryCode() {
+    if (categoryCode == UNRESOLVED) {
+      int code = CategoryDictionary.lookup(category);
+      if (code != CategoryDictionary.NONE) {
+        categoryCode = code;
+      }
+      return code;
+    }
+    return categoryCode;
+  }
+
+  /**
+   * Returns the CategoryDictionary code of this transaction's category,
+   * registering the category if needed. Called by the model when the
+   * transaction is added to it.
+   *
+   * @return The category code, or CategoryDictionary.NONE if the category is null
+   */
+  int registerCategory() {
+    if (categoryCode == UNRESOLVED) {
+      categoryCode = CategoryDictionary.codeOf(category);
+    }
+    return categoryCode;
+  }
   
   /**
-   * Returns the timestamp when this transaction was created.
-   * The timestamp format is "dd-MM-yyyy HH:mm".
+   * Returns the timestamp of this transaction, formatted on each call.
+   * The timestamp format is "dd-MM-yyyy HH:mm" (e.g., "28-10-2025 14:30").
    * 
    * @return The transaction timestamp as a formatted String
    */
   public String getTimestamp() {
+    return formatTimestamp(timestamp);
+  }
+
+  /**
+   * Returns the timestamp of this transaction without formatting it.
+   * 
+   * @return The timestamp in milliseconds since the epoch
+   */
+  public long getTimestampMillis() {
     return timestamp;
   }
 
   /**
-   * Generates a timestamp string for the current date and time.
-   * Format: "dd-MM-yyyy HH:mm" (e.g., "28-10-2025 14:30")
+   * Formats epoch milliseconds as a "dd-MM-yyyy HH:mm" timestamp in the
+   * system time zone.
+   * 
+   * @param millis The timestamp in milliseconds since the epoch
+   * @return The formatted timestamp
+   */
+  public static String formatTimestamp(long millis) {
+    return TIMESTAMP_FORMAT.format(
+        LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+  }
+
+  /**
+   * Parses a "dd-MM-yyyy HH:mm" timestamp in the system time zone.
+   * 
+   * @param timestamp The formatted timestamp
+   * @return The timestamp in milliseconds since the epoch
+   * @throws IllegalArgumentException if the timestamp is not in the expected format
+   */
+  public static long parseTimestamp(String timestamp) {
+    try {
+      return LocalDateTime.parse(timestamp, TIMESTAMP_FORMAT)
+                          .atZone(ZoneId.systemDefault())
+                          .toInstant()
+                          .toEpochMilli();
+    } catch (DateTimeParseException ex) {
+      throw new IllegalArgumentException("Timestamp must have the format dd-MM-yyyy HH:mm", ex);
+    }
+  }
+
+  /**
+   * Two transactions are equal when they have the same ID.
+   * 
+   * @param o The object to compare with
+   * @return true if o is a Transaction with the same ID
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Transaction)) {
+      return false;
+    }
+    return id == ((Transaction) o).id;
+  }
+
+  /**
+   * Returns a hash code derived from the transaction ID.
    * 
-   * @return A formatted timestamp string
+   * @return The hash code
    */
-  private String generateTimestamp() {
-    SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy HH:mm");  
-    return sdf.format(new Date());
+  @Override
+  public int hashCode() {
+    return Long.hashCode(id);
   }
 
 }
@@ -0,0 +1,100 @@
+package model;
+
+import java.util.Collections;
+import java.util.EventObject;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Event describing a change to the transactions held by an
+ * ExpenseTrackerModel. Each event carries only the delta: the transactions
+ * that were added or removed by a single model operation. Removal events
+ * also carry the position each removed transaction had in
+ * getTransactions() just before it was removed, so a view of the whole
+ * list can delete exactly those rows.
+ */
+public class TransactionChangeEvent extends EventObject {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Kind of change described by an event.
+   */
+  public enum Type {
+    /** Transactions were appended to the model. */
+    ADDED,
+    /** Transactions were removed from the model. */
+    REMOVED
+  }
+
+  private final Type type;
+  private final transient List<Transaction> transactions;
+  // position of each removed transaction before its removal, or null
+  private final int[] positions;
+
+  /**
+   * Constructs a new TransactionChangeEvent without positions.
+   *
+   * @param source The model that changed
+   * @param type Whether the transactions were added or removed
+   * @param transactions The added or removed transactions, in model order
+   */
+  public TransactionChangeEvent(ExpenseTrackerModel source, Type type, List<Transaction> transactions) {
+    this(source, type, transactions, null);
+  }
+
+  /**
+   * Constructs a new TransactionChangeEvent.
+   *
+   * @param source The model that changed
+   * @param type Whether the transactions were added or removed
+   * @param transactions The added or removed transactions, in the order
+   *        they were added or removed
+   * @param positions For removals, the position each transaction had in
+   *        the model's list just before it was removed, one per
+   *        transaction; null if unknown
+   * @throws IllegalArgumentException if positions does not match transactions in length
+   */
+  public TransactionChangeEvent(ExpenseTrackerModel source, Type type, List<Transaction> transactions,
+                                int[] positions) {
+    super(source);
+    if (positions != null && positions.length != transactions.size()) {
+      throw new IllegalArgumentException("Expected one position per transaction");
+    }
+    this.type = type;
+    this.transactions = Collections.unmodifiableList(transactions);
+    this.positions = positions;
+  }
+
+  /**
+   * Returns whether transactions were added or removed.
+   *
+   * @return The change type
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Returns the transactions affected by the change.
+   *
+   * @return An unmodifiable list of the added or removed transactions
+   */
+  public List<Transaction> getTransactions() {
+    return transactions;
+  }
+
+  /**
+   * Returns the position a removed transaction had in the model's list
+   * just before it was removed. Applying the removals in event order at
+   * these positions turns the list shown before the change into the list
+   * after it.
+   *
+   * @param index Index of the transaction in getTransactions()
+   * @return The position, or -1 if the event does not carry positions
+   */
+  public int getPosition(int index) {
+    Objects.checkIndex(index, transactions.size());
+    return positions == null ? -1 : positions[index];
+  }
+}
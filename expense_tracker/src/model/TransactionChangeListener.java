@@ -0,0 +1,18 @@
+package model;
+
+import java.util.EventListener;
+
+/**
+ * Listener notified after transactions are added to or removed from an
+ * ExpenseTrackerModel. Listeners are called synchronously on the thread
+ * that changed the model.
+ */
+public interface TransactionChangeListener extends EventListener {
+
+  /**
+   * Called after the model has changed.
+   *
+   * @param e The event describing which transactions were added or removed
+   */
+  void transactionsChanged(TransactionChangeEvent e);
+}
@@ -0,0 +1,709 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Makes an ExpenseTrackerModel durable with an append-only binary
+ * write-ahead log and periodic snapshots kept in a directory.
+ *
+ * The journal listens to the model and encodes every added or removed
+ * transaction into an in-memory buffer, so addTransaction() never waits for
+ * the disk. A background thread writes the buffer to the log and forces it
+ * to disk once per commit interval for all changes made in that interval
+ * (group commit). flush() waits until every change made so far is durable;
+ * after a crash at most the changes of the last commit interval are lost.
+ * Every log record carries a CRC-32, so a torn record at the end of the log
+ * is detected and dropped on recovery.
+ *
+ * When the log grows beyond a size limit, the live transactions are written
+ * to a LedgerFile snapshot named after the new log generation, and a new,
+ * empty log is started. open() restores a model by memory-mapping the
+ * newest snapshot, which takes constant time, and replaying the log records
+ * written after it.
+ *
+ * A failed write or snapshot never interrupts the model: the change has
+ * already been applied, and the other listeners still receive it. The
+ * journal records the first failure, stops recording changes and reports
+ * the failure from the next flush(), checkpoint() or close(), and to the
+ * failure handler if one is set.
+ *
+ * Apart from close() and setFailureHandler(), the journal must be used
+ * from the thread that modifies the model.
+ */
+public class TransactionJournal implements TransactionChangeListener, Closeable {
+
+  /**
+   * Default time changes may wait before they are forced to disk together.
+   */
+  public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 10;
+
+  /**
+   * Default log size in bytes above which a snapshot is taken.
+   */
+  public static final long DEFAULT_SNAPSHOT_THRESHOLD = 64L << 20;
+
+  static final String SNAPSHOT_PREFIX = "transactions-";
+  static final String SNAPSHOT_SUFFIX = ".ledger";
+  static final String LOG_FILE = "transactions.log";
+
+  private static final int LOG_MAGIC = 0x4554574C; // "ETWL"
+  private static final int FORMAT_VERSION = 1;
+  private static final int LOG_HEADER_SIZE = 16; // magic, version, generation
+  private static final int RECORD_HEADER_SIZE = 8; // payload length, CRC-32
+  private static final byte RECORD_CATEGORY = 1;
+  private static final byte RECORD_ADD = 2;
+  private static final byte RECORD_REMOVE = 3;
+  private static final int ADD_SIZE = 1 + 8 + 8 + 8 + 4;
+  private static final int REMOVE_SIZE = 1 + 8;
+  private static final int MAX_CATEGORY_BYTES = 0xFFFF;
+  private static final int IO_BUFFER_SIZE = 1 << 20;
+
+  private final ExpenseTrackerModel model;
+  private final Path directory;
+  private final long commitIntervalMillis;
+  private final long snapshotThreshold;
+  private final CRC32 crc = new CRC32();
+
+  // Current log generation, owned by the thread modifying the model
+  private long generation;
+  private long logSize;
+  private final Map<String, Integer> categoryCodes = new HashMap<>();
+
+  // Shared with the flusher thread, guarded by lock
+  private final Object lock = new Object();
+  private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+  private ByteBuffer writing = ByteBuffer.allocate(64 * 1024);
+  private long appendedBytes;
+  private long durableBytes;
+  private boolean flushRequested;
+  private boolean closed;
+  private IOException failure;
+  private Consumer<? super IOException> failureHandler;
+
+  // Held while writing to the log and while switching to a new log
+  private final Object channelLock = new Object();
+  private FileChannel channel;
+
+  private final Thread flusher = new Thread(this::runFlusher, "transaction-journal");
+
+  private TransactionJournal(ExpenseTrackerModel model, Path directory,
+                             long commitIntervalMillis, long snapshotThreshold) {
+    this.model = model;
+    this.directory = directory;
+    this.commitIntervalMillis = commitIntervalMillis;
+    this.snapshotThreshold = snapshotThreshold;
+    flusher.setDaemon(true);
+  }
+
+  /**
+   * Restores the journal in the given directory into an empty model and
+   * starts recording the model's changes, using the default commit
+   * interval and snapshot threshold.
+   *
+   * @param directory Directory holding the snapshot and log; created if missing
+   * @param model The model to restore into (must not be null, must be empty)
+   * @return The open journal
+   * @throws IOException if the files cannot be read or written or are not journal files
+   */
+  public static TransactionJournal open(Path directory, ExpenseTrackerModel model) throws IOException {
+    return open(directory, model, DEFAULT_COMMIT_INTERVAL_MILLIS, DEFAULT_SNAPSHOT_THRESHOLD);
+  }
+
+  /**
+   * Restores the journal in the given directory into an empty model and
+   * starts recording the model's changes.
+   *
+   * @param directory Directory holding the snapshot and log; created if missing
+   * @param model The model to restore into (must not be null, must be empty)
+   * @param commitIntervalMillis Longest time a change waits before being forced to disk (at least 1)
+   * @param snapshotThreshold Log size in bytes above which a snapshot is taken (positive)
+   * @return The open journal
+   * @throws IOException if the files cannot be read or written or are not journal files
+   */
+  public static TransactionJournal open(Path directory, ExpenseTrackerModel model,
+                                        long commitIntervalMillis, long snapshotThreshold)
+      throws IOException {
+    if (model == null) {
+      throw new IllegalArgumentException("Model must not be null");
+    }
+    if (!model.getTransactions().isEmpty()) {
+      throw new IllegalArgumentException("Model must be empty");
+    }
+    if (commitIntervalMillis < 1 || snapshotThreshold < 1) {
+      throw new IllegalArgumentException("Commit interval and snapshot threshold must be positive");
+    }
+    Files.createDirectories(directory);
+    TransactionJournal journal = new TransactionJournal(model, directory,
+                                                        commitIntervalMillis, snapshotThreshold);
+    journal.recover();
+    model.addChangeListener(journal);
+    journal.flusher.start();
+    return journal;
+  }
+
+  /**
+   * Sets the handler that is told about the first failed write or
+   * snapshot. It is called once, on the journal's writer thread or on the
+   * thread modifying the model, so a handler that updates a Swing view
+   * must hand over to the event dispatch thread. If the journal has
+   * already failed, the handler is called right away.
+   *
+   * @param handler The handler, or null for none
+   */
+  public void setFailureHandler(Consumer<? super IOException> handler) {
+    IOException failed;
+    synchronized (lock) {
+      failureHandler = handler;
+      failed = failure;
+    }
+    if (failed != null && handler != null) {
+      handler.accept(failed);
+    }
+  }
+
+  /**
+   * Records the changed transactions in the log buffer and takes a
+   * snapshot if the log has grown beyond the threshold. Once the journal
+   * has failed, changes are no longer recorded; the failure is reported by
+   * flush() and close() instead of being thrown here.
+   *
+   * @param e The model change event
+   */
+  @Override
+  public void transactionsChanged(TransactionChangeEvent e) {
+    IOException error = null;
+    synchronized (lock) {
+      if (failure != null) {
+        return;
+      }
+      int mark = pending.position();
+      long markedLogSize = logSize;
+      long markedAppendedBytes = appendedBytes;
+      try {
+        for (Transaction t : e.getTransactions()) {
+          if (e.getType() == TransactionChangeEvent.Type.ADDED) {
+            appendAdd(t);
+          } else {
+            appendRemove(t.getId());
+          }
+        }
+      } catch (IOException ex) {
+        // drop the records of this change, so the log never holds part of it
+        pending.position(mark);
+        logSize = markedLogSize;
+        appendedBytes = markedAppendedBytes;
+        error = ex;
+      }
+      if (mark == 0 && pending.position() > 0) {
+        lock.notifyAll();
+      }
+    }
+    if (error != null) {
+      // reported outside the lock, since fail() calls the failure handler
+      fail(error);
+      return;
+    }
+    if (logSize > snapshotThreshold) {
+      try {
+        checkpoint();
+      } catch (IOException ex) {
+        fail(ex);
+      }
+    }
+  }
+
+  /**
+   * Blocks until every change recorded so far has been forced to disk.
+   *
+   * @throws IOException if writing the log failed
+   */
+  public void flush() throws IOException {
+    synchronized (lock) {
+      long target = appendedBytes;
+      flushRequested = true;
+      lock.notifyAll();
+      try {
+        while (durableBytes < target && failure == null) {
+          lock.wait();
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while flushing the journal");
+      }
+      if (failure != null) {
+        throw new IOException("Transaction journal failed", failure);
+      }
+    }
+  }
+
+  /**
+   * Writes all live transactions to a new snapshot and starts a new, empty
+   * log. Runs in O(n); called automatically when the log exceeds the
+   * snapshot threshold.
+   *
+   * @throws IOException if the snapshot or the new log cannot be written
+   */
+  public void checkpoint() throws IOException {
+    flush();
+    long nextGeneration = generation + 1;
+    writeSnapshot(nextGeneration);
+    // A crash from here on recovers from the snapshot: the old log's
+    // generation is below the snapshot's and gets ignored
+    startLog(nextGeneration);
+    deleteSnapshotsBefore(nextGeneration);
+  }
+
+  /**
+   * Stops recording changes, forces the remaining ones to disk and closes
+   * the log. Closing an already closed journal has no effect.
+   *
+   * @throws IOException if writing the remaining changes failed
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      lock.notifyAll();
+    }
+    model.removeChangeListener(this);
+    try {
+      flusher.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while closing the journal");
+    }
+    synchronized (channelLock) {
+      channel.close();
+    }
+    synchronized (lock) {
+      if (failure != null) {
+        throw new IOException("Transaction journal failed", failure);
+      }
+    }
+  }
+
+  /**
+   * Maps the newest snapshot and replays the log, then positions the log
+   * for appending. A torn record at the end of the log is cut off. The
+   * model builds its secondary indexes once, on the first query that needs
+   * them, instead of once per replayed transaction.
+   */
+  private void recover() throws IOException {
+    model.deferIndexes();
+    long nextGeneration = 1;
+    Path snapshot = latestSnapshot();
+    if (snapshot != null) {
+      LedgerFile ledger = LedgerFile.map(snapshot);
+      model.attachLedger(ledger);
+      nextGeneration = ledger.generation();
+    }
+    Path log = directory.resolve(LOG_FILE);
+    if (Files.exists(log) && Files.size(log) >= LOG_HEADER_SIZE) {
+      FileChannel in = FileChannel.open(log, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      try {
+        long logGeneration = readLogHeader(in);
+        if (logGeneration > nextGeneration) {
+          throw new IOException("Transaction log " + log + " is newer than its snapshot");
+        }
+        if (logGeneration == nextGeneration) {
+          long end = replayLog(in);
+          in.truncate(end);
+          in.position(end);
+          channel = in;
+          generation = logGeneration;
+          logSize = end;
+          return;
+        }
+      } finally {
+        if (channel != in) {
+          in.close();
+        }
+      }
+    }
+    startLog(nextGeneration);
+  }
+
+  /**
+   * Returns the snapshot with the highest generation in the directory.
+   *
+   * @return The newest snapshot file, or null if there is none
+   */
+  private Path latestSnapshot() throws IOException {
+    Path latest = null;
+    long latestGeneration = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+      for (Path file : files) {
+        long fileGeneration = snapshotGeneration(file);
+        if (fileGeneration > latestGeneration) {
+          latest = file;
+          latestGeneration = fileGeneration;
+        }
+      }
+    }
+    return latest;
+  }
+
+  /**
+   * Parses the generation out of a snapshot file name.
+   *
+   * @return The generation, or 0 if the name does not hold one
+   */
+  private static long snapshotGeneration(Path file) {
+    String name = file.getFileName().toString();
+    try {
+      return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+      return 0;
+    }
+  }
+
+  private static long readLogHeader(FileChannel in) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+    while (header.hasRemaining() && in.read(header) >= 0) {
+      // keep reading until the header is complete
+    }
+    header.flip();
+    if (header.remaining() < LOG_HEADER_SIZE || header.getInt() != LOG_MAGIC
+        || header.getInt() != FORMAT_VERSION) {
+      throw new IOException("Not a transaction log");
+    }
+    return header.getLong();
+  }
+
+  /**
+   * Applies the log records to the model, stopping at the first incomplete
+   * or corrupt record.
+   *
+   * @return The offset just past the last valid record
+   */
+  private long replayLog(FileChannel channel) throws IOException {
+    Input in = new Input(channel);
+    List<String> categories = new ArrayList<>();
+    long validEnd = LOG_HEADER_SIZE;
+    long maxId = 0;
+    while (in.fill(RECORD_HEADER_SIZE)) {
+      ByteBuffer b = in.buffer;
+      int length = b.getInt();
+      int checksum = b.getInt();
+      if (length <= 0 || length > IO_BUFFER_SIZE || !in.fill(length)) {
+        break;
+      }
+      b = in.buffer;
+      crc.reset();
+      crc.update(b.array(), b.arrayOffset() + b.position(), length);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      int end = b.position() + length;
+      byte type = b.get();
+      if (type == RECORD_ADD) {
+        long id = b.getLong();
+        double amount = b.getDouble();
+        long timestamp = b.getLong();
+        int code = b.getInt();
+        model.addTransaction(new Transaction(id, amount, code < 0 ? null : categories.get(code), timestamp));
+        maxId = Math.max(maxId, id);
+      } else if (type == RECORD_REMOVE) {
+        model.removeById(b.getLong());
+      } else if (type == RECORD_CATEGORY) {
+        int code = b.getInt();
+        String category = readString(b, b.getShort() & 0xFFFF);
+        if (code != categories.size()) {
+          throw new IOException("Transaction log has out-of-order category codes");
+        }
+        categories.add(category);
+        categoryCodes.put(category, code);
+      } else {
+        throw new IOException("Transaction log has unknown record type " + type);
+      }
+      b.position(end);
+      validEnd = in.position();
+    }
+    Transaction.reserveIdsThrough(maxId);
+    return validEnd;
+  }
+
+  /**
+   * Writes every live transaction to a temporary ledger file and moves it
+   * into place under the name of the given generation. Older snapshots may
+   * still be mapped by this process, so they are replaced by a new name
+   * instead of being overwritten, and removed afterwards where the platform
+   * allows it.
+   */
+  private void writeSnapshot(long nextGeneration) throws IOException {
+    Path tmp = directory.resolve(SNAPSHOT_PREFIX + nextGeneration + SNAPSHOT_SUFFIX + ".tmp");
+    LedgerFile.write(tmp, model.getTransactions(), nextGeneration);
+    Files.move(tmp, snapshotFile(nextGeneration), StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory();
+  }
+
+  /**
+   * Deletes the snapshots older than the given generation. A file that
+   * cannot be deleted now is skipped; it is ignored on recovery and
+   * retried at the next checkpoint.
+   */
+  private void deleteSnapshotsBefore(long keptGeneration) throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+      for (Path file : files) {
+        if (snapshotGeneration(file) < keptGeneration) {
+          try {
+            Files.deleteIfExists(file);
+          } catch (IOException ex) {
+            // still mapped on platforms that lock mapped files
+          }
+        }
+      }
+    }
+  }
+
+  private Path snapshotFile(long snapshotGeneration) {
+    return directory.resolve(SNAPSHOT_PREFIX + snapshotGeneration + SNAPSHOT_SUFFIX);
+  }
+
+  /**
+   * Atomically replaces the log with an empty one of the given generation
+   * and appends to it from now on.
+   */
+  private void startLog(long newGeneration) throws IOException {
+    Path log = directory.resolve(LOG_FILE);
+    Path tmp = directory.resolve(LOG_FILE + ".tmp");
+    try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                                            StandardOpenOption.TRUNCATE_EXISTING,
+                                            StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+      header.putInt(LOG_MAGIC).putInt(FORMAT_VERSION).putLong(newGeneration);
+      writeFully(out, header);
+      out.force(true);
+    }
+    synchronized (channelLock) {
+      if (channel != null) {
+        channel.close();
+      }
+      Files.move(tmp, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      syncDirectory();
+      channel = FileChannel.open(log, StandardOpenOption.WRITE);
+      channel.position(LOG_HEADER_SIZE);
+    }
+    generation = newGeneration;
+    logSize = LOG_HEADER_SIZE;
+    categoryCodes.clear();
+  }
+
+  /**
+   * Background loop: waits for changes, lets the commit interval pass so
+   * more changes join the batch, then writes and forces the batch at once.
+   */
+  private void runFlusher() {
+    while (true) {
+      ByteBuffer batch;
+      long batchEnd;
+      boolean interrupted = false;
+      synchronized (lock) {
+        try {
+          while (pending.position() == 0 && !closed) {
+            flushRequested = false;
+            lock.wait();
+          }
+          if (pending.position() == 0) {
+            return;
+          }
+          if (!flushRequested && !closed) {
+            lock.wait(commitIntervalMillis);
+          }
+        } catch (InterruptedException ex) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        // reported outside the lock, since fail() calls the failure handler
+        fail(new InterruptedIOException("Journal writer interrupted"));
+        return;
+      }
+      synchronized (lock) {
+        batch = pending;
+        pending = writing;
+        pending.clear();
+        writing = batch;
+        batchEnd = appendedBytes;
+        flushRequested = false;
+      }
+      try {
+        synchronized (channelLock) {
+          writeFully(channel, batch);
+          channel.force(false);
+        }
+      } catch (IOException ex) {
+        fail(ex);
+        return;
+      }
+      synchronized (lock) {
+        durableBytes = batchEnd;
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Records the first failure, wakes up threads waiting in flush() and
+   * tells the failure handler. Must be called without holding lock.
+   */
+  private void fail(IOException ex) {
+    Consumer<? super IOException> handler;
+    synchronized (lock) {
+      if (failure != null) {
+        return;
+      }
+      failure = ex;
+      handler = failureHandler;
+      lock.notifyAll();
+    }
+    if (handler != null) {
+      handler.accept(ex);
+    }
+  }
+
+  private void appendAdd(Transaction t) throws IOException {
+    int code = -1;
+    String category = t.getCategory();
+    if (category != null) {
+      Integer known = categoryCodes.get(category);
+      if (known == null) {
+        byte[] name = category.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_CATEGORY_BYTES) {
+          throw new IOException("Category is too long to journal");
+        }
+        known = categoryCodes.size();
+        categoryCodes.put(category, known);
+        int start = beginRecord(1 + 4 + 2 + name.length);
+        pending.put(RECORD_CATEGORY).putInt(known).putShort((short) name.length).put(name);
+        endRecord(start);
+      }
+      code = known;
+    }
+    int start = beginRecord(ADD_SIZE);
+    pending.put(RECORD_ADD)
+           .putLong(t.getId())
+           .putDouble(t.getAmount())
+           .putLong(t.getTimestampMillis())
+           .putInt(code);
+    endRecord(start);
+  }
+
+  private void appendRemove(long id) {
+    int start = beginRecord(REMOVE_SIZE);
+    pending.put(RECORD_REMOVE).putLong(id);
+    endRecord(start);
+  }
+
+  /**
+   * Makes room for a record of at most maxPayload bytes and skips its
+   * header, which endRecord() fills in.
+   *
+   * @return The position of the record header
+   */
+  private int beginRecord(int maxPayload) {
+    int needed = RECORD_HEADER_SIZE + maxPayload;
+    if (pending.remaining() < needed) {
+      ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+      pending.flip();
+      larger.put(pending);
+      pending = larger;
+    }
+    int start = pending.position();
+    pending.position(start + RECORD_HEADER_SIZE);
+    return start;
+  }
+
+  private void endRecord(int start) {
+    int length = pending.position() - start - RECORD_HEADER_SIZE;
+    crc.reset();
+    crc.update(pending.array(), pending.arrayOffset() + start + RECORD_HEADER_SIZE, length);
+    pending.putInt(start, length);
+    pending.putInt(start + 4, (int) crc.getValue());
+    logSize += RECORD_HEADER_SIZE + length;
+    appendedBytes += RECORD_HEADER_SIZE + length;
+  }
+
+  private static String readString(ByteBuffer b, int length) {
+    String s = new String(b.array(), b.arrayOffset() + b.position(), length, StandardCharsets.UTF_8);
+    b.position(b.position() + length);
+    return s;
+  }
+
+  private static void writeFully(FileChannel out, ByteBuffer b) throws IOException {
+    b.flip();
+    while (b.hasRemaining()) {
+      out.write(b);
+    }
+  }
+
+  /**
+   * Forces a rename in the directory to disk where the platform allows it.
+   */
+  private void syncDirectory() {
+    try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+      dir.force(true);
+    } catch (IOException ex) {
+      // not supported on every platform; the rename itself is still atomic
+    }
+  }
+
+  /**
+   * Buffered sequential reader over a file channel.
+   */
+  private static final class Input {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+    private long bufferEnd;
+
+    Input(FileChannel channel) throws IOException {
+      this.channel = channel;
+      this.bufferEnd = channel.position();
+      buffer.flip();
+    }
+
+    /**
+     * Makes at least n bytes available in the buffer.
+     *
+     * @return false if the file ends first
+     */
+    boolean fill(int n) throws IOException {
+      if (buffer.remaining() >= n) {
+        return true;
+      }
+      buffer.compact();
+      int read;
+      while (buffer.position() < n && (read = channel.read(buffer)) >= 0) {
+        bufferEnd += read;
+      }
+      buffer.flip();
+      return buffer.remaining() >= n;
+    }
+
+    /**
+     * Returns the file offset of the next unread byte.
+     */
+    long position() {
+      return bufferEnd - buffer.remaining();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package model;
+
+import java.util.BitSet;
+import java.util.function.IntFunction;
+
+/**
+ * Internal storage strategy used by ExpenseTrackerModel. A store keeps
+ * transactions in insertion order and addresses them by row position.
+ * Removal is handled by the model through tombstones; the store only
+ * drops rows when asked to compact. Implementations are not thread-safe.
+ */
+interface TransactionStore {
+
+  /**
+   * Appends a transaction after the last row.
+   *
+   * @param t The transaction to append (must not be null)
+   */
+  void append(Transaction t);
+
+  /**
+   * Returns the transaction stored at the given row.
+   *
+   * @param row Row position, 0 &lt;= row &lt; size()
+   * @return The transaction at that row
+   */
+  Transaction get(int row);
+
+  /**
+   * Returns the ID of the transaction stored at the given row without
+   * materializing a Transaction object.
+   *
+   * @param row Row position, 0 &lt;= row &lt; size()
+   * @return The transaction ID at that row
+   */
+  long idAt(int row);
+
+  /**
+   * Returns the amount of the transaction stored at the given row without
+   * materializing a Transaction object.
+   *
+   * @param row Row position, 0 &lt;= row &lt; size()
+   * @return The amount at that row
+   */
+  double amountAt(int row);
+
+  /**
+   * Returns the CategoryDictionary code of the category of the transaction
+   * stored at the given row without materializing a Transaction object.
+   *
+   * @param row Row position, 0 &lt;= row &lt; size()
+   * @return The category code at that row, CategoryDictionary.NONE if it has no category
+   */
+  int categoryCodeAt(int row);
+
+  /**
+   * Returns the timestamp of the transaction stored at the given row
+   * without materializing a Transaction object.
+   *
+   * @param row Row position, 0 &lt;= row &lt; size()
+   * @return The timestamp in milliseconds since the epoch
+   */
+  long timestampAt(int row);
+
+  /**
+   * Returns the number of rows in the store, including rows the model has
+   * marked as removed but not yet compacted away.
+   *
+   * @return The row count
+   */
+  int size();
+
+  /**
+   * Drops every row whose bit is set, keeping the remaining rows in their
+   * original relative order.
+   *
+   * @param removed Set of row positions to drop
+   */
+  void compact(BitSet removed);
+
+  /**
+   * Returns a read-only accessor for the rows stored so far, in O(1).
+   * For every row below the current size it keeps returning the same
+   * transaction after later appends and compactions of this store, and it
+   * may be read from another thread while the store keeps changing.
+   *
+   * @return Maps a row position below the current size to its transaction
+   */
+  IntFunction<Transaction> freeze();
+
+  /**
+   * Returns the number of leading rows whose IDs the store can look up by
+   * itself through findRow(). The model keeps its own ID index only for
+   * the rows after them. The default is 0.
+   *
+   * @return The number of self-searchable leading rows
+   */
+  default int searchableRows() {
+    return 0;
+  }
+
+  /**
+   * Finds the row holding an ID among the first searchableRows() rows,
+   * including rows the model has marked as removed.
+   *
+   * @param id The ID to look up
+   * @return The row position, or -1 if no such row holds the ID
+   */
+  default int findRow(long id) {
+    return -1;
+  }
+}
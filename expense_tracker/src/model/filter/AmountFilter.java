@@ -1,6 +1,9 @@
 package model.filter;
 
+import model.ExpenseTrackerModel;
+import model.IndexRange;
 import model.Transaction;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -10,8 +13,10 @@ import java.util.stream.Collectors;
  *
  * This filter uses an inclusive comparison (>=) to determine which transactions
  * to include. Transactions with null references are ignored and excluded from
- * the result. This class implements the TransactionFilter interface following
- * the Strategy design pattern.
+ * the result. When filtering a whole model, the matches are located through
+ * the model's sorted amount index instead of a full scan. This class
+ * implements the TransactionFilter interface following the Strategy design
+ * pattern.
  *
  * @author Auto
  * @since 1.0
@@ -40,7 +45,88 @@ public class AmountFilter implements TransactionFilter {
     @Override
     public List<Transaction> filter(List<Transaction> txs) {
         return txs.stream()
-                  .filter(t -> t != null && t.getAmount() >= minAmount)
-                  .collect(Collectors.toList());
+                  .filter(this::matches)
+                  .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Tests whether a single transaction has amount >= minAmount.
+     *
+     * @param t The transaction to test
+     * @return true if t is not null and its amount is at least minAmount
+     */
+    @Override
+    public boolean matches(Transaction t) {
+        return t != null && t.getAmount() >= minAmount;
+    }
+
+    /**
+     * Resolves the threshold through the model's amount index with a binary
+     * search followed by a walk over the matching entries, O(log n + k).
+     *
+     * @param model The model whose transactions are filtered (must not be null)
+     * @return A new list containing only transactions with amount >= minAmount,
+     *         in insertion order
+     */
+    @Override
+    public List<Transaction> filter(ExpenseTrackerModel model) {
+        return model.getTransactionsInAmountRange(minAmount, true, Double.POSITIVE_INFINITY, true);
+    }
+
+    /**
+     * Returns the model's amount index entries at or above the minimum, in
+     * ascending amount order.
+     *
+     * @param model The model whose index is read (must not be null)
+     * @return A view over the indexed rows in the range
+     */
+    @Override
+    public IndexRange indexRange(ExpenseTrackerModel model) {
+        return model.amountIndexRange(minAmount, true, Double.POSITIVE_INFINITY, true);
+    }
+
+    /**
+     * A single numeric comparison, the cheapest test available.
+     *
+     * @return 1
+     */
+    @Override
+    public int evaluationCost() {
+        return 1;
+    }
+
+    /**
+     * Returns the number of amount index entries at or above the minimum,
+     * counted in O(log n), which bounds the number of transactions
+     * filter(model) visits.
+     *
+     * @param model The model the estimate is for (must not be null)
+     * @return The number of index entries in the range
+     */
+    @Override
+    public int estimateMatches(ExpenseTrackerModel model) {
+        return model.amountRangeSize(minAmount, true, Double.POSITIVE_INFINITY, true);
+    }
+
+    /**
+     * Two amount filters are equal when they have the same minimum.
+     *
+     * @param o The object to compare with
+     * @return true if o is an AmountFilter with the same minimum amount
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AmountFilter
+               && Double.compare(minAmount, ((AmountFilter) o).minAmount) == 0;
+    }
+
+    /**
+     * Returns a hash code derived from the minimum amount.
+     *
+     * @return The hash code
+     */
+    @Override
+    public int hashCode() {
+        return Double.hashCode(minAmount);
     }
 }
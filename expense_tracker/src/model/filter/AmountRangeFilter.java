@@ -0,0 +1,177 @@
+package model.filter;
+
+import model.ExpenseTrackerModel;
+import model.IndexRange;
+import model.Transaction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Filter implementation that keeps transactions whose amount lies within a
+ * range. Each bound can be inclusive or exclusive, and either bound can be
+ * left open by using an infinite value. Static factories cover the common
+ * "between" and "less than" cases.
+ *
+ * Transactions with null references are ignored and excluded from the
+ * result. When filtering a whole model, the range is resolved through the
+ * model's sorted amount index. This class implements the TransactionFilter
+ * interface following the Strategy design pattern.
+ *
+ * @author Auto
+ * @since 1.1
+ */
+public class AmountRangeFilter implements TransactionFilter {
+    private final double min;
+    private final boolean minInclusive;
+    private final double max;
+    private final boolean maxInclusive;
+
+    /**
+     * Constructs a new AmountRangeFilter with the given bounds.
+     *
+     * @param min Lower bound of the range (Double.NEGATIVE_INFINITY for none)
+     * @param minInclusive Whether an amount equal to min passes the filter
+     * @param max Upper bound of the range (Double.POSITIVE_INFINITY for none)
+     * @param maxInclusive Whether an amount equal to max passes the filter
+     * @throws IllegalArgumentException if a bound is NaN or min is greater than max
+     */
+    public AmountRangeFilter(double min, boolean minInclusive, double max, boolean maxInclusive) {
+        if (Double.isNaN(min) || Double.isNaN(max)) {
+            throw new IllegalArgumentException("Amount bounds must be numbers");
+        }
+        if (min > max) {
+            throw new IllegalArgumentException("Minimum amount must not exceed maximum amount");
+        }
+        this.min = min;
+        this.minInclusive = minInclusive;
+        this.max = max;
+        this.maxInclusive = maxInclusive;
+    }
+
+    /**
+     * Creates a filter keeping transactions with min &lt;= amount &lt;= max.
+     *
+     * @param min The smallest amount to keep
+     * @param max The largest amount to keep
+     * @return The range filter
+     */
+    public static AmountRangeFilter between(double min, double max) {
+        return new AmountRangeFilter(min, true, max, true);
+    }
+
+    /**
+     * Creates a filter keeping transactions with amount &lt; max.
+     *
+     * @param max The exclusive upper bound
+     * @return The range filter
+     */
+    public static AmountRangeFilter lessThan(double max) {
+        return new AmountRangeFilter(Double.NEGATIVE_INFINITY, true, max, false);
+    }
+
+    /**
+     * Filters the supplied transaction list, returning only transactions
+     * whose amount lies within the range. Null transactions are excluded.
+     *
+     * @param txs Input list of transactions to filter (must not be null)
+     * @return A new list containing only transactions within the range
+     */
+    @Override
+    public List<Transaction> filter(List<Transaction> txs) {
+        return txs.stream()
+                  .filter(this::matches)
+                  .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Resolves the range through the model's amount index, O(log n + k).
+     *
+     * @param model The model whose transactions are filtered (must not be null)
+     * @return A new list containing only transactions within the range,
+     *         in insertion order
+     */
+    @Override
+    public List<Transaction> filter(ExpenseTrackerModel model) {
+        return model.getTransactionsInAmountRange(min, minInclusive, max, maxInclusive);
+    }
+
+    /**
+     * Returns the model's amount index entries within the range, in
+     * ascending amount order.
+     *
+     * @param model The model whose index is read (must not be null)
+     * @return A view over the indexed rows in the range
+     */
+    @Override
+    public IndexRange indexRange(ExpenseTrackerModel model) {
+        return model.amountIndexRange(min, minInclusive, max, maxInclusive);
+    }
+
+    /**
+     * Tests whether a single transaction's amount lies within the range.
+     *
+     * @param t The transaction to test
+     * @return true if t is not null and its amount is within the range
+     */
+    @Override
+    public boolean matches(Transaction t) {
+        if (t == null) {
+            return false;
+        }
+        double amount = t.getAmount();
+        boolean aboveMin = minInclusive ? amount >= min : amount > min;
+        boolean belowMax = maxInclusive ? amount <= max : amount < max;
+        return aboveMin && belowMax;
+    }
+
+    /**
+     * A single numeric comparison, the cheapest test available.
+     *
+     * @return 1
+     */
+    @Override
+    public int evaluationCost() {
+        return 1;
+    }
+
+    /**
+     * Returns the number of amount index entries within the range, counted
+     * in O(log n), which bounds the number of transactions filter(model)
+     * visits.
+     *
+     * @param model The model the estimate is for (must not be null)
+     * @return The number of index entries in the range
+     */
+    @Override
+    public int estimateMatches(ExpenseTrackerModel model) {
+        return model.amountRangeSize(min, minInclusive, max, maxInclusive);
+    }
+
+    /**
+     * Two range filters are equal when they have the same bounds.
+     *
+     * @param o The object to compare with
+     * @return true if o is an AmountRangeFilter with the same bounds
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof AmountRangeFilter)) {
+            return false;
+        }
+        AmountRangeFilter other = (AmountRangeFilter) o;
+        return Double.compare(min, other.min) == 0 && minInclusive == other.minInclusive
+               && Double.compare(max, other.max) == 0 && maxInclusive == other.maxInclusive;
+    }
+
+    /**
+     * Returns a hash code derived from the bounds.
+     *
+     * @return The hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(min, minInclusive, max, maxInclusive);
+    }
+}
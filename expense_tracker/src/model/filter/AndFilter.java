@@ -0,0 +1,147 @@
+package model.filter;
+
+import model.ExpenseTrackerModel;
+import model.IndexRange;
+import model.Transaction;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Filter implementation that keeps transactions matching all of its child
+ * filters. The children are fused into one predicate that is evaluated in a
+ * single pass, cheapest test first, stopping at the first failing test.
+ *
+ * When filtering a whole model, the child with the smallest estimated
+ * result (for example a CategoryFilter answered from the category index)
+ * produces the candidates, and only those are tested against the remaining
+ * children, most selective first. If no child can narrow the candidates,
+ * the model's transactions are scanned once. This class implements the
+ * TransactionFilter interface following the Strategy design pattern.
+ *
+ * @author Auto
+ * @since 1.2
+ */
+public class AndFilter extends CompositeFilter {
+
+    /**
+     * Constructs a new AndFilter over the given filters.
+     *
+     * @param filters The filters that must all match (at least one, none null)
+     * @throws IllegalArgumentException if no filter or a null filter is given
+     */
+    public AndFilter(TransactionFilter... filters) {
+        super(filters);
+    }
+
+    /**
+     * Tests whether a single transaction matches every child filter.
+     *
+     * @param t The transaction to test
+     * @return true if t is not null and all child filters match it
+     */
+    @Override
+    public boolean matches(Transaction t) {
+        if (t == null) {
+            return false;
+        }
+        for (TransactionFilter f : filters) {
+            if (!f.matches(t)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drives the evaluation from the child with the smallest estimated
+     * result and tests its candidates against the other children.
+     *
+     * @param model The model whose transactions are filtered (must not be null)
+     * @return A new list containing only the matching transactions, in
+     *         insertion order
+     */
+    @Override
+    public List<Transaction> filter(ExpenseTrackerModel model) {
+        int size = model.getTransactions().size();
+        int[] estimates = new int[filters.length];
+        int driver = -1;
+        for (int i = 0; i < filters.length; i++) {
+            estimates[i] = filters[i].estimateMatches(model);
+            if (estimates[i] < size && (driver < 0 || estimates[i] < estimates[driver])) {
+                driver = i;
+            }
+        }
+        if (driver < 0) {
+            return filter(model.getTransactions());
+        }
+
+        // test the remaining children most selective first, then cheapest first
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < filters.length; i++) {
+            if (i != driver) {
+                order.add(i);
+            }
+        }
+        order.sort(Comparator.<Integer>comparingInt(i -> estimates[i])
+                             .thenComparingInt(i -> filters[i].evaluationCost()));
+        TransactionFilter[] rest = new TransactionFilter[order.size()];
+        for (int i = 0; i < rest.length; i++) {
+            rest[i] = filters[order.get(i)];
+        }
+
+        List<Transaction> result = filters[driver].filter(model);
+        int kept = 0;
+        for (Transaction t : result) {
+            if (matchesAll(rest, t)) {
+                result.set(kept++, t);
+            }
+        }
+        result.subList(kept, result.size()).clear();
+        return result;
+    }
+
+    /**
+     * Returns the smallest estimate of the children, since a conjunction
+     * never matches more than any one of its parts.
+     *
+     * @param model The model the estimate is for (must not be null)
+     * @return The estimated number of visited transactions
+     */
+    @Override
+    public int estimateMatches(ExpenseTrackerModel model) {
+        int estimate = Integer.MAX_VALUE;
+        for (TransactionFilter f : filters) {
+            estimate = Math.min(estimate, f.estimateMatches(model));
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the smallest index range among the children, whose entries
+     * hold every match of the conjunction.
+     *
+     * @param model The model whose index is read (must not be null)
+     * @return A view over the candidate entries, or null if no child has one
+     */
+    @Override
+    public IndexRange indexRange(ExpenseTrackerModel model) {
+        IndexRange driver = null;
+        for (TransactionFilter f : filters) {
+            IndexRange range = f.indexRange(model);
+            if (range != null && (driver == null || range.size() < driver.size())) {
+                driver = range;
+            }
+        }
+        return driver;
+    }
+
+    private static boolean matchesAll(TransactionFilter[] filters, Transaction t) {
+        for (TransactionFilter f : filters) {
+            if (!f.matches(t)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
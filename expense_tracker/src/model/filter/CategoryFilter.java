@@ -1,27 +1,33 @@
 package model.filter;
 
+import model.CategoryDictionary;
+import model.ExpenseTrackerModel;
+import model.IndexRange;
 import model.Transaction;
 import controller.InputValidation;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import java.util.stream.Collectors;
 
 /**
  * Filter implementation that keeps transactions matching a specific category.
  * The matching is performed case-insensitively, so "Food", "food", and "FOOD"
  * are all treated as equivalent.
  *
- * This filter performs an exact, case-insensitive match against the transaction's
- * category string. The provided category parameter is validated via
- * InputValidation to ensure it meets the application's category requirements.
- * This class implements the TransactionFilter interface following the Strategy
- * design pattern.
+ * The category is resolved to its CategoryDictionary code once, in the
+ * constructor, and each transaction is matched by comparing its category
+ * code, so no strings are compared or lower-cased per transaction.
+ * The provided category parameter is validated via InputValidation to
+ * ensure it meets the application's category requirements. When filtering
+ * a whole model, the result is read from the model's category index
+ * instead of scanning every transaction. This class implements the
+ * TransactionFilter interface following the Strategy design pattern.
  *
  * @author Auto
  * @since 1.0
  */
 public class CategoryFilter implements TransactionFilter {
     private final String category;
+    private final int code;
 
     /**
      * Constructs a new CategoryFilter with the specified category.
@@ -37,6 +43,7 @@ public class CategoryFilter implements TransactionFilter {
             throw new IllegalArgumentException("Invalid category");
         }
         this.category = category.trim();
+        this.code = CategoryDictionary.codeOf(this.category);
     }
 
     /**
@@ -50,9 +57,92 @@ public class CategoryFilter implements TransactionFilter {
      */
     @Override
     public List<Transaction> filter(List<Transaction> txs) {
-        final String target = category.toLowerCase(Locale.ROOT);
-        return txs.stream()
-                  .filter(t -> t.getCategory() != null && t.getCategory().toLowerCase(Locale.ROOT).equals(target))
-                  .collect(Collectors.toList());
+        List<Transaction> result = new ArrayList<>();
+        for (Transaction t : txs) {
+            if (matches(t)) {
+                result.add(t);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tests whether a single transaction's category matches, ignoring case,
+     * by comparing category codes.
+     *
+     * @param t The transaction to test
+     * @return true if t is not null and its category matches
+     */
+    @Override
+    public boolean matches(Transaction t) {
+        return t != null && t.getCategoryCode() == code;
+    }
+
+    /**
+     * Looks up the matching transactions in the model's category index.
+     * Only the matching rows are visited, so the cost is O(matches).
+     *
+     * @param model The model whose transactions are filtered (must not be null)
+     * @return A new list containing only transactions matching the specified category
+     */
+    @Override
+    public List<Transaction> filter(ExpenseTrackerModel model) {
+        return model.getTransactionsInCategory(category);
+    }
+
+    /**
+     * Returns the model's category index entries for the category, in
+     * insertion order.
+     *
+     * @param model The model whose index is read (must not be null)
+     * @return A view over the category's indexed rows
+     */
+    @Override
+    public IndexRange indexRange(ExpenseTrackerModel model) {
+        return model.categoryIndexRange(category);
+    }
+
+    /**
+     * A comparison of two category codes.
+     *
+     * @return 1
+     */
+    @Override
+    public int evaluationCost() {
+        return 1;
+    }
+
+    /**
+     * Returns the number of index entries for the category, which bounds
+     * the number of transactions filter(model) visits.
+     *
+     * @param model The model the estimate is for (must not be null)
+     * @return The size of the category's index entry
+     */
+    @Override
+    public int estimateMatches(ExpenseTrackerModel model) {
+        return model.categoryIndexSize(category);
+    }
+
+    /**
+     * Two category filters are equal when they match the same category,
+     * ignoring case.
+     *
+     * @param o The object to compare with
+     * @return true if o is a CategoryFilter for the same category
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CategoryFilter && code == ((CategoryFilter) o).code;
+    }
+
+    /**
+     * Returns a hash code derived from the category code.
+     *
+     * @return The hash code
+     */
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(code);
     }
 }
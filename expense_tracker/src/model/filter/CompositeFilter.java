@@ -0,0 +1,115 @@
+package model.filter;
+
+import model.Transaction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Common base of the AND and OR filters. Holds the child filters ordered by
+ * ascending evaluation cost, so the fused predicate runs the cheapest tests
+ * first and short-circuits as early as possible. Children of the same
+ * composite type are flattened into a single level, so chained calls such
+ * as a.and(b).and(c) evaluate as one three-way conjunction.
+ *
+ * @author Auto
+ * @since 1.2
+ */
+abstract class CompositeFilter implements TransactionFilter {
+    /** Child filters, cheapest first. */
+    final TransactionFilter[] filters;
+    private final int evaluationCost;
+
+    /**
+     * Constructs a composite over the given filters.
+     *
+     * @param filters The child filters (at least one, none null)
+     * @throws IllegalArgumentException if no filter or a null filter is given
+     */
+    CompositeFilter(TransactionFilter... filters) {
+        if (filters == null || filters.length == 0) {
+            throw new IllegalArgumentException("At least one filter is required");
+        }
+        List<TransactionFilter> flat = new ArrayList<>();
+        for (TransactionFilter f : filters) {
+            if (f == null) {
+                throw new IllegalArgumentException("Filter must not be null");
+            }
+            if (getClass() == f.getClass()) {
+                flat.addAll(Arrays.asList(((CompositeFilter) f).filters));
+            } else {
+                flat.add(f);
+            }
+        }
+        // stable sort: equally cheap filters keep the order they were given in
+        flat.sort(Comparator.comparingInt(TransactionFilter::evaluationCost));
+        this.filters = flat.toArray(new TransactionFilter[0]);
+        int cost = 0;
+        for (TransactionFilter f : this.filters) {
+            cost += f.evaluationCost();
+        }
+        this.evaluationCost = cost;
+    }
+
+    /**
+     * Filters the supplied transaction list in a single pass, testing every
+     * transaction with the fused predicate. No intermediate lists are built.
+     *
+     * @param txs Input list of transactions to filter (must not be null)
+     * @return A new list containing only the matching transactions
+     */
+    @Override
+    public List<Transaction> filter(List<Transaction> txs) {
+        List<Transaction> result = new ArrayList<>();
+        for (Transaction t : txs) {
+            if (matches(t)) {
+                result.add(t);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the summed cost of the children, the worst case of one test.
+     *
+     * @return The relative cost of matches()
+     */
+    @Override
+    public int evaluationCost() {
+        return evaluationCost;
+    }
+
+    /**
+     * Returns the child filters in evaluation order.
+     *
+     * @return An unmodifiable list of the child filters
+     */
+    public List<TransactionFilter> getFilters() {
+        return Collections.unmodifiableList(Arrays.asList(filters));
+    }
+
+    /**
+     * Two composites are equal when they are of the same type and hold
+     * equal child filters in the same evaluation order.
+     *
+     * @param o The object to compare with
+     * @return true if o is the same kind of composite over equal filters
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o != null && o.getClass() == getClass()
+               && Arrays.equals(filters, ((CompositeFilter) o).filters);
+    }
+
+    /**
+     * Returns a hash code derived from the type and the child filters.
+     *
+     * @return The hash code
+     */
+    @Override
+    public int hashCode() {
+        return 31 * getClass().hashCode() + Arrays.hashCode(filters);
+    }
+}
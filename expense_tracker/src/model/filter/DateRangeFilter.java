@@ -0,0 +1,187 @@
+package model.filter;
+
+import model.ExpenseTrackerModel;
+import model.IndexRange;
+import model.Transaction;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Filter implementation that keeps transactions whose timestamp lies in a
+ * half-open time range [from, to), given in epoch milliseconds. Static
+ * factories cover whole calendar days, month-to-date and the last days;
+ * calendar dates are interpreted in the system time zone.
+ *
+ * Transactions with null references are ignored and excluded from the
+ * result. When filtering a whole model, the range is resolved through the
+ * model's time-ordered index in O(log n + k). This class implements the
+ * TransactionFilter interface following the Strategy design pattern.
+ *
+ * @author Auto
+ * @since 1.3
+ */
+public class DateRangeFilter implements TransactionFilter {
+    private final long fromMillis;
+    private final long toMillis;
+
+    /**
+     * Constructs a new DateRangeFilter with the given bounds.
+     *
+     * @param fromMillis Inclusive lower bound (Long.MIN_VALUE for none)
+     * @param toMillis Exclusive upper bound (Long.MAX_VALUE for none)
+     * @throws IllegalArgumentException if fromMillis is greater than toMillis
+     */
+    public DateRangeFilter(long fromMillis, long toMillis) {
+        if (fromMillis > toMillis) {
+            throw new IllegalArgumentException("Start of the date range must not be after its end");
+        }
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+
+    /**
+     * Creates a filter keeping transactions from the start of the first day
+     * to the end of the last day.
+     *
+     * @param first The first day to keep (must not be null)
+     * @param last The last day to keep (must not be null)
+     * @return The date range filter
+     * @throws IllegalArgumentException if first is after last
+     */
+    public static DateRangeFilter between(LocalDate first, LocalDate last) {
+        return new DateRangeFilter(startOf(first), startOf(last.plusDays(1)));
+    }
+
+    /**
+     * Creates a filter keeping transactions since the start of the current
+     * month, including any added later.
+     *
+     * @return The date range filter
+     */
+    public static DateRangeFilter monthToDate() {
+        return new DateRangeFilter(startOf(LocalDate.now().withDayOfMonth(1)), Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a filter keeping transactions of the last given number of
+     * days, including any added later. The range starts at the beginning
+     * of the day that many days before today, so filters created on the
+     * same day are equal and share a cached result.
+     *
+     * @param days Number of days to look back (at least 1)
+     * @return The date range filter
+     * @throws IllegalArgumentException if days is less than 1
+     */
+    public static DateRangeFilter lastDays(int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("Number of days must be at least 1");
+        }
+        return new DateRangeFilter(startOf(LocalDate.now().minusDays(days)), Long.MAX_VALUE);
+    }
+
+    /**
+     * Filters the supplied transaction list, returning only transactions
+     * whose timestamp lies within the range. Null transactions are excluded.
+     *
+     * @param txs Input list of transactions to filter (must not be null)
+     * @return A new list containing only transactions within the range
+     */
+    @Override
+    public List<Transaction> filter(List<Transaction> txs) {
+        return txs.stream()
+                  .filter(this::matches)
+                  .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Resolves the range through the model's time index, O(log n + k).
+     *
+     * @param model The model whose transactions are filtered (must not be null)
+     * @return A new list containing only transactions within the range,
+     *         in insertion order
+     */
+    @Override
+    public List<Transaction> filter(ExpenseTrackerModel model) {
+        return model.getTransactionsInTimeRange(fromMillis, toMillis);
+    }
+
+    /**
+     * Returns the model's time index entries within the range, in
+     * ascending time order.
+     *
+     * @param model The model whose index is read (must not be null)
+     * @return A view over the indexed rows in the range
+     */
+    @Override
+    public IndexRange indexRange(ExpenseTrackerModel model) {
+        return model.timeIndexRange(fromMillis, toMillis);
+    }
+
+    /**
+     * Tests whether a single transaction's timestamp lies within the range.
+     *
+     * @param t The transaction to test
+     * @return true if t is not null and its timestamp is within the range
+     */
+    @Override
+    public boolean matches(Transaction t) {
+        if (t == null) {
+            return false;
+        }
+        long time = t.getTimestampMillis();
+        return time >= fromMillis && time < toMillis;
+    }
+
+    /**
+     * Two primitive comparisons, the cheapest test available.
+     *
+     * @return 1
+     */
+    @Override
+    public int evaluationCost() {
+        return 1;
+    }
+
+    /**
+     * Counts the indexed rows in the range with two binary searches.
+     *
+     * @param model The model the estimate is for (must not be null)
+     * @return The number of indexed rows in the range
+     */
+    @Override
+    public int estimateMatches(ExpenseTrackerModel model) {
+        return model.timeRangeSize(fromMillis, toMillis);
+    }
+
+    private static long startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Two date range filters are equal when they have the same bounds.
+     *
+     * @param o The object to compare with
+     * @return true if o is a DateRangeFilter with the same bounds
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof DateRangeFilter)) {
+            return false;
+        }
+        DateRangeFilter other = (DateRangeFilter) o;
+        return fromMillis == other.fromMillis && toMillis == other.toMillis;
+    }
+
+    /**
+     * Returns a hash code derived from the bounds.
+     *
+     * @return The hash code
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(fromMillis) + Long.hashCode(toMillis);
+    }
+}
@@ -0,0 +1,24 @@
+package model.filter;
+
+/**
+ * Selects how filters scan a list of transactions. The choice only affects
+ * speed; both modes return the same transactions in the same order.
+ *
+ * @author Auto
+ * @since 1.2
+ */
+public enum ExecutionMode {
+
+    /**
+     * Scans on the calling thread. Best for interactive ledgers and the
+     * default.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Splits large scans across the common fork/join pool by wrapping the
+     * filter in a ParallelFilter. Intended for lists with millions of rows
+     * on multi-core machines.
+     */
+    PARALLEL
+}
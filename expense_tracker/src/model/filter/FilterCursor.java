@@ -0,0 +1,139 @@
+package model.filter;
+
+import model.Transaction;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy, pull-based evaluation of a filter over a list of transactions.
+ * The filter's matches() is called only as the caller asks for further
+ * matches, so reading the first screenful of results tests only as many
+ * transactions as it takes to find them, and a caller that stops early
+ * never touches the rest of the list. Nothing but the requested matches is
+ * materialized.
+ *
+ * The source list must not change while the cursor is in use; a model's
+ * snapshot() or one of its index ranges is the natural source. Null
+ * elements, such as the entries of removed rows in an IndexRange, are
+ * skipped without being tested. A cursor is not thread-safe.
+ *
+ * @author Auto
+ * @since 1.4
+ */
+public class FilterCursor implements Iterator<Transaction> {
+    private final TransactionFilter filter;
+    private final List<Transaction> source;
+    // index of the next transaction to test
+    private int position;
+    // match found by hasNext() and not yet returned
+    private Transaction pending;
+
+    /**
+     * Constructs a cursor positioned before the first transaction.
+     *
+     * @param filter The filter to evaluate (must not be null)
+     * @param source The transactions to evaluate it on, which must not change
+     */
+    public FilterCursor(TransactionFilter filter, List<Transaction> source) {
+        this(filter, source, 0);
+    }
+
+    /**
+     * Constructs a cursor that starts testing at the given source index,
+     * e.g. where an earlier cursor stopped.
+     *
+     * @param filter The filter to evaluate (must not be null)
+     * @param source The transactions to evaluate it on, which must not change
+     * @param position The index of the first transaction to test
+     * @throws IllegalArgumentException if position is outside 0..source.size()
+     */
+    public FilterCursor(TransactionFilter filter, List<Transaction> source, int position) {
+        if (filter == null || source == null) {
+            throw new IllegalArgumentException("Filter and source must not be null");
+        }
+        if (position < 0 || position > source.size()) {
+            throw new IllegalArgumentException("Position " + position + " is outside the source");
+        }
+        this.filter = filter;
+        this.source = source;
+        this.position = position;
+    }
+
+    /**
+     * Tests transactions until the next match is found or the source ends.
+     *
+     * @return true if another matching transaction exists
+     */
+    @Override
+    public boolean hasNext() {
+        while (pending == null && position < source.size()) {
+            Transaction t = source.get(position++);
+            if (t != null && filter.matches(t)) {
+                pending = t;
+            }
+        }
+        return pending != null;
+    }
+
+    /**
+     * Returns the next matching transaction.
+     *
+     * @return The next match
+     * @throws NoSuchElementException if no further transaction matches
+     */
+    @Override
+    public Transaction next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Transaction t = pending;
+        pending = null;
+        return t;
+    }
+
+    /**
+     * Returns up to limit further matches, stopping as soon as they are
+     * found.
+     *
+     * @param limit The maximum number of matches to return (at least 0)
+     * @return A new list of at most limit matches; shorter only at the end
+     */
+    public List<Transaction> next(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        List<Transaction> page = new ArrayList<>(Math.min(limit, 256));
+        while (page.size() < limit && hasNext()) {
+            page.add(next());
+        }
+        return page;
+    }
+
+    /**
+     * Passes over up to n further matches without collecting them.
+     *
+     * @param n The number of matches to skip (at least 0)
+     * @return The number of matches skipped; less than n only at the end
+     */
+    public int skip(int n) {
+        int skipped = 0;
+        while (skipped < n && hasNext()) {
+            pending = null;
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Returns the source index from which the next match will be searched,
+     * which is where a new cursor can resume.
+     *
+     * @return The index of the next untested transaction, or of the match
+     *         found by hasNext() and not yet returned
+     */
+    public int getPosition() {
+        return pending == null ? position : position - 1;
+    }
+}
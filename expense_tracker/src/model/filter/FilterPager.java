@@ -0,0 +1,313 @@
+package model.filter;
+
+import model.ExpenseTrackerModel;
+import model.IndexRange;
+import model.Transaction;
+import model.TransactionChangeEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Offset/limit pagination over the matches of a filter, evaluated lazily
+ * with a FilterCursor. Only the requested page is materialized. The pager
+ * remembers where each page it has seen starts in the source, one int per
+ * page, so moving to the next or a previous page resumes the scan there
+ * instead of testing the earlier transactions again. Jumping ahead tests
+ * the transactions up to the requested page once.
+ *
+ * Like a cursor, a pager needs a source that does not change, such as a
+ * model snapshot, and is not thread-safe. A pager created over a model
+ * instead follows the model's changes through update(), which keeps the
+ * page starts before a change and tells whether a given page is affected,
+ * so a change after the page shown costs no rescan. If the filter has an
+ * index range (see TransactionFilter.indexRange()), the pager walks its
+ * entries lazily, so pages come in index order: insertion order for a
+ * category, ascending amount or time for an amount or date range. Added
+ * transactions are placed at their index position and removed ones are
+ * located through their ID, so the pages always equal those of a new
+ * pager. Without an index the pager scans a snapshot in insertion order.
+ *
+ * @author Auto
+ * @since 1.4
+ */
+public class FilterPager {
+    private final TransactionFilter filter;
+    // the model followed by update(), or null for a fixed source
+    private final ExpenseTrackerModel model;
+    // the filter's index entries, or null if the source is a snapshot
+    private IndexRange range;
+    private List<Transaction> source;
+    private final int pageSize;
+    // pageStarts[p] is the source index where the scan for page p starts
+    private int[] pageStarts = new int[8];
+    private int knownPages = 1;
+    // the first page index known to be empty, or -1 if none is known yet
+    private int endPage = -1;
+
+    /**
+     * Constructs a pager over the matches of a filter.
+     *
+     * @param filter The filter to evaluate (must not be null)
+     * @param source The transactions to evaluate it on, which must not change
+     * @param pageSize The number of matches per page (at least 1)
+     * @throws IllegalArgumentException if pageSize is less than 1
+     */
+    public FilterPager(TransactionFilter filter, List<Transaction> source, int pageSize) {
+        if (filter == null || source == null) {
+            throw new IllegalArgumentException("Filter and source must not be null");
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        this.filter = filter;
+        this.model = null;
+        this.source = source;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Constructs a pager over the matches of a filter in a model that can
+     * be kept current with update(). If the filter has an index range, the
+     * pager walks the index entries from the page start on; otherwise it
+     * scans a snapshot of the model.
+     *
+     * @param filter The filter to evaluate (must not be null)
+     * @param model The model whose transactions are paged (must not be null)
+     * @param pageSize The number of matches per page (at least 1)
+     * @throws IllegalArgumentException if pageSize is less than 1
+     */
+    public FilterPager(TransactionFilter filter, ExpenseTrackerModel model, int pageSize) {
+        if (filter == null || model == null) {
+            throw new IllegalArgumentException("Filter and model must not be null");
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        this.filter = filter;
+        this.model = model;
+        this.range = filter.indexRange(model);
+        this.source = range != null ? range : model.snapshot();
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns the number of matches per page.
+     *
+     * @return The page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns one page of matches: those at offsets page * pageSize up to
+     * (page + 1) * pageSize - 1, in source order.
+     *
+     * @param page The page index, starting at 0
+     * @return A new list of at most pageSize matches, empty past the last page
+     * @throws IllegalArgumentException if page is negative
+     */
+    public List<Transaction> getPage(int page) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if (!locate(page)) {
+            return new ArrayList<>();
+        }
+        FilterCursor cursor = new FilterCursor(filter, source, pageStarts[page]);
+        List<Transaction> matches = cursor.next(pageSize);
+        if (matches.size() < pageSize) {
+            markEnd(matches.isEmpty() ? page : page + 1);
+        } else if (page + 1 == knownPages) {
+            append(cursor.getPosition());
+        }
+        return matches;
+    }
+
+    /**
+     * Tells whether a page holds at least one match. For the page after
+     * the last one seen, this scans only up to the page's first match.
+     *
+     * @param page The page index, starting at 0
+     * @return true if getPage(page) is not empty
+     */
+    public boolean hasPage(int page) {
+        if (page < 0 || !locate(page)) {
+            return false;
+        }
+        if (!new FilterCursor(filter, source, pageStarts[page]).hasNext()) {
+            markEnd(page);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Follows a change of the model this pager was created over. Page
+     * starts before the changed transactions are kept, so locating a page
+     * later resumes the scan there. Must be called for every change of the
+     * model, in order.
+     *
+     * @param e The change event fired by the model
+     * @param page The page index shown, starting at 0
+     * @return true if the change may alter that page or whether a page
+     *         follows it, false if only later pages can differ
+     * @throws IllegalStateException if the pager was created over a list
+     */
+    public boolean update(TransactionChangeEvent e, int page) {
+        if (model == null) {
+            throw new IllegalStateException("Pager was not created over a model");
+        }
+        if (range != null && range.renumbered()) {
+            // the model compacted its rows, so no known position holds
+            reset();
+            return true;
+        }
+        // matches before the start of page + 2 decide the page and whether one follows it
+        int bound = page + 2 < knownPages ? pageStarts[page + 2] : Integer.MAX_VALUE;
+        boolean affected = false;
+        List<Transaction> changed = e.getTransactions();
+        if (e.getType() == TransactionChangeEvent.Type.ADDED) {
+            // source positions after the change, tagged in the low bit if a match
+            long[] entries = new long[changed.size()];
+            int count = 0;
+            for (Transaction t : changed) {
+                int position = range != null ? range.positionOf(t) : source.size() + count;
+                if (position >= 0) {
+                    entries[count++] = (long) position << 1 | (filter.matches(t) ? 1 : 0);
+                }
+            }
+            Arrays.sort(entries, 0, count);
+            // gaps[j] is the position before the change that entry j was inserted at
+            int[] gaps = new int[count];
+            int firstMatch = Integer.MAX_VALUE;
+            for (int j = 0; j < count; j++) {
+                gaps[j] = (int) (entries[j] >> 1) - j;
+                if ((entries[j] & 1) != 0) {
+                    affected |= gaps[j] < bound;
+                    firstMatch = Math.min(firstMatch, gaps[j]);
+                    endPage = -1;
+                }
+            }
+            insertRows(gaps, firstMatch);
+        } else {
+            for (int i = 0; i < changed.size(); i++) {
+                Transaction t = changed.get(i);
+                int row = range != null ? range.positionOf(t) : e.getPosition(i);
+                if (row < 0) {
+                    if (range != null) {
+                        // not an entry of the range, so the pages do not change
+                        continue;
+                    }
+                    // the model did not report where the row was
+                    reset();
+                    return true;
+                }
+                boolean matched = filter.matches(t);
+                affected |= matched && row < bound;
+                if (range != null) {
+                    // the entry stays in place and reads as null, so nothing shifts
+                    if (matched) {
+                        removeRow(row, true);
+                    }
+                    continue;
+                }
+                if (row < bound && bound != Integer.MAX_VALUE) {
+                    bound--;
+                }
+                removeRow(row, matched);
+            }
+        }
+        if (range == null) {
+            source = model.snapshot();
+        }
+        return affected;
+    }
+
+    /**
+     * Shifts the page starts after source rows inserted at the given
+     * positions, which are in ascending order. A match moves the
+     * boundaries of every page starting after it, so their starts are
+     * forgotten and located again when needed.
+     */
+    private void insertRows(int[] gaps, int firstMatch) {
+        int shift = 0;
+        for (int p = 1; p < knownPages; p++) {
+            if (pageStarts[p] > firstMatch) {
+                knownPages = p;
+                return;
+            }
+            // a row inserted at a page start belongs to that page
+            while (shift < gaps.length && gaps[shift] < pageStarts[p]) {
+                shift++;
+            }
+            pageStarts[p] += shift;
+        }
+    }
+
+    /**
+     * Shifts the page starts after a removed source row. Removing a match
+     * moves the boundaries of every later page, so their starts are
+     * forgotten and located again when needed.
+     */
+    private void removeRow(int row, boolean matched) {
+        if (matched) {
+            endPage = -1;
+        }
+        for (int p = 1; p < knownPages; p++) {
+            if (pageStarts[p] > row) {
+                if (matched) {
+                    knownPages = p;
+                    return;
+                }
+                pageStarts[p]--;
+            }
+        }
+    }
+
+    private void reset() {
+        if (range != null) {
+            range = filter.indexRange(model);
+        }
+        source = range != null ? range : model.snapshot();
+        knownPages = 1;
+        endPage = -1;
+    }
+
+    /**
+     * Makes sure the start of a page is known, skipping over the matches
+     * of the pages before it without collecting them.
+     *
+     * @return false if the page is known to lie past the last match
+     */
+    private boolean locate(int page) {
+        while (knownPages <= page) {
+            int last = knownPages - 1;
+            if (endPage >= 0 && endPage <= last + 1) {
+                return false;
+            }
+            FilterCursor cursor = new FilterCursor(filter, source, pageStarts[last]);
+            int skipped = cursor.skip(pageSize);
+            if (skipped < pageSize) {
+                markEnd(skipped == 0 ? last : last + 1);
+                return false;
+            }
+            append(cursor.getPosition());
+        }
+        return endPage < 0 || page < endPage;
+    }
+
+    private void append(int start) {
+        if (knownPages == pageStarts.length) {
+            pageStarts = Arrays.copyOf(pageStarts, knownPages * 2);
+        }
+        pageStarts[knownPages++] = start;
+    }
+
+    private void markEnd(int page) {
+        if (endPage < 0 || page < endPage) {
+            endPage = page;
+        }
+    }
+}
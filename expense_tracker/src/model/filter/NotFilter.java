@@ -0,0 +1,102 @@
+package model.filter;
+
+import model.Transaction;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filter implementation that keeps the transactions its inner filter
+ * rejects. Null transactions never match. Negating a NotFilter returns the
+ * original filter instead of stacking a second negation. This class
+ * implements the TransactionFilter interface following the Strategy design
+ * pattern.
+ *
+ * @author Auto
+ * @since 1.2
+ */
+public class NotFilter implements TransactionFilter {
+    private final TransactionFilter filter;
+
+    /**
+     * Constructs a new NotFilter negating the given filter.
+     *
+     * @param filter The filter to negate (must not be null)
+     * @throws IllegalArgumentException if filter is null
+     */
+    public NotFilter(TransactionFilter filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("Filter must not be null");
+        }
+        this.filter = filter;
+    }
+
+    /**
+     * Filters the supplied transaction list in a single pass, keeping the
+     * transactions the inner filter rejects. Null transactions are excluded.
+     *
+     * @param txs Input list of transactions to filter (must not be null)
+     * @return A new list containing only the transactions the inner filter rejects
+     */
+    @Override
+    public List<Transaction> filter(List<Transaction> txs) {
+        List<Transaction> result = new ArrayList<>();
+        for (Transaction t : txs) {
+            if (matches(t)) {
+                result.add(t);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tests whether the inner filter rejects a single transaction.
+     *
+     * @param t The transaction to test
+     * @return true if t is not null and the inner filter does not match it
+     */
+    @Override
+    public boolean matches(Transaction t) {
+        return t != null && !filter.matches(t);
+    }
+
+    /**
+     * Returns the cost of the inner filter.
+     *
+     * @return The relative cost of matches()
+     */
+    @Override
+    public int evaluationCost() {
+        return filter.evaluationCost();
+    }
+
+    /**
+     * Returns the inner filter, cancelling the negation.
+     *
+     * @return The filter this one negates
+     */
+    @Override
+    public TransactionFilter negate() {
+        return filter;
+    }
+
+    /**
+     * Two negations are equal when they negate equal filters.
+     *
+     * @param o The object to compare with
+     * @return true if o is a NotFilter over an equal filter
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof NotFilter && filter.equals(((NotFilter) o).filter);
+    }
+
+    /**
+     * Returns a hash code derived from the negated filter.
+     *
+     * @return The hash code
+     */
+    @Override
+    public int hashCode() {
+        return ~filter.hashCode();
+    }
+}
@@ -0,0 +1,101 @@
+package model.filter;
+
+import model.ExpenseTrackerModel;
+import model.Transaction;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filter implementation that keeps transactions matching at least one of
+ * its child filters. The children are fused into one predicate that is
+ * evaluated in a single pass, cheapest test first, stopping at the first
+ * matching test.
+ *
+ * When filtering a whole model and every child can be answered from an
+ * index (its estimate is below the model size) with fewer matches in
+ * total than the model holds, each child is evaluated through its index
+ * and the model merges the results back into insertion order by sorting
+ * their rows. Otherwise the model's transactions are scanned once with
+ * the fused predicate. This class implements the TransactionFilter
+ * interface following the Strategy design pattern.
+ *
+ * @author Auto
+ * @since 1.2
+ */
+public class OrFilter extends CompositeFilter {
+
+    /**
+     * Constructs a new OrFilter over the given filters.
+     *
+     * @param filters The filters of which at least one must match (at least one, none null)
+     * @throws IllegalArgumentException if no filter or a null filter is given
+     */
+    public OrFilter(TransactionFilter... filters) {
+        super(filters);
+    }
+
+    /**
+     * Tests whether a single transaction matches any child filter.
+     *
+     * @param t The transaction to test
+     * @return true if t is not null and at least one child filter matches it
+     */
+    @Override
+    public boolean matches(Transaction t) {
+        if (t == null) {
+            return false;
+        }
+        for (TransactionFilter f : filters) {
+            if (f.matches(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unions the index-backed results of the children if every child has
+     * an index and their estimates add up to less than the model size;
+     * otherwise scans the model once.
+     *
+     * @param model The model whose transactions are filtered (must not be null)
+     * @return A new list containing only the matching transactions, in
+     *         insertion order
+     */
+    @Override
+    public List<Transaction> filter(ExpenseTrackerModel model) {
+        int size = model.getTransactions().size();
+        long estimate = 0;
+        for (TransactionFilter f : filters) {
+            int childEstimate = f.estimateMatches(model);
+            if (childEstimate >= size) {
+                return filter(model.getTransactions());
+            }
+            estimate += childEstimate;
+        }
+        if (estimate >= size) {
+            return filter(model.getTransactions());
+        }
+        List<List<Transaction>> results = new ArrayList<>(filters.length);
+        for (TransactionFilter f : filters) {
+            results.add(f.filter(model));
+        }
+        return model.union(results);
+    }
+
+    /**
+     * Returns the summed estimate of the children, capped at the model size,
+     * since a disjunction never matches more than all of its parts together.
+     *
+     * @param model The model the estimate is for (must not be null)
+     * @return The estimated number of matching transactions
+     */
+    @Override
+    public int estimateMatches(ExpenseTrackerModel model) {
+        long estimate = 0;
+        for (TransactionFilter f : filters) {
+            estimate += f.estimateMatches(model);
+        }
+        return (int) Math.min(estimate, model.getTransactions().size());
+    }
+}
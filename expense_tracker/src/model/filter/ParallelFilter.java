@@ -0,0 +1,203 @@
+package model.filter;
+
+import model.ExpenseTrackerModel;
+import model.IndexRange;
+import model.Transaction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Decorator that evaluates another filter on the common fork/join pool.
+ * The input list's spliterator is split recursively until the pieces are
+ * no larger than a threshold; each piece is tested with the wrapped
+ * filter's matches() on a worker thread, and the per-piece results are
+ * concatenated in encounter order, so the result equals the sequential one.
+ * Lists smaller than the threshold are filtered on the calling thread.
+ *
+ * The input list must not change while it is filtered and the wrapped
+ * filter's matches() must be safe to call from several threads, which holds
+ * for all filters in this package. This class implements the
+ * TransactionFilter interface following the Decorator design pattern.
+ *
+ * @author Auto
+ * @since 1.2
+ */
+public class ParallelFilter implements TransactionFilter {
+
+    /**
+     * Default number of transactions below which a list, or a piece of one,
+     * is filtered sequentially.
+     */
+    public static final int DEFAULT_THRESHOLD = 1 << 14;
+
+    private final TransactionFilter filter;
+    private final int threshold;
+
+    /**
+     * Constructs a new ParallelFilter with the default threshold.
+     *
+     * @param filter The filter to evaluate in parallel (must not be null)
+     * @throws IllegalArgumentException if filter is null
+     */
+    public ParallelFilter(TransactionFilter filter) {
+        this(filter, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a new ParallelFilter.
+     *
+     * @param filter The filter to evaluate in parallel (must not be null)
+     * @param threshold Size at or below which work stays sequential (at least 1)
+     * @throws IllegalArgumentException if filter is null or threshold is less than 1
+     */
+    public ParallelFilter(TransactionFilter filter, int threshold) {
+        if (filter == null) {
+            throw new IllegalArgumentException("Filter must not be null");
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be at least 1");
+        }
+        this.filter = filter;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Filters the supplied transaction list, in parallel if it is larger
+     * than the threshold.
+     *
+     * @param txs Input list of transactions to filter (must not be null)
+     * @return A new list containing only the matching transactions, in the
+     *         order of the input list
+     */
+    @Override
+    public List<Transaction> filter(List<Transaction> txs) {
+        if (txs.size() <= threshold) {
+            return filter.filter(txs);
+        }
+        List<List<Transaction>> pieces = ForkJoinPool.commonPool().invoke(new FilterTask(txs.spliterator()));
+        int size = 0;
+        for (List<Transaction> piece : pieces) {
+            size += piece.size();
+        }
+        List<Transaction> result = new ArrayList<>(size);
+        for (List<Transaction> piece : pieces) {
+            result.addAll(piece);
+        }
+        return result;
+    }
+
+    /**
+     * Uses the wrapped filter's index path when its index narrows the
+     * filter down to at most the threshold, since that path sorts and
+     * copies every index entry on the calling thread; broader filters, and
+     * filters without an index, scan the model's transactions in parallel.
+     *
+     * @param model The model whose transactions are filtered (must not be null)
+     * @return A new list containing only the matching transactions, in
+     *         insertion order
+     */
+    @Override
+    public List<Transaction> filter(ExpenseTrackerModel model) {
+        List<Transaction> all = model.getTransactions();
+        int estimate = filter.estimateMatches(model);
+        if (estimate <= threshold && estimate < all.size()) {
+            return filter.filter(model);
+        }
+        return filter(all);
+    }
+
+    /**
+     * Delegates to the wrapped filter.
+     *
+     * @param t The transaction to test
+     * @return true if the wrapped filter matches t
+     */
+    @Override
+    public boolean matches(Transaction t) {
+        return filter.matches(t);
+    }
+
+    /**
+     * Delegates to the wrapped filter.
+     *
+     * @return The relative cost of matches()
+     */
+    @Override
+    public int evaluationCost() {
+        return filter.evaluationCost();
+    }
+
+    /**
+     * Delegates to the wrapped filter.
+     *
+     * @param model The model the estimate is for (must not be null)
+     * @return The estimated number of visited transactions
+     */
+    @Override
+    public int estimateMatches(ExpenseTrackerModel model) {
+        return filter.estimateMatches(model);
+    }
+
+    /**
+     * Delegates to the wrapped filter.
+     *
+     * @param model The model whose index is read (must not be null)
+     * @return The wrapped filter's index range, or null
+     */
+    @Override
+    public IndexRange indexRange(ExpenseTrackerModel model) {
+        return filter.indexRange(model);
+    }
+
+    /**
+     * Returns the filter evaluated by this decorator.
+     *
+     * @return The wrapped filter
+     */
+    public TransactionFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Filters one piece of the input, splitting it in two while it is
+     * larger than the threshold. Returns the matches of its leaf pieces in
+     * encounter order, so they are copied only once at the end.
+     */
+    private class FilterTask extends RecursiveTask<List<List<Transaction>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Spliterator<Transaction> spliterator;
+
+        FilterTask(Spliterator<Transaction> spliterator) {
+            this.spliterator = spliterator;
+        }
+
+        @Override
+        protected List<List<Transaction>> compute() {
+            if (spliterator.estimateSize() > threshold) {
+                // trySplit() hands out the prefix, which keeps encounter order
+                Spliterator<Transaction> prefix = spliterator.trySplit();
+                if (prefix != null) {
+                    FilterTask left = new FilterTask(prefix);
+                    left.fork();
+                    List<List<Transaction>> right = compute();
+                    List<List<Transaction>> pieces = left.join();
+                    pieces.addAll(right);
+                    return pieces;
+                }
+            }
+            List<Transaction> matches = new ArrayList<>();
+            spliterator.forEachRemaining(t -> {
+                if (filter.matches(t)) {
+                    matches.add(t);
+                }
+            });
+            List<List<Transaction>> pieces = new ArrayList<>();
+            pieces.add(matches);
+            return pieces;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package model.filter;
 
+import model.ExpenseTrackerModel;
+import model.IndexRange;
 import model.Transaction;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -25,6 +28,157 @@ public interface TransactionFilter {
      * @param txs Input list of transactions to filter (must not be null)
      * @return A new list containing only the transactions that match the filter
      *         criteria. May be empty if no transactions match. Never null.
+     *         The list belongs to the caller and may be modified.
      */
     List<Transaction> filter(List<Transaction> txs);
+
+    /**
+     * Tests a single transaction against the filter criteria. This is the
+     * incremental form of filter(): callers that receive transactions one
+     * at a time (for example from model change events) can decide whether
+     * each one belongs in a filtered result without re-filtering the list.
+     * The default implementation delegates to filter() on a one-element
+     * list; implementations should override it with a direct test.
+     *
+     * @param t The transaction to test
+     * @return true if the transaction matches the filter criteria
+     * @since 1.1
+     */
+    default boolean matches(Transaction t) {
+        return !filter(Collections.singletonList(t)).isEmpty();
+    }
+
+    /**
+     * Filter all transactions held by a model. Implementations that can be
+     * answered from one of the model's indexes override this method to avoid
+     * scanning every transaction; the default scans model.getTransactions().
+     *
+     * @param model The model whose transactions are filtered (must not be null)
+     * @return A new list containing only the matching transactions, in
+     *         insertion order. May be empty. Never null.
+     * @since 1.1
+     */
+    default List<Transaction> filter(ExpenseTrackerModel model) {
+        return filter(model.getTransactions());
+    }
+
+    /**
+     * Returns a relative estimate of the cost of one matches() call. Composite
+     * filters test their cheapest children first. Simple numeric comparisons
+     * cost 1; the default assumes an unknown, more expensive test.
+     *
+     * @return The relative cost of matches(), at least 1
+     * @since 1.2
+     */
+    default int evaluationCost() {
+        return 3;
+    }
+
+    /**
+     * Returns an upper bound on the number of transactions that
+     * filter(model) visits. Filters answered from an index return the size
+     * of the indexed candidate set; the default is every transaction in the
+     * model. Composite filters drive their evaluation from the child with
+     * the smallest estimate.
+     *
+     * @param model The model the estimate is for (must not be null)
+     * @return The estimated number of visited transactions
+     * @since 1.2
+     */
+    default int estimateMatches(ExpenseTrackerModel model) {
+        return model.getTransactions().size();
+    }
+
+    /**
+     * Returns a filter matching transactions that match both this filter
+     * and the other one, evaluated in a single pass.
+     *
+     * @param other The filter to combine with (must not be null)
+     * @return The conjunction of both filters
+     * @since 1.2
+     */
+    default TransactionFilter and(TransactionFilter other) {
+        return new AndFilter(this, other);
+    }
+
+    /**
+     * Returns a filter matching transactions that match this filter, the
+     * other one, or both, evaluated in a single pass.
+     *
+     * @param other The filter to combine with (must not be null)
+     * @return The disjunction of both filters
+     * @since 1.2
+     */
+    default TransactionFilter or(TransactionFilter other) {
+        return new OrFilter(this, other);
+    }
+
+    /**
+     * Returns a filter matching exactly the non-null transactions this
+     * filter rejects.
+     *
+     * @return The negation of this filter
+     * @since 1.2
+     */
+    default TransactionFilter negate() {
+        return new NotFilter(this);
+    }
+
+    /**
+     * Returns a cursor that evaluates this filter lazily over a list,
+     * testing transactions only as further matches are requested.
+     *
+     * @param txs The transactions to evaluate on, which must not change
+     *        while the cursor is in use (must not be null)
+     * @return A new cursor positioned before the first transaction
+     * @since 1.4
+     */
+    default FilterCursor cursor(List<Transaction> txs) {
+        return new FilterCursor(this, txs);
+    }
+
+    /**
+     * Returns a live view over the model index entries that hold every
+     * match of this filter, in index order, or null if no index narrows
+     * this filter down. Callers walk the view lazily and test each entry
+     * with matches(); entries of removed rows read as null. The default
+     * has no index.
+     *
+     * @param model The model whose index is read (must not be null)
+     * @return A view over the candidate entries, or null
+     * @since 1.4
+     */
+    default IndexRange indexRange(ExpenseTrackerModel model) {
+        return null;
+    }
+
+    /**
+     * Returns a cursor over the matching transactions of a model. If this
+     * filter has an index range (see indexRange()), the cursor walks its
+     * entries lazily in index order, so nothing is materialized, and must
+     * be used up before the model next changes; otherwise it scans a
+     * snapshot, which later model changes do not disturb.
+     *
+     * @param model The model whose transactions are evaluated (must not be null)
+     * @return A new cursor positioned before the first transaction
+     * @since 1.4
+     */
+    default FilterCursor cursor(ExpenseTrackerModel model) {
+        IndexRange range = indexRange(model);
+        return cursor(range != null ? range : model.snapshot());
+    }
+
+    /**
+     * Returns a pager that splits the matching transactions of a model into
+     * pages, evaluating this filter only as far as the pages requested.
+     *
+     * @param model The model whose transactions are paged (must not be null)
+     * @param pageSize The number of matches per page (at least 1)
+     * @return A new pager over the model, driven by its index if this
+     *         filter has one, that FilterPager.update() keeps current
+     * @since 1.4
+     */
+    default FilterPager pager(ExpenseTrackerModel model, int pageSize) {
+        return new FilterPager(this, model, pageSize);
+    }
 }
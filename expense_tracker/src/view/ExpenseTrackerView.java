@@ -2,21 +2,25 @@ package view;
 
 import javax.swing.*;
 import javax.swing.JFormattedTextField.AbstractFormatterFactory;
-import javax.swing.table.DefaultTableModel;
 
 import controller.InputValidation;
 
 import java.awt.*;
 import java.text.NumberFormat;
 
+import model.PeriodSummary;
 import model.Transaction;
 import java.util.List;
+import java.util.SortedMap;
 
 /**
  * View class for the Expense Tracker application following the MVC pattern.
  * Provides the graphical user interface for displaying transactions and
  * accepting user input. Includes UI components for adding transactions,
  * filtering by category or amount, and displaying results in a table.
+ * An optional summary table beside it shows the spend per day or month and
+ * category. With "Paged" selected, filter results are shown one page at a
+ * time with controls to move between pages.
  */
 public class ExpenseTrackerView extends JFrame {
 
@@ -28,7 +32,19 @@ public class ExpenseTrackerView extends JFrame {
   private JComboBox<String> filterCombo;
   private JTextField filterParamField;
   private JButton applyFilterBtn;
-  private DefaultTableModel model;
+  private TransactionTableModel model;
+  // progress of a background filter query
+  private JProgressBar queryProgressBar;
+  // optional spend summary per period
+  private JComboBox<String> summaryCombo;
+  private SummaryTableModel summaryModel;
+  private JScrollPane summaryPane;
+  // paging through filter results
+  private JCheckBox pagedCheck;
+  private JButton prevPageBtn;
+  private JButton nextPageBtn;
+  private JLabel pageLabel;
+  private JPanel pagePanel;
   
 
   /**
@@ -41,8 +57,7 @@ public class ExpenseTrackerView extends JFrame {
     setTitle("Expense Tracker"); // Set title
     setSize(600, 400); // Make GUI larger
 
-    String[] columnNames = {"serial", "Amount", "Category", "Date"};
-    this.model = new DefaultTableModel(columnNames, 0);
+    this.model = new TransactionTableModel();
 
     addTransactionBtn = new JButton("Add Transaction");
 
@@ -68,20 +83,45 @@ public class ExpenseTrackerView extends JFrame {
     inputPanel.add(categoryField);
     inputPanel.add(addTransactionBtn);
   // filter UI
-  filterCombo = new JComboBox<>(new String[]{"None", "Category", "Amount >="});
+  filterCombo = new JComboBox<>(new String[]{"None", "Category", "Amount >=", "Amount <", "Amount between", "Month to date", "Last 30 days", "Compound"});
   filterParamField = new JTextField(10);
   applyFilterBtn = new JButton("Apply Filter");
   inputPanel.add(new JLabel("Filter:"));
   inputPanel.add(filterCombo);
   inputPanel.add(filterParamField);
   inputPanel.add(applyFilterBtn);
+  pagedCheck = new JCheckBox("Paged");
+  inputPanel.add(pagedCheck);
   
+    queryProgressBar = new JProgressBar(0, 100);
+    queryProgressBar.setStringPainted(true);
+    queryProgressBar.setVisible(false);
+
+    summaryCombo = new JComboBox<>(new String[]{"No summary", "Daily", "Monthly"});
+    summaryModel = new SummaryTableModel();
+    summaryPane = new JScrollPane(new JTable(summaryModel));
+    summaryPane.setPreferredSize(new Dimension(360, 0));
+    summaryPane.setVisible(false);
+
+    prevPageBtn = new JButton("< Prev");
+    nextPageBtn = new JButton("Next >");
+    pageLabel = new JLabel();
+    pagePanel = new JPanel();
+    pagePanel.add(prevPageBtn);
+    pagePanel.add(pageLabel);
+    pagePanel.add(nextPageBtn);
+    pagePanel.setVisible(false);
+
     JPanel buttonPanel = new JPanel();
     buttonPanel.add(addTransactionBtn);
+    buttonPanel.add(queryProgressBar);
+    buttonPanel.add(pagePanel);
+    buttonPanel.add(summaryCombo);
   
     // Add panels to frame
     add(inputPanel, BorderLayout.NORTH);
     add(new JScrollPane(transactionsTable), BorderLayout.CENTER); 
+    add(summaryPane, BorderLayout.EAST);
     add(buttonPanel, BorderLayout.SOUTH);
   
     // Set frame properties
@@ -93,37 +133,230 @@ public class ExpenseTrackerView extends JFrame {
 
   /**
    * Refreshes the transaction table with a new list of transactions.
-   * Clears the existing table rows, adds all provided transactions with
-   * sequential serial numbers, calculates and displays the total cost,
-   * and updates the table display.
+   * The table reads the list lazily, computing serial numbers and cell
+   * values only for the rows being painted, and shows the total cost of
+   * all transactions in a final row. The list is not copied; later
+   * changes to it must be reported through transactionsInserted() or
+   * transactionsDeleted().
    * 
    * @param transactions The list of Transaction objects to display in the table
    */
   public void refreshTable(List<Transaction> transactions) {
-      // Clear existing rows
-      model.setRowCount(0);
-      // Get row count
-      int rowNum = model.getRowCount();
-      double totalCost=0;
-      // Calculate total cost
-      for(Transaction t : transactions) {
-        totalCost+=t.getAmount();
-      }
-      // Add rows from transactions list
-      for(Transaction t : transactions) {
-        model.addRow(new Object[]{rowNum+=1,t.getAmount(), t.getCategory(), t.getTimestamp()}); 
-      }
-        // Add total row
-        Object[] totalRow = {"Total", null, null, totalCost};
-        model.addRow(totalRow);
-  
-      // Fire table update
-      transactionsTable.updateUI();
-  
-    }  
-  
+    model.setTransactions(transactions);
+  }
+
+  /**
+   * Refreshes the transaction table with a new list of transactions whose
+   * total cost is already known, e.g. from the model's running aggregate,
+   * so the list is not summed again. Otherwise like refreshTable(List).
+   * 
+   * @param transactions The list of Transaction objects to display in the table
+   * @param totalCost The total cost of the transactions
+   */
+  public void refreshTable(List<Transaction> transactions, double totalCost) {
+    model.setTransactions(transactions, totalCost);
+  }
+
+  /**
+   * Reports that rows firstRow..lastRow (inclusive) were appended to the
+   * displayed list. Only those rows are added to the table and the total.
+   * 
+   * @param firstRow Index of the first new row
+   * @param lastRow Index of the last new row
+   */
+  public void transactionsInserted(int firstRow, int lastRow) {
+    model.rowsInserted(firstRow, lastRow);
+  }
+
+  /**
+   * Shows a new version of the displayed list, such as a newer model
+   * snapshot, that has rows firstRow..lastRow (inclusive) appended. Only
+   * those rows are added to the table and the total.
+   * 
+   * @param transactions The new version of the displayed list
+   * @param firstRow Index of the first new row
+   * @param lastRow Index of the last new row
+   */
+  public void transactionsInserted(List<Transaction> transactions, int firstRow, int lastRow) {
+    model.rowsInserted(transactions, firstRow, lastRow);
+  }
+
+  /**
+   * Reports that rows firstRow..lastRow (inclusive) were removed from the
+   * displayed list. Following rows are renumbered automatically.
+   * 
+   * @param firstRow Index the first removed row had
+   * @param lastRow Index the last removed row had
+   * @param removedAmount Sum of the amounts of the removed rows
+   */
+  public void transactionsDeleted(int firstRow, int lastRow, double removedAmount) {
+    model.rowsDeleted(firstRow, lastRow, removedAmount);
+  }
+
+  /**
+   * Shows a new version of the displayed list, such as a newer model
+   * snapshot, that lacks rows firstRow..lastRow (inclusive) of the previous
+   * one. Only those rows are removed from the table and the total.
+   * 
+   * @param transactions The new version of the displayed list
+   * @param firstRow Index the first removed row had
+   * @param lastRow Index the last removed row had
+   * @param removedAmount Sum of the amounts of the removed rows
+   */
+  public void transactionsDeleted(List<Transaction> transactions, int firstRow, int lastRow,
+                                  double removedAmount) {
+    model.rowsDeleted(transactions, firstRow, lastRow, removedAmount);
+  }
+
+  /**
+   * Shows the progress of a running filter query.
+   * 
+   * @param percent Share of the transactions scanned so far, 0 to 100
+   */
+  public void showQueryProgress(int percent) {
+    queryProgressBar.setValue(percent);
+    queryProgressBar.setString(percent + "%");
+    queryProgressBar.setVisible(true);
+  }
+
+  /**
+   * Shows the outcome of a completed filter query in place of its progress.
+   * 
+   * @param matchCount Number of matching transactions
+   * @param totalCost Total cost of the matching transactions
+   */
+  public void showQueryResult(int matchCount, double totalCost) {
+    queryProgressBar.setValue(100);
+    queryProgressBar.setString(matchCount + " matches, total " + totalCost);
+    queryProgressBar.setVisible(true);
+  }
+
+  /**
+   * Hides the filter query progress, e.g. after the query was cancelled.
+   */
+  public void hideQueryProgress() {
+    queryProgressBar.setVisible(false);
+  }
+
+  /**
+   * Shows one page of filter results in the table, with the paging
+   * controls enabled according to whether there are earlier and later
+   * pages. The page is shown like refreshTable(List).
+   * 
+   * @param page The transactions on the page
+   * @param pageIndex The index of the page, starting at 0
+   * @param hasNextPage Whether a page follows this one
+   */
+  public void showPage(List<Transaction> page, int pageIndex, boolean hasNextPage) {
+    refreshTable(page);
+    pageLabel.setText("Page " + (pageIndex + 1));
+    prevPageBtn.setEnabled(pageIndex > 0);
+    nextPageBtn.setEnabled(hasNextPage);
+    if (!pagePanel.isVisible()) {
+      pagePanel.setVisible(true);
+      revalidate();
+    }
+  }
+
+  /**
+   * Hides the paging controls, e.g. when results are no longer paged.
+   */
+  public void hidePaging() {
+    if (pagePanel.isVisible()) {
+      pagePanel.setVisible(false);
+      revalidate();
+    }
+  }
+
+  /**
+   * Returns the check box selecting whether applied filters show their
+   * results one page at a time.
+   * 
+   * @return The JCheckBox for paged filter results
+   */
+  public JCheckBox getPagedCheck() {
+    return pagedCheck;
+  }
+
+  /**
+   * Returns the button moving to the previous page of filter results.
+   * 
+   * @return The JButton for the previous page
+   */
+  public JButton getPrevPageBtn() {
+    return prevPageBtn;
+  }
+
+  /**
+   * Returns the button moving to the next page of filter results.
+   * 
+   * @return The JButton for the next page
+   */
+  public JButton getNextPageBtn() {
+    return nextPageBtn;
+  }
+
+  /**
+   * Returns the label showing the current page number.
+   * 
+   * @return The JLabel for the page number
+   */
+  public JLabel getPageLabel() {
+    return pageLabel;
+  }
+
+  /**
+   * Shows spend summaries in the summary table beside the transactions,
+   * one row per period.
+   * 
+   * @param summaries The summaries keyed by period (LocalDate or YearMonth)
+   */
+  public void showSummary(SortedMap<?, PeriodSummary> summaries) {
+    summaryModel.setSummaries(summaries);
+    if (!summaryPane.isVisible()) {
+      summaryPane.setVisible(true);
+      revalidate();
+    }
+  }
+
+  /**
+   * Hides the summary table.
+   */
+  public void hideSummary() {
+    if (summaryPane.isVisible()) {
+      summaryPane.setVisible(false);
+      revalidate();
+    }
+  }
+
+  /**
+   * Returns the combo box selecting the summary shown beside the
+   * transactions: "No summary", "Daily" or "Monthly".
+   * 
+   * @return The JComboBox for selecting the summary
+   */
+  public JComboBox<String> getSummaryCombo() {
+    return summaryCombo;
+  }
+
+  /**
+   * Returns the table model of the summary table.
+   * 
+   * @return The SummaryTableModel holding the shown summaries
+   */
+  public SummaryTableModel getSummaryTableModel() {
+    return summaryModel;
+  }
+
+  /**
+   * Returns the progress bar showing the state of background filter queries.
+   * 
+   * @return The JProgressBar for filter queries
+   */
+  public JProgressBar getQueryProgressBar() {
+    return queryProgressBar;
+  }
 
-  
   /**
    * Returns the "Add Transaction" button component.
    * Used by the controller to attach action listeners.
@@ -136,7 +369,10 @@ public class ExpenseTrackerView extends JFrame {
   
   /**
    * Returns the filter type combo box component.
-   * Allows selection between "None", "Category", and "Amount >=" filters.
+   * Allows selection between "None", "Category", "Amount >=", "Amount <",
+   * "Amount between", "Month to date", "Last 30 days" and "Compound"
+   * filters. The "Amount between" parameter is entered as "min,max"; the
+   * date filters take no parameter.
    * 
    * @return The JComboBox for selecting filter type
    */
@@ -167,9 +403,9 @@ public class ExpenseTrackerView extends JFrame {
   /**
    * Returns the table model used by the transactions table.
    * 
-   * @return The DefaultTableModel managing the table data
+   * @return The TransactionTableModel managing the table data
    */
-  public DefaultTableModel getTableModel() {
+  public TransactionTableModel getTableModel() {
     return model;
   }
   
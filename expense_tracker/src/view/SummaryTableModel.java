@@ -0,0 +1,81 @@
+package view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeSet;
+
+import javax.swing.table.AbstractTableModel;
+
+import model.PeriodSummary;
+
+/**
+ * Table model showing one row per period (day or month) with its number
+ * of transactions, its total and one column per category. The rows come
+ * from the model's rollups, so the table has as many rows as there are
+ * periods, however many transactions they cover.
+ */
+public class SummaryTableModel extends AbstractTableModel {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String[] FIXED_COLUMNS = {"Period", "Count", "Total"};
+
+  private transient List<Object> periods = new ArrayList<>();
+  private transient List<PeriodSummary> summaries = new ArrayList<>();
+  private List<String> categories = new ArrayList<>();
+
+  /**
+   * Displays new summaries, replacing the previous ones. The category
+   * columns are those of the categories that occur in any period.
+   *
+   * @param byPeriod Summaries keyed by period, e.g. LocalDate or
+   *        YearMonth, in display order
+   */
+  public void setSummaries(SortedMap<?, PeriodSummary> byPeriod) {
+    List<Object> newPeriods = new ArrayList<>(byPeriod.size());
+    List<PeriodSummary> newSummaries = new ArrayList<>(byPeriod.size());
+    TreeSet<String> newCategories = new TreeSet<>();
+    for (Map.Entry<?, PeriodSummary> e : byPeriod.entrySet()) {
+      newPeriods.add(e.getKey());
+      newSummaries.add(e.getValue());
+      newCategories.addAll(e.getValue().getCategoryTotals().keySet());
+    }
+    boolean columnsChanged = !categories.equals(new ArrayList<>(newCategories));
+    periods = newPeriods;
+    summaries = newSummaries;
+    categories = new ArrayList<>(newCategories);
+    if (columnsChanged) {
+      fireTableStructureChanged();
+    } else {
+      fireTableDataChanged();
+    }
+  }
+
+  @Override
+  public int getRowCount() {
+    return summaries.size();
+  }
+
+  @Override
+  public int getColumnCount() {
+    return FIXED_COLUMNS.length + categories.size();
+  }
+
+  @Override
+  public String getColumnName(int column) {
+    return column < FIXED_COLUMNS.length ? FIXED_COLUMNS[column] : categories.get(column - FIXED_COLUMNS.length);
+  }
+
+  @Override
+  public Object getValueAt(int row, int column) {
+    PeriodSummary summary = summaries.get(row);
+    switch (column) {
+      case 0: return periods.get(row).toString();
+      case 1: return summary.getCount();
+      case 2: return summary.getSum();
+      default: return summary.getCategoryTotals().getOrDefault(categories.get(column - FIXED_COLUMNS.length), 0.0);
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package view;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+import model.CompensatedSum;
+import model.Transaction;
+
+/**
+ * Table model that displays a list of transactions followed by a total row.
+ * The list is held by reference and cell values are computed only when the
+ * table asks for them, so only the rows that are actually painted are ever
+ * read. No per-row objects are created up front.
+ *
+ * The owner of the list notifies this model of appended or removed rows
+ * through rowsInserted() and rowsDeleted(), which fire the matching
+ * fine-grained table events instead of rebuilding the table. The total is
+ * kept as a compensated running sum and can be supplied by the caller, e.g.
+ * from the model's RunningAggregate, so a new list is shown in O(1).
+ */
+public class TransactionTableModel extends AbstractTableModel {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String[] COLUMN_NAMES = {"serial", "Amount", "Category", "Date"};
+
+  private transient List<Transaction> transactions = Collections.emptyList();
+  private final CompensatedSum totalCost = new CompensatedSum();
+
+  /**
+   * Displays a new list of transactions. The list is not copied; it must
+   * not change afterwards except through the notifications of this model.
+   *
+   * @param transactions The transactions to display
+   */
+  public void setTransactions(List<Transaction> transactions) {
+    CompensatedSum total = new CompensatedSum();
+    for (Transaction t : transactions) {
+      total.add(t.getAmount());
+    }
+    setTransactions(transactions, total.value());
+  }
+
+  /**
+   * Displays a new list of transactions whose total is already known, in
+   * O(1). The list is not copied; it must not change afterwards except
+   * through the notifications of this model.
+   *
+   * @param transactions The transactions to display
+   * @param total The total of all amounts in the list
+   */
+  public void setTransactions(List<Transaction> transactions, double total) {
+    this.transactions = transactions;
+    totalCost.reset();
+    totalCost.add(total);
+    fireTableDataChanged();
+  }
+
+  /**
+   * Notifies the model that rows firstRow..lastRow (inclusive) were inserted
+   * into the displayed list. Adds their amounts to the total.
+   *
+   * @param firstRow Index of the first inserted row
+   * @param lastRow Index of the last inserted row
+   */
+  public void rowsInserted(int firstRow, int lastRow) {
+    for (int row = firstRow; row <= lastRow; row++) {
+      totalCost.add(transactions.get(row).getAmount());
+    }
+    fireTableRowsInserted(firstRow, lastRow);
+    fireTotalRowUpdated();
+  }
+
+  /**
+   * Displays a new version of the list that holds the previous rows plus
+   * rows firstRow..lastRow (inclusive), e.g. a newer snapshot of the
+   * model, and adds the new rows' amounts to the total.
+   *
+   * @param transactions The new version of the displayed list
+   * @param firstRow Index of the first inserted row
+   * @param lastRow Index of the last inserted row
+   */
+  public void rowsInserted(List<Transaction> transactions, int firstRow, int lastRow) {
+    this.transactions = transactions;
+    rowsInserted(firstRow, lastRow);
+  }
+
+  /**
+   * Notifies the model that rows firstRow..lastRow (inclusive) were removed
+   * from the displayed list.
+   *
+   * @param firstRow Index the first removed row had
+   * @param lastRow Index the last removed row had
+   * @param removedAmount Sum of the amounts of the removed rows
+   */
+  public void rowsDeleted(int firstRow, int lastRow, double removedAmount) {
+    totalCost.subtract(removedAmount);
+    fireTableRowsDeleted(firstRow, lastRow);
+    fireTotalRowUpdated();
+  }
+
+  /**
+   * Displays a new version of the list that lacks rows firstRow..lastRow
+   * (inclusive) of the previous one, e.g. a newer snapshot of the model,
+   * and subtracts their amounts from the total.
+   *
+   * @param transactions The new version of the displayed list
+   * @param firstRow Index the first removed row had
+   * @param lastRow Index the last removed row had
+   * @param removedAmount Sum of the amounts of the removed rows
+   */
+  public void rowsDeleted(List<Transaction> transactions, int firstRow, int lastRow, double removedAmount) {
+    this.transactions = transactions;
+    rowsDeleted(firstRow, lastRow, removedAmount);
+  }
+
+  /**
+   * Returns the total cost of the displayed transactions.
+   *
+   * @return The total of all displayed amounts
+   */
+  public double getTotalCost() {
+    return totalCost.value();
+  }
+
+  @Override
+  public int getRowCount() {
+    // One extra row for the total
+    return transactions.size() + 1;
+  }
+
+  @Override
+  public int getColumnCount() {
+    return COLUMN_NAMES.length;
+  }
+
+  @Override
+  public String getColumnName(int column) {
+    return COLUMN_NAMES[column];
+  }
+
+  @Override
+  public Object getValueAt(int rowIndex, int columnIndex) {
+    if (rowIndex == transactions.size()) {
+      switch (columnIndex) {
+        case 0: return "Total";
+        case 3: return totalCost.value();
+        default: return null;
+      }
+    }
+    Transaction t = transactions.get(rowIndex);
+    switch (columnIndex) {
+      case 0: return rowIndex + 1;
+      case 1: return t.getAmount();
+      case 2: return t.getCategory();
+      case 3: return t.getTimestamp();
+      default: return null;
+    }
+  }
+
+  private void fireTotalRowUpdated() {
+    int totalRow = transactions.size();
+    fireTableRowsUpdated(totalRow, totalRow);
+  }
+}
@@ -2,19 +2,74 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import controller.ControllerMetrics;
+import controller.BatchValidation;
+import controller.CsvImporter;
 import controller.ExpenseTrackerController;
+import controller.FilterResultCache;
+import controller.LatencyHistogram;
+import controller.FilterQueryParser;
+import controller.InputValidation;
+import model.CategoryDictionary;
+import model.ConcurrentExpenseTrackerModel;
 import model.ExpenseTrackerModel;
+import model.PeriodSummary;
+import model.RunningAggregate;
+import model.StorageMode;
 import model.Transaction;
+import model.TransactionChangeEvent;
+import model.TransactionJournal;
 import model.filter.TransactionFilter;
 import model.filter.CategoryFilter;
 import model.filter.AmountFilter;
+import model.filter.AmountRangeFilter;
+import model.filter.AndFilter;
+import model.filter.DateRangeFilter;
+import model.filter.ExecutionMode;
+import model.filter.FilterCursor;
+import model.filter.FilterPager;
+import model.filter.NotFilter;
+import model.filter.OrFilter;
+import model.filter.ParallelFilter;
 import view.ExpenseTrackerView;
+import view.SummaryTableModel;
 
 
 public class TestExample {
@@ -247,4 +302,1653 @@ public class TestExample {
     assertFalse(filteredTransactions.stream().anyMatch(t -> t.getCategory().equals("bills")));
   }
 
-}
\ No newline at end of file
+  /**
+   * Columnar storage keeps the same observable behavior as the default list storage.
+   */
+  @Test
+  public void testColumnarStorageMode() {
+    // Pre-condition: A model backed by primitive columns is empty
+    ExpenseTrackerModel columnar = new ExpenseTrackerModel(StorageMode.COLUMNAR);
+    assertEquals(StorageMode.COLUMNAR, columnar.getStorageMode());
+    assertEquals(0, columnar.getTransactions().size());
+
+    // Perform the action: Add transactions, including one with an unlisted category
+    columnar.addTransaction(new Transaction(50.00, "food"));
+    columnar.addTransaction(new Transaction(20.00, "Groceries"));
+    columnar.addTransaction(new Transaction(75.00, "travel"));
+
+    // Post-condition: Rows are served back with their original values
+    assertEquals(3, columnar.getTransactions().size());
+    Transaction second = columnar.getTransactions().get(1);
+    assertEquals(20.00, second.getAmount(), 0.01);
+    assertEquals("Groceries", second.getCategory());
+    assertEquals("dd-MM-yyyy HH:mm".length(), columnar.getTransactions().get(0).getTimestamp().length());
+
+    // Removing a row shifts the following rows down
+    columnar.removeTransaction(second);
+    assertEquals(2, columnar.getTransactions().size());
+    assertEquals(75.00, columnar.getTransactions().get(1).getAmount(), 0.01);
+  }
+
+  /**
+   * Transactions can be removed by ID or in bulk, and equality follows the ID.
+   */
+  @Test
+  public void testRemoveByIdAndRemoveAll() {
+    // Pre-condition: Add several transactions
+    Transaction food = new Transaction(10.00, "food");
+    Transaction travel = new Transaction(20.00, "travel");
+    Transaction bills = new Transaction(30.00, "bills");
+    Transaction other = new Transaction(40.00, "other");
+    model.addTransaction(food);
+    model.addTransaction(travel);
+    model.addTransaction(bills);
+    model.addTransaction(other);
+    assertTrue(travel.getId() > food.getId());
+    assertFalse(food.equals(travel));
+
+    // Perform the action: Remove one transaction by ID, then two in bulk
+    assertTrue(model.removeById(travel.getId()));
+    assertFalse(model.removeById(travel.getId()));
+    assertTrue(model.removeAll(Arrays.asList(food, other)));
+
+    // Post-condition: Only the remaining transaction is left
+    assertEquals(1, model.getTransactions().size());
+    assertEquals(bills, model.getTransactions().get(0));
+    assertEquals(30.00, getTotalCost(), 0.01);
+  }
+
+  /**
+   * Positional reads after removals skip tombstoned rows without
+   * compacting, across many 64-row blocks.
+   */
+  @Test
+  public void testPositionalReadsSkipTombstones() {
+    // Pre-condition: 1000 transactions
+    ExpenseTrackerModel ledger = new ExpenseTrackerModel(StorageMode.COLUMNAR);
+    List<Transaction> expected = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      Transaction t = new Transaction(i + 1, "food");
+      ledger.addTransaction(t);
+      expected.add(t);
+    }
+
+    // Perform the action: Remove every third transaction, fewer than the live ones
+    for (int i = expected.size() - 1; i >= 0; i -= 3) {
+      assertTrue(ledger.removeTransaction(expected.remove(i)));
+    }
+
+    // Post-condition: Reads by position and iteration see the live rows in order
+    List<Transaction> live = ledger.getTransactions();
+    assertEquals(expected.size(), live.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i), live.get(i));
+    }
+    assertEquals(expected, new ArrayList<>(live));
+    assertEquals(expected.get(expected.size() - 1).getAmount(),
+                 live.parallelStream().mapToDouble(Transaction::getAmount).max().getAsDouble(), 0);
+  }
+
+  /**
+   * Category filtering through the model index matches the list scan,
+   * ignores case, and skips removed transactions.
+   */
+  @Test
+  public void testCategoryFilterUsesModelIndex() {
+    // Pre-condition: Add transactions with mixed-case categories
+    Transaction food1 = new Transaction(10.00, "food");
+    Transaction travel = new Transaction(20.00, "travel");
+    Transaction food2 = new Transaction(30.00, "Food");
+    Transaction food3 = new Transaction(40.00, "FOOD");
+    model.addTransaction(food1);
+    model.addTransaction(travel);
+    model.addTransaction(food2);
+    model.addTransaction(food3);
+    model.removeTransaction(food2);
+
+    // Perform the action: Filter the whole model by category
+    TransactionFilter categoryFilter = new CategoryFilter("food");
+    List<Transaction> indexed = categoryFilter.filter(model);
+
+    // Post-condition: Index lookup returns live matches in insertion order
+    assertEquals(Arrays.asList(food1, food3), indexed);
+    assertEquals(categoryFilter.filter(model.getTransactions()), indexed);
+  }
+
+  /**
+   * Amount filters resolved through the sorted amount index agree with
+   * list scans and return matches in insertion order.
+   */
+  @Test
+  public void testAmountRangeFiltersUseModelIndex() throws Exception {
+    // Pre-condition: Add transactions with varied and duplicate amounts,
+    // on the EDT since the view shows the model
+    double[] amounts = {50.00, 10.00, 75.00, 50.00, 200.00, 5.00, 100.00};
+    SwingUtilities.invokeAndWait(() -> {
+      for (double amount : amounts) {
+        model.addTransaction(new Transaction(amount, "food"));
+      }
+      model.removeTransaction(model.getTransactions().get(2));
+    });
+
+    // Perform the action: Apply threshold, between and less-than filters
+    TransactionFilter atLeast = new AmountFilter(50.00);
+    TransactionFilter between = AmountRangeFilter.between(10.00, 100.00);
+    TransactionFilter lessThan = AmountRangeFilter.lessThan(50.00);
+
+    // Post-condition: Index results equal list-scan results, in insertion order
+    assertEquals(atLeast.filter(model.getTransactions()), atLeast.filter(model));
+    assertEquals(between.filter(model.getTransactions()), between.filter(model));
+    assertEquals(lessThan.filter(model.getTransactions()), lessThan.filter(model));
+    assertEquals(4, atLeast.filter(model).size());
+    assertEquals(4, between.filter(model).size());
+    assertEquals(10.00, lessThan.filter(model).get(0).getAmount(), 0.01);
+    assertEquals(5.00, lessThan.filter(model).get(1).getAmount(), 0.01);
+  }
+
+  /**
+   * Adding transactions with an active filter appends only matching rows to
+   * the table, and removals drop their rows, without a full refresh.
+   */
+  @Test
+  public void testIncrementalViewUpdatesWithActiveFilter() {
+    // Pre-condition: A category filter is active on an empty table (total row only)
+    controller.applyFilter(new CategoryFilter("food"));
+    assertEquals(1, view.getTableModel().getRowCount());
+
+    // Perform the action: Add matching and non-matching transactions
+    controller.addTransaction(10.00, "food");
+    controller.addTransaction(20.00, "travel");
+    controller.addTransaction(30.00, "food");
+
+    // Post-condition: Only the two food rows plus the total row are shown
+    assertEquals(3, view.getTableModel().getRowCount());
+    assertEquals(40.00, (Double) view.getTableModel().getValueAt(2, 3), 0.01);
+    assertTrue(new CategoryFilter("food").matches(model.getTransactions().get(0)));
+    assertFalse(new CategoryFilter("food").matches(model.getTransactions().get(1)));
+
+    // Removing a displayed transaction drops its row and renumbers the rest
+    model.removeTransaction(model.getTransactions().get(0));
+    assertEquals(2, view.getTableModel().getRowCount());
+    assertEquals(1, view.getTableModel().getValueAt(0, 0));
+    assertEquals(30.00, (Double) view.getTableModel().getValueAt(1, 3), 0.01);
+  }
+
+  /**
+   * The virtual table model reads rows lazily from the model's live list.
+   */
+  @Test
+  public void testTableModelReadsLiveTransactions() {
+    // Pre-condition: No filter is active and the table shows only the total row
+    assertEquals(1, view.getTableModel().getRowCount());
+
+    // Perform the action: Add transactions through the controller
+    controller.addTransaction(10.00, "food");
+    controller.addTransaction(20.00, "travel");
+    controller.addTransaction(30.00, "bills");
+
+    // Post-condition: Rows are served straight from the model with serial numbers
+    assertEquals(4, view.getTableModel().getRowCount());
+    assertEquals(3, view.getTableModel().getValueAt(2, 0));
+    assertEquals("travel", view.getTableModel().getValueAt(1, 2));
+    assertEquals("Total", view.getTableModel().getValueAt(3, 0));
+    assertEquals(60.00, view.getTableModel().getTotalCost(), 0.01);
+
+    // Removing a transaction updates the rows and the total
+    model.removeTransaction(model.getTransactions().get(1));
+    assertEquals(3, view.getTableModel().getRowCount());
+    assertEquals("bills", view.getTableModel().getValueAt(1, 2));
+    assertEquals(40.00, view.getTableModel().getTotalCost(), 0.01);
+
+    // Removals delete exactly the rows where the transactions were
+    controller.addTransaction(40.00, "other");
+    List<TableModelEvent> events = new ArrayList<>();
+    view.getTableModel().addTableModelListener(events::add);
+    model.removeAll(Arrays.asList(model.getTransactions().get(2), model.getTransactions().get(0)));
+    assertEquals(2, view.getTableModel().getRowCount());
+    assertEquals("bills", view.getTableModel().getValueAt(0, 2));
+    assertEquals(30.00, view.getTableModel().getTotalCost(), 0.01);
+    List<Integer> deleted = new ArrayList<>();
+    for (TableModelEvent event : events) {
+      assertTrue(event.getLastRow() != Integer.MAX_VALUE); // no full refresh
+      if (event.getType() == TableModelEvent.DELETE) {
+        deleted.add(event.getFirstRow());
+      }
+    }
+    assertEquals(Arrays.asList(2, 0), deleted);
+  }
+
+  /**
+   * A filter chosen in the UI is evaluated in the background and fills the
+   * table in chunks; changes made meanwhile are applied once it finishes.
+   */
+  @Test
+  public void testAsyncFilterFillsTableInBackground() throws Exception {
+    // Pre-condition: More transactions than fit in one query chunk, added
+    // on the EDT because the visible table reads the model from there
+    SwingUtilities.invokeAndWait(() -> {
+      for (int i = 0; i < 10000; i++) {
+        model.addTransaction(new Transaction(i % 100 + 1, i % 2 == 0 ? "food" : "bills"));
+      }
+    });
+
+    // Perform the action: Start an async filter and add a match while it may still run
+    SwingUtilities.invokeAndWait(() -> {
+      controller.applyFilterAsync(new CategoryFilter("food"));
+      controller.addTransaction(500.00, "food");
+    });
+    long deadline = System.currentTimeMillis() + 10000;
+    String[] status = new String[1];
+    while (status[0] == null || !status[0].contains("matches")) {
+      assertTrue("query did not finish", System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+      SwingUtilities.invokeAndWait(() -> status[0] = view.getQueryProgressBar().getString());
+    }
+
+    // Post-condition: Every match is displayed, followed by the transaction added meanwhile
+    SwingUtilities.invokeAndWait(() -> {
+      assertEquals(5002, view.getTableModel().getRowCount());
+      assertEquals(1.00, (Double) view.getTableModel().getValueAt(0, 1), 0.01);
+      assertEquals(500.00, (Double) view.getTableModel().getValueAt(5000, 1), 0.01);
+      assertEquals(50 * 50 * 49 + 50 * 51 * 50 + 500.00,
+                   view.getTableModel().getTotalCost(), 0.01);
+    });
+  }
+
+  /**
+   * An async filter backed by an index streams the index result without
+   * testing each transaction; a failing query falls back to a refresh.
+   */
+  @Test
+  public void testAsyncFilterUsesIndexAndRecoversFromFailure() throws Exception {
+    // Pre-condition: A ledger and a category filter that counts the transactions it tests
+    SwingUtilities.invokeAndWait(() -> {
+      for (int i = 0; i < 10000; i++) {
+        model.addTransaction(new Transaction(i % 100 + 1, i % 10 == 0 ? "food" : "bills"));
+      }
+    });
+    AtomicInteger tested = new AtomicInteger();
+    TransactionFilter food = new CategoryFilter("food") {
+      @Override
+      public boolean matches(Transaction t) {
+        tested.incrementAndGet();
+        return super.matches(t);
+      }
+    };
+
+    // Perform the action: Apply the filter asynchronously
+    SwingUtilities.invokeAndWait(() -> controller.applyFilterAsync(food));
+    awaitQueryStatus("matches");
+
+    // Post-condition: The matches come from the category index
+    SwingUtilities.invokeAndWait(() -> {
+      assertEquals(1001, view.getTableModel().getRowCount());
+      assertEquals(100 * (1 + 11 + 21 + 31 + 41 + 51 + 61 + 71 + 81 + 91), view.getTableModel().getTotalCost(), 0.01);
+    });
+    assertEquals(0, tested.get());
+
+    // A broad index range is scanned off the EDT instead of resolved on it
+    AtomicBoolean testedOnEdt = new AtomicBoolean();
+    TransactionFilter broad = new AmountFilter(2.00) {
+      @Override
+      public List<Transaction> filter(ExpenseTrackerModel m) {
+        testedOnEdt.compareAndSet(false, SwingUtilities.isEventDispatchThread());
+        return super.filter(m);
+      }
+
+      @Override
+      public boolean matches(Transaction t) {
+        testedOnEdt.compareAndSet(false, SwingUtilities.isEventDispatchThread());
+        return super.matches(t);
+      }
+    };
+    SwingUtilities.invokeAndWait(() -> {
+      for (int i = 0; i < 10000; i++) {
+        model.addTransaction(new Transaction(i % 100 + 1, "bills"));
+      }
+    });
+    SwingUtilities.invokeAndWait(() -> controller.applyFilterAsync(broad));
+    awaitQueryStatus("matches");
+    SwingUtilities.invokeAndWait(() ->
+        assertEquals(19800 + 1, view.getTableModel().getRowCount()));
+    assertFalse(testedOnEdt.get());
+    SwingUtilities.invokeAndWait(() -> {
+      for (Transaction t : new ArrayList<>(model.getTransactions().subList(10000, 20000))) {
+        model.removeTransaction(t);
+      }
+      controller.clearFilter();
+    });
+
+    // A query that throws hides the progress and leaves a consistent table
+    TransactionFilter failing = new TransactionFilter() {
+      @Override
+      public List<Transaction> filter(List<Transaction> txs) {
+        throw new IllegalStateException("broken filter");
+      }
+
+      @Override
+      public boolean matches(Transaction t) {
+        throw new IllegalStateException("broken filter");
+      }
+    };
+    SwingUtilities.invokeAndWait(() -> controller.applyFilterAsync(failing));
+    long deadline = System.currentTimeMillis() + 10000;
+    AtomicBoolean recovered = new AtomicBoolean();
+    while (!recovered.get()) {
+      assertTrue("query did not fail over", System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+      SwingUtilities.invokeAndWait(() -> recovered.set(!view.getQueryProgressBar().isVisible()
+                                                       && view.getTableModel().getRowCount() == 10001));
+    }
+    SwingUtilities.invokeAndWait(() -> controller.addTransaction(7.00, "food"));
+    assertEquals(10002, view.getTableModel().getRowCount());
+    assertEquals(getTotalCost(), view.getTableModel().getTotalCost(), 0.01);
+  }
+
+  /**
+   * Waits until the query progress bar shows a status containing the given text.
+   */
+  private void awaitQueryStatus(String text) throws Exception {
+    long deadline = System.currentTimeMillis() + 10000;
+    String[] status = new String[1];
+    while (status[0] == null || !status[0].contains(text)) {
+      assertTrue("query did not finish", System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+      SwingUtilities.invokeAndWait(() -> status[0] = view.getQueryProgressBar().getString());
+    }
+  }
+
+  /**
+   * AND/OR/NOT filters fuse into one predicate, use the model indexes,
+   * and can be built from a compound query.
+   */
+  @Test
+  public void testCompositeFilters() {
+    // Pre-condition: Transactions across categories and amounts
+    controller.addTransaction(10.00, "food");
+    controller.addTransaction(60.00, "food");
+    controller.addTransaction(70.00, "travel");
+    controller.addTransaction(80.00, "food");
+    controller.addTransaction(5.00, "bills");
+
+    // Perform the action: Combine filters
+    TransactionFilter bigFood = new CategoryFilter("food").and(new AmountFilter(50.00));
+    TransactionFilter foodOrBills = new CategoryFilter("food").or(new CategoryFilter("bills"));
+    TransactionFilter notFood = new CategoryFilter("food").negate();
+
+    // Post-condition: The list and index paths agree and keep insertion order
+    List<Transaction> all = model.getTransactions();
+    assertEquals(Arrays.asList(all.get(1), all.get(3)), bigFood.filter(all));
+    assertEquals(bigFood.filter(all), bigFood.filter(model));
+    assertEquals(4, foodOrBills.filter(model).size());
+    assertEquals(Arrays.asList(all.get(2), all.get(4)), notFood.filter(model));
+    assertTrue(notFood.negate() instanceof CategoryFilter);
+
+    // Chained conjunctions flatten into one level; category codes compare
+    // as cheaply as amounts, so equally cheap tests keep their order
+    AndFilter chained = (AndFilter) new CategoryFilter("food")
+        .and(new AmountFilter(50.00)).and(AmountRangeFilter.lessThan(75.00));
+    assertEquals(3, chained.getFilters().size());
+    assertTrue(chained.getFilters().get(0) instanceof CategoryFilter);
+    assertTrue(chained.getFilters().get(1) instanceof AmountFilter);
+    assertEquals(Arrays.asList(all.get(1)), chained.filter(model));
+
+    // Amount filters estimate from the index, so selective disjunctions and
+    // conjunctions are answered from the indexes, in insertion order
+    ExpenseTrackerModel ledger = new ExpenseTrackerModel(StorageMode.COLUMNAR);
+    Random random = new Random(7);
+    for (int i = 0; i < 5000; i++) {
+      ledger.addTransaction(new Transaction(random.nextInt(1000) + 1, i % 50 == 0 ? "bills" : "food"));
+    }
+    List<Transaction> rows = ledger.getTransactions();
+    TransactionFilter above990 = new AmountFilter(990);
+    TransactionFilter between = AmountRangeFilter.between(100, 105);
+    assertEquals(above990.filter(rows).size(), above990.estimateMatches(ledger));
+    assertEquals(between.filter(rows).size(), between.estimateMatches(ledger));
+    TransactionFilter rare = above990.or(between).or(new CategoryFilter("bills"));
+    assertEquals(rare.filter(rows), rare.filter(ledger));
+    ledger.removeAll(new ArrayList<>(rare.filter(ledger).subList(0, 40)));
+    rows = ledger.getTransactions();
+    assertEquals(rare.filter(rows), rare.filter(ledger));
+    TransactionFilter largeBills = new CategoryFilter("bills").and(AmountRangeFilter.between(500, 1000));
+    assertEquals(largeBills.filter(rows), largeBills.filter(ledger));
+
+    // A compound query parses into the equivalent filter
+    TransactionFilter parsed = FilterQueryParser.parse("category=food and not amount<50 or category=bills");
+    assertEquals(Arrays.asList(all.get(1), all.get(3), all.get(4)), parsed.filter(model));
+    assertTrue(FilterQueryParser.parse("!(amount >= 50)") instanceof NotFilter);
+    try {
+      FilterQueryParser.parse("category=food and");
+      fail("incomplete query was accepted");
+    } catch (IllegalArgumentException expected) {
+      // Post-condition: Malformed queries are rejected
+    }
+  }
+
+  /**
+   * Parallel filtering returns the same transactions in the same order as
+   * sequential filtering.
+   */
+  @Test
+  public void testParallelFilterKeepsOrder() {
+    // Pre-condition: A large ledger, not shown in the view, with some
+    // removals not yet compacted
+    ExpenseTrackerModel ledger = new ExpenseTrackerModel();
+    for (int i = 0; i < 20000; i++) {
+      ledger.addTransaction(new Transaction(i % 1000 + 1, i % 3 == 0 ? "food" : "travel"));
+    }
+    for (int i = 0; i < 50; i++) {
+      ledger.removeById(ledger.getTransactions().get(i * 7).getId());
+    }
+    TransactionFilter filter = new AmountFilter(500.00).and(new CategoryFilter("travel").negate());
+
+    // Perform the action: Filter sequentially and in parallel
+    List<Transaction> sequential = filter.filter(ledger.getTransactions());
+    List<Transaction> parallel = new ParallelFilter(filter, 100).filter(ledger.getTransactions());
+
+    // Post-condition: Both results are identical, including order
+    assertTrue(sequential.size() > 0);
+    assertEquals(sequential, parallel);
+    assertEquals(sequential, new ParallelFilter(filter, 100).filter(ledger));
+
+    // An index range is resolved on the calling thread only up to the threshold
+    AtomicInteger tested = new AtomicInteger();
+    TransactionFilter upper = new AmountFilter(500.00) {
+      @Override
+      public boolean matches(Transaction t) {
+        tested.incrementAndGet();
+        return super.matches(t);
+      }
+    };
+    assertEquals(upper.filter(ledger), new ParallelFilter(upper, 100000).filter(ledger));
+    assertEquals(0, tested.get());
+    assertEquals(upper.filter(ledger), new ParallelFilter(upper, 100).filter(ledger));
+    assertTrue(tested.get() >= ledger.getTransactions().size());
+
+    // The controller can be configured to filter in parallel
+    controller.addTransaction(600.00, "food");
+    controller.addTransaction(700.00, "travel");
+    controller.setExecutionMode(ExecutionMode.PARALLEL);
+    controller.applyFilter(filter);
+    assertEquals(2, view.getTableModel().getRowCount());
+  }
+
+  /**
+   * The journal restores the model after a restart, including changes made
+   * after a snapshot, and drops a torn record at the end of the log.
+   */
+  @Test
+  public void testJournalRecoversTransactions() throws Exception {
+    Path dir = Files.createTempDirectory("journal");
+    try {
+      // Pre-condition: A journaled model with a snapshot and later changes
+      TransactionJournal journal = TransactionJournal.open(dir, model, 1, 200);
+      SwingUtilities.invokeAndWait(() -> {
+        for (int i = 1; i <= 10; i++) {
+          controller.addTransaction(i * 10.0, i % 2 == 0 ? "food" : "bills");
+        }
+        model.removeTransaction(model.getTransactions().get(3));
+        controller.addTransaction(999.00, "travel");
+      });
+      journal.close();
+      List<Transaction> before = model.getTransactions();
+      try (Stream<Path> files = Files.list(dir)) {
+        // older snapshots are removed once a newer one is in place
+        assertEquals(1, files.filter(p -> p.toString().endsWith(".ledger")).count());
+      }
+
+      // Simulate a crash in the middle of writing a record
+      try (FileChannel log = FileChannel.open(dir.resolve("transactions.log"), StandardOpenOption.APPEND)) {
+        log.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 29, 1, 2, 3}));
+      }
+
+      // Perform the action: Restore into a fresh model
+      ExpenseTrackerModel restored = new ExpenseTrackerModel(StorageMode.COLUMNAR);
+      TransactionJournal reopened = TransactionJournal.open(dir, restored);
+
+      // Post-condition: Same transactions, indexes rebuilt, new IDs stay unique
+      assertEquals(before, restored.getTransactions());
+      for (int i = 0; i < before.size(); i++) {
+        assertEquals(before.get(i).getAmount(), restored.getTransactions().get(i).getAmount(), 0.001);
+        assertEquals(before.get(i).getCategory(), restored.getTransactions().get(i).getCategory());
+        assertEquals(before.get(i).getTimestamp(), restored.getTransactions().get(i).getTimestamp());
+      }
+      assertEquals(5, restored.getTransactionsInAmountRange(50, true, 90, true).size());
+      Transaction added = new Transaction(5.00, "other");
+      restored.addTransaction(added);
+      assertTrue(added.getId() > before.get(before.size() - 1).getId());
+      reopened.close();
+
+      // The repaired log accepts appends and replays them on the next start
+      ExpenseTrackerModel third = new ExpenseTrackerModel();
+      TransactionJournal.open(dir, third).close();
+      assertEquals(before.size() + 1, third.getTransactions().size());
+    } finally {
+      try (Stream<Path> files = Files.walk(dir)) {
+        files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+      }
+    }
+  }
+
+  /**
+   * A journal that cannot write does not interrupt the model's change
+   * notifications; the failure is reported to the failure handler and by
+   * flush() and close().
+   */
+  @Test
+  public void testJournalFailureIsReportedNotThrown() throws Exception {
+    Path dir = Files.createTempDirectory("journal");
+    try {
+      // Pre-condition: A journal whose first snapshot cannot be written,
+      // and a listener registered after it
+      ExpenseTrackerModel ledger = new ExpenseTrackerModel();
+      TransactionJournal journal = TransactionJournal.open(dir, ledger, 1, 1);
+      Files.createDirectories(dir.resolve("transactions-2.ledger.tmp").resolve("blocked"));
+      List<IOException> failures = new ArrayList<>();
+      journal.setFailureHandler(failures::add);
+      AtomicInteger events = new AtomicInteger();
+      ledger.addChangeListener(e -> events.incrementAndGet());
+
+      // Perform the action: Change the model
+      ledger.addTransaction(new Transaction(10.00, "food"));
+      ledger.addTransaction(new Transaction(20.00, "bills"));
+
+      // Post-condition: Every change is applied and seen by the later
+      // listener, and the failure is reported once
+      assertEquals(2, ledger.getTransactions().size());
+      assertEquals(2, events.get());
+      assertEquals(1, failures.size());
+      try {
+        journal.flush();
+        fail("flush() must report the failed snapshot");
+      } catch (IOException expected) {
+        assertEquals(failures.get(0), expected.getCause());
+      }
+      try {
+        journal.close();
+        fail("close() must report the failed snapshot");
+      } catch (IOException expected) {
+        assertEquals(failures.get(0), expected.getCause());
+      }
+
+      // A category too long to journal fails the journal and drops the whole batch
+      Path longDir = dir.resolve("long");
+      ExpenseTrackerModel named = new ExpenseTrackerModel();
+      TransactionJournal longJournal = TransactionJournal.open(longDir, named);
+      longJournal.setFailureHandler(failures::add);
+      named.addTransaction(new Transaction(5.00, "food"));
+      char[] name = new char[65536];
+      Arrays.fill(name, 'x');
+      named.addAll(Arrays.asList(new Transaction(6.00, "travel"), new Transaction(7.00, new String(name))));
+      assertEquals(3, named.getTransactions().size());
+      assertEquals(2, failures.size());
+      try {
+        longJournal.close();
+        fail("close() must report the category that was too long");
+      } catch (IOException expected) {
+        assertEquals(failures.get(1), expected.getCause());
+      }
+      ExpenseTrackerModel restored = new ExpenseTrackerModel();
+      TransactionJournal.open(longDir, restored).close();
+      assertEquals(1, restored.getTransactions().size());
+      assertEquals(5.00, restored.getTransactions().get(0).getAmount(), 0.001);
+    } finally {
+      try (Stream<Path> files = Files.walk(dir)) {
+        files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+      }
+    }
+  }
+
+  /**
+   * A saved ledger opens as a mapped model that answers lookups and
+   * queries, accepts new transactions and compacts removed mapped rows.
+   */
+  @Test
+  public void testOpenLedgerMapsSavedTransactions() throws IOException {
+    Path file = Files.createTempFile("transactions", ".ledger");
+    try {
+      // Pre-condition: A saved ledger
+      ExpenseTrackerModel ledger = new ExpenseTrackerModel();
+      for (int i = 1; i <= 1000; i++) {
+        ledger.addTransaction(new Transaction(i, i % 3 == 0 ? "food" : null));
+      }
+      ledger.saveLedger(file);
+      List<Transaction> saved = ledger.getTransactions();
+
+      // Perform the action: Open the ledger and add to it
+      ExpenseTrackerModel opened = ExpenseTrackerModel.openLedger(file, StorageMode.LIST);
+      Transaction added = new Transaction(2000, "travel");
+      opened.addTransaction(added);
+
+      // Post-condition: Mapped rows read back, IDs stay unique, indexes work
+      assertEquals(1001, opened.getTransactions().size());
+      for (int i = 0; i < saved.size(); i++) {
+        assertEquals(saved.get(i).getId(), opened.getTransactions().get(i).getId());
+        assertEquals(saved.get(i).getAmount(), opened.getTransactions().get(i).getAmount(), 0.001);
+        assertEquals(saved.get(i).getCategory(), opened.getTransactions().get(i).getCategory());
+        assertEquals(saved.get(i).getTimestamp(), opened.getTransactions().get(i).getTimestamp());
+      }
+      assertTrue(added.getId() > saved.get(saved.size() - 1).getId());
+      assertEquals(333, opened.getTransactionsInCategory("FOOD").size());
+      assertEquals(12, opened.getTransactionsInAmountRange(990, true, 2000, true).size());
+      try {
+        opened.addTransaction(saved.get(10));
+        fail("A mapped transaction must not be added twice");
+      } catch (IllegalArgumentException expected) {
+        // duplicate ID
+      }
+
+      // Removing mapped rows compacts them out without touching the file
+      for (int i = 0; i < 500; i++) {
+        assertTrue(opened.removeById(saved.get(2 * i).getId()));
+      }
+      assertEquals(501, opened.getTransactions().size());
+      assertEquals(saved.get(999), opened.getTransactions().get(499));
+      assertEquals(added, opened.getTransactions().get(500));
+      assertEquals(166, opened.getTransactionsInCategory("food").size());
+      assertFalse(opened.removeById(saved.get(0).getId()));
+      assertTrue(opened.removeById(saved.get(1).getId()));
+
+      // The longest category name that fits is saved; a longer one is an IOException
+      char[] name = new char[65534];
+      Arrays.fill(name, 'x');
+      ExpenseTrackerModel named = new ExpenseTrackerModel();
+      named.addTransaction(new Transaction(1, new String(name)));
+      named.saveLedger(file);
+      assertEquals(new String(name),
+                   ExpenseTrackerModel.openLedger(file, StorageMode.LIST).getTransactions().get(0).getCategory());
+      named.addTransaction(new Transaction(2, new String(name) + "x"));
+      try {
+        named.saveLedger(file);
+        fail("A category of 65535 bytes must not be saved");
+      } catch (IOException expected) {
+        // too long for the ledger's dictionary buffer
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /**
+   * A CSV import adds the valid rows in batches, reports the rejected ones
+   * and refreshes the table once; an export reads back the same rows.
+   */
+  @Test
+  public void testCsvImportAndExport() throws Exception {
+    Path csv = Files.createTempFile("statement", ".csv");
+    Path exported = Files.createTempFile("export", ".csv");
+    try {
+      // Pre-condition: A statement with a header, valid rows and bad rows
+      StringBuilder rows = new StringBuilder("amount,category\n");
+      for (int i = 1; i <= 10000; i++) {
+        rows.append(i % 1000 + 1).append(',').append(i % 2 == 0 ? "food" : "\"bills\"").append('\n');
+      }
+      rows.append("-5,food\n").append("12,rent\n").append("abc,food\n").append("7\n");
+      Files.write(csv, rows.toString().getBytes(StandardCharsets.UTF_8));
+
+      // Perform the action: Import on the EDT, as the view would
+      CsvImporter.Result[] result = new CsvImporter.Result[1];
+      SwingUtilities.invokeAndWait(() -> {
+        try {
+          result[0] = controller.importCsv(csv);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+
+      // Post-condition: Valid rows imported and shown, bad rows reported
+      assertEquals(10000, result[0].getImportedCount());
+      assertEquals(4, result[0].getRejectedCount());
+      assertEquals(10002, result[0].getRejections().get(0).getLineNumber());
+      assertEquals("Invalid category", result[0].getRejections().get(1).getReason());
+      assertEquals(10000, model.getTransactions().size());
+      assertEquals(5000, model.getTransactionsInCategory("bills").size());
+      assertEquals(10001, view.getTransactionsTable().getRowCount());
+
+      // Exported rows import into another model unchanged
+      assertEquals(10000, controller.exportCsv(exported));
+      ExpenseTrackerModel copy = new ExpenseTrackerModel();
+      CsvImporter.Result reimported = new CsvImporter(copy, 999).importFrom(exported);
+      assertEquals(0, reimported.getRejectedCount());
+      for (int i = 0; i < 10000; i++) {
+        assertEquals(model.getTransactions().get(i).getAmount(), copy.getTransactions().get(i).getAmount(), 0.001);
+        assertEquals(model.getTransactions().get(i).getCategory(), copy.getTransactions().get(i).getCategory());
+        assertEquals(model.getTransactions().get(i).getTimestampMillis(),
+                     copy.getTransactions().get(i).getTimestampMillis());
+      }
+    } finally {
+      Files.deleteIfExists(csv);
+      Files.deleteIfExists(exported);
+    }
+  }
+
+  /**
+   * Non-finite amounts are rejected by the validators and the importer,
+   * so they never reach the running sums.
+   */
+  @Test
+  public void testNonFiniteAmountsAreRejected() throws Exception {
+    // Pre-condition: Rows with NaN and infinite amounts between valid ones
+    String csv = "10,food\nNaN,food\nInfinity,bills\n-Infinity,bills\n20,food\n";
+
+    // Perform the action: Validate and import them
+    BatchValidation batch = InputValidation.validate(
+        new double[] {10, Double.NaN, Double.POSITIVE_INFINITY}, null, 3, new BatchValidation());
+    ExpenseTrackerModel ledger = new ExpenseTrackerModel();
+    CsvImporter.Result result = new CsvImporter(ledger).importFrom(new BufferedReader(new StringReader(csv)));
+
+    // Post-condition: Only the finite amounts are accepted
+    assertFalse(InputValidation.isValidAmount(Double.NaN));
+    assertFalse(batch.isRejected(0));
+    assertTrue(batch.isRejected(1));
+    assertTrue(batch.isRejected(2));
+    assertFalse(controller.addTransaction(Double.NaN, "food"));
+    assertEquals(2, result.getImportedCount());
+    assertEquals(3, result.getRejectedCount());
+    assertEquals("Amount is not a finite number", result.getRejections().get(0).getReason());
+    assertEquals(30.00, ledger.getAggregate().getSum(), 0.001);
+    assertEquals(30.00, ledger.getCategoryAggregate("food").getSum(), 0.001);
+  }
+
+  /**
+   * Timestamps are kept as epoch milliseconds, can be given explicitly and
+   * are only formatted when asked for; imports keep the file's timestamps.
+   */
+  @Test
+  public void testExplicitTimestamps() throws IOException {
+    // Pre-condition: A known point in time
+    long millis = Transaction.parseTimestamp("28-10-2025 14:30");
+
+    // Perform the action: Create transactions with and without a timestamp
+    Transaction imported = new Transaction(12.50, "food", millis);
+    Transaction now = new Transaction(8.00, "travel");
+
+    // Post-condition: Timestamps compare as numbers and format on demand
+    assertEquals(millis, imported.getTimestampMillis());
+    assertEquals("28-10-2025 14:30", imported.getTimestamp());
+    assertTrue(now.getTimestampMillis() > imported.getTimestampMillis());
+    try {
+      Transaction.parseTimestamp("2025-10-28");
+      fail("Timestamps in another format must be rejected");
+    } catch (IllegalArgumentException expected) {
+      // wrong format
+    }
+
+    // Columnar storage and CSV imports keep explicit timestamps
+    ExpenseTrackerModel columnar = new ExpenseTrackerModel(StorageMode.COLUMNAR);
+    columnar.addTransaction(imported);
+    assertEquals(millis, columnar.getTransactions().get(0).getTimestampMillis());
+    CsvImporter.Result result = new CsvImporter(columnar).importFrom(new BufferedReader(new StringReader(
+        "5,bills,01-02-2024 09:15\n6,bills,31-13-2024 09:15\n7,bills\n")));
+    assertEquals(2, result.getImportedCount());
+    assertEquals("Invalid timestamp", result.getRejections().get(0).getReason());
+    assertEquals("01-02-2024 09:15", columnar.getTransactions().get(1).getTimestamp());
+    assertTrue(columnar.getTransactions().get(2).getTimestampMillis() >= now.getTimestampMillis());
+  }
+
+  /**
+   * Date range filters are answered from the model's time index, also
+   * after out-of-order inserts, removals and for mapped ledgers.
+   */
+  @Test
+  public void testDateRangeFilterUsesTimeIndex() throws IOException {
+    // Pre-condition: One transaction per day of October 2025, one late import
+    ExpenseTrackerModel ledger = new ExpenseTrackerModel(StorageMode.COLUMNAR);
+    long october = Transaction.parseTimestamp("01-10-2025 12:00");
+    for (int day = 0; day < 31; day++) {
+      ledger.addTransaction(new Transaction(day + 1, "food", october + day * 86_400_000L));
+    }
+    Transaction late = new Transaction(500, "bills", Transaction.parseTimestamp("15-10-2025 08:00"));
+    ledger.addTransaction(late);
+
+    // Perform the action: Filter by the middle of the month
+    DateRangeFilter week = DateRangeFilter.between(LocalDate.of(2025, 10, 10), LocalDate.of(2025, 10, 16));
+    List<Transaction> result = week.filter(ledger);
+
+    // Post-condition: Same rows as a scan, in insertion order
+    assertEquals(week.filter(ledger.getTransactions()), result);
+    assertEquals(8, result.size());
+    assertEquals(late, result.get(7));
+    assertEquals(8, week.estimateMatches(ledger));
+    assertEquals(10.0, result.get(0).getAmount(), 0.001);
+
+    // Removals and compaction keep the index consistent
+    for (int i = 0; i < 20; i++) {
+      ledger.removeTransaction(ledger.getTransactions().get(0));
+    }
+    assertEquals(week.filter(ledger.getTransactions()), week.filter(ledger));
+    assertEquals(Arrays.asList(late), week.filter(ledger));
+
+    // The index is built lazily for a mapped ledger, and queries can use dates
+    Path file = Files.createTempFile("transactions", ".ledger");
+    try {
+      ledger.saveLedger(file);
+      ExpenseTrackerModel opened = ExpenseTrackerModel.openLedger(file, StorageMode.LIST);
+      TransactionFilter query = FilterQueryParser.parse("date >= 25-10-2025 or date = 15-10-2025");
+      assertEquals(query.filter(opened.getTransactions()), query.filter(opened));
+      assertEquals(8, query.filter(opened).size());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+
+    // A newest-first import batch, with repeated timestamps, is merged in once
+    List<Transaction> statement = new ArrayList<>();
+    for (int i = 2000; i > 0; i--) {
+      statement.add(new Transaction(i % 1000 + 1, "travel", october + (i / 2) * 3_600_000L));
+    }
+    ledger.addAll(statement);
+    ledger.addTransaction(new Transaction(7, "food", october));
+    for (DateRangeFilter range : Arrays.asList(week,
+        DateRangeFilter.between(LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 2)),
+        DateRangeFilter.between(LocalDate.of(2025, 11, 1), LocalDate.of(2025, 12, 31)))) {
+      assertEquals(range.filter(ledger.getTransactions()), range.filter(ledger));
+      assertEquals(range.filter(ledger).size(), range.estimateMatches(ledger));
+    }
+  }
+
+  /**
+   * The model's running aggregates follow every add and remove, keep the
+   * sum accurate and give the table its total without a scan.
+   */
+  @Test
+  public void testRunningAggregates() throws IOException {
+    // Pre-condition: Transactions in two categories
+    ExpenseTrackerModel ledger = new ExpenseTrackerModel(StorageMode.COLUMNAR);
+    RunningAggregate all = ledger.getAggregate();
+    RunningAggregate food = ledger.getCategoryAggregate("Food");
+    Transaction small = new Transaction(0.10, "food");
+    Transaction big = new Transaction(900, "bills");
+    ledger.addTransaction(small);
+    ledger.addTransaction(big);
+    for (int i = 0; i < 100000; i++) {
+      ledger.addTransaction(new Transaction(0.10, "food"));
+    }
+
+    // Post-condition: Counts, compensated sums and extremes are current
+    assertEquals(100002, all.getCount());
+    assertEquals(10900.1, all.getSum(), 1e-9);
+    assertEquals(10000.1, food.getSum(), 1e-9);
+    assertEquals(0.10, all.getMin(), 0);
+    assertEquals(900, all.getMax(), 0);
+
+    // Perform the action: Remove the extremes and most transactions
+    ledger.removeTransaction(big);
+    ledger.removeAll(new ArrayList<>(ledger.getTransactions().subList(1, 100001)));
+
+    // Post-condition: Extremes recomputed, sums back to the exact remainder
+    assertEquals(1, all.getCount());
+    assertEquals(0.10, all.getSum(), 0);
+    assertEquals(0.10, all.getMax(), 0);
+    assertEquals(0, ledger.getCategoryAggregate("bills").getCount());
+    assertEquals(1, ledger.getCategoryTotals().size());
+    assertEquals(0.10, ledger.getCategoryTotals().get("food"), 0);
+
+    // A mapped ledger computes its aggregates on first use
+    Path file = Files.createTempFile("transactions", ".ledger");
+    try {
+      ledger.addTransaction(new Transaction(25, "travel"));
+      ledger.saveLedger(file);
+      ExpenseTrackerModel opened = ExpenseTrackerModel.openLedger(file, StorageMode.LIST);
+      assertEquals(25.10, opened.getAggregate().getSum(), 1e-9);
+      assertEquals(25.0, opened.getCategoryAggregate("travel").getAverage(), 0);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+
+    // The view reads the total of the live list from the model
+    controller.addTransaction(40, "food");
+    controller.addTransaction(60, "bills");
+    model.removeTransaction(model.getTransactions().get(0));
+    assertEquals(60, view.getTableModel().getTotalCost(), 0);
+    assertEquals(model.getAggregate().getSum(), view.getTableModel().getTotalCost(), 0);
+  }
+
+  /**
+   * Filter results are cached by filter value, kept current on model
+   * changes and reused when the view switches back to a filter.
+   */
+  @Test
+  public void testFilterResultCache() throws Exception {
+    // Pre-condition: Filters with equal parameters are equal
+    assertEquals(new CategoryFilter("Food"), new CategoryFilter("food"));
+    assertEquals(new CategoryFilter("food").hashCode(), new CategoryFilter("FOOD").hashCode());
+    assertEquals(new AmountFilter(50), new AmountFilter(50));
+    assertFalse(new AmountFilter(50).equals(new AmountFilter(51)));
+    assertEquals(new AndFilter(new CategoryFilter("food"), new AmountFilter(50)),
+                 new AndFilter(new CategoryFilter("FOOD"), new AmountFilter(50)));
+    assertEquals(new NotFilter(AmountRangeFilter.between(1, 2)), new NotFilter(AmountRangeFilter.between(1, 2)));
+
+    // Perform the action: Cache two results of a detached model, then change it
+    ExpenseTrackerModel ledger = new ExpenseTrackerModel();
+    FilterResultCache cache = new FilterResultCache(2);
+    ledger.addChangeListener(cache);
+    for (int i = 0; i < 1000; i++) {
+      ledger.addTransaction(new Transaction(i % 100 + 1, i % 2 == 0 ? "food" : "bills"));
+    }
+    TransactionFilter food = new CategoryFilter("food");
+    TransactionFilter large = new AmountFilter(90);
+    cache.put(food, food.filter(ledger));
+    cache.put(large, large.filter(ledger));
+    ledger.addTransaction(new Transaction(95, "food"));
+    ledger.removeAll(new ArrayList<>(ledger.getTransactions().subList(0, 300)));
+
+    // Post-condition: Cached results equal a fresh evaluation
+    assertEquals(food.filter(ledger), cache.get(new CategoryFilter("FOOD")));
+    assertEquals(large.filter(ledger), cache.get(new AmountFilter(90)));
+
+    // Removals are applied when a result is read; a re-added transaction is kept
+    Transaction readded = food.filter(ledger).get(0);
+    ledger.removeTransaction(readded);
+    ledger.removeTransaction(large.filter(ledger).get(0));
+    ledger.addTransaction(readded);
+    assertEquals(food.filter(ledger), cache.get(food));
+    assertEquals(large.filter(ledger), cache.get(large));
+
+    // "Last 30 days" is the same cache key all day
+    assertEquals(DateRangeFilter.lastDays(30), DateRangeFilter.lastDays(30));
+
+    // The least recently used result is evicted when the cache is full
+    cache.get(food);
+    cache.put(new CategoryFilter("bills"), new CategoryFilter("bills").filter(ledger));
+    assertEquals(2, cache.size());
+    assertTrue(cache.contains(food));
+    assertFalse(cache.contains(large));
+
+    // Switching back to a filter in the view reuses the patched result
+    SwingUtilities.invokeAndWait(() -> {
+      controller.addTransaction(40, "food");
+      controller.addTransaction(60, "bills");
+      controller.applyFilter(new CategoryFilter("food"));
+      controller.applyFilter(new AmountFilter(50));
+      controller.addTransaction(70, "food");
+      controller.applyFilterAsync(new CategoryFilter("food"));
+    });
+    assertEquals(3, view.getTableModel().getRowCount());
+    assertEquals(110, view.getTableModel().getTotalCost(), 0);
+  }
+
+  /**
+   * The concurrent model accepts adds from several threads, sees every
+   * completed add in later removals and reads, and hands out snapshots
+   * that stay stable while other threads keep writing. Index-backed amount
+   * and disjunctive filters run against the model while it is written.
+   */
+  @Test
+  public void testConcurrentModelUnderContention() throws Exception {
+    // Pre-condition: An empty concurrent model fed by four producers
+    ConcurrentExpenseTrackerModel ledger = new ConcurrentExpenseTrackerModel(StorageMode.COLUMNAR);
+    int producers = 4;
+    int perProducer = 25000;
+    ConcurrentLinkedQueue<Transaction> added = new ConcurrentLinkedQueue<>();
+    AtomicInteger removed = new AtomicInteger();
+    AtomicBoolean done = new AtomicBoolean();
+    List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+    List<Thread> threads = new ArrayList<>();
+    // a listener that reads the model during notification, and one after it
+    AtomicInteger notifiedSize = new AtomicInteger();
+    List<Transaction> notifiedAdds = new ArrayList<>();
+    ledger.addChangeListener(e -> {
+      int change = e.getTransactions().size();
+      int size = notifiedSize.addAndGet(e.getType() == TransactionChangeEvent.Type.ADDED ? change : -change);
+      if (ledger.getTransactions().size() != size) {
+        failures.add(new AssertionError("Model read during notification is ahead of the event"));
+      }
+    });
+    ledger.addChangeListener(e -> {
+      if (e.getType() == TransactionChangeEvent.Type.ADDED) {
+        notifiedAdds.addAll(e.getTransactions());
+      }
+    });
+
+    // Perform the action: Add, remove and read concurrently
+    for (int p = 0; p < producers; p++) {
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < perProducer; i++) {
+          Transaction t = new Transaction(i % 100 + 1, i % 2 == 0 ? "food" : "bills");
+          ledger.addTransaction(t);
+          added.add(t);
+        }
+      }));
+    }
+    Thread remover = new Thread(() -> {
+      try {
+        while (!done.get() || !added.isEmpty()) {
+          Transaction t = added.poll();
+          if (t != null && t.getId() % 3 == 0) {
+            // the add returned before the transaction was queued
+            assertTrue(ledger.removeTransaction(t));
+            assertFalse(ledger.removeTransaction(t));
+            removed.incrementAndGet();
+          }
+        }
+      } catch (Throwable ex) {
+        failures.add(ex);
+      }
+    });
+    Thread reader = new Thread(() -> {
+      try {
+        while (!done.get()) {
+          List<Transaction> view = ledger.getTransactions();
+          int size = view.size();
+          double sum = 0;
+          for (Transaction t : view) {
+            sum += t.getAmount();
+          }
+          assertEquals(size, view.size());
+          assertTrue(sum >= size);
+        }
+      } catch (Throwable ex) {
+        failures.add(ex);
+      }
+    });
+    TransactionFilter large = new AmountFilter(96);
+    TransactionFilter extremes = new OrFilter(AmountRangeFilter.lessThan(3), new AmountFilter(99));
+    Thread filterer = new Thread(() -> {
+      try {
+        while (!done.get()) {
+          for (TransactionFilter f : Arrays.asList(large, extremes)) {
+            assertTrue(f.estimateMatches(ledger) >= 0);
+            List<Transaction> matches = f.filter(ledger);
+            for (Transaction t : matches) {
+              assertTrue(f.matches(t));
+            }
+            assertEquals(matches.size(), new HashSet<>(matches).size());
+          }
+        }
+      } catch (Throwable ex) {
+        failures.add(ex);
+      }
+    });
+    for (Thread t : threads) {
+      t.start();
+    }
+    remover.start();
+    reader.start();
+    filterer.start();
+    for (Thread t : threads) {
+      t.join();
+    }
+    done.set(true);
+    remover.join();
+    reader.join();
+    filterer.join();
+
+    // Post-condition: Every add and remove took effect exactly once
+    assertTrue(failures.toString(), failures.isEmpty());
+    int expected = producers * perProducer - removed.get();
+    assertTrue(removed.get() > 0);
+    assertEquals(expected, ledger.getTransactions().size());
+    assertEquals(expected, ledger.getAggregate().getCount());
+    assertEquals(expected, ledger.getTransactionsInCategory("food").size()
+                           + ledger.getTransactionsInCategory("bills").size());
+    assertEquals(expected, new HashSet<>(ledger.getTransactions()).size());
+    for (Transaction t : ledger.getTransactions()) {
+      assertTrue(t.getId() % 3 != 0);
+    }
+    for (TransactionFilter f : Arrays.asList(large, extremes)) {
+      assertEquals(f.filter(ledger.getTransactions()), f.filter(ledger));
+    }
+
+    // Listeners received the adds in the order they were applied
+    assertEquals(expected, notifiedSize.get());
+    notifiedAdds.removeIf(t -> t.getId() % 3 == 0);
+    assertEquals(ledger.getTransactions(), notifiedAdds);
+  }
+
+  /**
+   * Snapshots are frozen versions of the transaction list that stay
+   * unchanged while the model keeps changing.
+   */
+  @Test
+  public void testSnapshotsAreFrozen() {
+    for (StorageMode mode : StorageMode.values()) {
+      // Pre-condition: A model in each storage mode
+      ExpenseTrackerModel ledger = new ExpenseTrackerModel(mode);
+      List<Transaction> expected = new ArrayList<>();
+      for (int i = 0; i < 40000; i++) {
+        Transaction t = new Transaction(i % 500 + 1, "food");
+        ledger.addTransaction(t);
+        expected.add(t);
+      }
+
+      // Perform the action: Take snapshots between appends and removals
+      List<Transaction> first = ledger.snapshot();
+      assertTrue(first == ledger.snapshot());
+      for (int i = 0; i < 40000; i++) {
+        ledger.addTransaction(new Transaction(7, "bills"));
+      }
+      List<Transaction> second = ledger.snapshot();
+      ledger.removeTransaction(expected.get(0));
+      List<Transaction> third = ledger.snapshot();
+      List<Transaction> thirdCopy = new ArrayList<>(third);
+      // more removals, enough to compact the store, after the snapshot
+      for (int i = 1; i < 30000; i++) {
+        ledger.removeTransaction(expected.get(i));
+      }
+      ledger.removeAll(new ArrayList<>(ledger.getTransactions().subList(10000, 30000)));
+
+      // Post-condition: Each snapshot shows the model as it was when taken
+      assertEquals(expected, first);
+      assertEquals(80000, second.size());
+      assertEquals(expected, second.subList(0, 40000));
+      assertEquals(7, second.get(79999).getAmount(), 0);
+      assertEquals(79999, third.size());
+      assertEquals(thirdCopy, third);
+      assertEquals(expected.get(1), third.get(0));
+      assertEquals(ledger.getTransactions(), ledger.snapshot());
+      assertEquals(30000, ledger.snapshot().size());
+      try {
+        first.remove(0);
+        fail("Snapshots must be immutable");
+      } catch (UnsupportedOperationException expectedException) {
+        // frozen
+      }
+    }
+  }
+
+  /**
+   * Controller operations and filter evaluations are timed into latency
+   * histograms that can be switched off and are published over JMX.
+   */
+  @Test
+  public void testControllerMetrics() throws Exception {
+    // Pre-condition: Histogram buckets keep values within 1/64
+    LatencyHistogram histogram = new LatencyHistogram("test");
+    for (long nanos = 1; nanos <= 1000000; nanos++) {
+      histogram.record(nanos);
+    }
+    assertEquals(1000000, histogram.getCount());
+    assertEquals(500000, histogram.getValueAtPercentile(50), 500000 / 64.0);
+    assertEquals(990000, histogram.getValueAtPercentile(99), 990000 / 64.0);
+    assertEquals(1000000, histogram.getValueAtPercentile(100));
+
+    // Perform the action: Add and filter through the controller
+    ControllerMetrics metrics = controller.getMetrics();
+    SwingUtilities.invokeAndWait(() -> {
+      controller.addTransaction(50, "food");
+      controller.addTransaction(-5, "food");
+      controller.applyFilter(new CategoryFilter("food"));
+      controller.applyFilter(new AmountFilter(10));
+      metrics.setEnabled(false);
+      controller.addTransaction(60, "bills");
+    });
+
+    // Post-condition: Each operation was counted while recording was on
+    assertEquals(1, metrics.getAddTransactionLatency().getCount());
+    assertEquals(1, metrics.getRejectedAdds());
+    assertEquals(2, metrics.getApplyFilterLatency().getCount());
+    assertTrue(metrics.getRefreshLatency().getCount() >= 2);
+    assertEquals(1, metrics.getFilterLatency(CategoryFilter.class).getCount());
+    assertTrue(metrics.dump().contains("filter.AmountFilter count=1"));
+
+    // The metrics are readable as MBeans
+    MBeanServer server = MBeanServerFactory.newMBeanServer();
+    metrics.registerMBeans(server);
+    assertEquals(1L, server.getAttribute(
+        new ObjectName("expensetracker:type=Latency,name=addTransaction"), "Count"));
+    assertEquals(false, server.getAttribute(
+        new ObjectName("expensetracker:type=ControllerMetrics"), "Enabled"));
+    metrics.unregisterMBeans();
+  }
+
+  /**
+   * Categories are resolved to dictionary codes once; spellings that differ
+   * only in case share a code, and filters, indexes and validation agree.
+   */
+  @Test
+  public void testCategoryDictionary() {
+    // Pre-condition: Transactions in several spellings, in both storage modes
+    ExpenseTrackerModel columnar = new ExpenseTrackerModel(StorageMode.COLUMNAR);
+    Transaction lower = new Transaction(10.00, "food");
+    Transaction upper = new Transaction(20.00, "FOOD");
+    Transaction bills = new Transaction(30.00, "Bills");
+    Transaction none = new Transaction(40.00, null);
+    for (Transaction t : Arrays.asList(lower, upper, bills, none)) {
+      model.addTransaction(t);
+      columnar.addTransaction(t);
+    }
+
+    // Perform the action: Resolve codes and filter by them
+    int food = CategoryDictionary.codeOf("Food");
+    CategoryFilter filter = new CategoryFilter("fOOd");
+
+    // Post-condition: Codes ignore case and are shared across stores
+    assertEquals(food, lower.getCategoryCode());
+    assertEquals(food, upper.getCategoryCode());
+    assertEquals(CategoryDictionary.codeOf("bills"), bills.getCategoryCode());
+    assertTrue(food != bills.getCategoryCode());
+    assertEquals(CategoryDictionary.NONE, none.getCategoryCode());
+    assertEquals("food", CategoryDictionary.nameOf(food));
+    assertEquals("FOOD", upper.getCategory());
+    assertEquals(food, columnar.getTransactions().get(1).getCategoryCode());
+    int registered = CategoryDictionary.size();
+    assertEquals(CategoryDictionary.NONE, CategoryDictionary.lookup("Souvenirs"));
+    assertEquals(registered, CategoryDictionary.size());
+
+    assertTrue(filter.matches(lower) && filter.matches(upper) && !filter.matches(bills));
+    assertFalse(filter.matches(none));
+    assertEquals(new CategoryFilter("FOOD"), filter);
+    assertEquals(new CategoryFilter("FOOD").hashCode(), filter.hashCode());
+    assertEquals(Arrays.asList(lower, upper), filter.filter(model));
+    assertEquals(Arrays.asList(lower, upper), filter.filter(columnar));
+    assertEquals(30.00, columnar.getCategoryAggregate("BILLS").getSum(), 0.001);
+    assertEquals(Arrays.asList("bills", "food"), new ArrayList<>(model.getCategoryTotals().keySet()));
+
+    assertTrue(InputValidation.isValidCategory("Entertainment"));
+    assertTrue(InputValidation.isValidCategory("oThEr"));
+    assertFalse(InputValidation.isValidCategory(" food"));
+    assertFalse(InputValidation.isValidCategory("food1"));
+    assertFalse(InputValidation.isValidCategory("groceries"));
+    assertFalse(InputValidation.isValidCategory(""));
+    assertFalse(InputValidation.isValidCategory(null));
+
+    // Querying an unknown category does not register it
+    int known = CategoryDictionary.size();
+    assertEquals(0, model.getCategoryAggregate("Unusedcategory").getCount());
+    assertEquals(CategoryDictionary.NONE, CategoryDictionary.lookup("unusedcategory"));
+    assertEquals(known, CategoryDictionary.size());
+
+    // Creating a transaction does not register its category, adding it to a model does
+    Transaction rejected = new Transaction(50.00, "Souvenirs");
+    assertEquals(CategoryDictionary.NONE, rejected.getCategoryCode());
+    assertEquals(known, CategoryDictionary.size());
+    assertFalse(controller.addTransaction(50.00, "Souvenirs"));
+    assertEquals(known, CategoryDictionary.size());
+    columnar.addTransaction(rejected);
+    assertEquals(known + 1, CategoryDictionary.size());
+    assertEquals(CategoryDictionary.lookup("souvenirs"), rejected.getCategoryCode());
+    assertEquals(1, columnar.getTransactionsInCategory("SOUVENIRS").size());
+    assertEquals("Souvenirs", columnar.getTransactionsInCategory("souvenirs").get(0).getCategory());
+  }
+
+  /**
+   * A batch is validated in one pass with the same rules as the single-value
+   * checks, and the controller adds only its valid rows.
+   */
+  @Test
+  public void testBatchValidation() throws Exception {
+    // Pre-condition: 130 rows spanning three bitset words
+    double[] amounts = new double[130];
+    String[] categories = new String[130];
+    for (int i = 0; i < amounts.length; i++) {
+      amounts[i] = i % 7 == 0 ? 0 : i % 11 == 0 ? 1000.01 : i;
+      categories[i] = i % 5 == 0 ? "Food" : i % 13 == 0 ? "groceries" : i % 17 == 0 ? null : "bills";
+    }
+
+    // Perform the action: Validate the batch
+    BatchValidation result = InputValidation.validate(amounts, categories, amounts.length, new BatchValidation());
+
+    // Post-condition: Each row agrees with isValidAmount() and isValidCategory()
+    int rejected = 0;
+    for (int i = 0; i < amounts.length; i++) {
+      int expected = (InputValidation.isValidAmount(amounts[i]) ? 0 : BatchValidation.INVALID_AMOUNT)
+          | (InputValidation.isValidCategory(categories[i]) ? 0 : BatchValidation.INVALID_CATEGORY);
+      assertEquals("row " + i, expected, result.reasonsOf(i));
+      rejected += expected == 0 ? 0 : 1;
+    }
+    assertEquals(rejected, result.getRejectedCount());
+    assertEquals(BatchValidation.INVALID_AMOUNT | BatchValidation.INVALID_CATEGORY, result.reasonsOf(91));
+    assertEquals(0, result.nextRejected(0));
+    assertEquals(1, result.nextAccepted(0));
+    assertEquals(126, result.nextRejected(123));
+    assertEquals(-1, result.nextAccepted(130));
+
+    // A smaller batch reuses the result without stale rejections
+    InputValidation.validate(new double[] {5, 6}, null, 2, result);
+    assertEquals(2, result.size());
+    assertEquals(0, result.getRejectedCount());
+    assertEquals(-1, result.nextRejected(0));
+
+    // The controller adds the valid rows of a batch in one update
+    ControllerMetrics metrics = controller.getMetrics();
+    BatchValidation[] added = new BatchValidation[1];
+    SwingUtilities.invokeAndWait(() -> added[0] = controller.addTransactions(
+        new double[] {10, -1, 20, 30}, new String[] {"food", "food", "cars", "Travel"}));
+    assertEquals(2, added[0].getAcceptedCount());
+    assertEquals(BatchValidation.INVALID_CATEGORY, added[0].reasonsOf(2));
+    assertEquals(2, model.getTransactions().size());
+    assertEquals("Travel", model.getTransactions().get(1).getCategory());
+    assertEquals(2, metrics.getRejectedAdds());
+  }
+
+  /**
+   * Top-k queries return the largest amounts without sorting the ledger,
+   * and per-category quantiles follow additions and removals.
+   */
+  @Test
+  public void testTopKAndQuantiles() {
+    // Pre-condition: Amounts 1 to 1000, odd ones food and even ones bills,
+    // plus a tie at the top
+    ExpenseTrackerModel columnar = new ExpenseTrackerModel(StorageMode.COLUMNAR);
+    List<Transaction> all = new ArrayList<>();
+    for (int amount = 1; amount <= 1000; amount++) {
+      all.add(new Transaction(amount, amount % 2 == 1 ? "food" : "bills"));
+    }
+    Transaction tie = new Transaction(1000, "Food");
+    all.add(tie);
+    model.addAll(all);
+    columnar.addAll(all);
+
+    // Perform the action: Query the largest amounts and the percentiles
+    List<Transaction> largest = model.getLargest(3);
+    List<Transaction> largestFood = columnar.getLargestInCategory("FOOD", 2);
+    RunningAggregate food = model.getCategoryAggregate("food");
+
+    // Post-condition: Largest first, ties in insertion order
+    assertEquals(Arrays.asList(all.get(999), tie, all.get(998)), largest);
+    assertEquals(Arrays.asList(tie, all.get(998)), largestFood);
+    assertEquals(0, model.getLargest(0).size());
+    assertEquals(1001, model.getLargest(5000).size());
+    assertEquals(0, model.getLargestInCategory("travel", 3).size());
+    try {
+      model.getLargest(-1);
+      fail("Negative k must be rejected");
+    } catch (IllegalArgumentException expected) {
+      // rejected
+    }
+
+    // Quantiles are within 1% and the extremes are exact
+    assertEquals(501, food.getMedian(), 5.01);
+    assertEquals(950, food.getQuantile(0.95), 9.5);
+    assertEquals(1, food.getQuantile(0), 0);
+    assertEquals(1000, food.getQuantile(1), 0);
+    assertEquals(501, model.getAggregate().getMedian(), 5.01);
+    assertEquals(501, columnar.getCategoryAggregate("Food").getMedian(), 5.01);
+
+    // Removals update the sketches and the top-k results
+    model.removeAll(new ArrayList<>(all.subList(500, 1001)));
+    assertEquals(249, food.getMedian(), 2.49);
+    assertEquals(499, food.getQuantile(1), 0);
+    assertEquals(Arrays.asList(all.get(499)), model.getLargest(1));
+    model.removeAll(new ArrayList<>(all.subList(0, 500)));
+    assertTrue(Double.isNaN(food.getMedian()));
+    assertEquals(0, model.getLargestInCategory("food", 3).size());
+  }
+
+  /**
+   * Daily and monthly rollups follow additions and removals, and the
+   * view's summary table is filled from them.
+   */
+  @Test
+  public void testSpendRollups() throws Exception {
+    // Pre-condition: Transactions on two days in March and one in April
+    ZoneId zone = ZoneId.systemDefault();
+    long march1 = LocalDate.of(2025, 3, 1).atTime(9, 0).atZone(zone).toInstant().toEpochMilli();
+    long march2 = LocalDate.of(2025, 3, 2).atTime(23, 59).atZone(zone).toInstant().toEpochMilli();
+    long april1 = LocalDate.of(2025, 4, 1).atStartOfDay(zone).toInstant().toEpochMilli();
+    Transaction breakfast = new Transaction(10.00, "food", march1);
+    Transaction rent = new Transaction(500.00, "bills", march1);
+    Transaction dinner = new Transaction(25.50, "Food", march2);
+    Transaction train = new Transaction(40.00, "travel", april1);
+
+    // Perform the action: Add them and read the rollups
+    model.addAll(Arrays.asList(breakfast, rent, dinner, train));
+    SortedMap<LocalDate, PeriodSummary> days = model.getDailySummaries(null, null);
+    SortedMap<YearMonth, PeriodSummary> months = model.getMonthlySummaries(YearMonth.of(2025, 3), YearMonth.of(2025, 3));
+
+    // Post-condition: One cell per day and month, with category totals
+    assertEquals(Arrays.asList(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 2), LocalDate.of(2025, 4, 1)),
+                 new ArrayList<>(days.keySet()));
+    assertEquals(510.00, days.get(LocalDate.of(2025, 3, 1)).getSum(), 0.001);
+    assertEquals(2, days.get(LocalDate.of(2025, 3, 1)).getCount());
+    assertEquals(1, months.size());
+    PeriodSummary march = months.get(YearMonth.of(2025, 3));
+    assertEquals(3, march.getCount());
+    assertEquals(535.50, march.getSum(), 0.001);
+    assertEquals(35.50, march.getCategoryTotal("FOOD"), 0.001);
+    assertEquals(2, march.getCategoryCount("food"));
+    assertEquals(0, march.getCategoryCount("travel"));
+    assertEquals(1, model.getDailySummaries(LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 31)).size());
+
+    // Removing the last transaction of a day drops its cell
+    model.removeTransaction(dinner);
+    assertEquals(2, model.getDailySummaries(null, null).size());
+    assertEquals(510.00, model.getMonthlySummaries(null, null).get(YearMonth.of(2025, 3)).getSum(), 0.001);
+    assertFalse(model.getMonthlySummaries(null, null).get(YearMonth.of(2025, 3))
+                     .getCategoryTotals().containsKey("travel"));
+
+    // The summary table shows one row per month and a column per category
+    SwingUtilities.invokeAndWait(() -> view.getSummaryCombo().setSelectedItem("Monthly"));
+    SummaryTableModel summary = view.getSummaryTableModel();
+    assertEquals(2, summary.getRowCount());
+    assertEquals(6, summary.getColumnCount());
+    assertEquals("2025-03", summary.getValueAt(0, 0));
+    assertEquals(500.00, (Double) summary.getValueAt(0, 3), 0.001);
+    SwingUtilities.invokeAndWait(() -> controller.addTransaction(30.00, "food"));
+    assertEquals(3, summary.getRowCount());
+  }
+
+  @Test
+  public void testLazyFilterPaging() throws Exception {
+    // Pre-condition: 25 transactions, every other one of category food
+    for (int i = 0; i < 25; i++) {
+      model.addTransaction(new Transaction(i + 1, i % 2 == 0 ? "food" : "bills"));
+    }
+    AtomicInteger tested = new AtomicInteger();
+    TransactionFilter food = new CategoryFilter("food");
+    TransactionFilter counting = new TransactionFilter() {
+      @Override
+      public List<Transaction> filter(List<Transaction> txs) {
+        return food.filter(txs);
+      }
+
+      @Override
+      public boolean matches(Transaction t) {
+        tested.incrementAndGet();
+        return food.matches(t);
+      }
+    };
+
+    // Perform the action: Read the first three matches through a cursor
+    FilterCursor cursor = counting.cursor(model);
+    List<Transaction> firstThree = cursor.next(3);
+
+    // Post-condition: Only the transactions up to the third match were tested
+    assertEquals(3, firstThree.size());
+    assertEquals(5.0, firstThree.get(2).getAmount(), 0.01);
+    assertEquals(5, tested.get());
+    assertEquals(5, cursor.getPosition());
+    assertEquals(2, cursor.skip(2));
+    assertEquals(11.0, cursor.next().getAmount(), 0.01);
+
+    // A pager returns offset/limit pages and scans no further than needed
+    tested.set(0);
+    FilterPager pager = counting.pager(model, 5);
+    List<Transaction> second = pager.getPage(1);
+    assertEquals(5, second.size());
+    assertEquals(11.0, second.get(0).getAmount(), 0.01);
+    assertEquals(19, tested.get());
+    assertTrue(pager.hasPage(2));
+    assertEquals(3, pager.getPage(2).size());
+    assertFalse(pager.hasPage(3));
+    assertTrue(pager.getPage(7).isEmpty());
+
+    // The controller pages through the results in the view
+    SwingUtilities.invokeAndWait(() -> controller.applyFilterPaged(food, 5));
+    assertEquals(0, controller.getPageIndex());
+    assertEquals(6, view.getTableModel().getRowCount());
+    assertTrue(view.getNextPageBtn().isEnabled());
+    assertFalse(view.getPrevPageBtn().isEnabled());
+    AtomicBoolean moved = new AtomicBoolean();
+    SwingUtilities.invokeAndWait(() -> moved.set(controller.nextPage() && controller.nextPage()));
+    assertTrue(moved.get());
+    assertEquals("Page 3", view.getPageLabel().getText());
+    assertEquals(4, view.getTableModel().getRowCount());
+    assertFalse(view.getNextPageBtn().isEnabled());
+    SwingUtilities.invokeAndWait(() -> moved.set(controller.nextPage()));
+    assertFalse(moved.get());
+
+    // A new match appears on the page shown; clearing the filter stops paging
+    SwingUtilities.invokeAndWait(() -> controller.addTransaction(100.00, "food"));
+    assertEquals(5, view.getTableModel().getRowCount());
+    SwingUtilities.invokeAndWait(() -> controller.clearFilter());
+    assertEquals(-1, controller.getPageIndex());
+    assertEquals(27, view.getTableModel().getRowCount());
+  }
+
+  /**
+   * Paging an index-backed filter reads its matches through the index,
+   * and model changes update the pages without paging from the start.
+   */
+  @Test
+  public void testPagingFollowsModelChanges() throws Exception {
+    // Pre-condition: A ledger where every tenth transaction is food
+    SwingUtilities.invokeAndWait(() -> {
+      for (int i = 0; i < 10000; i++) {
+        model.addTransaction(new Transaction(i % 100 + 1, i % 10 == 0 ? "food" : "bills"));
+      }
+    });
+    AtomicInteger tested = new AtomicInteger();
+    TransactionFilter food = new CategoryFilter("food") {
+      @Override
+      public boolean matches(Transaction t) {
+        tested.incrementAndGet();
+        return super.matches(t);
+      }
+    };
+
+    // Perform the action: Page through the matches, then change the model
+    SwingUtilities.invokeAndWait(() -> controller.applyFilterPaged(food, 50));
+
+    // Post-condition: Only the first pages of the matches were tested
+    assertEquals(51, view.getTableModel().getRowCount());
+    assertTrue(tested.get() < 200);
+
+    // A change after the page shown leaves it alone; one on it shifts it
+    Transaction second = new CategoryFilter("food").filter(model).get(1);
+    Transaction late = new CategoryFilter("food").filter(model).get(500);
+    SwingUtilities.invokeAndWait(() -> {
+      controller.addTransaction(1000, "food");
+      model.removeTransaction(late);
+      assertEquals(11.00, (Double) view.getTableModel().getValueAt(1, 1), 0.01);
+      model.removeTransaction(second);
+      assertEquals(21.00, (Double) view.getTableModel().getValueAt(1, 1), 0.01);
+      assertEquals(51, view.getTableModel().getRowCount());
+    });
+
+    // Later pages and the last page reflect every change
+    List<Transaction> expected = new CategoryFilter("food").filter(model);
+    SwingUtilities.invokeAndWait(() -> {
+      while (controller.nextPage()) {
+        int first = controller.getPageIndex() * 50;
+        assertEquals(expected.get(first).getAmount(),
+                     (Double) view.getTableModel().getValueAt(0, 1), 0.01);
+      }
+      assertEquals(19, controller.getPageIndex());
+      assertEquals(999 - 19 * 50 + 1, view.getTableModel().getRowCount());
+      assertEquals(1000.00, (Double) view.getTableModel().getValueAt(48, 1), 0.01);
+    });
+
+    // A filter without an index pages a snapshot and follows removals by position
+    TransactionFilter small = new TransactionFilter() {
+      @Override
+      public List<Transaction> filter(List<Transaction> txs) {
+        List<Transaction> result = new ArrayList<>();
+        for (Transaction t : txs) {
+          if (matches(t)) {
+            result.add(t);
+          }
+        }
+        return result;
+      }
+
+      @Override
+      public boolean matches(Transaction t) {
+        return t.getAmount() <= 2;
+      }
+    };
+    SwingUtilities.invokeAndWait(() -> {
+      controller.applyFilterPaged(small, 50);
+      controller.nextPage();
+      model.removeTransaction(model.getTransactions().get(0));
+      model.removeTransaction(model.getTransactions().get(2));
+      controller.addTransaction(2, "bills");
+    });
+    List<Transaction> smallMatches = small.filter(model.getTransactions());
+    SwingUtilities.invokeAndWait(() -> {
+      assertEquals(smallMatches.get(50).getAmount(),
+                   (Double) view.getTableModel().getValueAt(0, 1), 0.01);
+      while (controller.nextPage()) {
+        // move to the last page
+      }
+      int last = controller.getPageIndex();
+      assertEquals(smallMatches.size() - last * 50 + 1, view.getTableModel().getRowCount());
+    });
+  }
+
+  /**
+   * Pagers over an index locate removed and added transactions by ID and
+   * index position, so their pages match those of a new pager even when
+   * the store builds a new Transaction object on every read.
+   */
+  @Test
+  public void testPagedRemovalUnderColumnarAndMappedStorage() throws IOException {
+    Path file = Files.createTempFile("transactions", ".ledger");
+    try {
+      // Pre-condition: The same ledger in columnar storage and mapped from a file
+      ExpenseTrackerModel saved = new ExpenseTrackerModel();
+      for (int i = 0; i < 200; i++) {
+        saved.addTransaction(new Transaction(200 - i, i % 4 == 0 ? "food" : "bills"));
+      }
+      saved.saveLedger(file);
+      ExpenseTrackerModel columnar = new ExpenseTrackerModel(StorageMode.COLUMNAR);
+      columnar.addAll(saved.getTransactions());
+      ExpenseTrackerModel mapped = ExpenseTrackerModel.openLedger(file, StorageMode.COLUMNAR);
+
+      for (ExpenseTrackerModel m : Arrays.asList(columnar, mapped)) {
+        AtomicInteger tested = new AtomicInteger();
+        TransactionFilter food = new CategoryFilter("food") {
+          @Override
+          public boolean matches(Transaction t) {
+            tested.incrementAndGet();
+            return super.matches(t);
+          }
+        };
+        TransactionFilter cheap = AmountRangeFilter.lessThan(100);
+        FilterPager byCategory = food.pager(m, 5);
+        FilterPager byAmount = cheap.pager(m, 5);
+        m.addChangeListener(e -> {
+          byCategory.update(e, 0);
+          byAmount.update(e, 0);
+        });
+
+        // Perform the action: Show the first page, then remove its first match
+        List<Transaction> first = byCategory.getPage(0);
+        assertEquals(5, tested.get());
+        assertTrue(m.removeById(first.get(0).getId()));
+
+        // Post-condition: The removed match left the page, which moved up by one
+        List<Transaction> page = byCategory.getPage(0);
+        assertFalse(page.contains(first.get(0)));
+        assertEquals(first.get(1), page.get(0));
+        assertEquals(food.pager(m, 5).getPage(0), page);
+
+        // Amount pages run in ascending amount order; adds land at their index position
+        assertEquals(1.0, byAmount.getPage(0).get(0).getAmount(), 0.001);
+        assertEquals(20.0, byAmount.getPage(3).get(4).getAmount(), 0.001);
+        m.addTransaction(new Transaction(1.5, "food"));
+        m.addTransaction(new Transaction(150, "food"));
+        assertEquals(1.5, byAmount.getPage(0).get(1).getAmount(), 0.001);
+        assertEquals(19.0, byAmount.getPage(3).get(4).getAmount(), 0.001);
+        for (int p = 0; p < 45; p++) {
+          assertEquals(food.pager(m, 5).getPage(p), byCategory.getPage(p));
+          assertEquals(cheap.pager(m, 5).getPage(p), byAmount.getPage(p));
+        }
+
+        // Removals that compact the storage renumber the index; the pagers start over
+        for (Transaction t : new ArrayList<>(m.getTransactions().subList(0, 150))) {
+          assertTrue(m.removeById(t.getId()));
+        }
+        m.removeById(m.getTransactions().get(0).getId());
+        for (int p = 0; p < 12; p++) {
+          assertEquals(food.pager(m, 5).getPage(p), byCategory.getPage(p));
+          assertEquals(cheap.pager(m, 5).getPage(p), byAmount.getPage(p));
+        }
+        assertEquals(new CategoryFilter("food").filter(m).size(),
+                     new CategoryFilter("food").pager(m, 1000).getPage(0).size());
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}